@@ -0,0 +1,88 @@
+package pro.greendata.rugrammartools;
+
+import java.util.Arrays;
+import java.util.Objects;
+
+/**
+ * All case forms of a word or phrase: in the original number and, optionally, in plural.
+ * The instance is immutable.
+ *
+ * @see InflectionEngine#inflectAllCases(String, PreparedPhrase.Type)
+ * @see InflectionEngine#inflectFullnameAllCases(String)
+ */
+public final class CaseForms {
+    private static final int SIZE = Case.values().length;
+
+    private final String[] forms;
+    private final String[] pluralForms;
+
+    /**
+     * Creates an instance.
+     *
+     * @param forms       {@code Array} of {@code String}s indexed by {@link Case#ordinal()}, not {@code null}
+     * @param pluralForms {@code Array} of {@code String}s indexed by {@link Case#ordinal()},
+     *                    or {@code null} if there are no plural forms
+     */
+    public CaseForms(String[] forms, String[] pluralForms) {
+        this.forms = check(forms).clone();
+        this.pluralForms = pluralForms == null ? null : check(pluralForms).clone();
+    }
+
+    private static String[] check(String[] forms) {
+        if (Objects.requireNonNull(forms).length != SIZE) {
+            throw new IllegalArgumentException("Wrong number of forms: " + forms.length);
+        }
+        return forms;
+    }
+
+    /**
+     * Returns the form for the given case, in the original number.
+     *
+     * @param declension {@link Case}, not {@code null}
+     * @return {@code String}
+     */
+    public String get(Case declension) {
+        return forms[declension.ordinal()];
+    }
+
+    /**
+     * Returns the plural form for the given case.
+     *
+     * @param declension {@link Case}, not {@code null}
+     * @return {@code String} or {@code null} if there are no plural forms
+     */
+    public String getPlural(Case declension) {
+        return pluralForms == null ? null : pluralForms[declension.ordinal()];
+    }
+
+    /**
+     * Answers {@code true} if there are plural forms.
+     *
+     * @return {@code boolean}
+     */
+    public boolean hasPlural() {
+        return pluralForms != null;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) {
+            return true;
+        }
+        if (!(o instanceof CaseForms)) {
+            return false;
+        }
+        CaseForms other = (CaseForms) o;
+        return Arrays.equals(forms, other.forms) && Arrays.equals(pluralForms, other.pluralForms);
+    }
+
+    @Override
+    public int hashCode() {
+        return 31 * Arrays.hashCode(forms) + Arrays.hashCode(pluralForms);
+    }
+
+    @Override
+    public String toString() {
+        return String.format("CaseForms{forms=%s, plural=%s}", Arrays.toString(forms), Arrays.toString(pluralForms));
+    }
+}
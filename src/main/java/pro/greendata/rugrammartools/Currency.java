@@ -0,0 +1,170 @@
+package pro.greendata.rugrammartools;
+
+import java.util.Locale;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * A currency for {@link SpellingEngine#spellMoney(java.math.BigDecimal, Currency, Case)}:
+ * the forms of the major unit (e.g. {@code рубль}) and of the minor unit (e.g. {@code копейка})
+ * together with their genders, which are needed for the agreement with the numerals.
+ * The forms must include plural, they can be obtained with {@link InflectionEngine#inflectAllCases(String, PreparedPhrase.Type)}.
+ * <p>
+ * There is a registry of currencies by code, which initially contains {@link #RUB}, {@link #USD} and {@link #EUR};
+ * other currencies can be added with {@link #register(Currency)} and removed with {@link #unregister(String)}.
+ * The instance is immutable.
+ */
+public final class Currency {
+    public static final Currency RUB = new Currency("RUB",
+            forms("рубль", "рубля", "рублю", "рубль", "рублём", "рубле",
+                    "рубли", "рублей", "рублям", "рубли", "рублями", "рублях"), Gender.MALE,
+            forms("копейка", "копейки", "копейке", "копейку", "копейкой", "копейке",
+                    "копейки", "копеек", "копейкам", "копейки", "копейками", "копейках"), Gender.FEMALE,
+            2);
+    public static final Currency USD = new Currency("USD",
+            forms("доллар", "доллара", "доллару", "доллар", "долларом", "долларе",
+                    "доллары", "долларов", "долларам", "доллары", "долларами", "долларах"), Gender.MALE,
+            cents(), Gender.MALE,
+            2);
+    public static final Currency EUR = new Currency("EUR",
+            forms("евро", "евро", "евро", "евро", "евро", "евро",
+                    "евро", "евро", "евро", "евро", "евро", "евро"), Gender.MALE,
+            cents(), Gender.MALE,
+            2);
+
+    private static final Map<String, Currency> REGISTRY = new ConcurrentHashMap<>(Map.of(
+            RUB.code, RUB, USD.code, USD, EUR.code, EUR));
+
+    private final String code;
+    private final CaseForms major;
+    private final Gender majorGender;
+    private final CaseForms minor;
+    private final Gender minorGender;
+    private final int minorDigits;
+
+    /**
+     * Creates a currency.
+     *
+     * @param code        {@code String} - the code, e.g. {@code "RUB"}, not {@code null}
+     * @param major       {@link CaseForms} of the major unit with plural forms, not {@code null}
+     * @param majorGender {@link Gender} of the major unit, not {@code null}
+     * @param minor       {@link CaseForms} of the minor unit with plural forms,
+     *                    {@code null} if the currency has no minor unit
+     * @param minorGender {@link Gender} of the minor unit, {@code null} if the currency has no minor unit
+     * @param minorDigits {@code int} - the number of the minor unit digits, e.g. {@code 2} for {@code RUB},
+     *                    {@code 0} if the currency has no minor unit
+     */
+    public Currency(String code,
+                    CaseForms major,
+                    Gender majorGender,
+                    CaseForms minor,
+                    Gender minorGender,
+                    int minorDigits) {
+        this.code = Objects.requireNonNull(code).toUpperCase(Locale.ROOT);
+        this.major = requirePlural(major);
+        this.majorGender = Objects.requireNonNull(majorGender);
+        if (minorDigits < 0 || minorDigits > 3) {
+            throw new IllegalArgumentException("Wrong number of minor digits: " + minorDigits);
+        }
+        if (minorDigits != 0) {
+            this.minor = requirePlural(minor);
+            this.minorGender = Objects.requireNonNull(minorGender);
+        } else {
+            this.minor = null;
+            this.minorGender = null;
+        }
+        this.minorDigits = minorDigits;
+    }
+
+    private static CaseForms requirePlural(CaseForms forms) {
+        if (!Objects.requireNonNull(forms).hasPlural()) {
+            throw new IllegalArgumentException("No plural forms: " + forms);
+        }
+        return forms;
+    }
+
+    private static CaseForms forms(String... forms) {
+        int size = Case.values().length;
+        String[] singular = new String[size];
+        String[] plural = new String[size];
+        System.arraycopy(forms, 0, singular, 0, size);
+        System.arraycopy(forms, size, plural, 0, size);
+        return new CaseForms(singular, plural);
+    }
+
+    private static CaseForms cents() {
+        return forms("цент", "цента", "центу", "цент", "центом", "центе",
+                "центы", "центов", "центам", "центы", "центами", "центах");
+    }
+
+    /**
+     * Finds the registered currency by its code.
+     *
+     * @param code {@code String}, case-insensitive, not {@code null}
+     * @return {@link Currency}
+     * @throws IllegalArgumentException if there is no such currency
+     */
+    public static Currency of(String code) {
+        Currency res = REGISTRY.get(code.toUpperCase(Locale.ROOT));
+        if (res == null) {
+            throw new IllegalArgumentException("Unknown currency: " + code);
+        }
+        return res;
+    }
+
+    /**
+     * Registers the given currency, replacing the currency with the same code if any.
+     *
+     * @param currency {@link Currency}, not {@code null}
+     * @return the previous {@link Currency} with the same code or {@code null}
+     */
+    public static Currency register(Currency currency) {
+        return REGISTRY.put(currency.code, currency);
+    }
+
+    /**
+     * Removes the currency with the given code from the registry.
+     *
+     * @param code {@code String}, case-insensitive, not {@code null}
+     * @return the removed {@link Currency} or {@code null}
+     */
+    public static Currency unregister(String code) {
+        return REGISTRY.remove(code.toUpperCase(Locale.ROOT));
+    }
+
+    public String code() {
+        return code;
+    }
+
+    public CaseForms major() {
+        return major;
+    }
+
+    public Gender majorGender() {
+        return majorGender;
+    }
+
+    /**
+     * Returns the forms of the minor unit.
+     *
+     * @return {@link CaseForms} or {@code null} if the currency has no minor unit
+     */
+    public CaseForms minor() {
+        return minor;
+    }
+
+    public Gender minorGender() {
+        return minorGender;
+    }
+
+    public int minorDigits() {
+        return minorDigits;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("Currency{code='%s', major=%s, minor=%s}", code, major.get(Case.NOMINATIVE),
+                minor == null ? null : minor.get(Case.NOMINATIVE));
+    }
+}
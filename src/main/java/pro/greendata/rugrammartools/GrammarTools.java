@@ -1,8 +1,12 @@
 package pro.greendata.rugrammartools;
 
 import pro.greendata.rugrammartools.impl.InflectionEngineImpl;
+import pro.greendata.rugrammartools.impl.Preloader;
 import pro.greendata.rugrammartools.impl.SpellingEngineImpl;
 
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+
 /**
  * A factory to obtain grammar tools instances.
  * Created by @ssz on 01.03.2022.
@@ -26,4 +30,27 @@ public class GrammarTools {
     public static SpellingEngine getSpellingEngine() {
         return new SpellingEngineImpl();
     }
+
+    /**
+     * Eagerly loads all resources (dictionaries, rules) in parallel
+     * and then runs a short built-in warm-up corpus through the engines,
+     * so that the first real requests do not pay for loading and JIT-compilation.
+     * Without the preload all resources are loaded lazily, on first use.
+     *
+     * @param executor {@link Executor} to run the loading tasks, not {@code null}
+     * @return {@code CompletableFuture} that completes when the tools are ready
+     * @see #isReady()
+     */
+    public static CompletableFuture<Void> preload(Executor executor) {
+        return Preloader.preload(executor, getInflectionEngine(), getSpellingEngine());
+    }
+
+    /**
+     * Answers {@code true} if the {@link #preload(Executor) preload} has been successfully completed.
+     *
+     * @return {@code boolean}
+     */
+    public static boolean isReady() {
+        return Preloader.isReady();
+    }
 }
@@ -1,5 +1,17 @@
 package pro.greendata.rugrammartools;
 
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ForkJoinPool;
+import java.util.function.Function;
+
 /**
  * An engine for running inflection process.
  * Created by @ssz on 27.11.2020.
@@ -17,6 +29,26 @@ public interface InflectionEngine {
      */
     String inflectRegularTerm(String phrase, Case declension, Boolean animate);
 
+    /**
+     * Declines the given {@code phrase} (combination of words: job-title, organization name)
+     * into the specified declension case and number.
+     *
+     * @param phrase     {@code String} not {@code null}
+     * @param declension {@link Case declension case}, not {@code null}
+     * @param animate    {@code Boolean} the names of organizations are usually inanimate, the names of professions are animate
+     * @param plural     {@code Boolean} if {@code true} then plural,
+     *                   {@code false} for singular or {@code null} for default behaviour
+     * @return {@code String} -  a phrase in the selected case
+     * @throws UnsupportedOperationException if {@code plural} is {@code true} and the engine does not support plural,
+     *                                       the default implementation supports only the original number
+     */
+    default String inflectRegularTerm(String phrase, Case declension, Boolean animate, Boolean plural) {
+        if (Boolean.TRUE.equals(plural)) {
+            throw new UnsupportedOperationException("Plural is not supported");
+        }
+        return inflectRegularTerm(phrase, declension, animate);
+    }
+
     /**
      * Declines the given {@code numeral} with the {@code unit} into the specified declension case.
      *
@@ -100,6 +132,68 @@ public interface InflectionEngine {
         return inflectRegularTerm(organization, declension, false);
     }
 
+    /**
+     * Analyzes the given {@code phrase} once, so that it can be declined into different cases
+     * without repeating the analysis (e.g. a name in a document template).
+     *
+     * @param phrase {@code String}, not {@code null}
+     * @param type   {@link PreparedPhrase.Type}, not {@code null}
+     * @return {@link PreparedPhrase}
+     */
+    default PreparedPhrase prepare(String phrase, PreparedPhrase.Type type) {
+        // this is the default implementation that does not reuse anything
+        return new PreparedPhrase() {
+            @Override
+            public String text() {
+                return phrase;
+            }
+
+            @Override
+            public PreparedPhrase.Type type() {
+                return type;
+            }
+
+            @Override
+            public String inflect(Case declension, Boolean plural) {
+                switch (type) {
+                    case PROFESSION_NAME:
+                        return Boolean.TRUE.equals(plural) ?
+                                inflectRegularTerm(phrase, declension, true, true) : inflectNameOfProfession(phrase, declension);
+                    case ORGANIZATION_NAME:
+                        return Boolean.TRUE.equals(plural) ?
+                                inflectRegularTerm(phrase, declension, false, true) : inflectNameOfOrganization(phrase, declension);
+                    default:
+                        return inflectRegularTerm(phrase, declension, null, plural);
+                }
+            }
+        };
+    }
+
+    /**
+     * Declines the given {@code phrase} into all cases, both in the original number and in plural.
+     *
+     * @param phrase {@code String}, not {@code null}
+     * @param type   {@link PreparedPhrase.Type}, not {@code null}
+     * @return {@link CaseForms}
+     */
+    default CaseForms inflectAllCases(String phrase, PreparedPhrase.Type type) {
+        return prepare(phrase, type).inflectAllCases();
+    }
+
+    /**
+     * Analyzes the given {@code unit} once and declines it into all cases, both singular and plural,
+     * so that it can agree with any number without repeating the analysis,
+     * see {@link SpellingEngine#format(java.math.BigDecimal, Unit, Case)}.
+     *
+     * @param unit {@code String} - a unit in the nominative singular, e.g. {@code "календарный день"}, not {@code null}
+     * @return {@link Unit}
+     * @throws UnsupportedOperationException if the engine cannot prepare units, this is the default behavior
+     * @see Unit#of(String)
+     */
+    default Unit prepareUnit(String unit) {
+        throw new UnsupportedOperationException("Units are not supported");
+    }
+
     /**
      * Declines the given {@code sfp} (full name) into the specified declension case.
      *
@@ -111,6 +205,128 @@ public interface InflectionEngine {
         return String.join(" ", inflectSPF(sfp.split("\\s+"), declension, null));
     }
 
+    /**
+     * Declines the given {@code sfp} (full name) into the specified declension case
+     * and appends the result to the given {@code out}, e.g. directly into the buffer of a report renderer.
+     *
+     * @param out        {@link Appendable}, e.g. {@link StringBuilder}, not {@code null}
+     * @param sfp        {@code String} - surname+firstname+patronymic with space as separator, surname is mandatory
+     * @param declension {@link Case declension case}, not {@code null}
+     * @param <A>        the type of appendable
+     * @return the same {@code out}
+     * @throws java.io.UncheckedIOException if an I/O error occurs
+     * @see #inflectFullname(String, Case)
+     */
+    default <A extends Appendable> A inflectFullnameTo(A out, String sfp, Case declension) {
+        return append(out, inflectFullname(sfp, declension));
+    }
+
+    /**
+     * Declines the given {@code phrase} into the specified declension case
+     * and appends the result to the given {@code out}.
+     *
+     * @param out        {@link Appendable}, e.g. {@link StringBuilder}, not {@code null}
+     * @param phrase     {@code String}, not {@code null}
+     * @param type       {@link PreparedPhrase.Type}, not {@code null}
+     * @param declension {@link Case declension case}, not {@code null}
+     * @param <A>        the type of appendable
+     * @return the same {@code out}
+     * @throws java.io.UncheckedIOException if an I/O error occurs
+     */
+    default <A extends Appendable> A inflectTo(A out, String phrase, PreparedPhrase.Type type, Case declension) {
+        Objects.requireNonNull(declension);
+        switch (Objects.requireNonNull(type)) {
+            case PROFESSION_NAME:
+                return append(out, inflectNameOfProfession(phrase, declension));
+            case ORGANIZATION_NAME:
+                return append(out, inflectNameOfOrganization(phrase, declension));
+            default:
+                return append(out, inflectRegularTerm(phrase, declension, null));
+        }
+    }
+
+    /**
+     * Declines the given {@code sfp} (full name) into all cases.
+     *
+     * @param sfp {@code String} - surname+firstname+patronymic with space as separator, surname is mandatory
+     * @return {@link CaseForms} without plural forms
+     */
+    default CaseForms inflectFullnameAllCases(String sfp) {
+        Case[] cases = Case.values();
+        String[] res = new String[cases.length];
+        for (Case declension : cases) {
+            res[declension.ordinal()] = inflectFullname(sfp, declension);
+        }
+        return new CaseForms(res, null);
+    }
+
+    /**
+     * Declines the given full names into the specified declension case.
+     * Identical inputs are processed only once, the work is split across the {@link ForkJoinPool#commonPool()}.
+     *
+     * @param sfp        {@code List} of surname+firstname+patronymic strings, not {@code null}
+     * @param declension {@link Case declension case}, not {@code null}
+     * @return {@code List} of full names in the selected case, in the input order
+     * @see #inflectFullname(String, Case)
+     */
+    default List<String> inflectFullnames(List<String> sfp, Case declension) {
+        return inflectFullnames(sfp, declension, ForkJoinPool.commonPool());
+    }
+
+    /**
+     * Declines the given full names into the specified declension case.
+     * Identical inputs are processed only once, the work is split across the given {@code executor}.
+     * The default implementation processes the unique inputs sequentially in the calling thread.
+     *
+     * @param sfp        {@code List} of surname+firstname+patronymic strings, not {@code null}
+     * @param declension {@link Case declension case}, not {@code null}
+     * @param executor   {@link Executor} to run the tasks, not {@code null}
+     * @return {@code List} of full names in the selected case, in the input order
+     * @see #inflectFullname(String, Case)
+     */
+    default List<String> inflectFullnames(List<String> sfp, Case declension, Executor executor) {
+        Objects.requireNonNull(declension);
+        Objects.requireNonNull(executor);
+        return map(sfp, x -> inflectFullname(x, declension));
+    }
+
+    /**
+     * Declines the given phrases into the specified declension case.
+     * Identical inputs are processed only once, the work is split across the {@link ForkJoinPool#commonPool()}.
+     *
+     * @param phrases    {@code List} of phrases, not {@code null}
+     * @param type       {@link PreparedPhrase.Type}, not {@code null}
+     * @param declension {@link Case declension case}, not {@code null}
+     * @return {@code List} of phrases in the selected case, in the input order
+     */
+    default List<String> inflectPhrases(List<String> phrases, PreparedPhrase.Type type, Case declension) {
+        return inflectPhrases(phrases, type, declension, ForkJoinPool.commonPool());
+    }
+
+    /**
+     * Declines the given phrases into the specified declension case.
+     * Identical inputs are processed only once, the work is split across the given {@code executor}.
+     * The default implementation processes the unique inputs sequentially in the calling thread.
+     *
+     * @param phrases    {@code List} of phrases, not {@code null}
+     * @param type       {@link PreparedPhrase.Type}, not {@code null}
+     * @param declension {@link Case declension case}, not {@code null}
+     * @param executor   {@link Executor} to run the tasks, not {@code null}
+     * @return {@code List} of phrases in the selected case, in the input order
+     */
+    default List<String> inflectPhrases(List<String> phrases, PreparedPhrase.Type type, Case declension, Executor executor) {
+        Objects.requireNonNull(declension);
+        Objects.requireNonNull(executor);
+        switch (Objects.requireNonNull(type)) {
+            case PROFESSION_NAME:
+                return map(phrases, x -> inflectNameOfProfession(x, declension));
+            case ORGANIZATION_NAME:
+                return map(phrases, x -> inflectNameOfOrganization(x, declension));
+            default:
+                return map(phrases, x -> inflectRegularTerm(x, declension, null));
+        }
+    }
+
     /**
      * Declines the given {@code sfp} (full name) into the specified declension case.
      *
@@ -152,4 +368,50 @@ public interface InflectionEngine {
         }
         return inflectRegularTerm(phrase, declension, null);
     }
+
+    /**
+     * Restores the nominative case of the given {@code phrase} (a regular term, a job-title, an organization name),
+     * which can be in any case, e.g. {@code "главному бухгалтеру" -> "главный бухгалтер"}.
+     * The grammatical number is preserved; the dependent words (e.g. {@code "отдела кадров"}) and unknown words
+     * are left as is.
+     *
+     * @param phrase {@code String}, not {@code null}
+     * @return {@code String} - the phrase in the nominative case
+     * @throws UnsupportedOperationException if the engine does not support the reverse inflection,
+     *                                       this is the default behavior
+     */
+    default String toNominative(String phrase) {
+        throw new UnsupportedOperationException("Reverse inflection is not supported");
+    }
+
+    /**
+     * Restores the nominative case of the given full name, which can be in any case,
+     * e.g. {@code "Петровой Анне Сергеевне" -> "Петрова Анна Сергеевна"}.
+     *
+     * @param sfp {@code String} surname + firstname + patronymic (the last two are optional), not {@code null}
+     * @return {@code String} - the full name in the nominative case
+     * @throws UnsupportedOperationException if the engine does not support the reverse inflection,
+     *                                       this is the default behavior
+     */
+    default String toNominativeFullname(String sfp) {
+        throw new UnsupportedOperationException("Reverse inflection is not supported");
+    }
+
+    private static List<String> map(List<String> inputs, Function<String, String> function) {
+        Map<String, String> cache = new HashMap<>();
+        List<String> res = new ArrayList<>(inputs.size());
+        for (String x : inputs) {
+            res.add(cache.computeIfAbsent(x, function));
+        }
+        return Collections.unmodifiableList(res);
+    }
+
+    private static <A extends Appendable> A append(A out, CharSequence value) {
+        try {
+            out.append(value);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return out;
+    }
 }
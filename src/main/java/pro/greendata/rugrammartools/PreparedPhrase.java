@@ -0,0 +1,85 @@
+package pro.greendata.rugrammartools;
+
+/**
+ * A phrase that has been analyzed once and then can be declined into any case many times
+ * at the cost of applying the rules only.
+ * The instance is immutable and thread-safe.
+ *
+ * @see InflectionEngine#prepare(String, Type)
+ */
+public interface PreparedPhrase {
+
+    /**
+     * Returns the original phrase.
+     *
+     * @return {@code String}
+     */
+    String text();
+
+    /**
+     * Returns the type of the phrase.
+     *
+     * @return {@link Type}
+     */
+    Type type();
+
+    /**
+     * Declines the phrase into the specified declension case.
+     *
+     * @param declension {@link Case declension case}, not {@code null}
+     * @return {@code String} - the phrase in the selected case
+     */
+    default String inflect(Case declension) {
+        return inflect(declension, null);
+    }
+
+    /**
+     * Declines the phrase into the specified declension case and number.
+     *
+     * @param declension {@link Case declension case}, not {@code null}
+     * @param plural     {@code Boolean} if {@code true} then plural,
+     *                   {@code false} for singular or {@code null} for default behaviour
+     * @return {@code String} - the phrase in the selected case
+     */
+    String inflect(Case declension, Boolean plural);
+
+    /**
+     * Declines the phrase into all cases, both in the original number and in plural.
+     *
+     * @return {@link CaseForms}
+     */
+    default CaseForms inflectAllCases() {
+        Case[] cases = Case.values();
+        String[] forms = new String[cases.length];
+        String[] plural = new String[cases.length];
+        for (Case declension : cases) {
+            forms[declension.ordinal()] = inflect(declension);
+            plural[declension.ordinal()] = inflect(declension, true);
+        }
+        return new CaseForms(forms, plural);
+    }
+
+    /**
+     * A phrase type.
+     */
+    enum Type {
+        /**
+         * A (legal) profession name, animate, e.g. {@code "медицинская сестра-анестезист"}
+         *
+         * @see InflectionEngine#inflectNameOfProfession(String, Case)
+         */
+        PROFESSION_NAME,
+        /**
+         * A (legal) organization name, inanimate, e.g. {@code "акционерное общество"}
+         *
+         * @see InflectionEngine#inflectNameOfOrganization(String, Case)
+         */
+        ORGANIZATION_NAME,
+        /**
+         * Any other combination of words
+         *
+         * @see InflectionEngine#inflectRegularTerm(String, Case, Boolean)
+         */
+        REGULAR_TERM,
+    }
+}
@@ -1,7 +1,10 @@
 package pro.greendata.rugrammartools;
 
+import java.io.IOException;
+import java.io.UncheckedIOException;
 import java.math.BigDecimal;
 import java.math.BigInteger;
+import java.math.RoundingMode;
 
 /**
  * Created by @ssz on 18.02.2022.
@@ -25,6 +28,70 @@ public interface SpellingEngine {
      */
     String spellOrdinal(BigInteger number, Gender gender);
 
+    /**
+     * Answers the {@link InflectionEngine} that is used by the default methods
+     * to inflect the spelled numbers and units, e.g. by {@link #spell(BigDecimal, Case)}.
+     *
+     * @return {@link InflectionEngine}
+     * @throws UnsupportedOperationException if the engine does not inflect, this is the default behavior;
+     *                                       an implementation that relies on the default methods must override it
+     */
+    default InflectionEngine inflectionEngine() {
+        throw new UnsupportedOperationException("No inflection engine");
+    }
+
+    /**
+     * Spells the given {@code number} in the specified case,
+     * e.g. {@code 25000, INSTRUMENTAL -> "двадцатью пятью тысячами"}.
+     * The result is the same as {@link InflectionEngine#inflectNumeral(String, Case)} of {@link #spell(BigDecimal)}.
+     *
+     * @param number     {@link BigDecimal}, not {@code null}
+     * @param declension {@link Case}, not {@code null}
+     * @return the corresponding {@code String}
+     * @see #inflectionEngine()
+     */
+    default String spell(BigDecimal number, Case declension) {
+        String res = spell(number);
+        if (declension == Case.NOMINATIVE) {
+            return res;
+        }
+        return inflectionEngine().inflectNumeral(res, declension);
+    }
+
+    /**
+     * Spells the given ordinal {@code number} in the specified case,
+     * e.g. {@code 42, MALE, DATIVE -> "сорок второму"}.
+     *
+     * @param number     non-negative {@link BigInteger}, not {@code null}
+     * @param gender     {@link Gender}
+     * @param declension {@link Case}, not {@code null}
+     * @param animate    if {@code true} the masculine accusative is as for animate nouns ({@code "второго кота"})
+     * @return the corresponding {@code String}
+     * @see #inflectionEngine()
+     */
+    default String spellOrdinal(BigInteger number, Gender gender, Case declension, boolean animate) {
+        // this is the default implementation that inflects the last word of the spelled ordinal,
+        // only this word is declined: "две тысячи сорок второму"
+        String res = spellOrdinal(number, gender);
+        if (declension == Case.NOMINATIVE) {
+            return res;
+        }
+        int last = res.lastIndexOf(' ') + 1;
+        return res.substring(0, last) + inflectionEngine().inflectRegularTerm(res.substring(last), declension, animate);
+    }
+
+    /**
+     * Spells the given plain decimal number, e.g. {@code "-1234.50"};
+     * this allows spelling a decimal text (e.g. from JSON or a database column) without creating a {@link BigDecimal}.
+     *
+     * @param number {@code String} - an optional sign, digits and an optional point with fraction digits, not {@code null}
+     * @return the corresponding {@code String}
+     * @throws NumberFormatException if the string is not a decimal number
+     */
+    default String spell(String number) {
+        return spell(new BigDecimal(number));
+    }
+
     default String spell(long number) {
         return spell(BigDecimal.valueOf(number));
     }
@@ -37,4 +104,149 @@ public interface SpellingEngine {
         if (number < 0) throw new IllegalArgumentException("Negative ordinal number:" + number);
         return spellOrdinal(BigInteger.valueOf(number), gender);
     }
+
+    /**
+     * Spells the given money {@code amount} in the specified case, with the currency units agreed with the numbers,
+     * e.g. {@code 42.5, RUB, GENITIVE -> "сорока двух рублей пятидесяти копеек"}.
+     * The amount is rounded to the {@link Currency#minorDigits() minor digits} of the currency;
+     * the minor part is always spelled, e.g. {@code "сорок один рубль ноль копеек"}.
+     *
+     * @param amount     {@link BigDecimal}, not {@code null}
+     * @param currency   {@link Currency}, not {@code null}
+     * @param declension {@link Case}, not {@code null}
+     * @return the corresponding {@code String}
+     * @see #inflectionEngine()
+     */
+    default String spellMoney(BigDecimal amount, Currency currency, Case declension) {
+        // this is the default implementation that inflects the spelled parts with the units,
+        // the rounding is half-even, as in the default MathContext.DECIMAL128 of the implementation
+        InflectionEngine engine = inflectionEngine();
+        int minorDigits = currency.minorDigits();
+        BigDecimal value = amount.setScale(minorDigits, RoundingMode.HALF_EVEN).abs();
+        BigDecimal major = value.setScale(0, RoundingMode.DOWN);
+        StringBuilder res = new StringBuilder();
+        if (amount.signum() < 0 && value.signum() != 0) {
+            res.append("минус ");
+        }
+        res.append(engine.inflectNumeral(spell(major), currency.major().get(Case.NOMINATIVE), declension));
+        if (minorDigits != 0) {
+            BigDecimal minor = value.subtract(major).movePointRight(minorDigits);
+            res.append(' ').append(engine.inflectNumeral(spell(minor), currency.minor().get(Case.NOMINATIVE), declension));
+        }
+        return res.toString();
+    }
+
+    /**
+     * Spells the given money {@code amount} in the specified case.
+     *
+     * @param amount     {@link BigDecimal}, not {@code null}
+     * @param currency   {@code String} - the code of a {@link Currency#register(Currency) registered} currency,
+     *                   e.g. {@code "RUB"}, {@code "USD"}, {@code "EUR"}
+     * @param declension {@link Case}, not {@code null}
+     * @return the corresponding {@code String}
+     * @throws IllegalArgumentException if the currency is unknown
+     * @see #spellMoney(BigDecimal, Currency, Case)
+     */
+    default String spellMoney(BigDecimal amount, String currency, Case declension) {
+        return spellMoney(amount, Currency.of(currency), declension);
+    }
+
+    /**
+     * Spells the given {@code number} with the {@code unit} agreed with it in the specified case,
+     * e.g. {@code 22, "рабочий день", DATIVE -> "двадцати двум рабочим дням"}.
+     * The result is the same as {@link InflectionEngine#inflectNumeral(String, String, Case)}
+     * of {@link #spell(BigDecimal)} and the unit, except the accusative of a compound number with an animate unit:
+     * only the last triple takes the animate (genitive-like) form, the round numerals before it stay as is,
+     * e.g. {@code 2000, "птица" -> "две тысячи птиц"} and {@code 2002 -> "две тысячи двух птиц"},
+     * while {@code inflectNumeral} declines them too ({@code "двух тысячи птиц"}).
+     * The default implementation delegates to {@code inflectNumeral}, so it gives the latter result.
+     *
+     * @param number     {@link BigDecimal}, not {@code null}
+     * @param unit       {@link Unit}, not {@code null}
+     * @param declension {@link Case}, not {@code null}
+     * @return the corresponding {@code String}
+     * @see #inflectionEngine()
+     */
+    default String format(BigDecimal number, Unit unit, Case declension) {
+        // this is the default implementation that inflects the spelled number together with the unit
+        return inflectionEngine().inflectNumeral(spell(number), unit.key(), declension);
+    }
+
+    /**
+     * Spells the given {@code number} with the unit agreed with it in the specified case.
+     *
+     * @param number     {@link BigDecimal}, not {@code null}
+     * @param unit       {@code String} - the unit in the nominative singular, e.g. {@code "штука"},
+     *                   it is prepared once and then taken from the {@link Unit#of(String) registry}
+     * @param declension {@link Case}, not {@code null}
+     * @return the corresponding {@code String}
+     * @see #format(BigDecimal, Unit, Case)
+     */
+    default String format(BigDecimal number, String unit, Case declension) {
+        return format(number, Unit.of(unit), declension);
+    }
+
+    /**
+     * Spells the given {@code number} into the given {@code out},
+     * e.g. directly into the buffer of a report renderer without intermediate strings.
+     *
+     * @param out    {@link Appendable}, e.g. {@link StringBuilder}, not {@code null}
+     * @param number {@link BigDecimal}, not {@code null}
+     * @param <A>    the type of appendable
+     * @return the same {@code out}
+     * @throws java.io.UncheckedIOException if an I/O error occurs
+     * @see #spell(BigDecimal)
+     */
+    default <A extends Appendable> A spellTo(A out, BigDecimal number) {
+        return append(out, spell(number));
+    }
+
+    /**
+     * Spells the given plain decimal {@code number} into the given {@code out}.
+     *
+     * @param out    {@link Appendable}, not {@code null}
+     * @param number {@code String} - a plain decimal number, not {@code null}
+     * @param <A>    the type of appendable
+     * @return the same {@code out}
+     * @see #spell(String)
+     */
+    default <A extends Appendable> A spellTo(A out, String number) {
+        return append(out, spell(number));
+    }
+
+    /**
+     * Spells the given {@code number} into the given {@code out}.
+     *
+     * @param out    {@link Appendable}, not {@code null}
+     * @param number {@code long}
+     * @param <A>    the type of appendable
+     * @return the same {@code out}
+     * @see #spell(long)
+     */
+    default <A extends Appendable> A spellTo(A out, long number) {
+        return append(out, spell(number));
+    }
+
+    /**
+     * Spells the given ordinal {@code number} into the given {@code out}.
+     *
+     * @param out    {@link Appendable}, not {@code null}
+     * @param number non-negative {@code long}
+     * @param gender {@link Gender}
+     * @param <A>    the type of appendable
+     * @return the same {@code out}
+     * @see #spellOrdinal(long, Gender)
+     */
+    default <A extends Appendable> A spellOrdinalTo(A out, long number, Gender gender) {
+        return append(out, spellOrdinal(number, gender));
+    }
+
+    private static <A extends Appendable> A append(A out, CharSequence value) {
+        try {
+            out.append(value);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return out;
+    }
 }
@@ -0,0 +1,126 @@
+package pro.greendata.rugrammartools;
+
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * A unit of measurement or a counted word for {@link SpellingEngine#format(java.math.BigDecimal, Unit, Case)},
+ * e.g. {@code штука}, {@code килограмм}, {@code календарный день}:
+ * all its case forms (singular and plural) together with the gender and the animacy,
+ * which are needed for the agreement with the numerals.
+ * The singular genitive is also the form after a fraction ({@code две целых пять десятых килограмма}).
+ * <p>
+ * There is a registry of units by key: the unit is {@link InflectionEngine#prepareUnit(String) prepared} once,
+ * on first {@link #of(String)}, and then reused, also by the default engine
+ * in {@link InflectionEngine#inflectNumeral(String, String, Case)};
+ * a unit with explicit forms can be added with {@link #register(Unit)} and removed with {@link #unregister(String)}.
+ * The registry is not bounded, so it is intended for a fixed set of units known in advance;
+ * arbitrary units (e.g. from user input) should be prepared directly with {@link InflectionEngine#prepareUnit(String)}.
+ * The prepared units depend on the dictionaries, so they are dropped when the dictionaries change,
+ * see {@link #invalidate()}; the registered units are kept.
+ * The instance is immutable.
+ */
+public final class Unit {
+    private static final Map<String, Unit> REGISTRY = new ConcurrentHashMap<>();
+
+    private final String key;
+    private final CaseForms forms;
+    private final Gender gender;
+    private final boolean animate;
+    private final boolean prepared;
+
+    /**
+     * Creates a unit.
+     *
+     * @param key     {@code String} - the unit in the nominative singular, e.g. {@code "рабочий день"}, not {@code null}
+     * @param forms   {@link CaseForms} with plural forms, not {@code null}
+     * @param gender  {@link Gender}, not {@code null}
+     * @param animate {@code boolean} - if {@code true} the accusative is as for animate nouns ({@code двух котов})
+     */
+    public Unit(String key, CaseForms forms, Gender gender, boolean animate) {
+        this(key, forms, gender, animate, false);
+    }
+
+    private Unit(String key, CaseForms forms, Gender gender, boolean animate, boolean prepared) {
+        this.key = Objects.requireNonNull(key);
+        if (!Objects.requireNonNull(forms).hasPlural()) {
+            throw new IllegalArgumentException("No plural forms: " + forms);
+        }
+        this.forms = forms;
+        this.gender = Objects.requireNonNull(gender);
+        this.animate = animate;
+        this.prepared = prepared;
+    }
+
+    /**
+     * Finds the unit by its key, preparing and registering it on first call
+     * with the {@link GrammarTools#getInflectionEngine() default inflection engine}.
+     * Every new key stays in the registry until it is {@link #unregister(String) unregistered}
+     * or the dictionaries change (then the unit is prepared anew),
+     * so the callers must use a fixed set of units.
+     *
+     * @param key {@code String} - the unit in the nominative singular, e.g. {@code "штука"}, not {@code null}
+     * @return {@link Unit}
+     */
+    public static Unit of(String key) {
+        Unit res = REGISTRY.get(Objects.requireNonNull(key));
+        if (res != null) {
+            return res;
+        }
+        return REGISTRY.computeIfAbsent(key, k -> {
+            Unit unit = GrammarTools.getInflectionEngine().prepareUnit(k);
+            return new Unit(unit.key, unit.forms, unit.gender, unit.animate, true);
+        });
+    }
+
+    /**
+     * Registers the given unit, replacing the unit with the same key if any.
+     *
+     * @param unit {@link Unit}, not {@code null}
+     * @return the previous {@link Unit} with the same key or {@code null}
+     */
+    public static Unit register(Unit unit) {
+        return REGISTRY.put(unit.key, unit);
+    }
+
+    /**
+     * Removes the unit with the given key from the registry.
+     *
+     * @param key {@code String}, not {@code null}
+     * @return the removed {@link Unit} or {@code null}
+     */
+    public static Unit unregister(String key) {
+        return REGISTRY.remove(key);
+    }
+
+    /**
+     * Removes all units prepared by {@link #of(String)} from the registry, so that they are prepared anew on next call;
+     * the {@link #register(Unit) registered} units are kept.
+     * It is called by the engine when the dictionaries change, e.g. on reload of a dictionary overlay.
+     */
+    public static void invalidate() {
+        REGISTRY.values().removeIf(x -> x.prepared);
+    }
+
+    public String key() {
+        return key;
+    }
+
+    public CaseForms forms() {
+        return forms;
+    }
+
+    public Gender gender() {
+        return gender;
+    }
+
+    public boolean animate() {
+        return animate;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("Unit{key='%s', gender=%s, animate=%s}", key, gender, animate);
+    }
+}
@@ -0,0 +1,452 @@
+package pro.greendata.rugrammartools.cli;
+
+import pro.greendata.rugrammartools.Case;
+import pro.greendata.rugrammartools.GrammarTools;
+import pro.greendata.rugrammartools.InflectionEngine;
+import pro.greendata.rugrammartools.SpellingEngine;
+import pro.greendata.rugrammartools.impl.utils.BatchUtils;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.PrintStream;
+import java.io.Reader;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Locale;
+import java.util.Objects;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Function;
+
+/**
+ * A command-line tool to inflect and spell the columns of large CSV/TSV files.
+ * <p>
+ * The input is processed in batches of rows, so the memory consumption does not depend on the file size;
+ * each batch is processed in parallel with deduplication (see {@link BatchUtils#map(List, Function, Executor)}).
+ * For each mapped column and each requested case a new column is appended to the row.
+ * Failed cells are left empty and counted; the statistics are printed to the standard error at the end.
+ * <p>
+ * Usage: {@code BatchTool [options] <column>:<kind> ...}, where {@code column} is a 1-based index
+ * or a header name, and {@code kind} is one of {@code fullname}, {@code profession}, {@code organization},
+ * {@code term}, {@code number} or {@code unit}
+ * (the {@code unit} column is inflected together with the first {@code number} column, e.g. "пяти рублям").
+ * See {@link #USAGE} for the options.
+ */
+public class BatchTool {
+    static final int DEFAULT_BATCH_SIZE = 10_000;
+    static final String USAGE = String.join("\n",
+            "Usage: BatchTool [options] <column>:<kind> ...",
+            "  <column>  1-based index or name of the column (if there is a header)",
+            "  <kind>    fullname | profession | organization | term | number | unit",
+            "Options:",
+            "  -i, --input <file>       the input file (default: stdin)",
+            "  -o, --output <file>      the output file (default: stdout)",
+            "  -d, --delimiter <char>   the field delimiter, 'tab' for TSV (default: ',' or tab for *.tsv input)",
+            "  -H, --header             the first row is a header",
+            "  -c, --cases <list>       comma-separated declension cases (default: all)",
+            "  -b, --batch-size <n>     the number of rows processed at once (default: " + DEFAULT_BATCH_SIZE + ")",
+            "  -t, --threads <n>        the number of worker threads (default: the common pool)");
+    private static final int MAX_REPORTED_ERRORS = 10;
+
+    private final InflectionEngine inflection;
+    private final SpellingEngine spelling;
+    private final Executor executor;
+    private final PrintStream log;
+    private final AtomicLong errors = new AtomicLong();
+    private long rows;
+    private long cells;
+
+    BatchTool(InflectionEngine inflection, SpellingEngine spelling, Executor executor, PrintStream log) {
+        this.inflection = Objects.requireNonNull(inflection);
+        this.spelling = Objects.requireNonNull(spelling);
+        this.executor = Objects.requireNonNull(executor);
+        this.log = Objects.requireNonNull(log);
+    }
+
+    public static void main(String... args) {
+        System.exit(run(args, System.in, System.out, System.err));
+    }
+
+    /**
+     * Runs the tool.
+     *
+     * @param args arguments, not {@code null}
+     * @param in   {@code InputStream} to use if there is no input file
+     * @param out  {@code OutputStream} to use if there is no output file
+     * @param err  {@code PrintStream} for messages and statistics
+     * @return {@code int} the exit code: {@code 0} - success, {@code 1} - I/O failure, {@code 2} - wrong arguments
+     */
+    static int run(String[] args, InputStream in, OutputStream out, PrintStream err) {
+        Options options;
+        try {
+            options = Options.parse(args);
+        } catch (IllegalArgumentException e) {
+            err.println(e.getMessage());
+            err.println(USAGE);
+            return 2;
+        }
+        ForkJoinPool pool = options.threads > 0 ? new ForkJoinPool(options.threads) : null;
+        BatchTool tool = new BatchTool(GrammarTools.getInflectionEngine(), GrammarTools.getSpellingEngine(),
+                pool != null ? pool : ForkJoinPool.commonPool(), err);
+        try (Reader reader = options.input == null ?
+                new InputStreamReader(in, StandardCharsets.UTF_8) : Files.newBufferedReader(options.input);
+             Writer writer = options.output == null ?
+                     new OutputStreamWriter(out, StandardCharsets.UTF_8) : Files.newBufferedWriter(options.output)) {
+            Delimited.RowReader rows = new Delimited.RowReader(new BufferedReader(reader, 1 << 16), options.delimiter);
+            Delimited.RowWriter res = new Delimited.RowWriter(new BufferedWriter(writer, 1 << 16), options.delimiter);
+            long start = System.nanoTime();
+            tool.process(rows, res, options);
+            res.flush();
+            tool.printStatistics(System.nanoTime() - start);
+        } catch (IllegalArgumentException e) {
+            err.println(e.getMessage());
+            return 2;
+        } catch (IOException e) {
+            err.println("I/O error: " + e.getMessage());
+            return 1;
+        } catch (UncheckedIOException e) { // e.g. from RowWriter#write
+            err.println("I/O error: " + e.getCause().getMessage());
+            return 1;
+        } finally {
+            if (pool != null) {
+                pool.shutdown();
+            }
+        }
+        return 0;
+    }
+
+    /**
+     * Reads all rows, processes them batch by batch and writes the results.
+     *
+     * @param in      {@link Delimited.RowReader}
+     * @param out     {@link Delimited.RowWriter}
+     * @param options {@link Options}
+     * @throws IOException if an I/O error occurs
+     */
+    void process(Delimited.RowReader in, Delimited.RowWriter out, Options options) throws IOException {
+        List<String> header = options.header ? in.read() : null;
+        if (options.header && header == null) {
+            return;
+        }
+        int[] indexes = new int[options.columns.size()];
+        for (int i = 0; i < indexes.length; i++) {
+            indexes[i] = options.columns.get(i).index(header);
+        }
+        int numberColumn = -1;
+        for (int i = 0; i < indexes.length; i++) {
+            if (options.columns.get(i).kind == Kind.NUMBER) {
+                numberColumn = indexes[i];
+                break;
+            }
+        }
+        if (numberColumn < 0 && options.columns.stream().anyMatch(x -> x.kind == Kind.UNIT)) {
+            throw new IllegalArgumentException("The unit column requires a number column");
+        }
+        // the results are appended after this number of cells, so that they stay under their headers
+        int width = header != null ? header.size() : 0;
+        for (int index : indexes) {
+            width = Math.max(width, index + 1);
+        }
+        if (header != null) {
+            List<String> names = new ArrayList<>(header);
+            for (int i = 0; i < indexes.length; i++) {
+                String name = indexes[i] < header.size() ? header.get(indexes[i]) : String.valueOf(indexes[i] + 1);
+                for (Case c : options.cases) {
+                    names.add(name + "_" + c);
+                }
+            }
+            out.write(names);
+        }
+        List<List<String>> batch = new ArrayList<>(options.batchSize);
+        List<String> row;
+        do {
+            row = in.read();
+            if (row != null) {
+                batch.add(row);
+            }
+            if (batch.size() == options.batchSize || (row == null && !batch.isEmpty())) {
+                processBatch(batch, options, indexes, numberColumn, width);
+                batch.forEach(out::write);
+                batch.clear();
+            }
+        } while (row != null);
+    }
+
+    private void processBatch(List<List<String>> batch, Options options, int[] indexes, int numberColumn, int width) {
+        List<List<String>> results = new ArrayList<>(batch.size());
+        for (List<String> row : batch) {
+            results.add(new ArrayList<>(indexes.length * options.cases.size()));
+        }
+        List<String> spelled = numberColumn < 0 ? null : map(column(batch, numberColumn), this::spellNumber);
+        for (int i = 0; i < indexes.length; i++) {
+            Kind kind = options.columns.get(i).kind;
+            List<String> inputs = column(batch, indexes[i]);
+            List<?> keys = inputs;
+            if (kind == Kind.NUMBER) {
+                keys = spelled;
+            } else if (kind == Kind.UNIT) {
+                List<List<String>> pairs = new ArrayList<>(inputs.size());
+                for (int j = 0; j < inputs.size(); j++) {
+                    pairs.add(Arrays.asList(spelled.get(j), inputs.get(j)));
+                }
+                keys = pairs;
+            }
+            for (Case declension : options.cases) {
+                List<String> values = map(keys, x -> inflect(kind, x, declension));
+                cells += values.size();
+                for (int j = 0; j < values.size(); j++) {
+                    results.get(j).add(values.get(j));
+                }
+            }
+        }
+        for (int j = 0; j < batch.size(); j++) {
+            List<String> row = batch.get(j);
+            while (row.size() < width) { // a short row, e.g. a blank line
+                row.add("");
+            }
+            row.addAll(results.get(j));
+        }
+        rows += batch.size();
+    }
+
+    private String inflect(Kind kind, Object input, Case declension) {
+        switch (kind) {
+            case FULLNAME:
+                return inflection.inflectFullname((String) input, declension);
+            case PROFESSION:
+                return inflection.inflectNameOfProfession((String) input, declension);
+            case ORGANIZATION:
+                return inflection.inflectNameOfOrganization((String) input, declension);
+            case TERM:
+                return inflection.inflectRegularTerm((String) input, declension, null);
+            case NUMBER:
+                return inflection.inflectNumeral((String) input, declension);
+            case UNIT:
+                List<?> pair = (List<?>) input;
+                if (pair.get(0) == null || isBlank(pair.get(1))) { // no number or no unit
+                    return null;
+                }
+                return inflection.inflectNumeral((String) pair.get(0), (String) pair.get(1), declension);
+            default:
+                throw new IllegalStateException("Unexpected kind: " + kind);
+        }
+    }
+
+    private String spellNumber(String number) {
+        return spelling.spell(number.replaceAll("[\\s ]", "").replace(',', '.'));
+    }
+
+    /**
+     * Applies the function to all non-empty inputs in parallel, the failures are counted and give {@code null}.
+     */
+    private <X> List<String> map(List<X> inputs, Function<X, String> function) {
+        List<String> res = BatchUtils.map(inputs, x -> {
+            if (isBlank(x)) {
+                return null;
+            }
+            try {
+                return function.apply(x);
+            } catch (RuntimeException e) {
+                if (errors.incrementAndGet() <= MAX_REPORTED_ERRORS) {
+                    log.println("Can't process '" + x + "': " + e);
+                }
+                return null;
+            }
+        }, executor);
+        return res;
+    }
+
+    private static boolean isBlank(Object x) {
+        return x == null || (x instanceof String && ((String) x).isBlank());
+    }
+
+    private static List<String> column(List<List<String>> batch, int index) {
+        List<String> res = new ArrayList<>(batch.size());
+        for (List<String> row : batch) {
+            res.add(index < row.size() ? row.get(index) : null);
+        }
+        return res;
+    }
+
+    private void printStatistics(long nanos) {
+        double seconds = nanos / 1e9;
+        log.printf(Locale.ROOT, "rows: %d, cells: %d, errors: %d, time: %.3f s, throughput: %.1f rows/s%n",
+                rows, cells, errors.get(), seconds, seconds == 0 ? 0 : rows / seconds);
+    }
+
+    long errorCount() {
+        return errors.get();
+    }
+
+    /**
+     * The kind of column content.
+     */
+    enum Kind {
+        FULLNAME,
+        PROFESSION,
+        ORGANIZATION,
+        TERM,
+        NUMBER,
+        UNIT,
+    }
+
+    /**
+     * The column mapping, {@code <column>:<kind>}.
+     */
+    static class Column {
+        private final String column;
+        private final Kind kind;
+
+        Column(String column, Kind kind) {
+            this.column = Objects.requireNonNull(column);
+            this.kind = Objects.requireNonNull(kind);
+        }
+
+        static Column parse(String spec) {
+            int i = spec.lastIndexOf(':');
+            if (i <= 0) {
+                throw new IllegalArgumentException("Wrong column mapping: " + spec);
+            }
+            Kind kind;
+            try {
+                kind = Kind.valueOf(spec.substring(i + 1).toUpperCase(Locale.ROOT));
+            } catch (IllegalArgumentException e) {
+                throw new IllegalArgumentException("Wrong column kind: " + spec);
+            }
+            return new Column(spec.substring(0, i), kind);
+        }
+
+        int index(List<String> header) {
+            if (header != null) {
+                int res = header.indexOf(column);
+                if (res >= 0) {
+                    return res;
+                }
+            }
+            try {
+                int res = Integer.parseInt(column);
+                if (res > 0) {
+                    return res - 1;
+                }
+            } catch (NumberFormatException e) {
+                // ignore
+            }
+            throw new IllegalArgumentException("Unknown column: " + column);
+        }
+    }
+
+    /**
+     * The command-line options.
+     */
+    static class Options {
+        Path input;
+        Path output;
+        char delimiter;
+        boolean header;
+        List<Case> cases = List.of(Case.values());
+        int batchSize = DEFAULT_BATCH_SIZE;
+        int threads;
+        final List<Column> columns = new ArrayList<>();
+
+        static Options parse(String... args) {
+            Options res = new Options();
+            String delimiter = null;
+            for (int i = 0; i < args.length; i++) {
+                String arg = args[i];
+                switch (arg) {
+                    case "-i":
+                    case "--input":
+                        res.input = Paths.get(value(args, ++i, arg));
+                        break;
+                    case "-o":
+                    case "--output":
+                        res.output = Paths.get(value(args, ++i, arg));
+                        break;
+                    case "-d":
+                    case "--delimiter":
+                        delimiter = value(args, ++i, arg);
+                        break;
+                    case "-H":
+                    case "--header":
+                        res.header = true;
+                        break;
+                    case "-c":
+                    case "--cases":
+                        res.cases = parseCases(value(args, ++i, arg));
+                        break;
+                    case "-b":
+                    case "--batch-size":
+                        res.batchSize = positive(value(args, ++i, arg), arg);
+                        break;
+                    case "-t":
+                    case "--threads":
+                        res.threads = positive(value(args, ++i, arg), arg);
+                        break;
+                    default:
+                        if (arg.startsWith("-")) {
+                            throw new IllegalArgumentException("Unknown option: " + arg);
+                        }
+                        res.columns.add(Column.parse(arg));
+                }
+            }
+            if (res.columns.isEmpty()) {
+                throw new IllegalArgumentException("No columns specified");
+            }
+            if (delimiter == null) {
+                boolean tsv = res.input != null && res.input.toString().toLowerCase(Locale.ROOT).endsWith(".tsv");
+                res.delimiter = tsv ? Delimited.TAB : ',';
+            } else if ("tab".equalsIgnoreCase(delimiter) || "\\t".equals(delimiter) || "\t".equals(delimiter)) {
+                res.delimiter = Delimited.TAB;
+            } else if (delimiter.length() == 1 && delimiter.charAt(0) != '"') {
+                res.delimiter = delimiter.charAt(0);
+            } else {
+                throw new IllegalArgumentException("Wrong delimiter: " + delimiter);
+            }
+            return res;
+        }
+
+        private static List<Case> parseCases(String value) {
+            List<Case> res = new ArrayList<>();
+            for (String c : value.split(",")) {
+                try {
+                    res.add(Case.valueOf(c.trim().toUpperCase(Locale.ROOT)));
+                } catch (IllegalArgumentException e) {
+                    throw new IllegalArgumentException("Wrong case: " + c);
+                }
+            }
+            return res;
+        }
+
+        private static String value(String[] args, int index, String option) {
+            if (index >= args.length) {
+                throw new IllegalArgumentException("No value for " + option);
+            }
+            return args[index];
+        }
+
+        private static int positive(String value, String option) {
+            try {
+                int res = Integer.parseInt(value);
+                if (res > 0) {
+                    return res;
+                }
+            } catch (NumberFormatException e) {
+                // ignore
+            }
+            throw new IllegalArgumentException("Wrong value for " + option + ": " + value);
+        }
+    }
+}
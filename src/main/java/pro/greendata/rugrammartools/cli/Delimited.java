@@ -0,0 +1,151 @@
+package pro.greendata.rugrammartools.cli;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Objects;
+
+/**
+ * A streaming reader and writer of delimiter-separated rows (CSV, TSV).
+ * <p>
+ * If the delimiter is not a tab, the fields may be quoted as in RFC 4180
+ * (a quoted field may contain delimiters, line breaks and doubled quotes);
+ * TSV fields are taken as is.
+ */
+class Delimited {
+    static final char TAB = '\t';
+    private static final char QUOTE = '"';
+
+    /**
+     * Reads rows one by one, holding only the current row in memory.
+     */
+    static class RowReader {
+        private final Reader in;
+        private final char delimiter;
+        private final boolean quoting;
+        private int next = -2; // -2 = nothing is buffered
+
+        RowReader(Reader in, char delimiter) {
+            this.in = Objects.requireNonNull(in);
+            this.delimiter = delimiter;
+            this.quoting = delimiter != TAB;
+        }
+
+        /**
+         * Reads the next row.
+         *
+         * @return {@code List} of fields or {@code null} at the end of the stream
+         * @throws IOException if an I/O error occurs
+         */
+        List<String> read() throws IOException {
+            int c = nextChar();
+            if (c == -1) {
+                return null;
+            }
+            List<String> res = new ArrayList<>();
+            StringBuilder field = new StringBuilder();
+            boolean quoted = false;
+            while (true) {
+                if (quoted) {
+                    if (c == -1) { // unclosed quote: take the rest as is
+                        res.add(field.toString());
+                        return res;
+                    }
+                    if (c == QUOTE) {
+                        c = nextChar();
+                        if (c != QUOTE) {
+                            quoted = false;
+                            continue;
+                        }
+                    }
+                    field.append((char) c);
+                    c = nextChar();
+                    continue;
+                }
+                if (c == -1 || c == '\n' || c == '\r') {
+                    if (c == '\r') {
+                        int n = nextChar();
+                        if (n != '\n') {
+                            next = n;
+                        }
+                    }
+                    res.add(field.toString());
+                    return res;
+                }
+                if (c == delimiter) {
+                    res.add(field.toString());
+                    field.setLength(0);
+                } else if (c == QUOTE && quoting && field.length() == 0) {
+                    quoted = true;
+                } else {
+                    field.append((char) c);
+                }
+                c = nextChar();
+            }
+        }
+
+        private int nextChar() throws IOException {
+            if (next != -2) {
+                int res = next;
+                next = -2;
+                return res;
+            }
+            return in.read();
+        }
+    }
+
+    /**
+     * Writes rows, quoting the fields if needed.
+     */
+    static class RowWriter {
+        private final Writer out;
+        private final char delimiter;
+        private final boolean quoting;
+
+        RowWriter(Writer out, char delimiter) {
+            this.out = Objects.requireNonNull(out);
+            this.delimiter = delimiter;
+            this.quoting = delimiter != TAB;
+        }
+
+        void write(List<String> row) {
+            try {
+                for (int i = 0; i < row.size(); i++) {
+                    if (i != 0) {
+                        out.write(delimiter);
+                    }
+                    writeField(row.get(i));
+                }
+                out.write('\n');
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+
+        private void writeField(String field) throws IOException {
+            if (field == null || field.isEmpty()) {
+                return;
+            }
+            if (!quoting) {
+                // TSV has no escaping
+                out.write(field.replace(TAB, ' ').replace('\n', ' ').replace('\r', ' '));
+                return;
+            }
+            if (field.indexOf(delimiter) < 0 && field.indexOf(QUOTE) < 0
+                    && field.indexOf('\n') < 0 && field.indexOf('\r') < 0) {
+                out.write(field);
+                return;
+            }
+            out.write(QUOTE);
+            out.write(field.replace("\"", "\"\""));
+            out.write(QUOTE);
+        }
+
+        void flush() throws IOException {
+            out.flush();
+        }
+    }
+}
@@ -1,20 +1,32 @@
 package pro.greendata.rugrammartools.impl;
 
 import pro.greendata.rugrammartools.Case;
+import pro.greendata.rugrammartools.CaseForms;
 import pro.greendata.rugrammartools.Gender;
 import pro.greendata.rugrammartools.InflectionEngine;
+import pro.greendata.rugrammartools.PreparedPhrase;
+import pro.greendata.rugrammartools.Unit;
 import pro.greendata.rugrammartools.impl.Phrase.Type;
 import pro.greendata.rugrammartools.impl.dictionaries.AdjectiveDictionary;
 import pro.greendata.rugrammartools.impl.dictionaries.Dictionary;
+import pro.greendata.rugrammartools.impl.dictionaries.FormIndex;
 import pro.greendata.rugrammartools.impl.dictionaries.NounDictionary;
+import pro.greendata.rugrammartools.impl.dictionaries.Paradigm;
+import pro.greendata.rugrammartools.impl.utils.BatchUtils;
 import pro.greendata.rugrammartools.impl.utils.GrammarUtils;
 import pro.greendata.rugrammartools.impl.utils.HumanNameUtils;
 import pro.greendata.rugrammartools.impl.utils.NumeralUtils;
-import pro.greendata.rugrammartools.impl.utils.RuleUtils;
 import pro.greendata.rugrammartools.impl.utils.TextUtils;
 
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
 import java.util.Objects;
 import java.util.Optional;
+import java.util.concurrent.Executor;
+import java.util.regex.MatchResult;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
 
 /**
  * The engine impl.
@@ -22,6 +34,39 @@ import java.util.Optional;
  * Created by @ssz on 27.11.2020.
  */
 public class InflectionEngineImpl implements InflectionEngine {
+    private static final PhraseCache DEFAULT_CACHE = PhraseCache.fromSystemProperties();
+    private static final int LOWER_CASE = 0;
+    private static final int UPPER_CASE = 1;
+    private static final int CAPITALIZED = 2;
+    private static final Pattern WORD_PATTERN = Pattern.compile("\\S+");
+    private static final RuleType[] SPF_RULE_TYPES = {RuleType.FAMILY_NAME, RuleType.FIRST_NAME, RuleType.PATRONYMIC_NAME};
+
+    private final PhraseCache cache;
+
+    /**
+     * Creates an engine with the default cache, which is specified by the system property {@link PhraseCache#SIZE_PROPERTY}.
+     */
+    public InflectionEngineImpl() {
+        this(DEFAULT_CACHE);
+    }
+
+    /**
+     * Creates an engine with the given result cache.
+     *
+     * @param cache {@link PhraseCache} or {@code null} to disable caching
+     */
+    public InflectionEngineImpl(PhraseCache cache) {
+        this.cache = cache;
+    }
+
+    /**
+     * Answers the result cache.
+     *
+     * @return {@link PhraseCache} or {@code null} if there is no cache
+     */
+    public PhraseCache cache() {
+        return cache;
+    }
 
     /**
      * Declines the given {@code word} in accordance with the specified settings using petrovich rules.
@@ -40,15 +85,47 @@ public class InflectionEngineImpl implements InflectionEngine {
      * @return {@code String}
      */
     public String inflect(String word, RuleType type, Case declension, Gender gender, Boolean animate, Boolean plural) {
+        String res = inflectWord(word, type, declension, gender, animate, plural);
+        return res == null ? word : TextUtils.toProperCase(word, res);
+    }
+
+    private StringBuilder inflectTo(StringBuilder res,
+                                    String word,
+                                    RuleType type,
+                                    Case declension,
+                                    Gender gender,
+                                    Boolean animate,
+                                    Boolean plural) {
+        String inflected = inflectWord(word, type, declension, gender, animate, plural);
+        return inflected == null ? res.append(word) : TextUtils.appendProperCase(res, word, 0, word.length(), inflected);
+    }
+
+    /**
+     * Inclines the single word.
+     *
+     * @return {@code String} - the inflected word in lower case or {@code null} if the word does not change
+     */
+    private String inflectWord(String word, RuleType type, Case declension, Gender gender, Boolean animate, Boolean plural) {
         require(word, "word");
         require(declension, "declension case");
         require(type, "rule type");
         if (declension == Case.NOMINATIVE) {
-            return word;
+            return null;
         }
-        String res = processRule(TextUtils.normalize(word),
-                type, declension, gender == null ? Gender.MALE : gender, PartOfSpeech.NOUN, animate, plural);
-        return res == null ? word : TextUtils.toProperCase(word, res);
+        String normalized = TextUtils.normalize(word);
+        if (gender == null) {
+            gender = Gender.MALE;
+        }
+        PhraseCache.Key key = null;
+        String res;
+        if (cache != null && (res = cache.get(key = PhraseCache.key(normalized, 0, type, declension, gender, animate, plural))) != null) {
+            return res;
+        }
+        res = processRule(normalized, type, declension, gender, PartOfSpeech.NOUN, animate, plural);
+        if (res != null && key != null) {
+            cache.put(key, res);
+        }
+        return res;
     }
 
     @Override
@@ -63,64 +140,75 @@ public class InflectionEngineImpl implements InflectionEngine {
         return inflectCardinalNumeral(parts, declension, null);
     }
 
+    /**
+     * Declines the numeral with the unit agreed with it.
+     * The unit is analyzed once and then taken from the {@link Unit#of(String) registry} with all its forms,
+     * so it is not parsed on each call.
+     *
+     * @param numeral    {@code String}, not {@code null}
+     * @param unit       {@code String}, not {@code null}
+     * @param declension {@link Case declension case}, not {@code null}
+     * @return {@code String}
+     */
     @Override
     public String inflectNumeral(String numeral, String unit, Case declension) {
         require(unit, "unit");
         require(declension, "declension");
         String[] parts = checkAndSplit(numeral);
-        Phrase phrase = Phrase.parse(unit, Type.ANY, null, null);
+        Unit forms = Unit.of(unit);
         int last = parts.length - 1;
         String res;
         if (NumeralUtils.canBeOrdinalNumeral(numeral)) {
-            parts[last] = NumeralUtils.changeGenderOfOrdinalNumeral(parts[last], phrase.gender());
+            parts[last] = NumeralUtils.changeGenderOfOrdinalNumeral(parts[last], forms.gender());
             if (declension == Case.NOMINATIVE) {
                 res = String.join(" ", parts);
             } else {
-                res = inflectOrdinalNumeral(parts, declension, phrase.gender(), phrase.animate());
+                res = inflectOrdinalNumeral(parts, declension, forms.gender(), forms.animate());
             }
-            return res + " " + inflectPhrase(phrase, declension, null);
+            return res + " " + forms.forms().get(declension);
         }
-        parts[last] = NumeralUtils.changeGenderOfCardinalNumeral(parts[last], phrase.gender());
+        parts[last] = NumeralUtils.changeGenderOfCardinalNumeral(parts[last], forms.gender());
         if (declension == Case.NOMINATIVE) {
             res = String.join(" ", parts);
         } else {
             // rule: Дробные числительные не сочетаются с одушевленными именами существительными: нельзя делить живое на части.
-            res = inflectCardinalNumeral(parts, declension, NumeralUtils.canBeFraction(numeral) ? Boolean.FALSE : phrase.animate());
+            res = inflectCardinalNumeral(parts, declension, !NumeralUtils.canBeFraction(numeral) && forms.animate());
         }
-        return res + " " + inflectUnit(phrase, numeral, declension);
+        return res + " " + inflectUnit(forms, numeral, declension);
     }
 
     /**
-     * Inflects unit.
+     * Selects the form of the unit, which agrees with the number.
      *
-     * @param unit       {@link Phrase}
+     * @param unit       {@link Unit}
      * @param number     {@code String}
      * @param declension {@link Case}
      * @return {@code String}
      * @see <a href='https://numeralonline.ru/10000'>Склонение 10000 по падежам</a>
      */
-    protected String inflectUnit(Phrase unit, String number, Case declension) {
+    protected String inflectUnit(Unit unit, String number, Case declension) {
+        CaseForms forms = unit.forms();
         if (NumeralUtils.isZero(number)) {
             // NOMINATIVE, GENITIVE,   DATIVE,     ACCUSATIVE, INSTRUMENTAL,PREPOSITIONAL
             // ноль рублей,ноля рублей,нолю рублей,ноль рублей,нолём рублей,ноле рублей
-            return inflectPhrase(unit, Case.GENITIVE, true);
+            return forms.getPlural(Case.GENITIVE);
         }
         if (NumeralUtils.canBeFraction(number)) {
             // рубля (consider as inanimate)
-            return inflectPhrase(unit, Case.GENITIVE, false);
+            return forms.get(Case.GENITIVE);
         }
         if (NumeralUtils.endsWithCardinalOne(number)) {
             // NOMINATIVE,GENITIVE,    DATIVE,      ACCUSATIVE,INSTRUMENTAL,PREPOSITIONAL
             // один рубль,одного рубля,одному рублю,один рубль,одним рублём,одном рубле
-            return inflectPhrase(unit, declension, false);
+            return forms.get(declension);
         }
         if (NumeralUtils.endsWithCardinalTwoThreeFour(number)) {
             // NOMINATIVE,     GENITIVE,          DATIVE,            ACCUSATIVE,     INSTRUMENTAL,        PREPOSITIONAL
             // сорок два рубля,сорока двух рублей,сорока двум рублям,сорок два рубля,сорока двумя рублями,сорока двух рублях
-            if (declension == Case.NOMINATIVE || ((unit.animate() == null || !unit.animate()) && declension == Case.ACCUSATIVE)) {
-                return inflectPhrase(unit, Case.GENITIVE, false);
+            if (declension == Case.NOMINATIVE || (!unit.animate() && declension == Case.ACCUSATIVE)) {
+                return forms.get(Case.GENITIVE);
             } else {
-                return inflectPhrase(unit, declension, true);
+                return forms.getPlural(declension);
             }
         }
         // NOMINATIVE,   GENITIVE,     DATIVE,       ACCUSATIVE,   INSTRUMENTAL,   PREPOSITIONAL
@@ -130,7 +218,7 @@ public class InflectionEngineImpl implements InflectionEngine {
         if (declension == Case.NOMINATIVE || declension == Case.ACCUSATIVE) {
             declension = Case.GENITIVE;
         }
-        return inflectPhrase(unit, declension, true);
+        return forms.getPlural(declension);
     }
 
     protected String inflectCardinalNumeral(String[] parts, Case declension, Boolean animated) {
@@ -142,7 +230,12 @@ public class InflectionEngineImpl implements InflectionEngine {
                 res[i] = w; // special case
                 continue;
             }
-            // each part may have its own gender: "одна тысяча один"
+            // each part may have its own gender: "одна тысяча один", it is already in the table
+            String form = NumeralTable.cardinal(TextUtils.normalize(w), declension, Boolean.TRUE.equals(animated));
+            if (form != null) {
+                res[i] = TextUtils.toProperCase(w, form);
+                continue;
+            }
             Gender g = NumeralUtils.guessGenderOfSingleNumeral(w);
             res[i] = inflectCardinalNumeral(w, declension, g, animated);
         }
@@ -160,7 +253,13 @@ public class InflectionEngineImpl implements InflectionEngine {
      * @return {@code String} -  a numeral phrase in the selected case
      */
     protected String inflectCardinalNumeral(String number, Case declension, Gender gender, Boolean animated) {
-        return inflect(number, RuleType.NUMERAL, require(declension, "declension"), gender, animated, null);
+        String res = NumeralTable.cardinal(TextUtils.normalize(number), require(declension, "declension"),
+                Boolean.TRUE.equals(animated));
+        if (res != null) {
+            return TextUtils.toProperCase(number, res);
+        }
+        // not a numeral atom, e.g. a misspelled word
+        return inflect(number, RuleType.NUMERAL, declension, gender, animated, null);
     }
 
     protected String inflectOrdinalNumeral(String[] parts, Case declension, Boolean animate) {
@@ -170,8 +269,12 @@ public class InflectionEngineImpl implements InflectionEngine {
 
     protected String inflectOrdinalNumeral(String[] parts, Case declension, Gender gender, Boolean animate) {
         String w = parts[parts.length - 1];
-        //w = inflect(w, RuleType.GENERIC, declension, gender, animate, false);
-        w = inflectPhrase(w, Type.ANY, declension, gender, animate, false);
+        String res = NumeralTable.ordinal(TextUtils.normalize(w), declension, Boolean.TRUE.equals(animate));
+        if (res != null) {
+            w = TextUtils.toProperCase(w, res);
+        } else {
+            w = inflectPhrase(w, Type.ANY, declension, gender, animate, false);
+        }
         parts[parts.length - 1] = w;
         return String.join(" ", parts);
     }
@@ -204,10 +307,76 @@ public class InflectionEngineImpl implements InflectionEngine {
         return inflectPhrase(organization, Type.ORGANIZATION_NAME, declension, null, false, false);
     }
 
+    @Override
+    public PreparedPhrase prepare(String phrase, PreparedPhrase.Type type) {
+        require(phrase, "phrase");
+        switch (require(type, "phrase type")) {
+            case PROFESSION_NAME:
+                return new PreparedPhraseImpl(this, Phrase.parse(phrase, Type.PROFESSION_NAME, null, true), type, false);
+            case ORGANIZATION_NAME:
+                return new PreparedPhraseImpl(this, Phrase.parse(phrase, Type.ORGANIZATION_NAME, null, false), type, false);
+            case REGULAR_TERM:
+                return new PreparedPhraseImpl(this, Phrase.parse(phrase, Type.ANY, null, null), type, null);
+            default:
+                throw new IllegalArgumentException("Wrong type " + type);
+        }
+    }
+
+    /**
+     * Parses the unit once and collects all its forms,
+     * from which {@link #inflectUnit(Unit, String, Case)} selects the form agreed with a number.
+     *
+     * @param unit {@code String}, not {@code null}
+     * @return {@link Unit}
+     */
+    @Override
+    public Unit prepareUnit(String unit) {
+        Phrase phrase = Phrase.parse(require(unit, "unit"), Type.ANY, null, null);
+        CaseForms forms = new CaseForms(inflectPhraseAllCases(phrase, false), inflectPhraseAllCases(phrase, true));
+        Gender gender = phrase.gender() == null ? Gender.MALE : phrase.gender();
+        return new Unit(unit, forms, gender, Boolean.TRUE.equals(phrase.animate()));
+    }
+
+    @Override
+    public List<String> inflectFullnames(List<String> sfp, Case declension, Executor executor) {
+        Objects.requireNonNull(declension);
+        return BatchUtils.map(sfp, x -> inflectFullname(x, declension), executor);
+    }
+
+    @Override
+    public List<String> inflectPhrases(List<String> phrases, PreparedPhrase.Type type, Case declension, Executor executor) {
+        Objects.requireNonNull(declension);
+        switch (Objects.requireNonNull(type)) {
+            case PROFESSION_NAME:
+                return BatchUtils.map(phrases, x -> inflectNameOfProfession(x, declension), executor);
+            case ORGANIZATION_NAME:
+                return BatchUtils.map(phrases, x -> inflectNameOfOrganization(x, declension), executor);
+            default:
+                return BatchUtils.map(phrases, x -> inflectRegularTerm(x, declension, null), executor);
+        }
+    }
+
     @Override
     public String inflectFullname(String sfp, Case declension) {
-        return String.join(" ", inflectSPF(require(sfp, "surname+firstname+patronymic").split("\\s+"),
-                require(declension, "declension"), null));
+        return inflectFullnameTo(new StringBuilder(), sfp, declension).toString();
+    }
+
+    @Override
+    public <A extends Appendable> A inflectFullnameTo(A out, String sfp, Case declension) {
+        String[] parts = require(sfp, "surname+firstname+patronymic").split("\\s+");
+        require(declension, "declension");
+        if (parts.length > 3 || parts.length == 0) {
+            throw new IllegalArgumentException();
+        }
+        Gender gender = HumanNameUtils.guessGenderByFullName(parts);
+        StringBuilder res = TextUtils.toStringBuilder(out);
+        for (int i = 0; i < parts.length; i++) {
+            if (i != 0) {
+                res.append(' ');
+            }
+            inflectTo(res, parts[i], SPF_RULE_TYPES[i], declension, gender, true, false);
+        }
+        return TextUtils.flush(out, res);
     }
 
     @Override
@@ -272,6 +441,57 @@ public class InflectionEngineImpl implements InflectionEngine {
         return inflectPhrase(phrase, Type.ANY, declension, null, animate, null);
     }
 
+    @Override
+    public String inflectRegularTerm(String phrase, Case declension, Boolean animate, Boolean plural) {
+        return inflectPhrase(phrase, Type.ANY, declension, null, animate, plural);
+    }
+
+    /**
+     * Inclines the phrase of the given type into the {@code out}:
+     * professions are animate, organizations are inanimate, the number is kept.
+     * If the {@code out} is a {@link StringBuilder}, the result is appended to it without intermediate strings.
+     *
+     * @see #inflectPhrase(String, Type, Case, Gender, Boolean, Boolean)
+     */
+    @Override
+    public <A extends Appendable> A inflectTo(A out, String phrase, PreparedPhrase.Type type, Case declension) {
+        StringBuilder res = TextUtils.toStringBuilder(out);
+        switch (require(type, "type")) {
+            case PROFESSION_NAME:
+                inflectPhraseTo(res, phrase, Type.PROFESSION_NAME, declension, null, true, false);
+                break;
+            case ORGANIZATION_NAME:
+                inflectPhraseTo(res, phrase, Type.ORGANIZATION_NAME, declension, null, false, false);
+                break;
+            default:
+                inflectPhraseTo(res, phrase, Type.ANY, declension, null, null, null);
+        }
+        return TextUtils.flush(out, res);
+    }
+
+    /**
+     * Inclines a regular-term phrase appending the result to the given builder.
+     * If the cache is enabled, the cached string is appended,
+     * otherwise the inflected words are written directly into the builder.
+     *
+     * @see #inflectPhrase(String, Type, Case, Gender, Boolean, Boolean)
+     */
+    private StringBuilder inflectPhraseTo(StringBuilder res,
+                                          String phrase,
+                                          Type type,
+                                          Case declension,
+                                          Gender gender,
+                                          Boolean animate,
+                                          Boolean plural) {
+        if (isOriginal(declension, plural)) {
+            return res.append(require(phrase, "phrase"));
+        }
+        if (cache != null) {
+            return res.append(inflectPhrase(phrase, type, declension, gender, animate, plural));
+        }
+        return inflectWords(Phrase.parse(phrase, type, gender, animate), declension, plural).composeTo(res);
+    }
+
     /**
      * Inclines a regular-term phrase, which is a combination of words (e.g. job-title, organization name).
      *
@@ -284,10 +504,63 @@ public class InflectionEngineImpl implements InflectionEngine {
      * @return {@code String} - a phrase in the selected case
      */
     public String inflectPhrase(String phrase, Type type, Case declension, Gender gender, Boolean animate, Boolean plural) {
-        if (require(declension, "declension case") == Case.NOMINATIVE) {
+        if (isOriginal(declension, plural)) {
             return phrase;
         }
-        return inflectPhrase(Phrase.parse(phrase, type, gender, animate), declension, plural);
+        long shape = cache == null || type == null ? -1 : caseShape(phrase);
+        if (shape < 0) {
+            return inflectPhrase(Phrase.parse(phrase, type, gender, animate), declension, plural);
+        }
+        // the parsing depends on the letter case (e.g. abbreviations), so the case shape is a part of the key
+        PhraseCache.Key key = PhraseCache.key(phrase.toLowerCase(TextUtils.DEFAULT_LOCALE),
+                shape, type, declension, gender, animate, plural);
+        String res = cache.get(key);
+        if (res == null) {
+            res = inflectPhrase(Phrase.parse(phrase, type, gender, animate), declension, plural);
+            cache.put(key, res);
+        }
+        return res;
+    }
+
+    /**
+     * Calculates the letter case shape of the phrase:
+     * two bits per word - lower case, upper case or capitalized.
+     * The phrase is uniquely determined by its lower-cased form and the shape.
+     *
+     * @param phrase {@code String}, not {@code null}
+     * @return {@code long} or {@code -1} if the phrase has too many words or a word in some other (mixed) case
+     */
+    static long caseShape(String phrase) {
+        long res = 0;
+        int count = 0;
+        int length = phrase.length();
+        for (int i = 0; i < length; ) {
+            if (PhraseAssembler.isSpace(phrase.charAt(i))) {
+                i++;
+                continue;
+            }
+            int start = i;
+            while (i < length && !PhraseAssembler.isSpace(phrase.charAt(i))) {
+                i++;
+            }
+            if (count == Long.SIZE / 2 - 1) {
+                return -1;
+            }
+            String word = phrase.substring(start, i);
+            String lower = word.toLowerCase(TextUtils.DEFAULT_LOCALE);
+            int shape;
+            if (word.equals(lower)) {
+                shape = LOWER_CASE;
+            } else if (word.equals(lower.toUpperCase(TextUtils.DEFAULT_LOCALE))) {
+                shape = UPPER_CASE;
+            } else if (word.equals(lower.substring(0, 1).toUpperCase(TextUtils.DEFAULT_LOCALE) + lower.substring(1))) {
+                shape = CAPITALIZED;
+            } else {
+                return -1;
+            }
+            res |= (long) shape << (2 * count++);
+        }
+        return res;
     }
 
     /**
@@ -299,9 +572,22 @@ public class InflectionEngineImpl implements InflectionEngine {
      * @return {@code String} - a phrase in the selected case
      */
     public String inflectPhrase(Phrase phrase, Case declension, Boolean plural) {
-        if (require(declension, "declension case") == Case.NOMINATIVE) {
+        // a phrase that is already plural has no other plural nominative
+        if (isOriginal(declension, plural) || declension == Case.NOMINATIVE && phrase.plural() == Boolean.TRUE) {
             return phrase.raw();
         }
+        return inflectWords(phrase, declension, plural).compose();
+    }
+
+    /**
+     * Answers {@code true} if the phrase is returned as is:
+     * the nominative is the original phrase, except if the plural is requested explicitly.
+     */
+    private static boolean isOriginal(Case declension, Boolean plural) {
+        return require(declension, "declension case") == Case.NOMINATIVE && plural != Boolean.TRUE;
+    }
+
+    private Phrase.Mutable inflectWords(Phrase phrase, Case declension, Boolean plural) {
         if (plural == null) {
             plural = phrase.plural();
         }
@@ -317,7 +603,275 @@ public class InflectionEngineImpl implements InflectionEngine {
                 pm.set(i, w);
             }
         }
-        return pm.compose();
+        return pm;
+    }
+
+    /**
+     * Inclines a regular-term phrase into all cases at once, walking the phrase details only once.
+     *
+     * @param phrase {@link Phrase}, not {@code null}
+     * @param plural {@code Boolean}
+     * @return {@code Array} of {@code String}s indexed by {@link Case#ordinal()}
+     * @see #inflectPhrase(Phrase, Case, Boolean)
+     */
+    public String[] inflectPhraseAllCases(Phrase phrase, Boolean plural) {
+        // as in inflectPhrase(Phrase, Case, Boolean) the nominative is the original phrase,
+        // except if the plural is requested explicitly
+        boolean nominative = plural == Boolean.TRUE && phrase.plural() != Boolean.TRUE;
+        if (plural == null) {
+            plural = phrase.plural();
+        }
+        Case[] cases = Case.values();
+        Phrase.Mutable[] res = new Phrase.Mutable[cases.length];
+        for (int i = 0; i < cases.length; i++) {
+            res[i] = phrase.toMutable();
+        }
+        for (int i = 0; i < phrase.length(); i++) {
+            Word detail = phrase.details(i);
+            if (detail.isIndeclinable()) {
+                continue;
+            }
+            String[] forms = processRegularWordAllCases(phrase.key(i), detail, plural);
+            for (int j = 0; j < cases.length; j++) {
+                if (forms[j] != null) {
+                    res[j].set(i, forms[j]);
+                }
+            }
+        }
+        String[] forms = new String[cases.length];
+        for (int i = 0; i < cases.length; i++) {
+            forms[i] = res[i].compose();
+        }
+        if (!nominative) {
+            forms[Case.NOMINATIVE.ordinal()] = phrase.raw();
+        }
+        return forms;
+    }
+
+    /**
+     * Declines the given {@code word} into all cases using petrovich rules, the rule is searched only once.
+     *
+     * @param word    {@code String}, not {@code null}
+     * @param type    {@link RuleType}, not {@code null}
+     * @param gender  {@link Gender}, {@code null} to choose automatically
+     * @param animate {@code Boolean}, can be {@code null}
+     * @param plural  {@code Boolean}, can be {@code null}
+     * @return {@code Array} of {@code String}s indexed by {@link Case#ordinal()}
+     * @see #inflect(String, RuleType, Case, Gender, Boolean, Boolean)
+     */
+    public String[] inflectAllCases(String word, RuleType type, Gender gender, Boolean animate, Boolean plural) {
+        require(word, "word");
+        String normalized = TextUtils.normalize(word);
+        Rule rule = findRule(normalized, require(type, "rule type"), gender == null ? Gender.MALE : gender,
+                PartOfSpeech.NOUN, animate, plural);
+        Case[] cases = Case.values();
+        String[] res = new String[cases.length];
+        res[Case.NOMINATIVE.ordinal()] = word;
+        for (int i = 1; i < cases.length; i++) {
+            res[i] = rule == null ? word : TextUtils.toProperCase(word, rule.apply(cases[i], normalized));
+        }
+        return res;
+    }
+
+    @Override
+    public CaseForms inflectFullnameAllCases(String sfp) {
+        String[] parts = require(sfp, "surname+firstname+patronymic").split("\\s+");
+        if (parts.length > 3 || parts.length == 0) {
+            throw new IllegalArgumentException();
+        }
+        Gender gender = HumanNameUtils.guessGenderByFullName(parts);
+        RuleType[] types = SPF_RULE_TYPES;
+        String[][] forms = new String[parts.length][];
+        for (int i = 0; i < parts.length; i++) {
+            forms[i] = inflectAllCases(parts[i], types[i], gender, true, false);
+        }
+        Case[] cases = Case.values();
+        String[] res = new String[cases.length];
+        String[] words = new String[parts.length];
+        for (int i = 0; i < cases.length; i++) {
+            for (int j = 0; j < parts.length; j++) {
+                words[j] = forms[j][i];
+            }
+            res[i] = String.join(" ", words);
+        }
+        return new CaseForms(res, null);
+    }
+
+    @Override
+    public String toNominative(String phrase) {
+        require(phrase, "phrase");
+        FormIndex[] index = {Dictionary.getNounDictionary().formIndex(), Dictionary.getAdjectiveDictionary().formIndex()};
+        List<MatchResult> words = new ArrayList<>();
+        List<List<FormIndex.Form>> readings = new ArrayList<>();
+        Matcher m = WORD_PATTERN.matcher(phrase);
+        while (m.find()) {
+            words.add(m.toMatchResult());
+            readings.add(findForms(index, TextUtils.normalize(m.group())));
+        }
+        // the subject is the first noun, that is not an adjective agreed with the next noun (e.g. "рабочего цеха")
+        int subject = -1;
+        for (int i = 0; i < words.size() && subject < 0; i++) {
+            List<FormIndex.Form> forms = readings.get(i);
+            if (forms.stream().anyMatch(x -> x.partOfSpeech() == PartOfSpeech.NOUN) &&
+                    (i == words.size() - 1 || readings.get(i + 1).stream()
+                            .noneMatch(x -> x.partOfSpeech() == PartOfSpeech.NOUN && findAgreed(forms, x) != null))) {
+                subject = i;
+            }
+        }
+        PartOfSpeech pos = PartOfSpeech.NOUN;
+        if (subject < 0) {
+            // no nouns: the last adjective is a substantive (e.g. "старшему рабочему")
+            pos = PartOfSpeech.ADJECTIVE;
+            for (int i = words.size() - 1; i >= 0 && subject < 0; i--) {
+                if (!readings.get(i).isEmpty()) {
+                    subject = i;
+                }
+            }
+            if (subject < 0) {
+                return phrase;
+            }
+        }
+        PartOfSpeech subjectPos = pos;
+        List<FormIndex.Form> nouns = new ArrayList<>();
+        readings.get(subject).stream().filter(x -> x.partOfSpeech() == subjectPos).forEach(nouns::add);
+        // prefer the nominative (the phrase is already in the right case), then singular
+        nouns.sort(Comparator.comparing(FormIndex.Form::declension).thenComparing(FormIndex.Form::isPlural));
+        FormIndex.Form noun = nouns.get(0);
+        for (FormIndex.Form candidate : nouns) {
+            boolean agreed = true;
+            for (int i = 0; i < subject && agreed; i++) {
+                List<FormIndex.Form> forms = readings.get(i);
+                agreed = forms.stream().noneMatch(x -> x.partOfSpeech() == PartOfSpeech.ADJECTIVE)
+                        || findAgreed(forms, candidate) != null;
+            }
+            if (agreed) {
+                noun = candidate;
+                break;
+            }
+        }
+        StringBuilder res = new StringBuilder(phrase.length());
+        int last = 0;
+        for (int i = 0; i <= subject; i++) {
+            MatchResult word = words.get(i);
+            res.append(phrase, last, word.start());
+            String value = word.group();
+            if (i == subject) {
+                value = toNominative(index, value, noun);
+            } else {
+                FormIndex.Form adjective = findAgreed(readings.get(i), noun);
+                if (adjective != null) {
+                    value = TextUtils.toProperCase(value, adjective.nominative());
+                }
+            }
+            res.append(value);
+            last = word.end();
+        }
+        return res.append(phrase, last, phrase.length()).toString();
+    }
+
+    @Override
+    public String toNominativeFullname(String sfp) {
+        String[] parts = require(sfp, "surname+firstname+patronymic").trim().split("\\s+");
+        if (parts.length > 3) {
+            throw new IllegalArgumentException();
+        }
+        RuleType[] types = SPF_RULE_TYPES;
+        // choose the case and gender, for which the most parts give a known name (or a name with a typical ending)
+        String[] best = null;
+        int max = -1;
+        for (Case declension : Case.values()) {
+            for (Gender gender : new Gender[]{Gender.MALE, Gender.FEMALE}) {
+                String[] res = new String[parts.length];
+                int score = 0;
+                for (int i = 0; i < parts.length && score >= 0; i++) {
+                    String key = TextUtils.normalize(parts[i]);
+                    String found = null;
+                    boolean confirmed = false;
+                    for (String candidate : chooseRuleSet(types[i]).candidates(key, declension)) {
+                        if (declension != Case.NOMINATIVE) {
+                            String value = processRule(candidate, types[i], declension, gender, PartOfSpeech.NOUN, true, false);
+                            if (!key.equals(value == null ? candidate : value)) {
+                                continue;
+                            }
+                        }
+                        boolean known = isKnownName(candidate, types[i], gender);
+                        // a known name first, then the shortest (e.g. "иванова" rather than "ивановая")
+                        if (found == null || (known && !confirmed)
+                                || (known == confirmed && candidate.length() < found.length())) {
+                            found = candidate;
+                            confirmed = known;
+                        }
+                    }
+                    if (found == null) {
+                        score = -1;
+                        break;
+                    }
+                    res[i] = TextUtils.toProperCase(parts[i], found);
+                    if (confirmed) {
+                        score++;
+                    }
+                }
+                if (score > max) {
+                    max = score;
+                    best = res;
+                }
+            }
+        }
+        return best == null ? sfp : String.join(" ", best);
+    }
+
+    private static List<FormIndex.Form> findForms(FormIndex[] index, String key) {
+        List<FormIndex.Form> res = FormIndex.find(key, index);
+        int hyphen = key.indexOf('-');
+        if (res.isEmpty() && hyphen > 0) { // e.g. "инженера-программиста"
+            return FormIndex.find(key.substring(0, hyphen), index);
+        }
+        return res;
+    }
+
+    private static String toNominative(FormIndex[] index, String word, FormIndex.Form noun) {
+        String key = TextUtils.normalize(word);
+        if (key.indexOf('-') < 0 || !FormIndex.find(key, index).isEmpty()) {
+            return TextUtils.toProperCase(word, noun.nominative());
+        }
+        String[] parts = word.split("-", -1);
+        parts[0] = TextUtils.toProperCase(parts[0], noun.nominative());
+        for (int i = 1; i < parts.length; i++) {
+            for (FormIndex.Form form : FormIndex.find(TextUtils.normalize(parts[i]), index)) {
+                if (form.partOfSpeech() == PartOfSpeech.NOUN && form.declension() == noun.declension()
+                        && form.isPlural() == noun.isPlural()) {
+                    parts[i] = TextUtils.toProperCase(parts[i], form.nominative());
+                    break;
+                }
+            }
+        }
+        return String.join("-", parts);
+    }
+
+    private static FormIndex.Form findAgreed(List<FormIndex.Form> adjectives, FormIndex.Form noun) {
+        for (FormIndex.Form adjective : adjectives) {
+            if (adjective.partOfSpeech() == PartOfSpeech.ADJECTIVE
+                    && adjective.declension() == noun.declension()
+                    && adjective.isPlural() == noun.isPlural()
+                    && (noun.isPlural() || noun.gender() == null || adjective.gender() == noun.gender())) {
+                return adjective;
+            }
+        }
+        return null;
+    }
+
+    private static boolean isKnownName(String name, RuleType type, Gender gender) {
+        boolean female = gender == Gender.FEMALE;
+        switch (type) {
+            case FAMILY_NAME:
+                return female ? HumanNameUtils.canBeFemaleSurname(name) : HumanNameUtils.canBeMaleSurname(name);
+            case FIRST_NAME:
+                return female ? HumanNameUtils.isFemaleFirstname(name) : HumanNameUtils.isMaleFirstname(name);
+            case PATRONYMIC_NAME:
+                return female ? HumanNameUtils.canBeFemalePatronymic(name) : HumanNameUtils.canBeMalePatronymic(name);
+            default:
+                return false;
+        }
     }
 
     private static String[] checkAndSplit(String phrase) {
@@ -357,17 +911,7 @@ public class InflectionEngineImpl implements InflectionEngine {
      * @return {@code String} or {@code null}
      */
     protected String processRegularWord(String key, Word details, Case declension, Boolean toPlural) {
-        RuleType type = details.rule();
-        Dictionary.Record record = details.record();
-        String res;
-        if (type == RuleType.GENERIC && record instanceof NounDictionary.Word) {
-            res = processDictionaryNounRecord(key, (NounDictionary.Word) record, declension, toPlural);
-        } else if (type == RuleType.GENERIC && record instanceof AdjectiveDictionary.Word) {
-            res = processDictionaryAdjectiveRecord(key, (AdjectiveDictionary.Word) record, declension,
-                    details, toPlural);
-        } else {
-            res = null;
-        }
+        String res = processDictionaryRecord(key, details, declension, toPlural);
         // indeclinable words are skipped upper on the stack, if null - then the word is incomplete, try petrovich
         if (res != null) {
             return res;
@@ -375,46 +919,118 @@ public class InflectionEngineImpl implements InflectionEngine {
         if (toPlural != null && toPlural) {
             // note that for plural declensions the base is also plural in json, not singular like in dictionary rules
             key = GrammarUtils.toPluralNoun(key);
+            if (declension == Case.NOMINATIVE) {
+                // as in processRegularWordAllCases, the rules have no nominative
+                return key;
+            }
+        }
+        return processRule(key, details.rule(), declension, details.gender(), details.partOfSpeech(), details.animate(), toPlural);
+    }
+
+    /**
+     * Inflects a regular word (noun, adjective, etc.) into all cases at once:
+     * the petrovich rule (if needed) is searched only once.
+     *
+     * @param key      {@code String} a normalized word
+     * @param details  {@link Word}, not {@code null}
+     * @param toPlural {@code Boolean}
+     * @return {@code Array} of {@code String}s indexed by {@link Case#ordinal()},
+     * an element is {@code null} if the word has no such form;
+     * the nominative form is calculated only for plural
+     */
+    protected String[] processRegularWordAllCases(String key, Word details, Boolean toPlural) {
+        Case[] cases = Case.values();
+        String[] res = new String[cases.length];
+        boolean incomplete = false;
+        for (Case declension : cases) {
+            if (declension == Case.NOMINATIVE && toPlural != Boolean.TRUE) {
+                continue;
+            }
+            String w = processDictionaryRecord(key, details, declension, toPlural);
+            res[declension.ordinal()] = w;
+            incomplete |= w == null;
+        }
+        if (!incomplete) {
+            return res;
+        }
+        if (toPlural != null && toPlural) {
+            key = GrammarUtils.toPluralNoun(key);
+            if (res[Case.NOMINATIVE.ordinal()] == null) {
+                res[Case.NOMINATIVE.ordinal()] = key;
+            }
+        }
+        Rule rule = findRule(key, details.rule(), details.gender(), details.partOfSpeech(), details.animate(), toPlural);
+        if (rule == null) {
+            return res;
+        }
+        for (int i = 1; i < cases.length; i++) {
+            if (res[i] == null) {
+                res[i] = rule.apply(cases[i], key);
+            }
         }
-        return processRule(key, type, declension, details.gender(), details.partOfSpeech(), details.animate(), toPlural);
+        return res;
+    }
+
+    /**
+     * Inflects a regular word using dictionary record from the details.
+     *
+     * @param key        {@code String} a normalized word
+     * @param details    {@link Word}, not {@code null}
+     * @param declension {@link Case}, not {@code null}
+     * @param toPlural   {@code Boolean}
+     * @return {@code String} or {@code null} if there is no dictionary record or it is incomplete
+     */
+    protected String processDictionaryRecord(String key, Word details, Case declension, Boolean toPlural) {
+        if (details.rule() != RuleType.GENERIC) {
+            return null;
+        }
+        Dictionary.Record record = details.record();
+        if (record instanceof NounDictionary.Word) {
+            return processDictionaryNounRecord(key, (NounDictionary.Word) record, declension, toPlural);
+        }
+        if (record instanceof AdjectiveDictionary.Word) {
+            return processDictionaryAdjectiveRecord(key, (AdjectiveDictionary.Word) record, declension,
+                    details, toPlural);
+        }
+        return null;
     }
 
     protected String processDictionaryAdjectiveRecord(String key, AdjectiveDictionary.Word record, Case declension,
                                                       Word detail, Boolean plural) {
-        String[] cases;
+        int group;
         if (plural == Boolean.TRUE || plural == null && detail.isPlural() == Boolean.TRUE) {
-            cases = record.pluralCases();
+            group = AdjectiveDictionary.Word.PLURAL;
         } else if (detail.gender() == Gender.MALE) {
-            cases = record.masculineCases();
+            group = AdjectiveDictionary.Word.MASCULINE;
         } else if (detail.gender() == Gender.FEMALE) {
-            cases = record.feminineCases();
+            group = AdjectiveDictionary.Word.FEMININE;
         } else if (detail.gender() == Gender.NEUTER) {
-            cases = record.neuterCases();
+            group = AdjectiveDictionary.Word.NEUTER;
         } else {
             return null;
         }
+        Paradigm paradigm = record.paradigm();
+        if (!paradigm.has(group)) {
+            return null;
+        }
 
-        String w = cases[declension.ordinal()];
+        Paradigm.Ending w = paradigm.ending(group, declension.ordinal());
         if (declension == Case.ACCUSATIVE && (detail.gender() == Gender.MALE || plural == Boolean.TRUE)) {
             if (detail.animate() == Boolean.FALSE) {
                 //Case.NOMINATIVE
-                w = cases[0];
+                w = paradigm.ending(group, 0);
             } else {
                 //Берем окончание, которое отличное от Case.NOMINATIVE
-                if (cases[declension.ordinal()].contains(",")) {
-                    for (String s : cases[declension.ordinal()].split(",")) {
-                        if (cases[0].equals(s)) {
-                            continue;
-                        }
-                        w = s;
+                String nominative = paradigm.mod(group, 0);
+                for (Paradigm.Ending e : paradigm.endings(group, declension.ordinal())) {
+                    if (!nominative.equals(e.mod())) {
+                        w = e;
                     }
-                } else {
-                    w = cases[declension.ordinal()];
                 }
             }
         }
 
-        return applyCase(key, w);
+        return w.apply(key);
     }
 
     /**
@@ -427,35 +1043,17 @@ public class InflectionEngineImpl implements InflectionEngine {
      * @return {@code String} or {@code null}
      */
     protected String processDictionaryNounRecord(String key, NounDictionary.Word record, Case declension, Boolean plural) {
-        if (declension == Case.NOMINATIVE) {
-            return plural == Boolean.TRUE ? record.plural() : null;
-        }
-        String[] cases = plural == Boolean.TRUE && record.pluralCases() != null ? record.pluralCases() : record.singularCases();
-        if (cases == null) {
+        Paradigm paradigm = record.paradigm();
+        if (declension == Case.NOMINATIVE && (plural != Boolean.TRUE || !paradigm.has(NounDictionary.Word.PLURAL))) {
             return null;
         }
-        String w = cases[declension.ordinal() - 1];
-        return applyCase(key, w);
-    }
-
-    private static String applyCase(String key, String word) {
-        if (!word.contains(",")) {
-            return RuleUtils.changeEnding(key, word);
-        }
-        // selects the longest
-        String[] array = word.split(",\\s*");
-        String res = null;
-        for (String s : array) {
-            String item = RuleUtils.changeEnding(key, s);
-            if (res == null) {
-                res = item;
-                continue;
-            }
-            if (item.length() > res.length()) {
-                res = item;
-            }
+        int group = plural == Boolean.TRUE && paradigm.has(NounDictionary.Word.PLURAL) ?
+                NounDictionary.Word.PLURAL : NounDictionary.Word.SINGULAR;
+        if (!paradigm.has(group)) {
+            return null;
         }
-        return res;
+        // if there are several alternatives, the longest is selected
+        return paradigm.ending(group, declension.ordinal()).apply(key);
     }
 
     /**
@@ -477,13 +1075,33 @@ public class InflectionEngineImpl implements InflectionEngine {
                                  PartOfSpeech pos,
                                  Boolean animate,
                                  Boolean plural) {
-        Rule rule = RuleSet.findRule(normalized, gender, pos, animate, plural, chooseRuleSet(type));
+        Rule rule = findRule(normalized, type, gender, pos, animate, plural);
         if (rule == null) {
             return null;
         }
         return rule.apply(declension, normalized);
     }
 
+    /**
+     * Finds the petrovich rule for the word.
+     *
+     * @param normalized {@code String}, not {@code null}
+     * @param type       {@link RuleType}, not {@code null}
+     * @param gender     {@link Gender}, filter parameter
+     * @param pos        {@link PartOfSpeech}, filter parameter
+     * @param animate    {@code Boolean}, filter parameter, can be {@code null}
+     * @param plural     {@code Boolean}, filter parameter, can be {@code null}
+     * @return {@link Rule} or {@code null}
+     */
+    protected Rule findRule(String normalized,
+                            RuleType type,
+                            Gender gender,
+                            PartOfSpeech pos,
+                            Boolean animate,
+                            Boolean plural) {
+        return RuleSet.findRule(normalized, gender, pos, animate, plural, chooseRuleSet(type));
+    }
+
     private RuleSet chooseRuleSet(RuleType type) {
         switch (type) {
             case FIRST_NAME:
@@ -0,0 +1,419 @@
+package pro.greendata.rugrammartools.impl;
+
+import pro.greendata.rugrammartools.Case;
+import pro.greendata.rugrammartools.CaseForms;
+import pro.greendata.rugrammartools.Gender;
+import pro.greendata.rugrammartools.impl.dictionaries.PlainDictionary;
+import pro.greendata.rugrammartools.impl.utils.GrammarUtils;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+import java.util.stream.Stream;
+
+/**
+ * The case forms of the cardinal numerals (units, teens, tens, hundreds, тысяча and the big numerals)
+ * and the agreement of the counted words, built at class init.
+ * The forms are indexed by {@link Case#ordinal()}.
+ */
+final class NumeralTable {
+    /**
+     * The marker of the zero number for {@link #agree(CaseForms, boolean, boolean, int, Case)}.
+     */
+    static final int ZERO = -1;
+    /**
+     * The marker of a fractional number for {@link #agree(CaseForms, boolean, boolean, int, Case)}.
+     */
+    static final int FRACTION = -2;
+    private static final int ACCUSATIVE = Case.ACCUSATIVE.ordinal();
+
+    // 0..19, the masculine forms; 0 - ноль
+    private static final String[][] UNITS = {
+            forms("ноль", "ноля", "нолю", "ноль", "нолём", "ноле"),
+            forms("один", "одного", "одному", "один", "одним", "одном"),
+            forms("два", "двух", "двум", "два", "двумя", "двух"),
+            forms("три", "трёх", "трём", "три", "тремя", "трёх"),
+            forms("четыре", "четырёх", "четырём", "четыре", "четырьмя", "четырёх"),
+            forms("пять", "пяти", "пяти", "пять", "пятью", "пяти"),
+            forms("шесть", "шести", "шести", "шесть", "шестью", "шести"),
+            forms("семь", "семи", "семи", "семь", "семью", "семи"),
+            forms("восемь", "восьми", "восьми", "восемь", "восьмью", "восьми"),
+            forms("девять", "девяти", "девяти", "девять", "девятью", "девяти"),
+            forms("десять", "десяти", "десяти", "десять", "десятью", "десяти"),
+            teen("одиннадцать"),
+            teen("двенадцать"),
+            teen("тринадцать"),
+            teen("четырнадцать"),
+            teen("пятнадцать"),
+            teen("шестнадцать"),
+            teen("семнадцать"),
+            teen("восемнадцать"),
+            teen("девятнадцать"),
+    };
+    private static final String[] ONE_FEMALE = forms("одна", "одной", "одной", "одну", "одной", "одной");
+    private static final String[] ONE_NEUTER = forms("одно", "одного", "одному", "одно", "одним", "одном");
+    private static final String[] TWO_FEMALE = forms("две", "двух", "двум", "две", "двумя", "двух");
+    // the accusative of 1..4 with animate nouns (двух свиней, одного кота)
+    private static final String[] ANIMATE_ACCUSATIVE = {null, "одного", "двух", "трёх", "четырёх"};
+
+    // 20..90, indexed by the number of tens
+    private static final String[][] TENS = {
+            null,
+            null,
+            forms("двадцать", "двадцати", "двадцати", "двадцать", "двадцатью", "двадцати"),
+            forms("тридцать", "тридцати", "тридцати", "тридцать", "тридцатью", "тридцати"),
+            forms("сорок", "сорока", "сорока", "сорок", "сорока", "сорока"),
+            forms("пятьдесят", "пятидесяти", "пятидесяти", "пятьдесят", "пятьюдесятью", "пятидесяти"),
+            forms("шестьдесят", "шестидесяти", "шестидесяти", "шестьдесят", "шестьюдесятью", "шестидесяти"),
+            forms("семьдесят", "семидесяти", "семидесяти", "семьдесят", "семьюдесятью", "семидесяти"),
+            forms("восемьдесят", "восьмидесяти", "восьмидесяти", "восемьдесят", "восьмьюдесятью", "восьмидесяти"),
+            forms("девяносто", "девяноста", "девяноста", "девяносто", "девяноста", "девяноста"),
+    };
+
+    // 100..900, indexed by the number of hundreds
+    private static final String[][] HUNDREDS = {
+            null,
+            forms("сто", "ста", "ста", "сто", "ста", "ста"),
+            forms("двести", "двухсот", "двумстам", "двести", "двумястами", "двухстах"),
+            forms("триста", "трёхсот", "трёмстам", "триста", "тремястами", "трёхстах"),
+            forms("четыреста", "четырёхсот", "четырёмстам", "четыреста", "четырьмястами", "четырёхстах"),
+            forms("пятьсот", "пятисот", "пятистам", "пятьсот", "пятьюстами", "пятистах"),
+            forms("шестьсот", "шестисот", "шестистам", "шестьсот", "шестьюстами", "шестистах"),
+            forms("семьсот", "семисот", "семистам", "семьсот", "семьюстами", "семистах"),
+            forms("восемьсот", "восьмисот", "восьмистам", "восемьсот", "восьмьюстами", "восьмистах"),
+            forms("девятьсот", "девятисот", "девятистам", "девятьсот", "девятьюстами", "девятистах"),
+    };
+
+    // тысяча, миллион, миллиард, ... - indexed as PlainDictionary.BIG_CARDINAL_NUMERALS
+    private static final List<CaseForms> BIG_NUMERALS = PlainDictionary.BIG_CARDINAL_NUMERALS.stream()
+            .map(x -> "тысяча".equals(x) ?
+                    new CaseForms(forms("тысяча", "тысячи", "тысяче", "тысячу", "тысячей", "тысяче"),
+                            forms("тысячи", "тысяч", "тысячам", "тысячи", "тысячами", "тысячах")) :
+                    new CaseForms(forms(x, x + "а", x + "у", x, x + "ом", x + "е"),
+                            forms(x + "ы", x + "ов", x + "ам", x + "ы", x + "ами", x + "ах")))
+            .collect(Collectors.toUnmodifiableList());
+
+    /**
+     * The forms of {@code целая} (the integer part of a fraction), agree as an adjective.
+     */
+    static final CaseForms INTEGER_PART = fractionAdjective("цел");
+
+    // the fraction denominators by the number of digits: десятая, сотая, тысячная, десятитысячная, ...
+    private static final CaseForms[] FRACTION_PARTS = IntStream.rangeClosed(0, PlainDictionary.BIG_CARDINAL_NUMERALS.size() * 3 + 2)
+            .mapToObj(x -> x == 0 ? null : fractionAdjective(fractionStem(x)))
+            .toArray(CaseForms[]::new);
+
+    // the nominative of a cardinal numeral atom -> the forms indexed by case, [6] - the accusative with animate nouns
+    private static final Map<String, String[]> CARDINAL_PARADIGMS = buildCardinalParadigms();
+
+    // the ordinal endings (hard: сороковой, пятый; soft: третий), the masculine accusative is for animate nouns
+    private static final String[] HARD_MALE_ORDINAL = forms("ый", "ого", "ому", "ого", "ым", "ом");
+    private static final String[] HARD_FEMALE_ORDINAL = forms("ая", "ой", "ой", "ую", "ой", "ой");
+    private static final String[] HARD_NEUTER_ORDINAL = forms("ое", "ого", "ому", "ое", "ым", "ом");
+    private static final String[] SOFT_MALE_ORDINAL = forms("ий", "ьего", "ьему", "ьего", "ьим", "ьем");
+    private static final String[] SOFT_FEMALE_ORDINAL = forms("ья", "ьей", "ьей", "ью", "ьей", "ьей");
+    private static final String[] SOFT_NEUTER_ORDINAL = forms("ье", "ьего", "ьему", "ье", "ьим", "ьем");
+
+    private NumeralTable() {
+    }
+
+    static String[] forms(String... forms) {
+        if (forms.length != Case.values().length) {
+            throw new IllegalArgumentException("Wrong number of forms: " + forms.length);
+        }
+        return forms;
+    }
+
+    /**
+     * Builds the feminine singular and the plural forms of a hard adjective,
+     * used for the parts of fractions ({@code целая, десятая, миллионная}).
+     *
+     * @param stem {@code String}, e.g. {@code "десят"}
+     * @return {@link CaseForms}
+     */
+    static CaseForms fractionAdjective(String stem) {
+        return new CaseForms(
+                forms(stem + "ая", stem + "ой", stem + "ой", stem + "ую", stem + "ой", stem + "ой"),
+                forms(stem + "ые", stem + "ых", stem + "ым", stem + "ые", stem + "ыми", stem + "ых"));
+    }
+
+    private static String fractionStem(int numberOfDigits) { // десят, сот, тысячн, десятитысячн, стотысячн, миллионн
+        int index = numberOfDigits / 3 - 1;
+        int y = numberOfDigits % 3;
+        String res = y == 1 ? (index < 0 ? "десят" : "десяти") : y == 2 ? (index < 0 ? "сот" : "сто") : "";
+        if (index >= 0) {
+            res += PlainDictionary.BIG_CARDINAL_NUMERALS.get(index).replaceFirst("а$", "") + "н";
+        }
+        return res;
+    }
+
+    private static Map<String, String[]> buildCardinalParadigms() {
+        Map<String, String[]> res = new HashMap<>();
+        for (int i = 0; i < UNITS.length; i++) {
+            addCardinal(res, UNITS[i], i > 0 && i < 5 ? ANIMATE_ACCUSATIVE[i] : null);
+        }
+        addCardinal(res, ONE_FEMALE, null);
+        addCardinal(res, ONE_NEUTER, null);
+        addCardinal(res, TWO_FEMALE, ANIMATE_ACCUSATIVE[2]);
+        Stream.of(TENS, HUNDREDS).flatMap(Arrays::stream).filter(Objects::nonNull).forEach(x -> addCardinal(res, x, null));
+        Stream.concat(BIG_NUMERALS.stream(), Stream.concat(Stream.of(INTEGER_PART), Arrays.stream(FRACTION_PARTS).skip(1)))
+                .forEach(x -> {
+                    addCardinal(res, forms(x.get(Case.NOMINATIVE), x.get(Case.GENITIVE), x.get(Case.DATIVE),
+                            x.get(Case.ACCUSATIVE), x.get(Case.INSTRUMENTAL), x.get(Case.PREPOSITIONAL)), null);
+                    // тысячи, миллиона, миллионов, целых, десятых - after the numbers, decline in plural
+                    for (String count : new String[]{x.get(Case.GENITIVE), x.getPlural(Case.GENITIVE)}) {
+                        res.putIfAbsent(count, new String[]{count, x.getPlural(Case.GENITIVE), x.getPlural(Case.DATIVE),
+                                count, x.getPlural(Case.INSTRUMENTAL), x.getPlural(Case.PREPOSITIONAL), count});
+                    }
+                });
+        return Map.copyOf(res);
+    }
+
+    private static void addCardinal(Map<String, String[]> res, String[] forms, String animateAccusative) {
+        String[] paradigm = Arrays.copyOf(forms, forms.length + 1);
+        paradigm[forms.length] = animateAccusative == null ? forms[ACCUSATIVE] : animateAccusative;
+        res.put(forms[0], paradigm);
+    }
+
+    private static String[] teen(String nominative) { // одиннадцать -> одиннадцати, одиннадцатью
+        String base = nominative.substring(0, nominative.length() - 1);
+        return forms(nominative, base + "и", base + "и", nominative, base + "ью", base + "и");
+    }
+
+    /**
+     * Returns the form of a number {@code 0..19}.
+     *
+     * @param number     {@code int}, {@code 0} is {@code ноль}
+     * @param declension {@link Case}
+     * @param gender     {@link Gender} - matters for one and two only
+     * @param animate    if {@code true} then the accusative of 1..4 is as for animate nouns
+     * @return {@code String}
+     */
+    static String units(int number, Case declension, Gender gender, boolean animate) {
+        if (animate && declension == Case.ACCUSATIVE && number > 0 && number < 5) {
+            return number == 1 && gender == Gender.FEMALE ? ONE_FEMALE[ACCUSATIVE] : ANIMATE_ACCUSATIVE[number];
+        }
+        String[] res = UNITS[number];
+        if (number == 1) {
+            res = gender == Gender.FEMALE ? ONE_FEMALE : gender == Gender.NEUTER ? ONE_NEUTER : res;
+        } else if (number == 2 && gender == Gender.FEMALE) {
+            res = TWO_FEMALE;
+        }
+        return res[declension.ordinal()];
+    }
+
+    static String tens(int tens, Case declension) {
+        return TENS[tens][declension.ordinal()];
+    }
+
+    static String hundreds(int hundreds, Case declension) {
+        return HUNDREDS[hundreds][declension.ordinal()];
+    }
+
+    /**
+     * Returns the forms of the big numeral noun.
+     *
+     * @param index {@code int} - the index in {@link PlainDictionary#BIG_CARDINAL_NUMERALS}, {@code 0} - тысяча
+     * @return {@link CaseForms}
+     */
+    static CaseForms bigNumeral(int index) {
+        return BIG_NUMERALS.get(index);
+    }
+
+    /**
+     * Returns the forms of the fraction denominator.
+     *
+     * @param numberOfDigits {@code int} - the number of fraction digits, {@code 1} - десятая, {@code 2} - сотая, ...
+     * @return {@link CaseForms}
+     */
+    static CaseForms fractionPart(int numberOfDigits) {
+        return FRACTION_PARTS[numberOfDigits];
+    }
+
+    /**
+     * Finds the form of a cardinal numeral atom
+     * (a unit, a ten, a hundred, тысяча, a big numeral, целая or a fraction denominator),
+     * e.g. {@code "двести" -> "двумястами"}, {@code "миллиона" -> "миллионам"}.
+     *
+     * @param nominative {@code String} - the word in the nominative, lowercase
+     * @param declension {@link Case}
+     * @param animate    {@code boolean} - if {@code true} the accusative is as for animate nouns ({@code двух})
+     * @return {@code String} or {@code null} if the word is not a known numeral atom
+     */
+    static String cardinal(String nominative, Case declension, boolean animate) {
+        String[] res = CARDINAL_PARADIGMS.get(nominative);
+        if (res == null) {
+            return null;
+        }
+        return res[animate && declension == Case.ACCUSATIVE ? res.length - 1 : declension.ordinal()];
+    }
+
+    /**
+     * Declines the ordinal numeral word, the gender is taken from its ending.
+     *
+     * @param nominative {@code String} - the word in the nominative, lowercase
+     * @param declension {@link Case}
+     * @param animate    {@code boolean} - the counted word is animate
+     * @return {@code String} or {@code null} if the word does not have an ordinal ending
+     */
+    static String ordinal(String nominative, Case declension, boolean animate) {
+        if (nominative.length() < 4) {
+            return null;
+        }
+        switch (nominative.substring(nominative.length() - 2)) {
+            case "ый":
+            case "ой":
+            case "ий":
+                return ordinal(nominative, Gender.MALE, declension, animate);
+            case "ая":
+            case "ья":
+                return ordinal(nominative, Gender.FEMALE, declension, animate);
+            case "ое":
+            case "ье":
+                return ordinal(nominative, Gender.NEUTER, declension, animate);
+            default:
+                return null;
+        }
+    }
+
+    /**
+     * Declines the ordinal numeral word (the last word of a spelled ordinal number),
+     * e.g. {@code "сорокадвухтысячная" -> "сорокадвухтысячной"}.
+     *
+     * @param nominative {@code String} - the word in the nominative of the given gender,
+     *                   ends with {@code ый, ой, ий, ая, ья, ое, ье}
+     * @param gender     {@link Gender}, {@code null} is the same as masculine
+     * @param declension {@link Case}
+     * @param animate    {@code boolean} - the counted word is animate ({@code второго кота})
+     * @return {@code String}
+     */
+    static String ordinal(String nominative, Gender gender, Case declension, boolean animate) {
+        if (declension == Case.NOMINATIVE) {
+            return nominative;
+        }
+        boolean male = gender != Gender.FEMALE && gender != Gender.NEUTER;
+        if (male && declension == Case.ACCUSATIVE && !animate) {
+            return nominative;
+        }
+        int stem = nominative.length() - 2;
+        char c = nominative.charAt(stem);
+        String[] endings = c == 'и' || c == 'ь' ?
+                GrammarUtils.select(SOFT_FEMALE_ORDINAL, SOFT_NEUTER_ORDINAL, SOFT_MALE_ORDINAL, gender) :
+                GrammarUtils.select(HARD_FEMALE_ORDINAL, HARD_NEUTER_ORDINAL, HARD_MALE_ORDINAL, gender);
+        return nominative.substring(0, stem) + endings[declension.ordinal()];
+    }
+
+    /**
+     * Appends the triple {@code 1..999} in the given case,
+     * e.g. {@code "двумястами сорока одной"} for {@code 241}, instrumental, feminine.
+     *
+     * @param res        {@link StringBuilder} to append
+     * @param start      the position in the builder, where the number starts
+     * @param triple     {@code int}
+     * @param declension {@link Case}
+     * @param gender     {@link Gender} of the counted word
+     * @param animate    {@code boolean} - the counted word is animate
+     */
+    static void appendTriple(StringBuilder res, int start, int triple, Case declension, Gender gender, boolean animate) {
+        int hundreds = triple / 100;
+        int rest = triple % 100;
+        if (hundreds != 0) {
+            append(res, start, hundreds(hundreds, declension));
+        }
+        if (rest >= 20) {
+            append(res, start, tens(rest / 10, declension));
+            rest %= 10;
+        }
+        if (rest != 0) {
+            append(res, start, units(rest, declension, gender, animate));
+        }
+    }
+
+    /**
+     * Appends the integer number given as triples in the given case,
+     * the big numeral nouns (тысяча, миллион, ...) agree with their triples.
+     *
+     * @param res        {@link StringBuilder} to append
+     * @param start      the position in the builder, where the number starts
+     * @param triples    {@code int[]} - big-endian triples
+     * @param declension {@link Case}
+     * @param gender     {@link Gender} of the counted word
+     * @param animate    {@code boolean} - the counted word is animate
+     * @return {@code int} - the last triple or {@link #ZERO}, to agree the counted word
+     */
+    static int appendCardinal(StringBuilder res,
+                              int start,
+                              int[] triples,
+                              Case declension,
+                              Gender gender,
+                              boolean animate) {
+        boolean zero = true;
+        for (int i = 0; i < triples.length; i++) {
+            int triple = triples[i];
+            if (triple == 0) {
+                continue;
+            }
+            zero = false;
+            int bigIndex = triples.length - 2 - i;
+            if (bigIndex < 0) {
+                appendTriple(res, start, triple, declension, gender, animate);
+                continue;
+            }
+            appendTriple(res, start, triple, declension, bigIndex == 0 ? Gender.FEMALE : Gender.MALE, false);
+            append(res, start, agree(bigNumeral(bigIndex), false, false, triple, declension));
+        }
+        if (zero) {
+            append(res, start, units(0, declension, gender, false));
+            return ZERO;
+        }
+        return triples[triples.length - 1];
+    }
+
+    /**
+     * Selects the form of the counted word, which agrees with the number (the last triple) in the given case:
+     * {@code один рубль, два рубля, пять рублей, двух рублей, двумя рублями, нолём рублей}.
+     *
+     * @param word       {@link CaseForms} with plural forms
+     * @param adjectival if {@code true} the word is an adjective (e.g. {@code целая, десятая}),
+     *                   then for 2..4 the plural genitive is used ({@code две целых})
+     * @param animate    {@code boolean} - the word is animate ({@code двух свиней})
+     * @param triple     {@code int} - the last triple of the number, {@link #ZERO} if the number is zero
+     *                   or {@link #FRACTION} if the number has a fraction part
+     * @param declension {@link Case}
+     * @return {@code String}
+     */
+    static String agree(CaseForms word, boolean adjectival, boolean animate, int triple, Case declension) {
+        if (triple == ZERO) { // ноль is a noun, which governs the genitive: нолём рублей
+            return word.getPlural(Case.GENITIVE);
+        }
+        if (triple == FRACTION) { // the fraction governs the singular genitive: двух целых пяти десятых рубля
+            return word.get(Case.GENITIVE);
+        }
+        int rest = triple % 100;
+        int units = rest > 10 && rest < 20 ? rest : rest % 10;
+        if (declension != Case.NOMINATIVE && declension != Case.ACCUSATIVE) {
+            return units == 1 ? word.get(declension) : word.getPlural(declension);
+        }
+        if (units == 1) {
+            return word.get(declension);
+        }
+        if (units < 2 || units > 4) {
+            return word.getPlural(Case.GENITIVE);
+        }
+        if (adjectival) {
+            return word.getPlural(Case.GENITIVE);
+        }
+        return animate && declension == Case.ACCUSATIVE ? word.getPlural(Case.ACCUSATIVE) : word.get(Case.GENITIVE);
+    }
+
+    static void append(StringBuilder res, int start, String word) {
+        if (res.length() != start) {
+            res.append(' ');
+        }
+        res.append(word);
+    }
+}
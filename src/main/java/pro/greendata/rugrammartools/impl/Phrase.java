@@ -15,9 +15,9 @@ import java.util.Objects;
 public class Phrase {
     protected final String raw;
     protected final List<String> keys;
-    protected final List<String> words;
+    // the start and end offsets of each word in the raw phrase
+    protected final int[] bounds;
     protected final List<Word> details;
-    protected final List<String> separators;
     protected final Gender gender;
     protected final Boolean animate;
     protected final Boolean plural;
@@ -27,17 +27,18 @@ public class Phrase {
                      Boolean animate,
                      Boolean plural,
                      List<String> keys,
-                     List<String> words,
-                     List<Word> details,
-                     List<String> separators) {
-        this.raw = phrase;
+                     int[] bounds,
+                     List<Word> details) {
+        this.raw = Objects.requireNonNull(phrase);
         this.gender = gender;
         this.animate = animate;
         this.plural = plural;
         this.keys = Objects.requireNonNull(keys);
-        this.words = Objects.requireNonNull(words);
+        this.bounds = Objects.requireNonNull(bounds);
         this.details = Objects.requireNonNull(details);
-        this.separators = Objects.requireNonNull(separators);
+        if (bounds.length != 2 * keys.size()) {
+            throw new IllegalArgumentException();
+        }
     }
 
     /**
@@ -63,7 +64,7 @@ public class Phrase {
      * @return {@link Mutable}
      */
     public Mutable toMutable() {
-        return new Mutable(raw, gender, animate, plural, new ArrayList<>(keys), words, details, separators);
+        return new Mutable(raw, gender, animate, plural, new ArrayList<>(keys), bounds, details);
     }
 
     /**
@@ -72,16 +73,30 @@ public class Phrase {
      * @return a {@code String}
      */
     public String compose() {
-        if (separators.size() != keys.size() + 1) {
-            throw new IllegalStateException();
-        }
-        StringBuilder res = new StringBuilder();
-        res.append(separators.get(0));
+        return composeTo(new StringBuilder(raw.length() + 16)).toString();
+    }
+
+    /**
+     * Appends the phrase parts into the given builder.
+     *
+     * @param res {@link StringBuilder}, not {@code null}
+     * @return the same {@link StringBuilder}
+     */
+    public StringBuilder composeTo(StringBuilder res) {
+        res.append(raw, 0, separatorEnd(0));
         for (int i = 0; i < keys.size(); i++) {
-            res.append(TextUtils.toProperCase(words.get(i), keys.get(i)));
-            res.append(separators.get(i + 1));
+            TextUtils.appendProperCase(res, raw, bounds[2 * i], bounds[2 * i + 1], keys.get(i));
+            res.append(raw, separatorStart(i + 1), separatorEnd(i + 1));
         }
-        return res.toString();
+        return res;
+    }
+
+    private int separatorStart(int i) {
+        return i == 0 ? 0 : bounds[2 * i - 1];
+    }
+
+    private int separatorEnd(int i) {
+        return 2 * i == bounds.length ? raw.length() : bounds[2 * i];
     }
 
     public Gender gender() {
@@ -109,7 +124,18 @@ public class Phrase {
     }
 
     public String original(int i) {
-        return words.get(i);
+        return raw.substring(bounds[2 * i], bounds[2 * i + 1]);
+    }
+
+    /**
+     * Returns the original separator before the word with the given index;
+     * the separator with index {@link #length()} is the tail of the phrase.
+     *
+     * @param i {@code int} from {@code 0} to {@link #length()} inclusive
+     * @return {@code String}, possibly empty
+     */
+    public String separator(int i) {
+        return raw.substring(separatorStart(i), separatorEnd(i));
     }
 
     public Word details(int i) {
@@ -140,10 +166,9 @@ public class Phrase {
                           Boolean animate,
                           Boolean plural,
                           List<String> keys,
-                          List<String> words,
-                          List<Word> details,
-                          List<String> separators) {
-            super(phrase, gender, animate, plural, keys, words, details, separators);
+                          int[] bounds,
+                          List<Word> details) {
+            super(phrase, gender, animate, plural, keys, bounds, details);
         }
 
         /**
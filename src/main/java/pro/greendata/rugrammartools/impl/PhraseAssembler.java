@@ -4,43 +4,45 @@ import pro.greendata.rugrammartools.Gender;
 import pro.greendata.rugrammartools.impl.dictionaries.AdjectiveDictionary;
 import pro.greendata.rugrammartools.impl.dictionaries.Dictionary;
 import pro.greendata.rugrammartools.impl.dictionaries.NounDictionary;
+import pro.greendata.rugrammartools.impl.dictionaries.Paradigm;
 import pro.greendata.rugrammartools.impl.dictionaries.PlainDictionary;
 import pro.greendata.rugrammartools.impl.utils.GrammarUtils;
 import pro.greendata.rugrammartools.impl.utils.HumanNameUtils;
 import pro.greendata.rugrammartools.impl.utils.TextUtils;
 
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collections;
 import java.util.List;
-import java.util.Map;
-import java.util.NavigableMap;
 import java.util.Objects;
 import java.util.Optional;
-import java.util.TreeMap;
 
 
 /**
  * Mutable phrase-builder.
  */
 public class PhraseAssembler {
-    private static final int INDEX_STEP = 1000;
-
-    private final NavigableMap<Integer, Part> parts = new TreeMap<>();
     // input phrase
-    private String raw;
-    // the position of the main noun (subject) in the phrase
-    private Integer subjectStartIndex;
+    private final String raw;
+    // the parts (words) in order, each one holds its bounds in the raw phrase;
+    // the separators are the substrings between the parts
+    private Part[] parts = new Part[8];
+    private int size;
+    // the position of the main noun (subject) in the phrase, -1 if not determined
+    private int subjectStartIndex = -1;
     // for composed nouns end != start (e.g. "сестра-анестезист")
-    private Integer subjectEndIndex;
+    private int subjectEndIndex = -1;
     // end of the declinable part of phrase
-    private Integer endIndex;
+    private int endIndex = -1;
     // usually gender is null, it is determined by the phrase;
     // may not match the true gender of the wearer (in case of profession).
     private Gender phraseGender;
     // can be null
     private Boolean phraseAnimate;
-    private String leadingSpace;
-    private String trailingSpace;
+
+    private PhraseAssembler(String raw) {
+        this.raw = Objects.requireNonNull(raw);
+    }
 
     public static Optional<NounDictionary.Word> fromDictionary(String key, Gender gender, Boolean animate) {
         return Dictionary.getNounDictionary().wordDetails(key, gender, animate, null);
@@ -71,63 +73,50 @@ public class PhraseAssembler {
      * @return {@link PhraseAssembler}
      */
     public static PhraseAssembler split(String phrase) {
-        PhraseAssembler res = new PhraseAssembler();
-        res.raw = phrase;
-        char[] chars = phrase.toCharArray();
-        StringBuilder word = new StringBuilder();
-        StringBuilder separator = new StringBuilder();
-        int index = 0;
-        for (int i = 0; i < chars.length; ) {
-            // leading space
-            while (i < chars.length && isSpace(chars[i])) {
-                separator.append(chars[i++]);
+        PhraseAssembler res = new PhraseAssembler(phrase);
+        int length = phrase.length();
+        int i = 0;
+        while (true) {
+            // leading space or separator
+            while (i < length && isSpace(phrase.charAt(i))) {
+                i++;
             }
-            if (i == chars.length) {
+            if (i == length) {
                 break;
             }
-            if (res.parts.isEmpty()) {
-                res.leadingSpace = separator.toString();
-                separator = new StringBuilder();
-            }
-            // process next word
-            if (isStopSymbol(chars[i])) {
-                int j = chars.length - 1;
-                for (; j >= i; j--) {
-                    if (!isSpace(chars[j])) {
-                        break;
-                    }
+            if (isStopSymbol(phrase.charAt(i))) {
+                int j = length;
+                while (j > i && isSpace(phrase.charAt(j - 1))) {
+                    j--;
                 }
-                word.append(chars, i, j - i + 1);
-                Part p = new Part(word.toString());
+                Part p = new Part(phrase, i, j);
                 p.indeclinable = true;
-                res.parts.put(index * INDEX_STEP, p);
-                separator.append(chars, j + 1, chars.length - j - 1);
-                res.trailingSpace = separator.toString();
-                break;
-            }
-            while (i < chars.length && !isSpace(chars[i])) {
-                word.append(chars[i++]);
-            }
-            Part p = new Part(word.toString());
-            word = new StringBuilder();
-            res.parts.put(index++ * INDEX_STEP, p);
-            if (i == chars.length) {
+                res.add(res.size, p);
                 break;
             }
-            // process next separator
-            while (i < chars.length && isSpace(chars[i])) {
-                separator.append(chars[i++]);
-            }
-            if (i == chars.length) {
-                res.trailingSpace = separator.toString();
-                break;
+            // process next word
+            int start = i;
+            while (i < length && !isSpace(phrase.charAt(i))) {
+                i++;
             }
-            p.space = separator.toString();
-            separator = new StringBuilder();
+            res.add(res.size, new Part(phrase, start, i));
         }
         return res;
     }
 
+    private void add(int index, Part part) {
+        if (size == parts.length) {
+            parts = Arrays.copyOf(parts, size * 2);
+        }
+        System.arraycopy(parts, index, parts, index + 1, size - index);
+        parts[index] = part;
+        size++;
+    }
+
+    private Part get(int index) {
+        return index < size ? parts[index] : null;
+    }
+
     /**
      * Compiles this object collecting its content.
      *
@@ -139,9 +128,11 @@ public class PhraseAssembler {
     public PhraseAssembler compile(Phrase.Type type, Gender inputGender, Boolean inputAnimate) {
         fillMissedSettings(inputGender, inputAnimate);
 
-        if (PlainDictionary.NON_DERIVATIVE_PREPOSITION.contains(this.parts.firstEntry().getValue().key())) {
+        if (PlainDictionary.NON_DERIVATIVE_PREPOSITION.contains(this.parts[0].key())) {
             // starts with preposition -> consider the whole phrase as indeclinable
-            this.parts.forEach((i, p) -> p.fillMissedSettings(phraseGender, null, phraseAnimate, true));
+            for (int i = 0; i < size; i++) {
+                parts[i].fillMissedSettings(phraseGender, null, phraseAnimate, true);
+            }
             return this;
         }
 
@@ -149,12 +140,11 @@ public class PhraseAssembler {
         processSubject(this);
         processPostSubjectParts(this);
 
-        // set default settings for adjectives surrounding the subject
-        this.parts.headMap(this.endIndex, true)
-                .forEach((i, p) -> p.fillMissedSettings(phraseGender, null, phraseAnimate, false));
-        // the rest of the phrase (supplemental part) is indeclinable
-        this.parts.tailMap(this.endIndex, false)
-                .forEach((i, p) -> p.fillMissedSettings(phraseGender, null, phraseAnimate, true));
+        for (int i = 0; i < size; i++) {
+            // set default settings for adjectives surrounding the subject,
+            // the rest of the phrase (supplemental part) is indeclinable
+            parts[i].fillMissedSettings(phraseGender, null, phraseAnimate, i > endIndex);
+        }
         return this;
     }
 
@@ -164,31 +154,24 @@ public class PhraseAssembler {
      * @return {@link Phrase}
      */
     public Phrase toPhrase() {
-        List<String> separators = new ArrayList<>();
-        List<String> keys = new ArrayList<>();
-        List<String> words = new ArrayList<>();
-        List<Word> details = new ArrayList<>();
-
-        separators.add(leadingSpace == null ? "" : leadingSpace);
-        Integer last = parts.lastKey();
-        Part noun = subjectStartIndex == null ? null : Objects.requireNonNull(parts.get(subjectStartIndex));
-        parts.forEach((index, part) -> {
-            if (!Objects.equals(index, last)) {
-                separators.add(Objects.requireNonNull(part.space));
-            }
-            words.add(part.raw);
-            keys.add(part.key());
-            details.add(part.toWord());
-        });
-        separators.add(trailingSpace == null ? "" : trailingSpace);
-
+        int[] bounds = new int[size * 2];
+        String[] keys = new String[size];
+        Word[] details = new Word[size];
+        for (int i = 0; i < size; i++) {
+            Part part = parts[i];
+            bounds[2 * i] = part.start;
+            bounds[2 * i + 1] = part.end;
+            keys[i] = part.key();
+            details[i] = part.toWord();
+        }
+        Part noun = subjectStartIndex < 0 ? null : parts[subjectStartIndex];
         return new Phrase(raw, this.phraseGender, this.phraseAnimate, noun == null ? null : noun.plural,
-                Collections.unmodifiableList(keys), Collections.unmodifiableList(words),
-                Collections.unmodifiableList(details), Collections.unmodifiableList(separators));
+                Collections.unmodifiableList(Arrays.asList(keys)), bounds,
+                Collections.unmodifiableList(Arrays.asList(details)));
     }
 
     public boolean isEmpty() {
-        return parts.isEmpty();
+        return size == 0;
     }
 
     private boolean isNullOr(Gender g) {
@@ -209,19 +192,19 @@ public class PhraseAssembler {
     }
 
     private static void processPreSubjectParts(PhraseAssembler phrase) {
-        phrase.subjectStartIndex = phrase.parts.firstKey(); // the position of the main word in the phrase
-        for (Integer index : phrase.parts.keySet()) {
-            Part part = phrase.parts.get(index);
-            String w = part.raw;
+        phrase.subjectStartIndex = 0; // the position of the main word in the phrase
+        for (int index = 0; index < phrase.size; index++) {
+            Part part = phrase.parts[index];
+            String w = part.raw();
             if (!GrammarUtils.isRuWord(w)) {
                 part.indeclinable = true;
                 continue;
             }
-            Map.Entry<Integer, Part> next = phrase.parts.higherEntry(index);
+            Part next = phrase.get(index + 1);
             if (GrammarUtils.canBeAbbreviation(w, phrase.raw)) {
                 part.fillMissedSettings(phrase.phraseGender, PartOfSpeech.NOUN, phrase.phraseAnimate, true);
                 if (GrammarUtils.canBeHumanRelatedAbbreviation(w) && next != null) { // e.g. "ИП Иванов"
-                    if (handleHumanName(phrase, next.getKey(), true)) {
+                    if (handleHumanName(phrase, index + 1, true)) {
                         break;
                     }
                 }
@@ -234,8 +217,8 @@ public class PhraseAssembler {
             }
             // the following code was designed for inflection profession names
             // if the next word is preposition then the first word can be noun (e.g. "Термист по обработке слюды")
-            if (next != null && PlainDictionary.NON_DERIVATIVE_PREPOSITION.contains(next.getValue().key())) {
-                next.getValue().fillMissedSettings(null, PartOfSpeech.PREPOSITION, null, true);
+            if (next != null && PlainDictionary.NON_DERIVATIVE_PREPOSITION.contains(next.key())) {
+                next.fillMissedSettings(null, PartOfSpeech.PREPOSITION, null, true);
                 phrase.subjectStartIndex = index;
                 break;
             }
@@ -244,7 +227,7 @@ public class PhraseAssembler {
                 phrase.phraseGender = Gender.MALE;
                 //If next the word is a noun in the nominative case, then this word is definitely not substantive
                 if ((GrammarUtils.canBeMasculineAdjectiveBasedSubstantiveNoun(w) && next == null) ||
-                        (GrammarUtils.canBeMasculineAdjectiveBasedSubstantiveNoun(w) && next != null && !GrammarUtils.canBeMaleNoun(next.getValue().raw))) {
+                        (GrammarUtils.canBeMasculineAdjectiveBasedSubstantiveNoun(w) && next != null && !GrammarUtils.canBeMaleNoun(next.raw()))) {
                     phrase.subjectStartIndex = index;
                     break;
                 }
@@ -257,7 +240,7 @@ public class PhraseAssembler {
                 phrase.phraseGender = Gender.FEMALE;
                 //If next the word is a noun in the nominative case, then this word is definitely not substantive
                 if ((GrammarUtils.canBeFeminineAdjectiveBasedSubstantiveNoun(w) && next == null) ||
-                        (GrammarUtils.canBeFeminineAdjectiveBasedSubstantiveNoun(w) && next != null && !GrammarUtils.canBeFeminineNoun(next.getValue().raw))) {
+                        (GrammarUtils.canBeFeminineAdjectiveBasedSubstantiveNoun(w) && next != null && !GrammarUtils.canBeFeminineNoun(next.raw()))) {
                     phrase.subjectStartIndex = index;
                     break;
                 }
@@ -275,7 +258,7 @@ public class PhraseAssembler {
             if (next != null && GrammarUtils.canBePluralNominativeAdjective(w)){
                 part.plural = true;
                 //If next the word is a noun in the nominative case, then this word is definitely not substantive
-                if (GrammarUtils.canBePluralAdjectiveBasedSubstantiveNoun(w) && !GrammarUtils.canBePluralNoun(next.getValue().raw)) {
+                if (GrammarUtils.canBePluralAdjectiveBasedSubstantiveNoun(w) && !GrammarUtils.canBePluralNoun(next.raw())) {
                     phrase.subjectStartIndex = index;
                     break;
                 }
@@ -291,18 +274,17 @@ public class PhraseAssembler {
     // TODO: add processNoun and processAdjective
     private static void processPostSubjectParts(PhraseAssembler phrase) {
         phrase.endIndex = phrase.subjectEndIndex;
-        Integer lastIndex = phrase.parts.lastKey();
-        NavigableMap<Integer, Part> tail = phrase.parts.tailMap(phrase.subjectEndIndex, false);
-        for (Integer k : tail.keySet()) {
-            Part p = tail.get(k);
-            if (!GrammarUtils.canBeAdjective(p.raw, phrase.phraseGender)) {
+        int lastIndex = phrase.size - 1;
+        for (int k = phrase.subjectEndIndex + 1; k < phrase.size; k++) {
+            Part p = phrase.parts[k];
+            if (!GrammarUtils.canBeAdjective(p.raw(), phrase.phraseGender)) {
                 //processNoun(p, phrase.phraseGender, phrase.phraseAnimate);
                 break;
             }
             //processAdjective(p, phrase.phraseGender, phrase.phraseAnimate);
             phrase.endIndex = k;
         }
-        if (!Objects.equals(phrase.endIndex, phrase.subjectEndIndex) && !Objects.equals(phrase.endIndex, lastIndex)) {
+        if (phrase.endIndex != phrase.subjectEndIndex && phrase.endIndex != lastIndex) {
             // TODO: phrases with two nouns are ignored for now
             phrase.endIndex = phrase.subjectEndIndex;
         }
@@ -311,7 +293,7 @@ public class PhraseAssembler {
     private static void processSubject(PhraseAssembler phrase) {
         int index = phrase.subjectStartIndex;
         phrase.subjectEndIndex = index;
-        Part subject = phrase.parts.get(index);
+        Part subject = phrase.parts[index];
         processNoun(subject, phrase.phraseGender, phrase.phraseAnimate);
         if (subject.word != null) {
             phrase.fillMissedSettingsFromWord(subject);
@@ -322,24 +304,38 @@ public class PhraseAssembler {
             return;
         }
         // process with hyphen e.g. "альфа-лучи", "лётчик-наблюдатель", "караван-сарай"
-        String[] words = subject.raw.split("-");
-        Gender g = phrase.phraseGender;
+        // the sub-parts are spliced in place of the subject, the hyphens become separators
         List<Part> newParts = new ArrayList<>();
-        for (int i = 0; i < words.length; i++) {
-            Part p = new Part(words[i]);
+        int start = subject.start;
+        for (int i = subject.start; i <= subject.end; i++) {
+            if (i == subject.end || phrase.raw.charAt(i) == '-') {
+                newParts.add(new Part(phrase.raw, start, i));
+                start = i + 1;
+            }
+        }
+        // as String#split: trailing empty strings are not included
+        while (!newParts.isEmpty() && newParts.get(newParts.size() - 1).start == newParts.get(newParts.size() - 1).end) {
+            newParts.remove(newParts.size() - 1);
+        }
+        if (newParts.isEmpty()) {
+            phrase.fillMissedSettingsFromWord(subject);
+            return;
+        }
+        Gender g = phrase.phraseGender;
+        for (int i = 0; i < newParts.size(); i++) {
+            Part p = newParts.get(i);
             processNoun(p, g, phrase.phraseAnimate);
             if (i > 0 && phrase.phraseGender != Gender.MALE && p.word == null) {
                 // the second part is usually masculine (e.g. "сестра-анестезист")
                 g = Gender.MALE;
                 processNoun(p, g, phrase.phraseAnimate);
             }
-            p.space = i == words.length - 1 ? subject.space : "-";
-            newParts.add(p);
         }
-        phrase.parts.remove(index);
-        for (int i = 0; i < newParts.size(); i++) {
-            phrase.parts.put(phrase.subjectEndIndex = index + i, newParts.get(i));
+        phrase.parts[index] = newParts.get(0);
+        for (int i = 1; i < newParts.size(); i++) {
+            phrase.add(index + i, newParts.get(i));
         }
+        phrase.subjectEndIndex = index + newParts.size() - 1;
         phrase.fillMissedSettingsFromWord(newParts.get(0));
     }
 
@@ -363,7 +359,9 @@ public class PhraseAssembler {
         for (String s : keys) {
             from = fromDictionary(s);
             if (from.isPresent()) {
-                part.plural = from.get().pluralCases() != null && from.get().pluralCases()[0].equals(part.key);
+                Paradigm paradigm = from.get().paradigm();
+                part.plural = paradigm.has(AdjectiveDictionary.Word.PLURAL)
+                        && paradigm.mod(AdjectiveDictionary.Word.PLURAL, 0).equals(part.key);
                 part.key = s;
                 break;
             }
@@ -426,52 +424,45 @@ public class PhraseAssembler {
         return from;
     }
 
-    private static boolean handleHumanName(PhraseAssembler phrase, Integer index, boolean sureIsName) {
-        Part current = phrase.parts.get(index);
+    private static boolean handleHumanName(PhraseAssembler phrase, int index, boolean sureIsName) {
+        Part current = phrase.get(index);
         if (current == null) {
             return false;
         }
-        Map.Entry<Integer, Part> nextWord = phrase.parts.higherEntry(index);
-        if (sureIsName && nextWord == null && HumanNameUtils.canBeSurname(current.raw)) { // e.g. "Петрова"
+        Part next = phrase.get(index + 1);
+        if (sureIsName && next == null && HumanNameUtils.canBeSurname(current.raw())) { // e.g. "Петрова"
             phrase.subjectStartIndex = index;
             handleSurname(phrase, current);
             return true;
         }
-        if (nextWord == null) {
+        if (next == null) {
             return false;
         }
-        Part next = nextWord.getValue();
-        Integer nextIndex = nextWord.getKey();
-        if (HumanNameUtils.canBeInitials(current.raw) && HumanNameUtils.canBeSurname(next.raw)) { // e.g. "П.П. Петрова"
+        int nextIndex = index + 1;
+        if (HumanNameUtils.canBeInitials(current.raw()) && HumanNameUtils.canBeSurname(next.raw())) { // e.g. "П.П. Петрова"
             phrase.subjectStartIndex = nextIndex;
             handleSurname(phrase, next);
             return true;
         }
-        if (HumanNameUtils.canBeInitials(next.raw) && HumanNameUtils.canBeSurname(current.raw)) { // e.g. "Петров П.П."
+        if (HumanNameUtils.canBeInitials(next.raw()) && HumanNameUtils.canBeSurname(current.raw())) { // e.g. "Петров П.П."
             phrase.subjectStartIndex = index;
             handleSurname(phrase, current);
             return true;
         }
         List<Part> sfp = new ArrayList<>(3);
-        NavigableMap<Integer, Part> rest = phrase.parts.tailMap(nextIndex, false);
-        Part nextNext = null;
-        Integer nextNextIndex = null;
-        if (!rest.isEmpty()) {
-            nextNext = rest.firstEntry().getValue();
-            nextNextIndex = rest.firstEntry().getKey();
-        }
-        if (HumanNameUtils.isFirstname(current.raw)) { // e.g. "Полина Петровна Петрова" or "Полина Петрова"
-            if (nextNext != null && HumanNameUtils.canBePatronymic(next.raw) && HumanNameUtils.canBeSurname(nextNext.raw)) {
+        Part nextNext = phrase.get(nextIndex + 1);
+        if (HumanNameUtils.isFirstname(current.raw())) { // e.g. "Полина Петровна Петрова" or "Полина Петрова"
+            if (nextNext != null && HumanNameUtils.canBePatronymic(next.raw()) && HumanNameUtils.canBeSurname(nextNext.raw())) {
                 sfp.add(nextNext);
                 sfp.add(current);
                 sfp.add(next);
-            } else if (HumanNameUtils.canBeSurname(next.raw)) {
+            } else if (HumanNameUtils.canBeSurname(next.raw())) {
                 sfp.add(next);
                 sfp.add(next);
             }
-        } else if (HumanNameUtils.isFirstname(next.raw)) { // e.g. "Петров Петр Петрович" or "Петрова Полина"
-            if (HumanNameUtils.canBeSurname(current.raw)) {
-                if (nextNext != null && HumanNameUtils.canBePatronymic(nextNext.raw)) {
+        } else if (HumanNameUtils.isFirstname(next.raw())) { // e.g. "Петров Петр Петрович" or "Петрова Полина"
+            if (HumanNameUtils.canBeSurname(current.raw())) {
+                if (nextNext != null && HumanNameUtils.canBePatronymic(nextNext.raw())) {
                     sfp.add(current);
                     sfp.add(next);
                     sfp.add(nextNext);
@@ -484,7 +475,7 @@ public class PhraseAssembler {
         if (sfp.isEmpty()) {
             return false;
         }
-        Gender gender = HumanNameUtils.guessGenderByFullName(sfp.stream().map(x -> x.raw).toArray(String[]::new));
+        Gender gender = HumanNameUtils.guessGenderByFullName(sfp.stream().map(Part::raw).toArray(String[]::new));
         if (gender == null) {
             return false;
         }
@@ -500,20 +491,22 @@ public class PhraseAssembler {
             sfp.get(2).animate = true;
             sfp.get(2).type = RuleType.PATRONYMIC_NAME;
         }
-        phrase.subjectStartIndex = nextNextIndex != null ? nextNextIndex : nextIndex;
+        phrase.subjectStartIndex = nextNext != null ? nextIndex + 1 : nextIndex;
         return true;
     }
 
     private static void handleSurname(PhraseAssembler phrase, Part next) {
         next.type = RuleType.FAMILY_NAME;
         next.animate = true;
-        next.gender = HumanNameUtils.canBeFemaleSurname(next.raw) ? Gender.FEMALE : Gender.MALE;
+        next.gender = HumanNameUtils.canBeFemaleSurname(next.raw()) ? Gender.FEMALE : Gender.MALE;
         phrase.fillMissedSettingsFromWord(next);
     }
 
     static class Part {
-        private final String raw;
-        String space;
+        private final String source;
+        private final int start;
+        private final int end;
+        private String raw;
         Dictionary.Record word;
         Gender gender;
         Boolean animate;
@@ -524,12 +517,18 @@ public class PhraseAssembler {
         boolean notFoundInDictionary;
         private String key;
 
-        Part(String raw) {
-            this.raw = Objects.requireNonNull(raw);
+        Part(String source, int start, int end) {
+            this.source = Objects.requireNonNull(source);
+            this.start = start;
+            this.end = end;
+        }
+
+        public String raw() {
+            return raw == null ? raw = source.substring(start, end) : raw;
         }
 
         public String key() {
-            return key == null ? key = toKey(raw) : key;
+            return key == null ? key = toKey(raw()) : key;
         }
 
         void fillMissedSettings(Gender gender, PartOfSpeech partOfSpeech, Boolean animate, boolean indeclinable) {
@@ -553,7 +552,7 @@ public class PhraseAssembler {
 
         @Override
         public String toString() {
-            return String.format("'%s'", raw);
+            return String.format("'%s'", raw());
         }
     }
 }
@@ -0,0 +1,378 @@
+package pro.greendata.rugrammartools.impl;
+
+import pro.greendata.rugrammartools.Case;
+import pro.greendata.rugrammartools.Gender;
+import pro.greendata.rugrammartools.impl.dictionaries.DictionaryOverlay;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * A size-bounded concurrent cache of inflection results.
+ * <p>
+ * The cache is split into independent segments (each with its own lock), so there is no global lock.
+ * Every segment keeps its entries in access order and a small count-min sketch of key frequencies;
+ * when a segment is full, a new entry is admitted only if it is requested more often than the least recently used one,
+ * which is then evicted (the TinyLFU policy).
+ * So the one-off phrases do not wash out the frequently used ones.
+ * <p>
+ * Each key carries the {@link DictionaryOverlay#generation() generation} of the dictionary overlays:
+ * after an overlay reload the cache is cleared, and the results computed from the previous content are not stored.
+ * <p>
+ * The cache can be enabled for the default engines by the system property {@link #SIZE_PROPERTY}
+ * or passed explicitly to the {@link InflectionEngineImpl#InflectionEngineImpl(PhraseCache) engine constructor}.
+ */
+public class PhraseCache {
+    /**
+     * The system property to specify the maximum size of the default cache; by default, there is no cache.
+     */
+    public static final String SIZE_PROPERTY = "rugrammartools.cache.size";
+    private static final int MAX_SEGMENTS = 64;
+
+    private final Segment[] segments;
+    private final int maximumSize;
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder evictions = new LongAdder();
+    private volatile long generation = DictionaryOverlay.generation();
+
+    /**
+     * Creates a cache.
+     *
+     * @param maximumSize {@code int}, positive
+     */
+    public PhraseCache(int maximumSize) {
+        if (maximumSize <= 0) {
+            throw new IllegalArgumentException("Wrong size: " + maximumSize);
+        }
+        int count = Math.min(Integer.highestOneBit(maximumSize),
+                Math.min(MAX_SEGMENTS, Integer.highestOneBit(Runtime.getRuntime().availableProcessors() * 4)));
+        this.segments = new Segment[count];
+        for (int i = 0; i < count; i++) {
+            segments[i] = new Segment(maximumSize / count + (i < maximumSize % count ? 1 : 0));
+        }
+        this.maximumSize = maximumSize;
+    }
+
+    /**
+     * Creates the cache according to the system property {@link #SIZE_PROPERTY}.
+     *
+     * @return {@link PhraseCache} or {@code null} if the cache is not enabled
+     * @throws IllegalArgumentException if the property value is wrong
+     */
+    public static PhraseCache fromSystemProperties() {
+        String size = System.getProperty(SIZE_PROPERTY);
+        if (size == null || size.isBlank()) {
+            return null;
+        }
+        int res;
+        try {
+            res = Integer.parseInt(size.trim());
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("Wrong " + SIZE_PROPERTY + ": " + size, e);
+        }
+        return res == 0 ? null : new PhraseCache(res);
+    }
+
+    /**
+     * Creates a cache key.
+     *
+     * @param text       {@code String}, normalized input, not {@code null}
+     * @param shape      {@code long}, additional discriminator of the input (e.g. its letter case)
+     * @param method     {@code Enum} - {@link RuleType} or {@link Phrase.Type}, not {@code null}
+     * @param declension {@link Case}, not {@code null}
+     * @param gender     {@link Gender}, can be {@code null}
+     * @param animate    {@code Boolean}, can be {@code null}
+     * @param plural     {@code Boolean}, can be {@code null}
+     * @return {@link Key}
+     */
+    public static Key key(String text,
+                          long shape,
+                          Enum<?> method,
+                          Case declension,
+                          Gender gender,
+                          Boolean animate,
+                          Boolean plural) {
+        return new Key(text, shape, method, declension, gender, animate, plural, DictionaryOverlay.generation());
+    }
+
+    /**
+     * Returns the cached value.
+     *
+     * @param key {@link Key}, not {@code null}
+     * @return {@code String} or {@code null}
+     */
+    public String get(Key key) {
+        if (!isCurrent(key)) {
+            misses.increment();
+            return null;
+        }
+        String res = segment(key).get(key);
+        (res == null ? misses : hits).increment();
+        return res;
+    }
+
+    /**
+     * Offers the value to the cache; it may be rejected if the cache is full and the key is not frequent enough.
+     *
+     * @param key   {@link Key}, not {@code null}
+     * @param value {@code String}, not {@code null}
+     */
+    public void put(Key key, String value) {
+        Objects.requireNonNull(value);
+        if (isCurrent(key)) {
+            segment(key).put(key, value);
+        }
+    }
+
+    /**
+     * Answers {@code true} if the key belongs to the current dictionary generation;
+     * a key of a newer generation clears the cache.
+     */
+    private boolean isCurrent(Key key) {
+        long current = generation;
+        if (key.generation == current) {
+            return true;
+        }
+        if (key.generation < current) { // the dictionary has been reloaded after the key was created
+            return false;
+        }
+        synchronized (this) {
+            if (key.generation > generation) {
+                clear();
+                generation = key.generation;
+            }
+            return key.generation == generation;
+        }
+    }
+
+    /**
+     * Removes all entries (the counters are not reset).
+     */
+    public void clear() {
+        for (Segment s : segments) {
+            s.clear();
+        }
+    }
+
+    /**
+     * Answers the current number of entries.
+     *
+     * @return {@code int}
+     */
+    public int size() {
+        int res = 0;
+        for (Segment s : segments) {
+            res += s.size();
+        }
+        return res;
+    }
+
+    /**
+     * Answers the maximum number of entries.
+     *
+     * @return {@code int}
+     */
+    public int maximumSize() {
+        return maximumSize;
+    }
+
+    /**
+     * Answers the number of lookups that have found a value.
+     *
+     * @return {@code long}
+     */
+    public long hitCount() {
+        return hits.sum();
+    }
+
+    /**
+     * Answers the number of lookups that have not found a value.
+     *
+     * @return {@code long}
+     */
+    public long missCount() {
+        return misses.sum();
+    }
+
+    /**
+     * Answers the number of entries that have been evicted to make room for the new ones.
+     *
+     * @return {@code long}
+     */
+    public long evictionCount() {
+        return evictions.sum();
+    }
+
+    private Segment segment(Key key) {
+        return segments[(key.hash ^ (key.hash >>> 16)) & (segments.length - 1)];
+    }
+
+    @Override
+    public String toString() {
+        return String.format("PhraseCache{size=%d, maximum=%d, hits=%d, misses=%d, evictions=%d}",
+                size(), maximumSize, hitCount(), missCount(), evictionCount());
+    }
+
+    /**
+     * The cache key.
+     */
+    public static final class Key {
+        private final String text;
+        private final long shape;
+        private final Enum<?> method;
+        private final Case declension;
+        private final Gender gender;
+        private final Boolean animate;
+        private final Boolean plural;
+        private final long generation;
+        private final int hash;
+
+        private Key(String text,
+                    long shape,
+                    Enum<?> method,
+                    Case declension,
+                    Gender gender,
+                    Boolean animate,
+                    Boolean plural,
+                    long generation) {
+            this.text = Objects.requireNonNull(text);
+            this.shape = shape;
+            this.method = Objects.requireNonNull(method);
+            this.declension = Objects.requireNonNull(declension);
+            this.gender = gender;
+            this.animate = animate;
+            this.plural = plural;
+            this.generation = generation;
+            this.hash = Objects.hash(text, shape, method, declension, gender, animate, plural);
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) {
+                return true;
+            }
+            if (!(o instanceof Key)) {
+                return false;
+            }
+            Key key = (Key) o;
+            return hash == key.hash && shape == key.shape && generation == key.generation && method == key.method && declension == key.declension
+                    && gender == key.gender && Objects.equals(animate, key.animate)
+                    && Objects.equals(plural, key.plural) && text.equals(key.text);
+        }
+
+        @Override
+        public int hashCode() {
+            return hash;
+        }
+
+        @Override
+        public String toString() {
+            return String.format("Key{'%s', shape=%d, %s, %s, %s, animate=%s, plural=%s}",
+                    text, shape, method, declension, gender, animate, plural);
+        }
+    }
+
+    /**
+     * A segment: an access-ordered map with a frequency sketch, guarded by its own monitor.
+     */
+    private class Segment {
+        private final int capacity;
+        private final LinkedHashMap<Key, String> map;
+        private final FrequencySketch sketch;
+
+        Segment(int capacity) {
+            this.capacity = capacity;
+            this.map = new LinkedHashMap<>(Math.min(capacity, 1024), 0.75f, true);
+            this.sketch = new FrequencySketch(capacity);
+        }
+
+        synchronized String get(Key key) {
+            sketch.increment(key.hash);
+            return map.get(key);
+        }
+
+        synchronized void put(Key key, String value) {
+            if (map.containsKey(key) || map.size() < capacity) {
+                map.put(key, value);
+                return;
+            }
+            Iterator<Map.Entry<Key, String>> it = map.entrySet().iterator();
+            Key victim = it.next().getKey();
+            if (sketch.frequency(key.hash) <= sketch.frequency(victim.hash)) {
+                return;
+            }
+            it.remove();
+            evictions.increment();
+            map.put(key, value);
+        }
+
+        synchronized void clear() {
+            map.clear();
+        }
+
+        synchronized int size() {
+            return map.size();
+        }
+    }
+
+    /**
+     * A count-min sketch with 4 rows of small saturating counters, which are periodically halved (aging),
+     * so that the old popularity fades away.
+     */
+    static class FrequencySketch {
+        private static final int DEPTH = 4;
+        private static final int MAX_COUNT = 15;
+        private static final int[] SEEDS = {0x9E3779B9, 0x85EBCA6B, 0xC2B2AE35, 0x27D4EB2F};
+
+        private final byte[] table;
+        private final int mask;
+        private final int sampleSize;
+        private int additions;
+
+        FrequencySketch(int capacity) {
+            int width = Integer.highestOneBit(Math.max(8, Math.min(capacity, 1 << 20)) * 16 - 1);
+            this.table = new byte[width * DEPTH];
+            this.mask = width - 1;
+            this.sampleSize = 10 * Math.max(capacity, 16);
+        }
+
+        private int index(int hash, int row) {
+            int h = (hash + SEEDS[row]) * SEEDS[row];
+            h ^= h >>> 17;
+            return row * (mask + 1) + (h & mask);
+        }
+
+        int frequency(int hash) {
+            int res = MAX_COUNT;
+            for (int i = 0; i < DEPTH; i++) {
+                res = Math.min(res, table[index(hash, i)]);
+            }
+            return res;
+        }
+
+        void increment(int hash) {
+            boolean added = false;
+            for (int i = 0; i < DEPTH; i++) {
+                int j = index(hash, i);
+                if (table[j] < MAX_COUNT) {
+                    table[j]++;
+                    added = true;
+                }
+            }
+            if (added && ++additions == sampleSize) {
+                reset();
+            }
+        }
+
+        private void reset() {
+            for (int i = 0; i < table.length; i++) {
+                table[i] = (byte) (table[i] >>> 1);
+            }
+            additions /= 2;
+        }
+    }
+}
@@ -0,0 +1,92 @@
+package pro.greendata.rugrammartools.impl;
+
+import pro.greendata.rugrammartools.Case;
+import pro.greendata.rugrammartools.Gender;
+import pro.greendata.rugrammartools.InflectionEngine;
+import pro.greendata.rugrammartools.SpellingEngine;
+import pro.greendata.rugrammartools.impl.dictionaries.Dictionary;
+import pro.greendata.rugrammartools.impl.dictionaries.PlainDictionary;
+
+import java.math.BigDecimal;
+import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+
+/**
+ * Eagerly loads all resources (dictionaries, rules) and warms up (JIT-compiles) the hot paths of the engines.
+ *
+ * @see pro.greendata.rugrammartools.GrammarTools#preload(Executor)
+ */
+public class Preloader {
+    /**
+     * The number of times the warm-up corpus is processed;
+     * it is enough for the hot methods to reach the C2 compilation threshold.
+     */
+    public static final int WARM_UP_ROUNDS = 300;
+
+    private static final List<String> FULLNAMES = List.of(
+            "Петров Петр Петрович", "Иванова Мария Сергеевна", "Кузнецов Алексей", "Смирнова Анна Ивановна");
+    private static final List<String> REGULAR_TERMS = List.of(
+            "главный бухгалтер", "ведущий инженер-программист", "общество с ограниченной ответственностью",
+            "старший научный сотрудник", "министерство финансов");
+    private static final List<String> NUMERALS = List.of(
+            "двадцать один", "сто сорок два", "одна тысяча девятьсот девяносто девять", "пять миллионов");
+    private static final List<BigDecimal> NUMBERS = List.of(
+            BigDecimal.valueOf(21), BigDecimal.valueOf(142), BigDecimal.valueOf(1999),
+            BigDecimal.valueOf(5_000_000), new BigDecimal("12.345"));
+
+    private static volatile boolean ready;
+
+    /**
+     * Answers {@code true} if the {@link #preload(Executor, InflectionEngine, SpellingEngine) preload}
+     * has been completed successfully.
+     *
+     * @return {@code boolean}
+     */
+    public static boolean isReady() {
+        return ready;
+    }
+
+    /**
+     * Loads all resources in parallel using the given executor, then runs the warm-up corpus.
+     *
+     * @param executor   {@link Executor}, not {@code null}
+     * @param inflection {@link InflectionEngine} to warm-up, not {@code null}
+     * @param spelling   {@link SpellingEngine} to warm-up, not {@code null}
+     * @return {@code CompletableFuture} that completes when the engines are ready
+     */
+    public static CompletableFuture<Void> preload(Executor executor,
+                                                  InflectionEngine inflection,
+                                                  SpellingEngine spelling) {
+        Objects.requireNonNull(executor);
+        Objects.requireNonNull(inflection);
+        Objects.requireNonNull(spelling);
+        return CompletableFuture.allOf(
+                CompletableFuture.runAsync(() -> Dictionary.getNounDictionary().preload(), executor),
+                CompletableFuture.runAsync(() -> Dictionary.getAdjectiveDictionary().preload(), executor),
+                CompletableFuture.runAsync(() -> Objects.requireNonNull(RuleLibrary.REGULAR_TERM_RULES), executor),
+                CompletableFuture.runAsync(() -> Objects.requireNonNull(PlainDictionary.FEMALE_NAMES), executor)
+        ).thenRunAsync(() -> warmUp(inflection, spelling, WARM_UP_ROUNDS), executor)
+                .thenRun(() -> ready = true);
+    }
+
+    /**
+     * Runs the built-in corpus through the engines.
+     *
+     * @param inflection {@link InflectionEngine}
+     * @param spelling   {@link SpellingEngine}
+     * @param rounds     {@code int} - how many times to repeat
+     */
+    public static void warmUp(InflectionEngine inflection, SpellingEngine spelling, int rounds) {
+        Case[] cases = Case.values();
+        for (int i = 0; i < rounds; i++) {
+            Case declension = cases[i % cases.length];
+            FULLNAMES.forEach(x -> inflection.inflectFullname(x, declension));
+            REGULAR_TERMS.forEach(x -> inflection.inflectRegularTerm(x, declension, null));
+            NUMERALS.forEach(x -> inflection.inflectNumeral(x, "рубль", declension));
+            NUMBERS.forEach(spelling::spell);
+            spelling.spellOrdinal(i + 1, Gender.values()[i % Gender.values().length]);
+        }
+    }
+}
@@ -0,0 +1,51 @@
+package pro.greendata.rugrammartools.impl;
+
+import pro.greendata.rugrammartools.Case;
+import pro.greendata.rugrammartools.CaseForms;
+import pro.greendata.rugrammartools.PreparedPhrase;
+
+import java.util.Objects;
+
+/**
+ * A {@link PreparedPhrase} impl that holds the parsed {@link Phrase}.
+ *
+ * @see InflectionEngineImpl#prepare(String, Type)
+ */
+public class PreparedPhraseImpl implements PreparedPhrase {
+    private final InflectionEngineImpl engine;
+    private final Phrase phrase;
+    private final Type type;
+    private final Boolean plural;
+
+    protected PreparedPhraseImpl(InflectionEngineImpl engine, Phrase phrase, Type type, Boolean plural) {
+        this.engine = Objects.requireNonNull(engine);
+        this.phrase = Objects.requireNonNull(phrase);
+        this.type = Objects.requireNonNull(type);
+        this.plural = plural;
+    }
+
+    @Override
+    public String text() {
+        return phrase.raw();
+    }
+
+    @Override
+    public Type type() {
+        return type;
+    }
+
+    @Override
+    public String inflect(Case declension, Boolean plural) {
+        return engine.inflectPhrase(phrase, declension, plural == null ? this.plural : plural);
+    }
+
+    @Override
+    public CaseForms inflectAllCases() {
+        return new CaseForms(engine.inflectPhraseAllCases(phrase, plural), engine.inflectPhraseAllCases(phrase, true));
+    }
+
+    @Override
+    public String toString() {
+        return String.format("PreparedPhrase{%s, %s}", type, phrase);
+    }
+}
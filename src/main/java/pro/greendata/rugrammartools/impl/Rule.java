@@ -16,7 +16,7 @@ public class Rule {
     protected final Boolean plural;
     protected final Boolean animate;
 
-    private final String[] test;
+    protected final String[] test;
     private final String[] mods;
 
     public Rule(String[] test, String[] mods, Gender gender, PartOfSpeech partOfSpeech, Boolean animate, Boolean plural) {
@@ -29,7 +29,7 @@ public class Rule {
     }
 
     public String apply(Case declension, String word) {
-        return RuleUtils.changeEnding(word, mode(declension));
+        return RuleUtils.changeEnding(word, mod(declension));
     }
 
     public boolean match(String word) {
@@ -41,7 +41,7 @@ public class Rule {
         return false;
     }
 
-    private String mode(Case declension) {
+    String mod(Case declension) {
         return mods[declension.ordinal() - 1];
     }
 
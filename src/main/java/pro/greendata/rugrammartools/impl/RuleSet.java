@@ -1,26 +1,39 @@
 package pro.greendata.rugrammartools.impl;
 
+import pro.greendata.rugrammartools.Case;
 import pro.greendata.rugrammartools.Gender;
+import pro.greendata.rugrammartools.impl.utils.RuleUtils;
 
-import java.util.Comparator;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Map;
 import java.util.Objects;
-import java.util.stream.Collectors;
+import java.util.Set;
 
 /**
  * Created by @ssz on 04.12.2020.
  */
 public class RuleSet {
-    private static final Comparator<Rule> BY_ANIMATE_COMPARATOR = Comparator.comparingInt((Rule r) -> toInt(r.animate)).reversed();
-    private static final Comparator<Rule> BY_PLURAL_COMPARATOR = Comparator.comparingInt((Rule r) -> toInt(r.plural)).reversed();
-    private static final Comparator<Rule> BY_PART_OF_SPEECH_COMPARATOR = Comparator.comparingInt((Rule r) -> toInt(r.partOfSpeech)).reversed();
+    private static final int BY_ANIMATE = 4;
+    private static final int BY_PLURAL = 2;
+    private static final int BY_PART_OF_SPEECH = 1;
 
-    private final List<Rule> exceptions;
-    private final List<Rule> suffixes;
+    protected final List<Rule> exceptions;
+    protected final List<Rule> suffixes;
+    // compiled at load time
+    private final RuleTrie exceptionsIndex;
+    private final RuleTrie suffixesIndex;
+    // the inverted mods (the suffix of the inflected word -> the ways to restore the nominative), built on demand
+    private volatile Map<String, List<Inverse>> inverseIndex;
+    private int maxSuffixLength;
 
     protected RuleSet(List<Rule> exceptions, List<Rule> suffixes) {
         this.exceptions = Objects.requireNonNull(exceptions);
         this.suffixes = Objects.requireNonNull(suffixes);
+        this.exceptionsIndex = new RuleTrie(exceptions);
+        this.suffixesIndex = new RuleTrie(suffixes);
     }
 
     public static Rule findRule(String word,
@@ -29,66 +42,158 @@ public class RuleSet {
                                 Boolean animate,
                                 Boolean plural,
                                 RuleSet rules) {
-        Rule exceptionRule = findRule(rules.exceptions, word, gender, partOfSpeech, animate, plural);
+        Rule exceptionRule = findRule(rules.exceptionsIndex, word, gender, partOfSpeech, animate, plural);
         if (exceptionRule != null && exceptionRule.matchGenderStrict(gender)) {
             return exceptionRule;
         }
-        Rule suffixRule = findRule(rules.suffixes, word, gender, partOfSpeech, animate, plural);
+        Rule suffixRule = findRule(rules.suffixesIndex, word, gender, partOfSpeech, animate, plural);
         if (suffixRule != null && suffixRule.matchGenderStrict(gender)) {
             return suffixRule;
         }
         return exceptionRule != null ? exceptionRule : suffixRule;
     }
 
-    private static Rule findRule(List<Rule> rules, String word, Gender gender, PartOfSpeech pos, Boolean animate, Boolean plural) {
-        List<Rule> byEnding = rules.stream().filter(r -> r.match(word)).collect(Collectors.toList());
-        if (byEnding.isEmpty()) {
+    private static Rule findRule(RuleTrie rules, String word, Gender gender, PartOfSpeech pos, Boolean animate, Boolean plural) {
+        RuleTrie.Node node = rules.find(word);
+        Rule[] byEnding = node.rules();
+        if (byEnding.length == 0) {
             return null;
         }
-        if (byEnding.size() == 1) {
-            return byEnding.get(0);
+        if (byEnding.length == 1) {
+            return byEnding[0];
         }
         // if nothing found use neuter as default (it's original weird logic)
-        List<Rule> byGender = byEnding.stream()
-                .filter(r -> r.matchGenderStrict(gender) || r.matchGenderStrict(Gender.NEUTER))
-                .collect(Collectors.toList());
-        if (byGender.isEmpty()) { // gender is mandatory right now
+        Rule[] byGender = node.rules(gender);
+        if (byGender.length == 0) { // gender is mandatory right now
             throw new IllegalStateException();
         }
-        if (byGender.size() == 1) {
-            return byGender.get(0);
+        if (byGender.length == 1) {
+            return byGender[0];
         }
         if (plural == null && animate == null && pos == null) {
             // no filter parameters is specified -> return the first
-            return byGender.get(0);
+            return byGender[0];
         }
-        Comparator<Rule> comp = createRuleComparator(pos, animate, plural);
-        if (comp == null) {
-            // can't sort -> return the first one
-            return byGender.get(0);
+        // the first (in the original order) most specific rule that matches the filter parameters:
+        // rules with specified animate go first, then rules with specified plural, then with part-of-speech
+        Rule res = null;
+        int max = -1;
+        for (Rule r : byGender) {
+            if (!r.matchAnimateLenient(animate) || !r.matchPluralLenient(plural) || !r.matchPartOfSpeechLenient(pos)) {
+                continue;
+            }
+            int specificity = specificity(r, pos, animate, plural);
+            if (specificity > max) {
+                max = specificity;
+                res = r;
+            }
         }
-        return byGender.stream()
-                .sorted(comp)
-                .filter(r -> r.matchAnimateLenient(animate) && r.matchPluralLenient(plural) && r.matchPartOfSpeechLenient(pos))
-                .findFirst().orElse(null);
+        return res;
     }
 
-    private static Comparator<Rule> createRuleComparator(PartOfSpeech pos, Boolean animate, Boolean plural) {
-        Comparator<Rule> res = null;
-        if (animate != null) {
-            res = BY_ANIMATE_COMPARATOR;
-        }
-        if (plural != null) {
-            res = res == null ? BY_PLURAL_COMPARATOR : res.thenComparing(BY_PLURAL_COMPARATOR);
+    /**
+     * Returns the candidates for the nominative form of the given word, which is supposed to be in the specified case.
+     * The candidates are obtained by the inverse application of the rule mods and are not verified:
+     * the forward inflection of a candidate can give another word, and so it must be checked by the caller.
+     *
+     * @param word       {@code String}, normalized (lowercase), not {@code null}
+     * @param declension {@link Case}, not {@code null}
+     * @return {@code Set} of candidates (for the {@link Case#NOMINATIVE} it is the word itself)
+     */
+    public Set<String> candidates(String word, Case declension) {
+        if (declension == Case.NOMINATIVE) {
+            return Set.of(word);
         }
-        if (pos != null) {
-            res = res == null ? BY_PART_OF_SPEECH_COMPARATOR : res.thenComparing(BY_PART_OF_SPEECH_COMPARATOR);
+        Map<String, List<Inverse>> index = inverseIndex();
+        Set<String> res = new LinkedHashSet<>();
+        for (int length = 0; length <= Math.min(maxSuffixLength, word.length()); length++) {
+            List<Inverse> inverses = index.get(word.substring(word.length() - length));
+            if (inverses == null) {
+                continue;
+            }
+            String stem = word.substring(0, word.length() - length);
+            for (Inverse inverse : inverses) {
+                if (inverse.declension != declension) {
+                    continue;
+                }
+                String candidate = stem.concat(inverse.restore);
+                if (candidate.endsWith(inverse.test)) {
+                    res.add(candidate);
+                }
+            }
         }
         return res;
     }
 
-    private static <X> int toInt(X v) {
-        return v == null ? -1 : 1;
+    private Map<String, List<Inverse>> inverseIndex() {
+        Map<String, List<Inverse>> res = inverseIndex;
+        if (res != null) {
+            return res;
+        }
+        synchronized (this) {
+            if ((res = inverseIndex) != null) {
+                return res;
+            }
+            res = new HashMap<>();
+            int max = 0;
+            for (List<Rule> rules : List.of(exceptions, suffixes)) {
+                for (Rule rule : rules) {
+                    for (Case declension : Case.values()) {
+                        if (declension == Case.NOMINATIVE) {
+                            continue;
+                        }
+                        String mod = rule.mod(declension);
+                        int trim = 0;
+                        String suffix = "";
+                        if (!RuleUtils.KEEP_MOD.equals(mod)) {
+                            while (trim < mod.length() && mod.charAt(trim) == RuleUtils.REMOVE_CHARACTER) {
+                                trim++;
+                            }
+                            suffix = mod.substring(trim);
+                        }
+                        for (String test : rule.test) {
+                            if (trim > test.length()) { // the removed characters are unknown
+                                continue;
+                            }
+                            res.computeIfAbsent(suffix, k -> new ArrayList<>())
+                                    .add(new Inverse(declension, test.substring(test.length() - trim), test));
+                            max = Math.max(max, suffix.length());
+                        }
+                    }
+                }
+            }
+            this.maxSuffixLength = max;
+            return this.inverseIndex = res;
+        }
     }
 
+    private static int specificity(Rule r, PartOfSpeech pos, Boolean animate, Boolean plural) {
+        int res = 0;
+        if (animate != null && r.animate != null) {
+            res |= BY_ANIMATE;
+        }
+        if (plural != null && r.plural != null) {
+            res |= BY_PLURAL;
+        }
+        if (pos != null && r.partOfSpeech != null) {
+            res |= BY_PART_OF_SPEECH;
+        }
+        return res;
+    }
+
+    /**
+     * An inverted mod: the inflected word (in the given case) without the mod suffix plus {@code restore}
+     * gives the nominative, if it ends with {@code test}.
+     */
+    private static class Inverse {
+        private final Case declension;
+        private final String restore;
+        private final String test;
+
+        Inverse(Case declension, String restore, String test) {
+            this.declension = declension;
+            this.restore = restore;
+            this.test = test;
+        }
+    }
 }
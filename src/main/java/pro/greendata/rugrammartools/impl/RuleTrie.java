@@ -0,0 +1,131 @@
+package pro.greendata.rugrammartools.impl;
+
+import pro.greendata.rugrammartools.Gender;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.TreeMap;
+import java.util.TreeSet;
+
+/**
+ * A reverse-character trie compiled from the {@link Rule#test test-endings} of a {@code List} of {@link Rule}s.
+ * <p>
+ * Each node holds all the rules whose endings are suffixes of the node path (reading from the end of the word),
+ * in the original order and also grouped by gender.
+ * So, to find all the rules that match a word, it is enough to walk the word once from its last character
+ * down to the deepest node, no intermediate collections are created.
+ *
+ * @see RuleSet
+ */
+class RuleTrie {
+    private static final Rule[] NO_RULES = new Rule[0];
+    private static final int NO_GENDER_INDEX = Gender.values().length;
+
+    private final Node root;
+
+    RuleTrie(List<Rule> rules) {
+        Builder root = new Builder();
+        for (int i = 0; i < rules.size(); i++) {
+            Rule rule = Objects.requireNonNull(rules.get(i));
+            for (String test : rule.test) {
+                Builder node = root;
+                for (int j = test.length() - 1; j >= 0; j--) {
+                    node = node.children.computeIfAbsent(test.charAt(j), c -> new Builder());
+                }
+                node.rules.add(i);
+            }
+        }
+        this.root = root.build(new TreeSet<>(), rules);
+    }
+
+    /**
+     * Finds the deepest node for the given word.
+     *
+     * @param word {@code String}, not {@code null}
+     * @return {@link Node}, never {@code null}
+     */
+    Node find(String word) {
+        Node res = root;
+        for (int i = word.length() - 1; i >= 0; i--) {
+            Node next = res.next(word.charAt(i));
+            if (next == null) {
+                break;
+            }
+            res = next;
+        }
+        return res;
+    }
+
+    /**
+     * An immutable trie node.
+     */
+    static final class Node {
+        private final char[] chars;
+        private final Node[] children;
+        private final Rule[] rules;
+        private final Rule[][] byGender;
+
+        private Node(char[] chars, Node[] children, Rule[] rules, Rule[][] byGender) {
+            this.chars = chars;
+            this.children = children;
+            this.rules = rules;
+            this.byGender = byGender;
+        }
+
+        private Node next(char ch) {
+            int i = Arrays.binarySearch(chars, ch);
+            return i < 0 ? null : children[i];
+        }
+
+        /**
+         * Returns all the rules matching the path of this node in the original order.
+         *
+         * @return {@code Array} of {@link Rule}s, must not be modified
+         */
+        Rule[] rules() {
+            return rules;
+        }
+
+        /**
+         * Returns the rules matching the path of this node
+         * that have the given gender or {@link Gender#NEUTER neuter} gender, in the original order.
+         *
+         * @param gender {@link Gender}, can be {@code null}
+         * @return {@code Array} of {@link Rule}s, must not be modified
+         */
+        Rule[] rules(Gender gender) {
+            return byGender[gender == null ? NO_GENDER_INDEX : gender.ordinal()];
+        }
+    }
+
+    /**
+     * A mutable node to build the trie.
+     */
+    private static class Builder {
+        private final Map<Character, Builder> children = new TreeMap<>();
+        private final TreeSet<Integer> rules = new TreeSet<>();
+
+        private Node build(TreeSet<Integer> parentRules, List<Rule> all) {
+            TreeSet<Integer> indexes = new TreeSet<>(parentRules);
+            indexes.addAll(this.rules);
+            Rule[] rules = indexes.isEmpty() ? NO_RULES : indexes.stream().map(all::get).toArray(Rule[]::new);
+            Rule[][] byGender = new Rule[NO_GENDER_INDEX + 1][];
+            for (int i = 0; i < byGender.length; i++) {
+                Gender g = i == NO_GENDER_INDEX ? null : Gender.values()[i];
+                byGender[i] = Arrays.stream(rules)
+                        .filter(r -> r.matchGenderStrict(g) || r.matchGenderStrict(Gender.NEUTER))
+                        .toArray(Rule[]::new);
+            }
+            char[] chars = new char[children.size()];
+            Node[] nodes = new Node[children.size()];
+            int i = 0;
+            for (Map.Entry<Character, Builder> e : children.entrySet()) {
+                chars[i] = e.getKey();
+                nodes[i++] = e.getValue().build(indexes, all);
+            }
+            return new Node(chars, nodes, rules, byGender);
+        }
+    }
+}
@@ -1,10 +1,14 @@
 package pro.greendata.rugrammartools.impl;
 
+import pro.greendata.rugrammartools.Case;
+import pro.greendata.rugrammartools.Currency;
 import pro.greendata.rugrammartools.Gender;
 import pro.greendata.rugrammartools.SpellingEngine;
+import pro.greendata.rugrammartools.Unit;
 import pro.greendata.rugrammartools.impl.dictionaries.PlainDictionary;
 import pro.greendata.rugrammartools.impl.utils.GrammarUtils;
 import pro.greendata.rugrammartools.impl.utils.NumberUtils;
+import pro.greendata.rugrammartools.impl.utils.TextUtils;
 
 import java.math.BigDecimal;
 import java.math.BigInteger;
@@ -30,7 +34,7 @@ public class SpellingEngineImpl implements SpellingEngine {
             "двадцать", "тридцать", "сорок", "пятьдесят", "шестьдесят", "семьдесят", "восемьдесят", "девяносто");
 
     private static final List<String> NUMBER_BASES_FROM_ELEVEN_UP_TO_TWENTY = List.of(
-            "одиннадцат", "двенадцат", "тринадцат", "четырнадцат", "пятнадцат", "шеснадцат",
+            "одиннадцат", "двенадцат", "тринадцат", "четырнадцат", "пятнадцат", "шестнадцат",
             "семнадцат", "восемнадцат", "девятнадцат");
 
     protected static final List<String> NUMBERS_UP_TO_TWENTY = Stream.concat(Stream.of(
@@ -64,13 +68,27 @@ public class SpellingEngineImpl implements SpellingEngine {
             NUMBER_BASES_FROM_ELEVEN_UP_TO_TWENTY.stream().map(x -> x + "ый")).collect(Collectors.toUnmodifiableList());
 
     protected static final List<String> ORDINAL_HUNDRED_PREFIXES = List.of( // двухсотмилиооная, девятисоттысячный
-            "сто", "двухсот", "трёхсот", "четырёхсот", "пятисот", "шестисот", "семисот", "восемсот", "девятисот");
+            "сто", "двухсот", "трёхсот", "четырёхсот", "пятисот", "шестисот", "семисот", "восьмисот", "девятисот");
     protected static final List<String> ORDINAL_TEN_PREFIXES = List.of( // сорокамиллионный, тридцатипятитысячный
             "двадцати", "тридцати", "сорока", "пятидесяти", "шестидесяти", "семидесяти", "восьмидесяти", "девяносто");
     protected static final List<String> ORDINAL_NUMBER_UP_TO_TWENTY_PREFIXES = Stream.concat(Stream.of(
                     "одно", "двух", "трёх", "четырёх", "пяти", "шести", "семи", "восьми", "девяти", "десяти"),
             NUMBER_BASES_FROM_ELEVEN_UP_TO_TWENTY.stream().map(x -> x + "и")).collect(Collectors.toUnmodifiableList());
 
+    // the spellings of all triples 0..999, the zero triple is an empty string
+    private static final String[] CARDINAL_TRIPLES = IntStream.range(0, 1000)
+            .mapToObj(x -> buildCardinalTriple(x, false)).toArray(String[]::new);
+    private static final String[] FEMALE_CARDINAL_TRIPLES = IntStream.range(0, 1000) // одна тысяча, две десятых
+            .mapToObj(x -> buildCardinalTriple(x, true)).toArray(String[]::new);
+    private static final String[] ORDINAL_FEMALE_TRIPLES = IntStream.range(0, 1000)
+            .mapToObj(x -> buildOrdinalTriple(x, Gender.FEMALE)).toArray(String[]::new);
+    private static final String[] ORDINAL_NEUTER_TRIPLES = IntStream.range(0, 1000)
+            .mapToObj(x -> buildOrdinalTriple(x, Gender.NEUTER)).toArray(String[]::new);
+    private static final String[] ORDINAL_MALE_TRIPLES = IntStream.range(0, 1000)
+            .mapToObj(x -> buildOrdinalTriple(x, Gender.MALE)).toArray(String[]::new);
+    private static final String[] ORDINAL_TRIPLE_PREFIXES = IntStream.range(0, 1000) // сорокадвух(тысячный)
+            .mapToObj(SpellingEngineImpl::buildOrdinalTriplePrefix).toArray(String[]::new);
+
     public SpellingEngineImpl() {
         this(MathContext.DECIMAL128, true, true);
     }
@@ -87,47 +105,327 @@ public class SpellingEngineImpl implements SpellingEngine {
 
     @Override
     public String spell(BigDecimal number) {
-        StringJoiner res = new StringJoiner(" ");
-        int signum = number.signum();
-        if (signum < 0) {
-            res.add("минус");
-        } else if (signum == 0) {
-            return "ноль";
+        return spellTo(new StringBuilder(), number).toString();
+    }
+
+    @Override
+    public <A extends Appendable> A spellTo(A out, BigDecimal number) {
+        if (number.signum() == 0) {
+            return TextUtils.append(out, "ноль");
         }
-        number = number.abs();
+        BigDecimal abs = number.abs();
         if (stripTrailingZeros) {
-            number = number.stripTrailingZeros();
+            abs = abs.stripTrailingZeros();
         }
-        List<Integer> integerTriples = NumberUtils.toTriples(number, context());
-        if (integerTriples.size() > PlainDictionary.BIG_CARDINAL_NUMERALS.size() + 1) {
-            throw new IllegalArgumentException("The specified number is too big: " + number);
+        StringBuilder res = TextUtils.toStringBuilder(out);
+        spell(res, number.signum() < 0, abs.unscaledValue().toString(), abs.scale(), abs);
+        return TextUtils.flush(out, res);
+    }
+
+    /**
+     * Spells the given {@code number} in the given case directly from the case forms of the numeral atoms,
+     * without inflecting the nominative text.
+     *
+     * @param number     {@link BigDecimal}, not {@code null}
+     * @param declension {@link Case}, not {@code null}
+     * @return {@code String}
+     */
+    @Override
+    public String spell(BigDecimal number, Case declension) {
+        if (declension == Case.NOMINATIVE) {
+            return spell(number);
         }
+        if (number.signum() == 0) {
+            return NumeralTable.units(0, declension, Gender.MALE, false);
+        }
+        BigDecimal abs = number.abs();
+        if (stripTrailingZeros) {
+            abs = abs.stripTrailingZeros();
+        }
+        StringBuilder res = new StringBuilder();
+        spell(res, number.signum() < 0, abs.unscaledValue().toString(), abs.scale(), abs, declension, Gender.MALE, false);
+        return res.toString();
+    }
+
+    /**
+     * Spells the given plain decimal number without building a {@link BigDecimal},
+     * e.g. {@code "-1234.50"}.
+     * The triples are cut directly from the digit characters.
+     *
+     * @param number {@code String} - an optional sign, digits and an optional point with fraction digits, not {@code null}
+     * @return the corresponding {@code String}
+     * @throws NumberFormatException if the string is not a plain decimal number
+     */
+    @Override
+    public String spell(String number) {
+        return spellTo(new StringBuilder(), number).toString();
+    }
+
+    @Override
+    public <A extends Appendable> A spellTo(A out, String number) {
+        int length = number.length();
+        int start = length > 0 && (number.charAt(0) == '-' || number.charAt(0) == '+') ? 1 : 0;
+        int point = number.indexOf('.', start);
+        StringBuilder digits = new StringBuilder(length);
+        for (int i = start; i < length; i++) {
+            char c = number.charAt(i);
+            if (i == point) {
+                continue;
+            }
+            if (c < '0' || c > '9') {
+                throw new NumberFormatException("Not a plain decimal number: '" + number + "'");
+            }
+            digits.append(c);
+        }
+        if (digits.length() == 0) {
+            throw new NumberFormatException("Not a plain decimal number: '" + number + "'");
+        }
+        int scale = point < 0 ? 0 : length - point - 1;
+        if (stripTrailingZeros) {
+            while (scale > 0 && digits.charAt(digits.length() - 1) == '0') {
+                digits.setLength(digits.length() - 1);
+                scale--;
+            }
+        }
+        int first = 0;
+        while (first < digits.length() && digits.charAt(first) == '0') {
+            first++;
+        }
+        if (first == digits.length()) {
+            return TextUtils.append(out, "ноль");
+        }
+        StringBuilder res = TextUtils.toStringBuilder(out);
+        spell(res, start == 1 && number.charAt(0) == '-', digits.substring(first), scale, number);
+        return TextUtils.flush(out, res);
+    }
 
-        List<Integer> fractionTriples = NumberUtils.toTriples(NumberUtils.fraction(number, context()), context());
-        if (number.scale() > PlainDictionary.BIG_CARDINAL_NUMERALS.size() * 3 + 2) {
-            if (!trimFractionPart || (integerTriples.size() == 1 && integerTriples.get(0) == 0)) { // no integer part
+    /**
+     * Spells the non-zero number given as the digits of its unscaled value and the scale (as in {@link BigDecimal}).
+     *
+     * @param res      {@link StringBuilder} to append
+     * @param negative {@code boolean}
+     * @param digits   {@code String} - the unscaled value digits without leading zeros
+     * @param scale    {@code int}, can be negative
+     * @param number   {@code Object} - the source number for error messages
+     */
+    private void spell(StringBuilder res, boolean negative, String digits, int scale, Object number) {
+        spell(res, negative, digits, scale, number, Case.NOMINATIVE, Gender.MALE, false);
+    }
+
+    /**
+     * Spells the non-zero number in the given case, agreed with the gender and the animacy of the counted word.
+     *
+     * @param res        {@link StringBuilder} to append
+     * @param negative   {@code boolean}
+     * @param digits     {@code String} - the unscaled value digits without leading zeros
+     * @param scale      {@code int}, can be negative
+     * @param number     {@code Object} - the source number for error messages
+     * @param declension {@link Case}
+     * @param gender     {@link Gender} of the counted word
+     * @param animate    {@code boolean} - the counted word is animate
+     * @return {@code int} - the last triple or {@link NumeralTable#FRACTION}, to agree the counted word
+     */
+    private int spell(StringBuilder res,
+                      boolean negative,
+                      String digits,
+                      int scale,
+                      Object number,
+                      Case declension,
+                      Gender gender,
+                      boolean animate) {
+        int integerLength = digits.length() - scale;
+        if (integerLength > (PlainDictionary.BIG_CARDINAL_NUMERALS.size() + 1) * 3) {
+            throw new IllegalArgumentException("The specified number is too big: " + number);
+        }
+        int maxScale = PlainDictionary.BIG_CARDINAL_NUMERALS.size() * 3 + 2;
+        if (scale > maxScale) {
+            if (!trimFractionPart || integerLength <= 0) { // no integer part
                 throw new IllegalArgumentException("The specified number is too small: " + number);
             }
-            number = number.setScale(PlainDictionary.BIG_CARDINAL_NUMERALS.size() * 3 + 2, context().getRoundingMode());
-            fractionTriples = NumberUtils.toTriples(NumberUtils.fraction(number, context()), context());
-        }
-
-        int[] last = printIntegerTriples(res, integerTriples, !fractionTriples.isEmpty());
-        if (!fractionTriples.isEmpty()) {
-            if (NumberUtils.isEmpty(last)) {
-                if (integerTriples.size() == 1) {
-                    res.add("ноль");
-                }
-                res.add("целых");
-            } else {
-                res.add(last[2] == 1 ? "целая" : "целых");
+            BigDecimal rounded = new BigDecimal(new BigInteger(digits), scale)
+                    .setScale(maxScale, context().getRoundingMode());
+            digits = rounded.unscaledValue().toString();
+            integerLength = digits.length() - maxScale;
+            scale = maxScale;
+            if (integerLength > (PlainDictionary.BIG_CARDINAL_NUMERALS.size() + 1) * 3) {
+                throw new IllegalArgumentException("The specified number is too big: " + number);
             }
-            int[] t = printIntegerTriples(res, fractionTriples, true);
-            res.add(getFractionDigit(t, number.scale()));
+        } else if (scale < 0) {
+            digits += "0".repeat(-scale);
+            scale = 0;
+        }
+        int[] integerTriples = integerLength > 0 ? NumberUtils.toTriples(digits, 0, integerLength) : new int[1];
+        int[] fractionTriples = scale > 0 ?
+                NumberUtils.toTriples(digits, Math.max(0, integerLength), digits.length()) : new int[0];
+
+        int start = res.length();
+        if (negative) {
+            append(res, start, "минус");
+        }
+        if (declension != Case.NOMINATIVE || gender != Gender.MALE || animate) {
+            return printTriples(res, start, integerTriples, fractionTriples, scale, declension, gender, animate);
+        }
+        boolean hasFractionPart = fractionTriples.length != 0;
+        int last = printIntegerTriples(res, start, integerTriples, 0, integerTriples.length, hasFractionPart);
+        if (!hasFractionPart) {
+            return last;
+        }
+        if (last == 0) {
+            if (integerTriples.length == 1) {
+                append(res, start, "ноль");
+            }
+            append(res, start, "целых");
+        } else {
+            append(res, start, units(last) == 1 ? "целая" : "целых");
+        }
+        last = printIntegerTriples(res, start, fractionTriples, 0, fractionTriples.length, true);
+        append(res, start, getFractionDigit(units(last), scale));
+        return NumeralTable.FRACTION;
+    }
+
+    /**
+     * Spells the given integer {@code number}.
+     * This is a fast path, which splits the number into triples using primitive arithmetic;
+     * the result is the same as for {@code spell(BigDecimal.valueOf(number))}.
+     *
+     * @param number {@code long}
+     * @return {@code String}
+     */
+    @Override
+    public String spell(long number) {
+        return spellTo(new StringBuilder(), number).toString();
+    }
+
+    @Override
+    public <A extends Appendable> A spellTo(A out, long number) {
+        if (number == Long.MIN_VALUE || !isLongPrecision()) { // cannot be negated or the context is too narrow
+            return spellTo(out, BigDecimal.valueOf(number));
+        }
+        if (number == 0) {
+            return TextUtils.append(out, "ноль");
+        }
+        StringBuilder res = TextUtils.toStringBuilder(out);
+        int start = res.length();
+        if (number < 0) {
+            append(res, start, "минус");
+            number = -number;
         }
+        int[] triples = new int[NumberUtils.MAX_LONG_TRIPLES];
+        int from = NumberUtils.toTriples(number, triples);
+        printIntegerTriples(res, start, triples, from, triples.length, false);
+        return TextUtils.flush(out, res);
+    }
+
+    /**
+     * Spells the given ordinal {@code number} using primitive arithmetic;
+     * the result is the same as for {@code spellOrdinal(BigInteger.valueOf(number), gender)}.
+     *
+     * @param number non-negative {@code long}
+     * @param gender {@link Gender}
+     * @return {@code String}
+     */
+    @Override
+    public String spellOrdinal(long number, Gender gender) {
+        return spellOrdinalTo(new StringBuilder(), number, gender).toString();
+    }
+
+    @Override
+    public <A extends Appendable> A spellOrdinalTo(A out, long number, Gender gender) {
+        if (number < 0) {
+            throw new IllegalArgumentException("Negative ordinal number:" + number);
+        }
+        if (number == 0) {
+            return TextUtils.append(out, GrammarUtils.select("нулевая", "нулевое", "нулевой", gender));
+        }
+        int[] triples = new int[NumberUtils.MAX_LONG_TRIPLES];
+        int from = NumberUtils.toTriples(number, triples);
+        int lastIndex = triples.length - 1;
+        while (triples[lastIndex] == 0) {
+            lastIndex--;
+        }
+        StringBuilder res = TextUtils.toStringBuilder(out);
+        int start = res.length();
+        printIntegerTriples(res, start, triples, from, lastIndex, false);
+        int rank = triples.length - lastIndex - 1;
+        if (rank == 0) { // раздельно: сорок второй
+            append(res, start, firstOrdinalTriple(triples[lastIndex], gender));
+        } else { // слитно: сорокадвухтысячный
+            append(res, start, ORDINAL_TRIPLE_PREFIXES[triples[lastIndex]]);
+            appendRank(res, gender, rank);
+        }
+        return TextUtils.flush(out, res);
+    }
+
+    /**
+     * Spells the money amount directly from the triples of its digits:
+     * the numerals are taken in the required case from the {@link NumeralTable},
+     * and the currency units agree with the last triples, so no spelled text is inflected afterwards.
+     *
+     * @param amount     {@link BigDecimal}, not {@code null}
+     * @param currency   {@link Currency}, not {@code null}
+     * @param declension {@link Case}, not {@code null}
+     * @return {@code String}
+     */
+    @Override
+    public String spellMoney(BigDecimal amount, Currency currency, Case declension) {
+        Objects.requireNonNull(declension);
+        int minorDigits = currency.minorDigits();
+        BigDecimal value = amount.setScale(minorDigits, context().getRoundingMode());
+        String digits = value.unscaledValue().abs().toString();
+        int integerLength = digits.length() - minorDigits;
+        if (integerLength > (PlainDictionary.BIG_CARDINAL_NUMERALS.size() + 1) * 3) {
+            throw new IllegalArgumentException("The specified number is too big: " + amount);
+        }
+        int[] major = integerLength > 0 ? NumberUtils.toTriples(digits, 0, integerLength) : new int[1];
+        StringBuilder res = new StringBuilder();
+        if (value.signum() < 0) {
+            append(res, 0, "минус");
+        }
+        int last = NumeralTable.appendCardinal(res, 0, major, declension, currency.majorGender(), false);
+        append(res, 0, NumeralTable.agree(currency.major(), false, false, last, declension));
+        if (minorDigits != 0) {
+            int[] minor = {Integer.parseInt(digits, Math.max(0, integerLength), digits.length(), 10)};
+            last = NumeralTable.appendCardinal(res, 0, minor, declension, currency.minorGender(), false);
+            append(res, 0, NumeralTable.agree(currency.minor(), false, false, last, declension));
+        }
+        return res.toString();
+    }
+
+    /**
+     * Spells the number in the given case directly from the {@link NumeralTable}
+     * and appends the prepared unit form, which agrees with the last triple,
+     * so neither the number nor the unit is parsed or inflected.
+     *
+     * @param number     {@link BigDecimal}, not {@code null}
+     * @param unit       {@link Unit}, not {@code null}
+     * @param declension {@link Case}, not {@code null}
+     * @return {@code String}
+     */
+    @Override
+    public String format(BigDecimal number, Unit unit, Case declension) {
+        Objects.requireNonNull(declension);
+        StringBuilder res = new StringBuilder();
+        int last;
+        if (number.signum() == 0) {
+            res.append(NumeralTable.units(0, declension, Gender.MALE, false));
+            last = NumeralTable.ZERO;
+        } else {
+            BigDecimal abs = number.abs();
+            if (stripTrailingZeros) {
+                abs = abs.stripTrailingZeros();
+            }
+            last = spell(res, number.signum() < 0, abs.unscaledValue().toString(), abs.scale(), abs,
+                    declension, unit.gender(), unit.animate());
+        }
+        append(res, 0, NumeralTable.agree(unit.forms(), false, unit.animate(), last, declension));
         return res.toString();
     }
 
+    private boolean isLongPrecision() {
+        int precision = context().getPrecision();
+        return precision == 0 || precision >= 19;
+    }
+
     /**
      * A couple of rules:
      * {@code Сложные порядковые числительные как производные от количественных пишутся слитно, а составные раздельно:
@@ -152,48 +450,141 @@ public class SpellingEngineImpl implements SpellingEngine {
             return GrammarUtils.select("нулевая", "нулевое", "нулевой", gender);
         }
 
-        List<Integer> triples = NumberUtils.toTriples(number);
-        StringJoiner res = new StringJoiner(" ");
-        int lastIndex = triples.size() - 1;
-        if (triples.get(lastIndex) != 0) { // раздельно: тысяча девятьсот девяносто первый, сорок второй, четрехсотый
-            printIntegerTriples(res, triples, false, lastIndex);
-            int[] t = NumberUtils.toTriple(triples.get(lastIndex));
-            res.add(firstOrdinalTripleToString(t, gender));
-            return res.toString();
-        }
-        lastIndex = IntStream.range(0, triples.size()).map(i -> triples.size() - i - 1)
-                .filter(x -> triples.get(x) != 0).findFirst().orElseThrow();
-        printIntegerTriples(res, triples, false, lastIndex);
-        // слитное написание: сорокадвухтысячный, пятидесятичетырехмиллионный
-        int[] t = NumberUtils.toTriple(triples.get(lastIndex));
-        int rank = triples.size() - lastIndex - 1;
-        res.add(lastOrdinalTripleToString(t, gender, rank));
+        int[] triples = NumberUtils.toTriples(number).stream().mapToInt(Integer::intValue).toArray();
+        int lastIndex = triples.length - 1;
+        while (triples[lastIndex] == 0) {
+            lastIndex--;
+        }
+        StringBuilder res = new StringBuilder();
+        printIntegerTriples(res, 0, triples, 0, lastIndex, false);
+        int rank = triples.length - lastIndex - 1;
+        if (rank == 0) { // раздельно: тысяча девятьсот девяносто первый, сорок второй, четрехсотый
+            append(res, 0, firstOrdinalTriple(triples[lastIndex], gender));
+        } else { // слитное написание: сорокадвухтысячный, пятидесятичетырехмиллионный
+            append(res, 0, ORDINAL_TRIPLE_PREFIXES[triples[lastIndex]]);
+            appendRank(res, gender, rank);
+        }
         return res.toString();
     }
 
-    protected int[] printIntegerTriples(StringJoiner res, List<Integer> triples, boolean hasFractionPart) {
-        return printIntegerTriples(res, triples, hasFractionPart, triples.size());
+    /**
+     * Spells the given ordinal {@code number} in the given case;
+     * only the last word of a compound ordinal is declined: {@code "две тысячи сорок второму"}.
+     *
+     * @param number     non-negative {@link BigInteger}, not {@code null}
+     * @param gender     {@link Gender}
+     * @param declension {@link Case}, not {@code null}
+     * @param animate    {@code boolean} - the counted word is animate, matters for the masculine accusative
+     * @return {@code String}
+     */
+    @Override
+    public String spellOrdinal(BigInteger number, Gender gender, Case declension, boolean animate) {
+        String res = spellOrdinal(number, gender);
+        if (declension == Case.NOMINATIVE) {
+            return res;
+        }
+        int last = res.lastIndexOf(' ') + 1;
+        return res.substring(0, last) + NumeralTable.ordinal(res.substring(last), gender, declension, animate);
     }
 
-    protected int[] printIntegerTriples(StringJoiner res, List<Integer> triples, boolean hasFractionPart, int maxExclusive) {
-        int[] t = null;
-        for (int i = 0; i < maxExclusive; i++) {
-            t = NumberUtils.toTriple(triples.get(i));
-            if (NumberUtils.isEmpty(t)) {
+    /**
+     * Prints the triples {@code [from, to)} of the number.
+     *
+     * @param res             {@link StringBuilder} to append
+     * @param start           the position in the builder, where the number starts
+     * @param triples         {@code int[]} - all triples of the number, see {@link NumberUtils#toTriples(long, int[])}
+     * @param from            the index of the first triple of the number
+     * @param to              the index to stop (exclusive)
+     * @param hasFractionPart if {@code true} the units are printed in the feminine form (одна целая, две десятых)
+     * @return {@code int} - the last printed (or skipped) triple
+     */
+    private static int printIntegerTriples(StringBuilder res,
+                                           int start,
+                                           int[] triples,
+                                           int from,
+                                           int to,
+                                           boolean hasFractionPart) {
+        int triple = 0;
+        for (int i = from; i < to; i++) {
+            triple = triples[i];
+            if (triple == 0) {
                 continue;
             }
-            int bigIndex = triples.size() - 2 - i;
-            String s = tripleToString(t, bigIndex == 0 || (bigIndex < 0 && hasFractionPart));
-            res.add(s);
-            String big = getIntegerDigit(t, bigIndex);
+            int bigIndex = triples.length - 2 - i;
+            append(res, start, cardinalTriple(triple, bigIndex == 0 || (bigIndex < 0 && hasFractionPart)));
+            String big = getIntegerDigit(units(triple), bigIndex);
             if (big != null) {
-                res.add(big);
+                append(res, start, big);
             }
         }
-        return t;
+        return triple;
+    }
+
+    /**
+     * Prints the number in the given case from the {@link NumeralTable}.
+     *
+     * @param res             {@link StringBuilder} to append
+     * @param start           the position in the builder, where the number starts
+     * @param integerTriples  {@code int[]} - the triples of the integer part
+     * @param fractionTriples {@code int[]} - the triples of the fraction part, can be empty
+     * @param scale           {@code int} - the number of fraction digits
+     * @param declension      {@link Case}
+     * @param gender          {@link Gender} of the counted word, used if there is no fraction part
+     * @param animate         {@code boolean} - the counted word is animate, used if there is no fraction part
+     * @return {@code int} - the last triple or {@link NumeralTable#FRACTION}
+     */
+    private static int printTriples(StringBuilder res,
+                                    int start,
+                                    int[] integerTriples,
+                                    int[] fractionTriples,
+                                    int scale,
+                                    Case declension,
+                                    Gender gender,
+                                    boolean animate) {
+        if (fractionTriples.length == 0) {
+            return NumeralTable.appendCardinal(res, start, integerTriples, declension, gender, animate);
+        }
+        int last = NumeralTable.appendCardinal(res, start, integerTriples, declension, Gender.FEMALE, false);
+        // after a round number "целых" is genitive: одним миллионом целых
+        append(res, start, NumeralTable.agree(NumeralTable.INTEGER_PART, true, false,
+                last == 0 ? NumeralTable.ZERO : last, declension));
+        last = NumeralTable.appendCardinal(res, start, fractionTriples, declension, Gender.FEMALE, false);
+        append(res, start, NumeralTable.agree(NumeralTable.fractionPart(scale), true, false, last, declension));
+        return NumeralTable.FRACTION;
+    }
+
+    private static String cardinalTriple(int triple, boolean isFractionOrThousand) {
+        return (isFractionOrThousand ? FEMALE_CARDINAL_TRIPLES : CARDINAL_TRIPLES)[triple];
+    }
+
+    /**
+     * Answers the last digit, or the last two digits for {@code 10..19}, i.e. {@code t[2]} of {@link NumberUtils#toTriple(int)}.
+     */
+    private static int units(int triple) {
+        int res = triple % 100;
+        return res < 20 ? res : res % 10;
+    }
+
+    private static void append(StringBuilder res, int start, String word) {
+        if (res.length() != start) {
+            res.append(' ');
+        }
+        res.append(word);
     }
 
-    protected String tripleToString(int[] t, boolean isFractionOrThousand) {
+    private static String firstOrdinalTriple(int triple, Gender g) {
+        return GrammarUtils.select(ORDINAL_FEMALE_TRIPLES, ORDINAL_NEUTER_TRIPLES, ORDINAL_MALE_TRIPLES, g)[triple];
+    }
+
+    /**
+     * Builds the spelling of a cardinal triple, used to fill the tables.
+     *
+     * @param triple               {@code int} - a number {@code 0..999}
+     * @param isFractionOrThousand if {@code true} the feminine form is used (одна, две)
+     * @return {@code String}
+     */
+    private static String buildCardinalTriple(int triple, boolean isFractionOrThousand) {
+        int[] t = NumberUtils.toTriple(triple);
         StringJoiner res = new StringJoiner(" ");
         if (t[0] != 0) {
             res.add(HUNDREDS.get(t[0] - 1));
@@ -213,7 +604,18 @@ public class SpellingEngineImpl implements SpellingEngine {
         return res.toString();
     }
 
-    protected String firstOrdinalTripleToString(int[] t, Gender g) {
+    /**
+     * Builds the spelling of the last (not fused) ordinal triple, used to fill the tables.
+     *
+     * @param triple {@code int} - a number {@code 1..999}, for zero the result is empty
+     * @param g      {@link Gender}
+     * @return {@code String}, e.g. {@code "сорок вторая"}
+     */
+    private static String buildOrdinalTriple(int triple, Gender g) {
+        if (triple == 0) {
+            return "";
+        }
+        int[] t = NumberUtils.toTriple(triple);
         StringJoiner res = new StringJoiner(" ");
         if (t[0] != 0) {
             int index = t[0] - 1;
@@ -236,7 +638,14 @@ public class SpellingEngineImpl implements SpellingEngine {
         return res.toString();
     }
 
-    protected String lastOrdinalTripleToString(int[] t, Gender g, int rank) {
+    /**
+     * Builds the fused prefix of an ordinal triple (without the rank), used to fill the tables.
+     *
+     * @param triple {@code int} - a number {@code 0..999}
+     * @return {@code String}, e.g. {@code "сорокадвух"}
+     */
+    private static String buildOrdinalTriplePrefix(int triple) {
+        int[] t = NumberUtils.toTriple(triple);
         StringJoiner res = new StringJoiner("");
         if (t[0] != 0) {
             int index = t[0] - 1;
@@ -249,60 +658,57 @@ public class SpellingEngineImpl implements SpellingEngine {
         if (t[2] != 0) {
             res.add(ORDINAL_NUMBER_UP_TO_TWENTY_PREFIXES.get(t[2] - 1));
         }
-        res.add(selectRank(g, rank));
         return res.toString();
     }
 
-    private String selectRank(Gender g, int rank) {
+    private static StringBuilder appendRank(StringBuilder res, Gender g, int rank) {
         if (rank < 1) {
             throw new IllegalArgumentException("Wrong rang: " + rank);
         }
-        String res;
         if (rank == 1) {
-            res = "тысяч";
+            res.append("тысяч");
         } else {
-            res = PlainDictionary.BIG_CARDINAL_NUMERALS.get(rank - 1);
+            res.append(PlainDictionary.BIG_CARDINAL_NUMERALS.get(rank - 1));
         }
-        String ending = GrammarUtils.select("ная", "ное", "ный", g);
-        return res + ending;
+        return res.append(GrammarUtils.select("ная", "ное", "ный", g));
     }
 
-    protected String getIntegerDigit(int[] t, int index) {
+    private static String getIntegerDigit(int units, int index) {
         if (index > 0) { // millions, trillions
             String big = PlainDictionary.BIG_CARDINAL_NUMERALS.get(index);
-            if (t[2] != 1) { // plural
-                big += isTwoThreeFour(t[2]) ? "а" : "ов";
+            if (units != 1) { // plural
+                big += isTwoThreeFour(units) ? "а" : "ов";
             }
             return big;
         } else if (index == 0) { // thousands
-            if (t[2] == 1) { // singular
+            if (units == 1) { // singular
                 return "тысяча";
             } else { // plural
-                return isTwoThreeFour(t[2]) ? "тысячи" : "тысяч";
+                return isTwoThreeFour(units) ? "тысячи" : "тысяч";
             }
         }
         return null;
     }
 
-    protected String getFractionDigit(int[] t, int numberOfDigits) {
+    private static String getFractionDigit(int units, int numberOfDigits) {
         int index = numberOfDigits / 3 - 1;
         int y = numberOfDigits % 3;
         String suffix = "";
         if (y == 1) {
-            suffix = index < 0 ? (t[2] == 1 ? "десятая" : "десятых") : "десяти";
+            suffix = index < 0 ? (units == 1 ? "десятая" : "десятых") : "десяти";
         } else if (y == 2) {
-            suffix = index < 0 ? (t[2] == 1 ? "сотая" : "сотых") : "сто";
+            suffix = index < 0 ? (units == 1 ? "сотая" : "сотых") : "сто";
         }
         if (index == 0) {
-            suffix += t[2] == 1 ? "тысячная" : "тысячных";
+            suffix += units == 1 ? "тысячная" : "тысячных";
         } else if (index > 0) {
             suffix += PlainDictionary.BIG_CARDINAL_NUMERALS.get(index);
-            suffix += t[2] == 1 ? "ная" : "ных";
+            suffix += units == 1 ? "ная" : "ных";
         }
         return suffix;
     }
 
-    private boolean isTwoThreeFour(int t) {
+    private static boolean isTwoThreeFour(int t) {
         return t == 2 || t == 3 || t == 4;
     }
 
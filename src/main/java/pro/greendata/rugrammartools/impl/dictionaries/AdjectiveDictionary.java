@@ -4,13 +4,11 @@ package pro.greendata.rugrammartools.impl.dictionaries;
 import pro.greendata.rugrammartools.impl.PartOfSpeech;
 import pro.greendata.rugrammartools.impl.utils.TextUtils;
 
+import java.io.IOException;
 import java.util.Arrays;
-import java.util.List;
 import java.util.Map;
 import java.util.Objects;
 import java.util.Optional;
-import java.util.stream.Collectors;
-import java.util.stream.Stream;
 
 /**
  * A dictionary, it contains adjectives from the resource {@code adjectives.csv} file.
@@ -22,12 +20,12 @@ public class AdjectiveDictionary extends Dictionary {
     static final AdjectiveDictionary DICTIONARY = new AdjectiveDictionary("/adjectives.csv");
 
     protected AdjectiveDictionary(String path) {
-        super(path, Word::parse);
+        super(path, Word::parse, Word::keys, Word::read);
     }
 
     @Override
     public Optional<Word> wordDetails(String word) {
-        Record record = contentMap().get(word);
+        Record record = record(word);
         if (record == null) {
             return Optional.empty();
         }
@@ -39,22 +37,23 @@ public class AdjectiveDictionary extends Dictionary {
         if (record instanceof Word) {
             return (Word) record;
         }
-        MultiRecord multi = (MultiRecord) record;
-        List<Word> res = Arrays.stream(multi.words)
-                .map(r -> (Word) r)
-                .sorted(BaseRecordImpl.FULLNESS_COMPARATOR)
-                .collect(Collectors.toList());
-        if (res.isEmpty()) { // can't select, choose first
-            return (Word) multi.words[0];
-        }
-        return res.get(0);
+        // the candidates are sorted by fullness
+        return (Word) ((MultiRecord) record).candidates[0];
     }
 
     public static class Word extends BaseRecordImpl implements Record {
-        private String[] masculineCases;
-        private String[] feminineCases;
-        private String[] neuterCases;
-        private String[] pluralCases;
+        /**
+         * The paradigm groups of endings, indexed by {@link pro.greendata.rugrammartools.Case#ordinal()}.
+         */
+        public static final int MASCULINE = 0;
+        public static final int FEMININE = 1;
+        public static final int NEUTER = 2;
+        public static final int PLURAL = 3;
+
+        static final Paradigm.Table PARADIGMS = new Paradigm.Table();
+        private static final Paradigm NO_PARADIGM = PARADIGMS.intern(null, null, null, null);
+
+        private Paradigm paradigm = NO_PARADIGM;
 
         /**
          * Parse the csv-line (for a).
@@ -76,69 +75,106 @@ public class AdjectiveDictionary extends Dictionary {
                 return null;
             }
             Word res = new Word();
-            if (array.length < 16) {
-                return Map.of(key, res);
-            }
-            res.masculineCases = new String[6];
-            for (int i = 0; i < 6; i++) {
-                res.masculineCases[i] = toEnding(key, array[10 + i]);
-            }
-            if (array.length < 22) {
-                return Map.of(key, res);
-            }
-            res.feminineCases = new String[6];
-            for (int i = 0; i < 6; i++) {
-                res.feminineCases[i] = toEnding(key, array[16 + i]);
-            }
-            if (array.length < 28) {
-                return Map.of(key, res);
-            }
-            res.neuterCases = new String[6];
-            for (int i = 0; i < 6; i++) {
-                res.neuterCases[i] = toEnding(key, array[22 + i]);
+            // groups: masculine, feminine, neuter, plural;
+            // note that the base for plural is a singular key, not plural its form
+            String[][] groups = new String[4][];
+            for (int g = 0; g < groups.length && array.length >= 16 + 6 * g; g++) {
+                groups[g] = new String[6];
+                for (int i = 0; i < 6; i++) {
+                    groups[g][i] = toEnding(key, array[10 + 6 * g + i]);
+                }
             }
-            if (array.length < 34) {
-                return Map.of(key, res);
-            }
-            res.pluralCases = new String[6];
-            for (int i = 0; i < 6; i++) { // note that the base here is a singular key, not plural its form
-                res.pluralCases[i] = toEnding(key, array[28 + i]);
+            res.paradigm = PARADIGMS.intern(groups);
+            return Map.of(key, res);
+        }
+
+        /**
+         * Extracts the keys from the csv-line, the result is the same as the key set of {@link #parse(String)}.
+         *
+         * @param sourceLine {@code String}
+         * @return {@code Array} of keys
+         */
+        private static String[] keys(String sourceLine) {
+            String[] array = sourceLine.split("\t");
+            if (array.length < 10) {
+                return new String[0];
             }
+            return new String[]{TextUtils.normalize(Objects.requireNonNull(array[0]))};
+        }
 
-            return Map.of(key, res);
+        /**
+         * Reads the record from the {@link DictionarySnapshot snapshot}.
+         *
+         * @param in {@link DictionarySnapshot.Input}
+         * @return {@link Word}
+         * @throws IOException if an I/O error occurs
+         * @see #write(DictionarySnapshot.Output)
+         */
+        static Word read(DictionarySnapshot.Input in) throws IOException {
+            Word res = new Word();
+            res.characteristics = in.readFlags();
+            res.paradigm = in.readParadigm(PARADIGMS);
+            return res;
+        }
+
+        @Override
+        protected void write(DictionarySnapshot.Output out) throws IOException {
+            out.writeFlags(characteristics);
+            out.writeParadigm(paradigm());
         }
 
         public final PartOfSpeech partOfSpeech() {
             return PartOfSpeech.ADJECTIVE;
         }
 
+        /**
+         * Returns the shared inflection paradigm
+         * with groups {@link #MASCULINE}, {@link #FEMININE}, {@link #NEUTER} and {@link #PLURAL}.
+         *
+         * @return {@link Paradigm}
+         */
+        public Paradigm paradigm() {
+            return paradigm;
+        }
+
         public String[] masculineCases() {
-            return masculineCases;
+            return cases(MASCULINE);
         }
 
         public String[] feminineCases() {
-            return feminineCases;
+            return cases(FEMININE);
         }
 
         public String[] neuterCases() {
-            return neuterCases;
+            return cases(NEUTER);
         }
 
         public String[] pluralCases() {
-            return pluralCases;
+            return cases(PLURAL);
+        }
+
+        private String[] cases(int group) {
+            String[] res = paradigm().group(group);
+            return res == null ? null : res.clone();
         }
 
         @Override
         protected int fullness() {
-            return Stream.of(masculineCases, feminineCases, neuterCases, pluralCases)
-                    .filter(Objects::nonNull).mapToInt(x -> 1).sum();
+            Paradigm p = paradigm();
+            int res = 0;
+            for (int g = MASCULINE; g <= PLURAL; g++) {
+                if (p.has(g)) {
+                    res++;
+                }
+            }
+            return res;
         }
 
         @Override
         public String toString() {
             return String.format("Record{masculineCases=%s, feminineCases=%s, neuterCases=%s, pluralCases=%s}",
-                    Arrays.toString(masculineCases), Arrays.toString(feminineCases), Arrays.toString(neuterCases),
-                    Arrays.toString(pluralCases));
+                    Arrays.toString(masculineCases()), Arrays.toString(feminineCases()), Arrays.toString(neuterCases()),
+                    Arrays.toString(pluralCases()));
         }
 
         @Override
@@ -146,21 +182,13 @@ public class AdjectiveDictionary extends Dictionary {
             if (this == o) return true;
             if (o == null || getClass() != o.getClass()) return false;
             Word record = (Word) o;
-            return characteristics == record.characteristics &&
-                    Arrays.equals(masculineCases, record.masculineCases) &&
-                    Arrays.equals(feminineCases, record.feminineCases) &&
-                    Arrays.equals(neuterCases, record.neuterCases) &&
-                    Arrays.equals(pluralCases, record.pluralCases);
+            // paradigms are interned, so they are the same iff they are equal
+            return characteristics == record.characteristics && paradigm == record.paradigm;
         }
 
         @Override
         public int hashCode() {
-            int result = Objects.hash(characteristics);
-            result = 31 * result + Arrays.hashCode(masculineCases);
-            result = 31 * result + Arrays.hashCode(feminineCases);
-            result = 31 * result + Arrays.hashCode(neuterCases);
-            result = 31 * result + Arrays.hashCode(pluralCases);
-            return result;
+            return Objects.hash(characteristics, paradigm);
         }
     }
 }
@@ -4,12 +4,21 @@ import pro.greendata.rugrammartools.impl.utils.RuleUtils;
 import pro.greendata.rugrammartools.impl.utils.TextUtils;
 
 import java.io.*;
-import java.lang.ref.SoftReference;
+import java.net.URISyntaxException;
+import java.net.URL;
 import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.time.Duration;
 import java.util.*;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.BiConsumer;
 import java.util.function.Function;
 import java.util.function.Supplier;
-import java.util.stream.Stream;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+import java.util.zip.CRC32;
 
 /**
  * A dictionary, it contains words from resources (csv-file).
@@ -18,16 +27,62 @@ import java.util.stream.Stream;
  * @see <a href='https://github.com/Badestrand/russian-dictionary'>Russian Dictionary Data</a>
  */
 public abstract class Dictionary {
+    /**
+     * The system property to specify a directory for {@link MappedRecordStore memory-mapped} dictionary files.
+     * If it is set, the records are kept off-heap, in the files, which are created on first use.
+     */
+    public static final String MAPPED_DIRECTORY_PROPERTY = "rugrammartools.dictionary.dir";
+    /**
+     * The system property to turn on the lazy mode: if it is {@code true},
+     * only the keys are indexed at startup, and records are parsed from the memory-mapped csv-file on first access
+     * (see {@link LazyRecordStore}).
+     * It has no effect if the {@link #MAPPED_DIRECTORY_PROPERTY} is set or there is no csv-resource.
+     */
+    public static final String LAZY_PROPERTY = "rugrammartools.dictionary.lazy";
+    static final String MAPPED_EXTENSION = ".map";
+    // the content smaller than this is parsed in a single thread
+    private static final int MIN_CHUNK_SIZE = 256 * 1024;
 
+    private final String path;
+    private final Function<String, Map<String, ? extends Record>> parser;
+    private final Function<String, String[]> keys;
+    private final DictionarySnapshot.RecordReader reader;
     private final Supplier<Map<String, Record>> loader;
+    private final Path mapped;
+    private final boolean lazy;
+    private final Stats stats = new Stats();
+    private final DictionaryOverlay overlay;
     // it is okay to have Map in memory: it is not so big (~20_000 records (file size = 8MB),
-    // but just in case store it as SoftReference:
-    private volatile SoftReference<Map<String, Record>> content;
+    // but just in case it is kept according to the RetentionPolicy (by default as SoftReference):
+    private volatile RetentionPolicy.Holder<Map<String, Record>> content;
+    // the reverse index of all forms, it is kept under the same policy
+    private volatile RetentionPolicy.Holder<FormIndex> forms;
+    private volatile MappedRecordStore store;
+    private volatile LazyRecordStore lazyStore;
 
-    protected Dictionary(String path, Function<String, Map<String, ? extends Record>> parser) {
-        Objects.requireNonNull(path);
-        Objects.requireNonNull(parser);
-        this.loader = () -> load(path, 26900, parser);
+    protected Dictionary(String path,
+                         Function<String, Map<String, ? extends Record>> parser,
+                         Function<String, String[]> keys,
+                         DictionarySnapshot.RecordReader reader) {
+        this.path = Objects.requireNonNull(path);
+        this.keys = Objects.requireNonNull(keys);
+        this.reader = Objects.requireNonNull(reader);
+        this.parser = Objects.requireNonNull(parser);
+        this.overlay = new DictionaryOverlay(parser);
+        this.loader = () -> load(path, 26900, parser, reader);
+        String dir = System.getProperty(MAPPED_DIRECTORY_PROPERTY);
+        this.mapped = dir == null || dir.isBlank() ? null : Paths.get(dir).resolve(mappedFileName(path));
+        this.lazy = mapped == null && Boolean.getBoolean(LAZY_PROPERTY) && Dictionary.class.getResource(path) != null;
+        RetentionPolicy policy = RetentionPolicy.fromSystemProperties();
+        this.content = policy.newHolder(stats.evictions::incrementAndGet);
+        this.forms = policy.newHolder(() -> {
+        });
+    }
+
+    static String mappedFileName(String source) {
+        String res = DictionarySnapshot.snapshotPath(source);
+        res = res.substring(res.lastIndexOf('/') + 1);
+        return res.substring(0, res.length() - DictionarySnapshot.EXTENSION.length()) + MAPPED_EXTENSION;
     }
 
     /**
@@ -44,40 +99,158 @@ public abstract class Dictionary {
     }
 
     /**
-     * Loads the {@link Dictionary} from the file system.
+     * Loads the {@link Dictionary} from the class-path.
+     * If there is a precompiled {@link DictionarySnapshot snapshot} of the current version
+     * for the given csv-resource, then it is used, otherwise the csv-file is parsed.
+     *
+     * @param source   {@code String} - csv-resource
+     * @param capacity {@code int} - approximate number of records
+     * @param parser   {@code Function} - a method to parse line
+     * @param reader   {@link DictionarySnapshot.RecordReader} - a method to read a record from the snapshot
+     * @return immutable {@code Map}
+     */
+    protected static Map<String, Record> load(String source,
+                                              int capacity,
+                                              Function<String, Map<String, ? extends Record>> parser,
+                                              DictionarySnapshot.RecordReader reader) {
+        String snapshot = DictionarySnapshot.snapshotPath(source);
+        try (InputStream in = Dictionary.class.getResourceAsStream(snapshot)) {
+            if (in != null) {
+                InputStream data = new BufferedInputStream(in);
+                data.mark(DictionarySnapshot.HEADER_SIZE);
+                if (DictionarySnapshot.isCompatible(data)) {
+                    data.reset();
+                    return DictionarySnapshot.read(data, reader);
+                }
+                // a snapshot of another version is ignored, the csv-file is parsed instead
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException("Can't load " + snapshot, e);
+        }
+        return load(source, capacity, parser);
+    }
+
+    /**
+     * Loads the {@link Dictionary} from the class-path csv-resource.
      *
      * @param source   {@code String} - resource
      * @param capacity {@code int} - approximate number of records
      * @param parser   {@code Function} - a method to parse line
      * @return immutable {@code Map}
      */
-    @SuppressWarnings({"unchecked"})
     protected static Map<String, Record> load(String source,
                                               int capacity,
                                               Function<String, Map<String, ? extends Record>> parser) {
-        Map<String, Record> data = new HashMap<>(capacity);
-        Map<Record, Record> cache = new HashMap<>(capacity);
-        try (InputStream in = Objects.requireNonNull(Dictionary.class.getResourceAsStream(source));
-             BufferedReader reader = new BufferedReader(new InputStreamReader(in, StandardCharsets.UTF_8));
-             Stream<String> lines = reader.lines()) {
-            lines.forEach(record -> {
-                Map<String, ? extends Record> e = parser.apply(record);
-                if (e == null) {
-                    return;
-                }
-                e.forEach((k, v) -> {
-                    Record value = cache.computeIfAbsent(v, x -> v);
-                    data.merge(k, value, MultiRecord::create);
-                });
-            });
+        try (InputStream in = Objects.requireNonNull(Dictionary.class.getResourceAsStream(source))) {
+            return load(in, capacity, parser);
         } catch (IOException e) {
             throw new UncheckedIOException("Can't load " + source, e);
         }
+    }
+
+    /**
+     * Parses the csv-content from the given stream.
+     * Big content is parsed in parallel, see {@link #load(byte[], int, Function, int)}.
+     *
+     * @param source   {@link InputStream} with csv-content
+     * @param capacity {@code int} - approximate number of records
+     * @param parser   {@code Function} - a method to parse line
+     * @return immutable {@code Map}
+     * @throws IOException if an I/O error occurs
+     */
+    protected static Map<String, Record> load(InputStream source,
+                                              int capacity,
+                                              Function<String, Map<String, ? extends Record>> parser) throws IOException {
+        byte[] csv = source.readAllBytes();
+        int chunks = Math.min(2 * ForkJoinPool.getCommonPoolParallelism(), csv.length / MIN_CHUNK_SIZE);
+        return load(csv, capacity, parser, Math.max(1, chunks));
+    }
+
+    /**
+     * Parses the csv-content.
+     * The content is split into the specified number of line-aligned chunks,
+     * which are parsed in parallel on the {@link ForkJoinPool},
+     * then the results are merged sequentially in the chunk order,
+     * so the order of records in {@link MultiRecord}s is the same as in the file.
+     *
+     * @param csv      {@code byte[]} - UTF-8 csv-content
+     * @param capacity {@code int} - approximate number of records
+     * @param parser   {@code Function} - a method to parse line
+     * @param chunks   {@code int} - the number of chunks, {@code 1} to parse in the current thread
+     * @return immutable {@code Map}
+     */
+    @SuppressWarnings({"unchecked"})
+    static Map<String, Record> load(byte[] csv,
+                                    int capacity,
+                                    Function<String, Map<String, ? extends Record>> parser,
+                                    int chunks) {
+        int[] bounds = splitLines(csv, chunks);
+        IntStream indexes = IntStream.range(0, bounds.length - 1);
+        if (bounds.length > 2) {
+            indexes = indexes.parallel();
+        }
+        List<List<Map<String, ? extends Record>>> parsed = indexes.mapToObj(i ->
+                new String(csv, bounds[i], bounds[i + 1] - bounds[i], StandardCharsets.UTF_8).lines()
+                        .<Map<String, ? extends Record>>map(parser)
+                        .filter(Objects::nonNull)
+                        .collect(Collectors.toList())
+        ).collect(Collectors.toList());
+
+        Map<String, Record> data = new HashMap<>(capacity);
+        Map<Record, Record> cache = new HashMap<>(capacity);
+        parsed.forEach(chunk -> chunk.forEach(e -> e.forEach((k, v) -> {
+            Record value = cache.computeIfAbsent(v, x -> v);
+            data.merge(k, value, MultiRecord::create);
+        })));
         // MapN must be faster:
         Map.Entry<String, Record>[] array = data.entrySet().toArray(Map.Entry[]::new);
         return Map.ofEntries(array);
     }
 
+    /**
+     * Splits the content into line-aligned chunks of approximately equal size.
+     *
+     * @param content {@code byte[]}
+     * @param chunks  {@code int} - the desired number of chunks
+     * @return {@code int[]} - chunk bounds: {@code [0, ..., content.length]}
+     */
+    static int[] splitLines(byte[] content, int chunks) {
+        int[] res = new int[chunks + 1];
+        int size = 1;
+        for (int i = 1; i < chunks; i++) {
+            int pos = Math.max(res[size - 1], (int) ((long) content.length * i / chunks));
+            while (pos < content.length && content[pos] != '\n') {
+                pos++;
+            }
+            if (pos + 1 >= content.length) {
+                break;
+            }
+            res[size++] = pos + 1;
+        }
+        res[size++] = content.length;
+        return Arrays.copyOf(res, size);
+    }
+
+    /**
+     * Parses the given csv-content using the parser of this dictionary.
+     *
+     * @param csv {@link InputStream}, not {@code null}
+     * @return immutable {@code Map}
+     * @throws IOException if an I/O error occurs
+     * @see DictionaryCompiler
+     */
+    protected Map<String, Record> parse(InputStream csv) throws IOException {
+        return load(csv, 26900, parser);
+    }
+
+    Function<String, Map<String, ? extends Record>> parser() {
+        return parser;
+    }
+
+    Function<String, String[]> keys() {
+        return keys;
+    }
+
     /**
      * Returns a word-info object.
      *
@@ -86,22 +259,277 @@ public abstract class Dictionary {
      */
     public abstract Optional<? extends Dictionary.Record> wordDetails(String word);
 
+    /**
+     * Finds the record by the key.
+     * Depending on the configuration (see {@link #MAPPED_DIRECTORY_PROPERTY}, {@link #LAZY_PROPERTY}),
+     * the record is taken either from the in-memory map, or from the memory-mapped file,
+     * or is parsed on demand.
+     * The {@link #overlay() overlay} records take precedence.
+     *
+     * @param key {@code String}, not {@code null}
+     * @return {@link Record} or {@code null}
+     */
+    protected Record record(String key) {
+        Record res = overlay.get(key);
+        if (res != null) {
+            return res;
+        }
+        if (mapped != null) {
+            return mappedStore().get(key);
+        }
+        if (lazy) {
+            return lazyStore().get(key);
+        }
+        return contentMap().get(key);
+    }
+
+    /**
+     * Returns the overlay to register user csv-files (in the same format) on top of this dictionary.
+     *
+     * @return {@link DictionaryOverlay}
+     */
+    public DictionaryOverlay overlay() {
+        return overlay;
+    }
+
+    /**
+     * Eagerly loads the dictionary content (or opens the memory-mapped file), if it is not loaded yet.
+     */
+    public void preload() {
+        if (mapped != null) {
+            mappedStore();
+        } else if (lazy) {
+            lazyStore();
+        } else {
+            contentMap();
+        }
+    }
+
+    protected LazyRecordStore lazyStore() {
+        LazyRecordStore res = this.lazyStore;
+        if (res != null) {
+            return res;
+        }
+        synchronized (this) {
+            if ((res = this.lazyStore) != null) {
+                return res;
+            }
+            long start = System.nanoTime();
+            try {
+                res = openLazyStore();
+            } catch (IOException e) {
+                throw new UncheckedIOException("Can't load " + path, e);
+            }
+            stats.loaded(System.nanoTime() - start);
+            return this.lazyStore = res;
+        }
+    }
+
+    /**
+     * Maps the csv-resource directly if it is a file, otherwise (e.g. in a jar) maps its temporary copy.
+     */
+    private LazyRecordStore openLazyStore() throws IOException {
+        URL url = Objects.requireNonNull(Dictionary.class.getResource(path), "Can't find " + path);
+        if ("file".equals(url.getProtocol())) {
+            try {
+                return LazyRecordStore.open(Paths.get(url.toURI()), keys, parser);
+            } catch (URISyntaxException | IllegalArgumentException e) {
+                // not a plain file path, read it as a stream
+            }
+        }
+        try (InputStream in = url.openStream()) {
+            return LazyRecordStore.open(in, keys, parser);
+        }
+    }
+
+    protected MappedRecordStore mappedStore() {
+        MappedRecordStore res = this.store;
+        if (res != null) {
+            return res;
+        }
+        synchronized (this) {
+            if ((res = this.store) != null) {
+                return res;
+            }
+            try {
+                return this.store = MappedRecordStore.open(mapped, fingerprint(path), loader, reader);
+            } catch (IOException e) {
+                throw new UncheckedIOException("Can't open " + mapped, e);
+            }
+        }
+    }
+
+    /**
+     * Calculates the checksum of the class-path resource (snapshot or csv) the dictionary is loaded from,
+     * to detect a stale memory-mapped file.
+     *
+     * @param source {@code String} - csv-resource
+     * @return {@code long}
+     */
+    protected static long fingerprint(String source) {
+        String snapshot = DictionarySnapshot.snapshotPath(source);
+        InputStream in = Dictionary.class.getResourceAsStream(snapshot);
+        if (in == null) {
+            in = Objects.requireNonNull(Dictionary.class.getResourceAsStream(source), "Can't find " + source);
+        }
+        CRC32 res = new CRC32();
+        byte[] buffer = new byte[8192];
+        try (InputStream data = in) {
+            int length;
+            while ((length = data.read(buffer)) != -1) {
+                res.update(buffer, 0, length);
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException("Can't read " + source, e);
+        }
+        return res.getValue();
+    }
+
     protected Map<String, Record> contentMap() {
-        SoftReference<Map<String, Record>> content = this.content;
-        Map<String, Record> res;
-        if (content != null && (res = content.get()) != null) {
+        Map<String, Record> res = content.get();
+        if (res != null) {
             return res;
         }
         synchronized (this) {
-            content = this.content;
-            if (content != null && (res = content.get()) != null) {
+            if ((res = content.get()) != null) {
                 return res;
             }
-            this.content = new SoftReference<>(res = loader.get());
+            long start = System.nanoTime();
+            res = loader.get();
+            stats.loaded(System.nanoTime() - start);
+            content.set(res);
             return res;
         }
     }
 
+    /**
+     * Performs the given action for each record of this dictionary (the {@link #overlay() overlay} is not included).
+     * In the memory-mapped or lazy mode the whole content is loaded for the duration of the call only.
+     *
+     * @param action {@code BiConsumer} that accepts the key and the record (it can be a {@link MultiRecord})
+     */
+    protected void forEach(BiConsumer<String, ? super Record> action) {
+        Map<String, Record> data = mapped != null || lazy ? loader.get() : contentMap();
+        data.forEach(action);
+    }
+
+    /**
+     * Returns the reverse index of all forms of this dictionary (including the {@link #overlay() overlay} records),
+     * building it if necessary.
+     * The index is as big as the content, so it is kept according to the {@link RetentionPolicy}
+     * (also in the memory-mapped or lazy mode, where it is the only structure on the heap),
+     * and it is rebuilt after the overlay reload.
+     *
+     * @return {@link FormIndex}
+     */
+    public FormIndex formIndex() {
+        long version = overlay.reloadCount();
+        FormIndex res = forms.get();
+        if (res != null && res.version() == version) {
+            return res;
+        }
+        synchronized (this) {
+            version = overlay.reloadCount();
+            if ((res = forms.get()) != null && res.version() == version) {
+                return res;
+            }
+            res = FormIndex.build(this, version);
+            forms.set(res);
+            return res;
+        }
+    }
+
+    /**
+     * Sets the policy that controls how long the loaded content (and the {@link #formIndex() form index})
+     * is kept in memory.
+     * The already loaded content (if any) is retained under the new policy.
+     *
+     * @param policy {@link RetentionPolicy}, not {@code null}
+     * @see RetentionPolicy#PROPERTY
+     */
+    public synchronized void setRetentionPolicy(RetentionPolicy policy) {
+        content = retain(content, policy.newHolder(stats.evictions::incrementAndGet));
+        forms = retain(forms, policy.newHolder(() -> {
+        }));
+    }
+
+    private static <X> RetentionPolicy.Holder<X> retain(RetentionPolicy.Holder<X> from, RetentionPolicy.Holder<X> to) {
+        X current = from.get();
+        if (current != null) {
+            to.set(current);
+        }
+        from.clear();
+        return to;
+    }
+
+    /**
+     * Returns the load and eviction counters of this dictionary.
+     *
+     * @return {@link Stats}
+     */
+    public Stats stats() {
+        return stats;
+    }
+
+    /**
+     * The dictionary counters, to monitor reloads.
+     */
+    public static class Stats {
+        private final AtomicLong loads = new AtomicLong();
+        private final AtomicLong loadTime = new AtomicLong();
+        private final AtomicLong lastLoadTime = new AtomicLong();
+        private final AtomicLong evictions = new AtomicLong();
+
+        private void loaded(long nanos) {
+            loadTime.addAndGet(nanos);
+            lastLoadTime.set(nanos);
+            loads.incrementAndGet();
+        }
+
+        /**
+         * Answers how many times the content has been loaded.
+         *
+         * @return {@code long}
+         */
+        public long loadCount() {
+            return loads.get();
+        }
+
+        /**
+         * Answers the total time spent on loading the content.
+         *
+         * @return {@link Duration}
+         */
+        public Duration loadTime() {
+            return Duration.ofNanos(loadTime.get());
+        }
+
+        /**
+         * Answers the time spent on the last loading.
+         *
+         * @return {@link Duration}
+         */
+        public Duration lastLoadTime() {
+            return Duration.ofNanos(lastLoadTime.get());
+        }
+
+        /**
+         * Answers how many times the content has been released by the {@link RetentionPolicy}.
+         * Note that for the {@link RetentionPolicy#soft() soft} policy the eviction is noticed on the next access.
+         *
+         * @return {@code long}
+         */
+        public long evictionCount() {
+            return evictions.get();
+        }
+
+        @Override
+        public String toString() {
+            return String.format("Stats{loads=%d, loadTime=%s, lastLoadTime=%s, evictions=%d}",
+                    loadCount(), loadTime(), lastLoadTime(), evictionCount());
+        }
+    }
+
     /**
      * A base dictionary record interface.
      */
@@ -113,9 +541,39 @@ public abstract class Dictionary {
      */
     protected static class MultiRecord implements Record {
         protected final Record[] words;
+        // the same records, sorted by fullness (the most complete first, stable),
+        // and their packed selection masks (see BaseRecordImpl#selectionMask()):
+        protected final Record[] candidates;
+        protected final int[] masks;
 
         MultiRecord(Record[] words) {
             this.words = words;
+            this.candidates = words.clone();
+            Arrays.sort(candidates, Comparator.comparingInt(MultiRecord::fullness).reversed());
+            this.masks = new int[candidates.length];
+            for (int i = 0; i < candidates.length; i++) {
+                masks[i] = candidates[i] instanceof BaseRecordImpl ? ((BaseRecordImpl) candidates[i]).selectionMask() : 0;
+            }
+        }
+
+        private static int fullness(Record r) {
+            return r instanceof BaseRecordImpl ? ((BaseRecordImpl) r).fullness() : 0;
+        }
+
+        /**
+         * Selects the most complete record that matches the filter.
+         *
+         * @param mask  {@code int} - the bits of {@link BaseRecordImpl#selectionMask()} to test
+         * @param value {@code int} - the expected value of these bits
+         * @return {@link Record} or {@code null} if nothing matches
+         */
+        protected Record select(int mask, int value) {
+            for (int i = 0; i < masks.length; i++) {
+                if ((masks[i] & mask) == value) {
+                    return candidates[i];
+                }
+            }
+            return null;
         }
 
         public static Record create(Record... records) {
@@ -134,6 +592,18 @@ public abstract class Dictionary {
         public String toString() {
             return String.format("{%s}", Arrays.toString(words));
         }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) return true;
+            if (o == null || getClass() != o.getClass()) return false;
+            return Arrays.equals(words, ((MultiRecord) o).words);
+        }
+
+        @Override
+        public int hashCode() {
+            return Arrays.hashCode(words);
+        }
     }
 
     protected static abstract class BaseRecordImpl implements Record {
@@ -170,6 +640,23 @@ public abstract class Dictionary {
          */
         protected abstract int fullness();
 
+        /**
+         * Returns the packed properties, that are used to select a record from {@link MultiRecord}.
+         *
+         * @return {@code int}
+         */
+        protected int selectionMask() {
+            return 0;
+        }
+
+        /**
+         * Writes this record into the {@link DictionarySnapshot snapshot}.
+         *
+         * @param out {@link DictionarySnapshot.Output}
+         * @throws IOException if an I/O error occurs
+         */
+        protected abstract void write(DictionarySnapshot.Output out) throws IOException;
+
         protected Boolean hasCharacteristics(int has, int is) {
             return hasCharacteristics(has) ? hasCharacteristics(is) : null;
         }
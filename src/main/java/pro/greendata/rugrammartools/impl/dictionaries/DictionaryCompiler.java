@@ -0,0 +1,62 @@
+package pro.greendata.rugrammartools.impl.dictionaries;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.Map;
+
+/**
+ * A build-time tool that converts the dictionary csv-files into {@link DictionarySnapshot binary snapshots}.
+ * It is run by maven at the {@code process-classes} phase against the output directory;
+ * missing csv-files are skipped, up-to-date snapshots are not rebuilt
+ * (a snapshot is up-to-date if it is newer than the csv-file and has the current version).
+ * <p>
+ * Usage: {@code DictionaryCompiler <directory>}
+ */
+public class DictionaryCompiler {
+
+    public static void main(String... args) throws IOException {
+        Path dir = Paths.get(args.length == 0 ? "." : args[0]);
+        compile(Dictionary.getNounDictionary(), dir.resolve("nouns.csv"));
+        compile(Dictionary.getAdjectiveDictionary(), dir.resolve("adjectives.csv"));
+    }
+
+    /**
+     * Compiles the given csv-file into the snapshot using the parser of the specified dictionary.
+     *
+     * @param dictionary {@link Dictionary}, not {@code null}
+     * @param csv        {@link Path} to the csv-file
+     * @return {@code boolean} - {@code true} if the snapshot has been written
+     * @throws IOException if an I/O error occurs
+     */
+    public static boolean compile(Dictionary dictionary, Path csv) throws IOException {
+        if (!Files.exists(csv)) {
+            return false;
+        }
+        Path snapshot = csv.resolveSibling(DictionarySnapshot.snapshotPath(csv.getFileName().toString()));
+        if (isUpToDate(snapshot, csv)) {
+            return false;
+        }
+        Map<String, Dictionary.Record> data;
+        try (InputStream in = Files.newInputStream(csv)) {
+            data = dictionary.parse(in);
+        }
+        try (OutputStream out = Files.newOutputStream(snapshot)) {
+            DictionarySnapshot.write(data, out);
+        }
+        return true;
+    }
+
+    private static boolean isUpToDate(Path snapshot, Path csv) throws IOException {
+        if (!Files.exists(snapshot) ||
+                Files.getLastModifiedTime(snapshot).compareTo(Files.getLastModifiedTime(csv)) < 0) {
+            return false;
+        }
+        try (InputStream in = Files.newInputStream(snapshot)) {
+            return DictionarySnapshot.isCompatible(in);
+        }
+    }
+}
@@ -0,0 +1,241 @@
+package pro.greendata.rugrammartools.impl.dictionaries;
+
+import pro.greendata.rugrammartools.Unit;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.file.ClosedWatchServiceException;
+import java.nio.file.FileSystems;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardWatchEventKinds;
+import java.nio.file.WatchEvent;
+import java.nio.file.WatchKey;
+import java.nio.file.WatchService;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.BiConsumer;
+import java.util.function.Function;
+
+/**
+ * User csv-files (in the same format as the built-in dictionary) on top of a {@link Dictionary}.
+ * The records from the overlay files take precedence over the built-in ones.
+ * <p>
+ * The files are watched by a background daemon thread (via {@link WatchService}):
+ * on any change all files are re-read and the new merged content is published with an atomic reference swap,
+ * so readers never block and never see a partially built map.
+ * If a file cannot be read, the previous content is kept.
+ * Each published change advances the global {@link #generation() generation},
+ * so that results computed from the previous content can be discarded,
+ * and drops the {@link Unit#invalidate() prepared units}.
+ */
+public class DictionaryOverlay implements AutoCloseable {
+    private static final AtomicLong GENERATION = new AtomicLong();
+
+    private final Function<String, Map<String, ? extends Dictionary.Record>> parser;
+    private final List<Path> files = new CopyOnWriteArrayList<>();
+    private final AtomicReference<Map<String, Dictionary.Record>> content = new AtomicReference<>(Map.of());
+    private final AtomicLong reloads = new AtomicLong();
+    private final AtomicLong failures = new AtomicLong();
+    private final Set<Path> watchedDirectories = new HashSet<>();
+    private WatchService watcher;
+
+    protected DictionaryOverlay(Function<String, Map<String, ? extends Dictionary.Record>> parser) {
+        this.parser = Objects.requireNonNull(parser);
+    }
+
+    /**
+     * Answers the number of content changes of all overlays,
+     * e.g. to invalidate the cached inflection results after a reload.
+     *
+     * @return {@code long}
+     */
+    public static long generation() {
+        return GENERATION.get();
+    }
+
+    private static void advance() {
+        GENERATION.incrementAndGet();
+        // the prepared units are built from the dictionaries too
+        Unit.invalidate();
+    }
+
+    /**
+     * Finds the record in the overlay files.
+     *
+     * @param key {@code String}, not {@code null}
+     * @return {@link Dictionary.Record} or {@code null}
+     */
+    public Dictionary.Record get(String key) {
+        Map<String, Dictionary.Record> res = content.get();
+        return res.isEmpty() ? null : res.get(key);
+    }
+
+    /**
+     * Performs the given action for each overlay record.
+     *
+     * @param action {@code BiConsumer} that accepts the key and the record (it can be a {@link Dictionary.MultiRecord})
+     */
+    void forEach(BiConsumer<String, ? super Dictionary.Record> action) {
+        content.get().forEach(action);
+    }
+
+    /**
+     * Registers the csv-file, loads it and starts watching for its changes.
+     *
+     * @param file {@link Path}, not {@code null}
+     * @throws UncheckedIOException if there is no such file, or it cannot be read
+     */
+    public synchronized void add(Path file) {
+        Path csv = file.toAbsolutePath().normalize();
+        if (files.contains(csv)) {
+            return;
+        }
+        if (!Files.isRegularFile(csv)) {
+            throw new UncheckedIOException(new NoSuchFileException(file.toString()));
+        }
+        files.add(csv);
+        try {
+            content.set(read(files));
+            watch(csv.getParent());
+        } catch (IOException e) {
+            files.remove(csv);
+            throw new UncheckedIOException("Can't load " + file, e);
+        }
+        reloads.incrementAndGet();
+        advance();
+    }
+
+    /**
+     * Unregisters the csv-file, its records are removed from the overlay.
+     *
+     * @param file {@link Path}, not {@code null}
+     */
+    public synchronized void remove(Path file) {
+        if (files.remove(file.toAbsolutePath().normalize())) {
+            reload();
+        }
+    }
+
+    /**
+     * Re-reads all registered files and publishes the result.
+     *
+     * @return {@code boolean} - {@code true} if the content has been reloaded,
+     * {@code false} if some file cannot be read and the previous content is kept
+     */
+    public synchronized boolean reload() {
+        try {
+            content.set(read(files));
+            reloads.incrementAndGet();
+            advance();
+            return true;
+        } catch (IOException | RuntimeException e) {
+            failures.incrementAndGet();
+            return false;
+        }
+    }
+
+    /**
+     * Answers the registered files.
+     *
+     * @return {@code List} of {@link Path}s
+     */
+    public List<Path> files() {
+        return List.copyOf(files);
+    }
+
+    /**
+     * Answers how many times the overlay content has been (re)loaded.
+     *
+     * @return {@code long}
+     */
+    public long reloadCount() {
+        return reloads.get();
+    }
+
+    /**
+     * Answers how many times the reload has failed.
+     *
+     * @return {@code long}
+     */
+    public long failureCount() {
+        return failures.get();
+    }
+
+    private Map<String, Dictionary.Record> read(List<Path> files) throws IOException {
+        Map<String, Dictionary.Record> res = new HashMap<>();
+        for (Path file : files) {
+            Map<String, Dictionary.Record> data;
+            try (InputStream in = Files.newInputStream(file)) {
+                data = Dictionary.load(in, 100, parser);
+            } catch (NoSuchFileException e) { // deleted, it may appear later
+                continue;
+            }
+            data.forEach((k, v) -> res.merge(k, v, Dictionary.MultiRecord::create));
+        }
+        return Map.copyOf(res);
+    }
+
+    private void watch(Path dir) throws IOException {
+        if (watcher == null) {
+            WatchService res = FileSystems.getDefault().newWatchService();
+            watcher = res;
+            // the service is passed directly: it may be closed (and the field cleared) before the thread starts
+            Thread thread = new Thread(() -> run(res), "rugrammartools-dictionary-overlay");
+            thread.setDaemon(true);
+            thread.start();
+        }
+        if (watchedDirectories.add(dir)) {
+            dir.register(watcher, StandardWatchEventKinds.ENTRY_CREATE,
+                    StandardWatchEventKinds.ENTRY_MODIFY, StandardWatchEventKinds.ENTRY_DELETE);
+        }
+    }
+
+    private void run(WatchService watcher) {
+        try {
+            while (true) {
+                WatchKey key = watcher.take();
+                boolean changed = false;
+                do {
+                    Path dir = (Path) key.watchable();
+                    for (WatchEvent<?> event : key.pollEvents()) {
+                        Object context = event.context();
+                        changed |= event.kind() == StandardWatchEventKinds.OVERFLOW ||
+                                context instanceof Path && files.contains(dir.resolve((Path) context));
+                    }
+                    key.reset();
+                } while ((key = watcher.poll()) != null);
+                if (changed) {
+                    reload();
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (ClosedWatchServiceException e) {
+            // closed
+        }
+    }
+
+    /**
+     * Stops watching the files, the loaded content is kept.
+     *
+     * @throws IOException if an I/O error occurs
+     */
+    @Override
+    public synchronized void close() throws IOException {
+        if (watcher != null) {
+            watcher.close();
+            watcher = null;
+            watchedDirectories.clear();
+        }
+    }
+}
@@ -0,0 +1,364 @@
+package pro.greendata.rugrammartools.impl.dictionaries;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInput;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+
+/**
+ * A compact binary (precompiled) form of a {@link Dictionary}.
+ * It is produced from the csv-file at build time (see {@link DictionaryCompiler})
+ * and read in a single sequential pass without any string splitting and ending calculation.
+ * <p>
+ * The layout:
+ * <ul>
+ * <li>{@code int} - magic number, {@code short} - version</li>
+ * <li>the table of endings: {@code varint} count, then each ending as modified UTF-8</li>
+ * <li>the table of paradigms: {@code varint} count, then each {@link Paradigm} as {@code varint} number of groups
+ * and the ending codes of each group, so that a paradigm is interned once per load, not once per record</li>
+ * <li>the table of unique records: {@code varint} count, then each record as it is written by
+ * {@link Dictionary.BaseRecordImpl#write(Output)} (flags and ending codes)</li>
+ * <li>the keys: {@code varint} count, then each key as modified UTF-8,
+ * {@code varint} number of its records and the record indexes</li>
+ * </ul>
+ */
+public class DictionarySnapshot {
+    static final int MAGIC = 0x52475444; // RGTD
+    static final short VERSION = 2;
+    static final String EXTENSION = ".bin";
+    // magic number and version
+    static final int HEADER_SIZE = 6;
+
+    /**
+     * Returns the path of the snapshot that corresponds to the given csv-resource.
+     *
+     * @param source {@code String}, e.g. {@code "/nouns.csv"}
+     * @return {@code String}, e.g. {@code "/nouns.bin"}
+     */
+    public static String snapshotPath(String source) {
+        int index = source.lastIndexOf('.');
+        return (index > source.lastIndexOf('/') ? source.substring(0, index) : source) + EXTENSION;
+    }
+
+    /**
+     * Reads the header from the given stream and answers {@code true}
+     * if it is a snapshot of the current {@link #VERSION},
+     * a snapshot of another version (e.g. left by an incremental build) must be rebuilt.
+     * The stream is positioned after the header.
+     *
+     * @param in {@link InputStream}, not {@code null}
+     * @return {@code boolean}
+     * @throws IOException if an I/O error occurs
+     */
+    public static boolean isCompatible(InputStream in) throws IOException {
+        byte[] header = in.readNBytes(HEADER_SIZE);
+        if (header.length < HEADER_SIZE) {
+            return false;
+        }
+        ByteBuffer res = ByteBuffer.wrap(header);
+        return res.getInt() == MAGIC && res.getShort() == VERSION;
+    }
+
+    /**
+     * Writes the dictionary content into the given stream.
+     *
+     * @param data {@code Map} - the dictionary content
+     * @param out  {@link OutputStream}, not {@code null}
+     * @throws IOException if an I/O error occurs
+     */
+    public static void write(Map<String, Dictionary.Record> data, OutputStream out) throws IOException {
+        Map<Dictionary.Record, Integer> records = new HashMap<>();
+        ByteArrayOutputStream recordsBytes = new ByteArrayOutputStream();
+        ByteArrayOutputStream keysBytes = new ByteArrayOutputStream();
+        Output recordsOut = new Output(new DataOutputStream(recordsBytes));
+        Output keysOut = new Output(new DataOutputStream(keysBytes));
+        keysOut.writeInt(data.size());
+        for (Map.Entry<String, Dictionary.Record> e : data.entrySet()) {
+            Dictionary.Record record = e.getValue();
+            Dictionary.Record[] array = record instanceof Dictionary.MultiRecord ?
+                    ((Dictionary.MultiRecord) record).words : new Dictionary.Record[]{record};
+            keysOut.out.writeUTF(e.getKey());
+            keysOut.writeInt(array.length);
+            for (Dictionary.Record r : array) {
+                Integer index = records.get(r);
+                if (index == null) {
+                    records.put(r, index = records.size());
+                    ((Dictionary.BaseRecordImpl) r).write(recordsOut);
+                }
+                keysOut.writeInt(index);
+            }
+        }
+        byte[] paradigms = recordsOut.paradigmTable();
+        DataOutputStream res = new DataOutputStream(new BufferedOutputStream(out));
+        Output header = new Output(res);
+        res.writeInt(MAGIC);
+        res.writeShort(VERSION);
+        header.writeInt(recordsOut.endings.size());
+        for (String ending : recordsOut.endings.keySet()) {
+            res.writeUTF(ending);
+        }
+        res.write(paradigms);
+        header.writeInt(records.size());
+        recordsBytes.writeTo(res);
+        keysBytes.writeTo(res);
+        res.flush();
+    }
+
+    /**
+     * Reads the dictionary content from the given stream.
+     *
+     * @param in     {@link InputStream}, not {@code null}
+     * @param reader {@link RecordReader} to read a single record, not {@code null}
+     * @return {@code Map}
+     * @throws IOException if an I/O error occurs or the stream is not a snapshot
+     */
+    public static Map<String, Dictionary.Record> read(InputStream in, RecordReader reader) throws IOException {
+        Objects.requireNonNull(reader);
+        DataInputStream data = new DataInputStream(new BufferedInputStream(in));
+        if (data.readInt() != MAGIC) {
+            throw new IOException("Not a dictionary snapshot");
+        }
+        short version = data.readShort();
+        if (version != VERSION) {
+            throw new IOException("Unsupported dictionary snapshot version: " + version);
+        }
+        Input input = new Input(data);
+        String[] endings = new String[input.readInt()];
+        for (int i = 0; i < endings.length; i++) {
+            endings[i] = data.readUTF();
+        }
+        input.endings = endings;
+        input.readParadigmTable();
+        Dictionary.Record[] records = new Dictionary.Record[input.readInt()];
+        for (int i = 0; i < records.length; i++) {
+            records[i] = reader.read(input);
+        }
+        int size = input.readInt();
+        List<Map.Entry<String, Dictionary.Record>> res = new ArrayList<>(size);
+        for (int i = 0; i < size; i++) {
+            String key = data.readUTF();
+            int length = input.readInt();
+            Dictionary.Record value;
+            if (length == 1) {
+                value = records[input.readInt()];
+            } else {
+                Dictionary.Record[] words = new Dictionary.Record[length];
+                for (int j = 0; j < length; j++) {
+                    words[j] = records[input.readInt()];
+                }
+                value = new Dictionary.MultiRecord(words);
+            }
+            res.add(Map.entry(key, value));
+        }
+        @SuppressWarnings({"unchecked"})
+        Map.Entry<String, Dictionary.Record>[] array = res.toArray(Map.Entry[]::new);
+        return Map.ofEntries(array);
+    }
+
+    /**
+     * Reads a single record.
+     */
+    @FunctionalInterface
+    public interface RecordReader {
+        Dictionary.Record read(Input in) throws IOException;
+    }
+
+    /**
+     * A record sink, that encodes endings and paradigms as indexes of the endings and paradigms tables.
+     */
+    public static class Output {
+        final DataOutputStream out;
+        final Map<String, Integer> endings;
+        final Map<Paradigm, Integer> paradigms = new LinkedHashMap<>();
+
+        Output(DataOutputStream out) {
+            this(out, new LinkedHashMap<>());
+        }
+
+        private Output(DataOutputStream out, Map<String, Integer> endings) {
+            this.out = out;
+            this.endings = endings;
+        }
+
+        /**
+         * Encodes the table of the paradigms written so far,
+         * the endings of the paradigms are added to the endings table of this output.
+         *
+         * @return {@code byte[]}
+         * @throws IOException if an I/O error occurs
+         */
+        byte[] paradigmTable() throws IOException {
+            ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+            Output res = new Output(new DataOutputStream(bytes), endings);
+            res.writeInt(paradigms.size());
+            for (Paradigm paradigm : paradigms.keySet()) {
+                res.writeInt(paradigm.size());
+                for (int i = 0; i < paradigm.size(); i++) {
+                    res.writeEndings(paradigm.group(i));
+                }
+            }
+            res.out.flush();
+            return bytes.toByteArray();
+        }
+
+        public void writeFlags(int flags) throws IOException {
+            writeInt(flags);
+        }
+
+        /**
+         * Writes an unsigned variable-length int.
+         *
+         * @param value {@code int}, not negative
+         * @throws IOException if an I/O error occurs
+         */
+        public void writeInt(int value) throws IOException {
+            while ((value & ~0x7F) != 0) {
+                out.writeByte((value & 0x7F) | 0x80);
+                value >>>= 7;
+            }
+            out.writeByte(value);
+        }
+
+        /**
+         * Writes an ending code, {@code 0} is reserved for {@code null}.
+         *
+         * @param ending {@code String} or {@code null}
+         * @throws IOException if an I/O error occurs
+         */
+        public void writeEnding(String ending) throws IOException {
+            writeInt(ending == null ? 0 : endings.computeIfAbsent(ending, x -> endings.size()) + 1);
+        }
+
+        /**
+         * Writes a paradigm as an index in the paradigms table.
+         *
+         * @param paradigm {@link Paradigm}, not {@code null}
+         * @throws IOException if an I/O error occurs
+         */
+        public void writeParadigm(Paradigm paradigm) throws IOException {
+            writeInt(paradigms.computeIfAbsent(Objects.requireNonNull(paradigm), x -> paradigms.size()));
+        }
+
+        /**
+         * Writes an array of endings, {@code 0} length is reserved for {@code null}.
+         *
+         * @param endings {@code Array} or {@code null}
+         * @throws IOException if an I/O error occurs
+         */
+        public void writeEndings(String[] endings) throws IOException {
+            if (endings == null) {
+                writeInt(0);
+                return;
+            }
+            writeInt(endings.length + 1);
+            for (String e : endings) {
+                writeEnding(e);
+            }
+        }
+    }
+
+    /**
+     * A record source, that decodes the endings and paradigms written by {@link Output}.
+     */
+    public static class Input {
+        private final DataInput in;
+        String[] endings;
+        String[][][] paradigms;
+        // paradigm index -> interned paradigm, null if not interned yet; shared by all inputs of the same data
+        Paradigm[] interned;
+
+        Input(DataInput in) {
+            this.in = in;
+        }
+
+        /**
+         * Reads the next unsigned byte.
+         *
+         * @return {@code int}
+         * @throws IOException if an I/O error occurs
+         */
+        protected int readByte() throws IOException {
+            return in.readUnsignedByte();
+        }
+
+        public int readFlags() throws IOException {
+            return readInt();
+        }
+
+        public int readInt() throws IOException {
+            int res = 0;
+            for (int shift = 0; ; shift += 7) {
+                int b = readByte();
+                res |= (b & 0x7F) << shift;
+                if ((b & 0x80) == 0) {
+                    return res;
+                }
+            }
+        }
+
+        public String readEnding() throws IOException {
+            int code = readInt();
+            return code == 0 ? null : endings[code - 1];
+        }
+
+        /**
+         * Reads a paradigm and returns the shared instance from the given table.
+         * Each paradigm of the paradigms table is interned only on first read,
+         * further reads of the same paradigm do not allocate anything.
+         *
+         * @param table {@link Paradigm.Table}, the same for all reads of the same data
+         * @return {@link Paradigm}
+         * @throws IOException if an I/O error occurs
+         */
+        public Paradigm readParadigm(Paradigm.Table table) throws IOException {
+            int index = readInt();
+            Paradigm res = interned[index];
+            if (res == null) { // a race is harmless: interning is idempotent
+                interned[index] = res = table.intern(paradigms[index]);
+            }
+            return res;
+        }
+
+        /**
+         * Reads the paradigms table written by {@link Output#paradigmTable()}.
+         *
+         * @throws IOException if an I/O error occurs
+         */
+        void readParadigmTable() throws IOException {
+            String[][][] res = new String[readInt()][][];
+            for (int i = 0; i < res.length; i++) {
+                String[][] groups = new String[readInt()][];
+                for (int j = 0; j < groups.length; j++) {
+                    groups[j] = readEndings();
+                }
+                res[i] = groups;
+            }
+            this.paradigms = res;
+            this.interned = new Paradigm[res.length];
+        }
+
+        public String[] readEndings() throws IOException {
+            int length = readInt();
+            if (length == 0) {
+                return null;
+            }
+            String[] res = new String[length - 1];
+            for (int i = 0; i < res.length; i++) {
+                res[i] = readEnding();
+            }
+            return res;
+        }
+    }
+}
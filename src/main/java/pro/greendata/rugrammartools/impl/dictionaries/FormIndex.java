@@ -0,0 +1,299 @@
+package pro.greendata.rugrammartools.impl.dictionaries;
+
+import pro.greendata.rugrammartools.Case;
+import pro.greendata.rugrammartools.Gender;
+import pro.greendata.rugrammartools.impl.PartOfSpeech;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+
+/**
+ * A full-form index: maps every inflected form of the {@link NounDictionary nouns}
+ * and {@link AdjectiveDictionary adjectives} to its lemma and grammatical slot (case, number, gender).
+ * It is used to restore the nominative case of the words that are already inflected.
+ * <p>
+ * The index is built from the dictionary paradigms, including the {@link Dictionary#overlay() overlay} records;
+ * a lookup is a single hash-map access.
+ * The index of a dictionary is owned by it (see {@link Dictionary#formIndex()}):
+ * it is kept according to the dictionary {@link RetentionPolicy} and is rebuilt after the overlay reload.
+ */
+public class FormIndex {
+    private static final Gender[] ADJECTIVE_GENDERS = {Gender.MALE, Gender.FEMALE, Gender.NEUTER, null};
+
+    // form -> Form or Form[]
+    private final Map<String, Object> forms;
+    // the overlay reload count the index is built for
+    private final long version;
+
+    protected FormIndex(Map<String, Object> forms, long version) {
+        this.forms = Objects.requireNonNull(forms);
+        this.version = version;
+    }
+
+    /**
+     * Builds the index from the given dictionaries.
+     *
+     * @param dictionaries {@code Array} of {@link NounDictionary noun} or {@link AdjectiveDictionary adjective}
+     *                     dictionaries
+     * @return {@link FormIndex}
+     */
+    public static FormIndex build(Dictionary... dictionaries) {
+        Map<String, Object> res = new HashMap<>();
+        for (Dictionary dictionary : dictionaries) {
+            add(res, dictionary);
+        }
+        return new FormIndex(res, -1);
+    }
+
+    /**
+     * Builds the index of the given dictionary.
+     *
+     * @param dictionary {@link Dictionary}, not {@code null}
+     * @param version    {@code long} - the {@link DictionaryOverlay#reloadCount() overlay reload count}
+     * @return {@link FormIndex}
+     */
+    static FormIndex build(Dictionary dictionary, long version) {
+        Map<String, Object> res = new HashMap<>();
+        add(res, dictionary);
+        return new FormIndex(res, version);
+    }
+
+    private static void add(Map<String, Object> res, Dictionary dictionary) {
+        DictionaryOverlay overlay = dictionary.overlay();
+        dictionary.forEach((key, record) -> {
+            if (overlay.get(key) == null) { // otherwise the record is overridden
+                add(res, key, record);
+            }
+        });
+        overlay.forEach((key, record) -> add(res, key, record));
+    }
+
+    private static void add(Map<String, Object> res, String key, Dictionary.Record record) {
+        for (Dictionary.Record r : records(record)) {
+            if (r instanceof NounDictionary.Word) {
+                addNoun(res, key, (NounDictionary.Word) r);
+            } else if (r instanceof AdjectiveDictionary.Word) {
+                addAdjective(res, key, (AdjectiveDictionary.Word) r);
+            }
+        }
+    }
+
+    /**
+     * Finds all readings of the given form in the given indexes.
+     *
+     * @param form    {@code String}, normalized (lowercase), not {@code null}
+     * @param indexes {@code Array} of {@link FormIndex}es
+     * @return immutable {@code List} of {@link Form}s, empty if the form is unknown
+     */
+    public static List<Form> find(String form, FormIndex... indexes) {
+        List<Form> res = List.of();
+        for (FormIndex index : indexes) {
+            List<Form> found = index.find(form);
+            if (res.isEmpty()) {
+                res = found;
+            } else if (!found.isEmpty()) {
+                List<Form> merged = new ArrayList<>(res);
+                merged.addAll(found);
+                res = List.copyOf(merged);
+            }
+        }
+        return res;
+    }
+
+    private static Dictionary.Record[] records(Dictionary.Record record) {
+        return record instanceof Dictionary.MultiRecord ?
+                ((Dictionary.MultiRecord) record).words : new Dictionary.Record[]{record};
+    }
+
+    private static void addNoun(Map<String, Object> res, String key, NounDictionary.Word word) {
+        Paradigm paradigm = word.paradigm();
+        if (word.isPluralKey() && paradigm.has(NounDictionary.Word.SINGULAR)) {
+            String singular = apply(paradigm.ending(NounDictionary.Word.SINGULAR, 0), key);
+            if (singular != null && !singular.equals(key)) {
+                // the forms are indexed with the singular record
+                return;
+            }
+        }
+        if (!paradigm.has(NounDictionary.Word.SINGULAR) && !paradigm.has(NounDictionary.Word.PLURAL)) {
+            // indeclinable or incomplete record
+            add(res, key, new Form(key, PartOfSpeech.NOUN, Case.NOMINATIVE, word.gender(), word.isPluralKey(), key));
+            return;
+        }
+        for (int group : new int[]{NounDictionary.Word.SINGULAR, NounDictionary.Word.PLURAL}) {
+            if (paradigm.has(group)) {
+                addGroup(res, key, paradigm, group, PartOfSpeech.NOUN, word.gender(), group == NounDictionary.Word.PLURAL);
+            }
+        }
+    }
+
+    private static void addAdjective(Map<String, Object> res, String key, AdjectiveDictionary.Word word) {
+        Paradigm paradigm = word.paradigm();
+        for (int group = AdjectiveDictionary.Word.MASCULINE; group <= AdjectiveDictionary.Word.PLURAL; group++) {
+            if (paradigm.has(group)) {
+                addGroup(res, key, paradigm, group, PartOfSpeech.ADJECTIVE, ADJECTIVE_GENDERS[group],
+                        group == AdjectiveDictionary.Word.PLURAL);
+            }
+        }
+    }
+
+    private static void addGroup(Map<String, Object> res,
+                                 String key,
+                                 Paradigm paradigm,
+                                 int group,
+                                 PartOfSpeech partOfSpeech,
+                                 Gender gender,
+                                 boolean plural) {
+        String nominative = apply(paradigm.ending(group, 0), key);
+        if (nominative == null) {
+            return;
+        }
+        for (Case declension : Case.values()) {
+            Paradigm.Ending[] endings = paradigm.endings(group, declension.ordinal());
+            if (endings == null) {
+                continue;
+            }
+            Form form = new Form(key, partOfSpeech, declension, gender, plural, nominative);
+            for (Paradigm.Ending ending : endings) {
+                String value = apply(ending, key);
+                if (value != null) {
+                    add(res, value, form);
+                }
+            }
+        }
+    }
+
+    private static String apply(Paradigm.Ending ending, String key) {
+        if (ending == null || !ending.canApply(key)) {
+            return null;
+        }
+        String res = ending.apply(key);
+        return res.isEmpty() ? null : res;
+    }
+
+    private static void add(Map<String, Object> res, String key, Form form) {
+        res.merge(key, form, (a, b) -> {
+            Form[] array = a instanceof Form ? new Form[]{(Form) a} : (Form[]) a;
+            for (Form f : array) {
+                if (f.equals(b)) {
+                    return a;
+                }
+            }
+            Form[] merged = Arrays.copyOf(array, array.length + 1);
+            merged[array.length] = (Form) b;
+            return merged;
+        });
+    }
+
+    /**
+     * Finds all readings of the given form.
+     *
+     * @param form {@code String}, normalized (lowercase), not {@code null}
+     * @return immutable {@code List} of {@link Form}s, empty if the form is unknown
+     */
+    public List<Form> find(String form) {
+        Object res = forms.get(form);
+        if (res == null) {
+            return List.of();
+        }
+        return res instanceof Form ? List.of((Form) res) : List.of((Form[]) res);
+    }
+
+    /**
+     * Answers the number of distinct forms in the index.
+     *
+     * @return {@code int}
+     */
+    public int size() {
+        return forms.size();
+    }
+
+    long version() {
+        return version;
+    }
+
+    /**
+     * A reading of a form: the lemma and the grammatical slot.
+     */
+    public static final class Form {
+        private final String lemma;
+        private final PartOfSpeech partOfSpeech;
+        private final Case declension;
+        private final Gender gender;
+        private final boolean plural;
+        private final String nominative;
+
+        Form(String lemma, PartOfSpeech partOfSpeech, Case declension, Gender gender, boolean plural, String nominative) {
+            this.lemma = lemma;
+            this.partOfSpeech = partOfSpeech;
+            this.declension = declension;
+            this.gender = gender;
+            this.plural = plural;
+            this.nominative = nominative;
+        }
+
+        /**
+         * Returns the dictionary key (for nouns - usually singular nominative, for adjectives - masculine nominative).
+         *
+         * @return {@code String}
+         */
+        public String lemma() {
+            return lemma;
+        }
+
+        public PartOfSpeech partOfSpeech() {
+            return partOfSpeech;
+        }
+
+        public Case declension() {
+            return declension;
+        }
+
+        /**
+         * Returns the gender: for nouns it is the gender of the word, for adjectives - the gender of the form;
+         * can be {@code null} (e.g. for plural adjectives).
+         *
+         * @return {@link Gender}
+         */
+        public Gender gender() {
+            return gender;
+        }
+
+        public boolean isPlural() {
+            return plural;
+        }
+
+        /**
+         * Returns the nominative form of the same number (and gender for adjectives),
+         * e.g. {@code "главная"} for {@code "главной"}.
+         *
+         * @return {@code String}
+         */
+        public String nominative() {
+            return nominative;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) return true;
+            if (o == null || getClass() != o.getClass()) return false;
+            Form form = (Form) o;
+            return plural == form.plural && partOfSpeech == form.partOfSpeech && declension == form.declension
+                    && gender == form.gender && lemma.equals(form.lemma) && nominative.equals(form.nominative);
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(lemma, partOfSpeech, declension, gender, plural, nominative);
+        }
+
+        @Override
+        public String toString() {
+            return String.format("Form{lemma='%s', pos=%s, case=%s, gender=%s, plural=%s, nominative='%s'}",
+                    lemma, partOfSpeech, declension, gender, plural, nominative);
+        }
+    }
+}
@@ -0,0 +1,248 @@
+package pro.greendata.rugrammartools.impl.dictionaries;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Function;
+
+/**
+ * A {@link Dictionary} store that decodes records on demand from the csv-content,
+ * which is usually a memory-mapped file (see {@link #open(Path, Function, Function)}), so it is not on the heap.
+ * At creation only the keys are extracted and packed into a compact sorted index,
+ * which maps each key to the offsets of its lines
+ * (several lines for a {@link Dictionary.MultiRecord} key);
+ * a record is parsed on the first lookup and then memoized,
+ * so the heap grows with the working set rather than with the whole dictionary.
+ */
+public class LazyRecordStore {
+    private final ByteBuffer csv;
+    private final Function<String, Map<String, ? extends Dictionary.Record>> parser;
+    // the sorted keys: the chars of the key i are [keyStarts[i], keyStarts[i + 1]) of keyChars
+    private final char[] keyChars;
+    private final int[] keyStarts;
+    // the line offsets of the key i are [lineStarts[i], lineStarts[i + 1]) of lines
+    private final int[] lineStarts;
+    private final int[] lines;
+    private final Map<String, Dictionary.Record> records = new ConcurrentHashMap<>();
+
+    /**
+     * Indexes the given csv-content.
+     *
+     * @param csv    {@code byte[]} - UTF-8 csv-content
+     * @param keys   {@code Function} to extract keys from a line (without parsing the whole record),
+     *               must return the same keys as the {@code parser}
+     * @param parser {@code Function} - a method to parse line
+     */
+    public LazyRecordStore(byte[] csv,
+                           Function<String, String[]> keys,
+                           Function<String, Map<String, ? extends Dictionary.Record>> parser) {
+        this(ByteBuffer.wrap(csv), keys, parser);
+    }
+
+    /**
+     * Indexes the given csv-content.
+     *
+     * @param csv    {@link ByteBuffer} - UTF-8 csv-content, it is read using absolute positions only
+     * @param keys   {@code Function} to extract keys from a line (without parsing the whole record),
+     *               must return the same keys as the {@code parser}
+     * @param parser {@code Function} - a method to parse line
+     */
+    public LazyRecordStore(ByteBuffer csv,
+                           Function<String, String[]> keys,
+                           Function<String, Map<String, ? extends Dictionary.Record>> parser) {
+        this.csv = csv.asReadOnlyBuffer();
+        this.parser = Objects.requireNonNull(parser);
+        List<Map.Entry<String, Integer>> entries = new ArrayList<>();
+        int length = csv.limit();
+        int start = 0;
+        while (start < length) {
+            int end = lineEnd(start);
+            for (String key : keys.apply(line(start, end))) {
+                entries.add(Map.entry(key, start));
+            }
+            start = nextLine(end);
+        }
+        // the sort is stable, so the lines of a key remain in the file order
+        entries.sort(Map.Entry.comparingByKey(Comparator.naturalOrder()));
+        StringBuilder chars = new StringBuilder();
+        int[] keyStarts = new int[entries.size() + 1];
+        int[] lineStarts = new int[entries.size() + 1];
+        int[] lines = new int[entries.size()];
+        int size = 0;
+        String previous = null;
+        for (int i = 0; i < entries.size(); i++) {
+            String key = entries.get(i).getKey();
+            if (!key.equals(previous)) {
+                keyStarts[size] = chars.length();
+                lineStarts[size] = i;
+                chars.append(key);
+                size++;
+                previous = key;
+            }
+            lines[i] = entries.get(i).getValue();
+        }
+        keyStarts[size] = chars.length();
+        lineStarts[size] = entries.size();
+        this.keyChars = chars.toString().toCharArray();
+        this.keyStarts = Arrays.copyOf(keyStarts, size + 1);
+        this.lineStarts = Arrays.copyOf(lineStarts, size + 1);
+        this.lines = lines;
+    }
+
+    /**
+     * Maps the given csv-file and indexes it.
+     *
+     * @param file   {@link Path} to the csv-file
+     * @param keys   {@code Function} to extract keys from a line
+     * @param parser {@code Function} - a method to parse line
+     * @return {@link LazyRecordStore}
+     * @throws IOException if an I/O error occurs
+     */
+    public static LazyRecordStore open(Path file,
+                                       Function<String, String[]> keys,
+                                       Function<String, Map<String, ? extends Dictionary.Record>> parser) throws IOException {
+        return new LazyRecordStore(map(file), keys, parser);
+    }
+
+    /**
+     * Copies the given csv-content (e.g. a resource from a jar) into a temporary file, maps and indexes it.
+     * The file is deleted on exit.
+     *
+     * @param csv    {@link InputStream} with csv-content
+     * @param keys   {@code Function} to extract keys from a line
+     * @param parser {@code Function} - a method to parse line
+     * @return {@link LazyRecordStore}
+     * @throws IOException if an I/O error occurs
+     */
+    public static LazyRecordStore open(InputStream csv,
+                                       Function<String, String[]> keys,
+                                       Function<String, Map<String, ? extends Dictionary.Record>> parser) throws IOException {
+        Path file = Files.createTempFile("rugrammartools-", ".csv");
+        file.toFile().deleteOnExit();
+        Files.copy(csv, file, StandardCopyOption.REPLACE_EXISTING);
+        return open(file, keys, parser);
+    }
+
+    private static MappedByteBuffer map(Path file) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            return channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+        }
+    }
+
+    private int lineEnd(int start) {
+        int res = start;
+        int length = csv.limit();
+        while (res < length && csv.get(res) != '\n' && csv.get(res) != '\r') {
+            res++;
+        }
+        return res;
+    }
+
+    private int nextLine(int end) {
+        int length = csv.limit();
+        if (end < length && csv.get(end) == '\r') {
+            end++;
+        }
+        if (end < length && csv.get(end) == '\n') {
+            end++;
+        }
+        return end;
+    }
+
+    private String line(int start, int end) {
+        byte[] bytes = new byte[end - start];
+        csv.duplicate().position(start).get(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Finds the record for the given key, parsing it if necessary.
+     *
+     * @param key {@code String}, not {@code null}
+     * @return {@link Dictionary.Record} or {@code null}
+     */
+    public Dictionary.Record get(String key) {
+        Dictionary.Record res = records.get(key);
+        if (res != null) {
+            return res;
+        }
+        int index = indexOf(key);
+        if (index < 0) {
+            return null;
+        }
+        return records.computeIfAbsent(key, k -> decode(k, index));
+    }
+
+    private int indexOf(String key) {
+        int low = 0;
+        int high = keyStarts.length - 2;
+        while (low <= high) {
+            int middle = (low + high) >>> 1;
+            int cmp = compare(middle, key);
+            if (cmp < 0) {
+                low = middle + 1;
+            } else if (cmp > 0) {
+                high = middle - 1;
+            } else {
+                return middle;
+            }
+        }
+        return -1;
+    }
+
+    private int compare(int index, String key) {
+        int start = keyStarts[index];
+        int length = keyStarts[index + 1] - start;
+        int min = Math.min(length, key.length());
+        for (int i = 0; i < min; i++) {
+            int cmp = Character.compare(keyChars[start + i], key.charAt(i));
+            if (cmp != 0) {
+                return cmp;
+            }
+        }
+        return length - key.length();
+    }
+
+    private Dictionary.Record decode(String key, int index) {
+        int from = lineStarts[index];
+        Dictionary.Record[] res = new Dictionary.Record[lineStarts[index + 1] - from];
+        for (int i = 0; i < res.length; i++) {
+            int line = lines[from + i];
+            res[i] = Objects.requireNonNull(parser.apply(line(line, lineEnd(line))).get(key),
+                    () -> "No record for the key " + key);
+        }
+        return res.length == 1 ? res[0] : new Dictionary.MultiRecord(res);
+    }
+
+    /**
+     * Answers the number of keys.
+     *
+     * @return {@code int}
+     */
+    public int size() {
+        return keyStarts.length - 1;
+    }
+
+    /**
+     * Answers the number of already decoded keys.
+     *
+     * @return {@code int}
+     */
+    public int decoded() {
+        return records.size();
+    }
+}
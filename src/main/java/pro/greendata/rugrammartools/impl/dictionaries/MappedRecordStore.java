@@ -0,0 +1,407 @@
+package pro.greendata.rugrammartools.impl.dictionaries;
+
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.function.Supplier;
+
+/**
+ * A read-only off-heap store of {@link Dictionary} records.
+ * <p>
+ * The data file is mapped into memory via {@link FileChannel#map(FileChannel.MapMode, long, long)},
+ * so all JVMs on the same host that use the same file share a single page-cache copy,
+ * and there is nothing on the heap for the GC to clear.
+ * The keys are indexed by a minimal perfect hash (hash-and-displace),
+ * the records are decoded on each lookup directly from the mapped buffer.
+ * <p>
+ * The layout (all offsets are absolute):
+ * <ul>
+ * <li>{@code int} - magic, {@code short} - version, {@code long} - fingerprint of the source data</li>
+ * <li>{@code int} - number of keys {@code n}, {@code int} - number of buckets {@code b},
+ * {@code int} - salt, {@code int} - number of endings</li>
+ * <li>{@code int[b]} - bucket seeds: positive - displacement seed, negative - {@code -slot - 1}</li>
+ * <li>{@code int[n]} - slot to entry offset</li>
+ * <li>endings: {@code short} length, {@code char}s</li>
+ * <li>paradigms in the {@link DictionarySnapshot snapshot} encoding</li>
+ * <li>entries: {@code short} key length, key {@code char}s, {@code byte} number of records, {@code int}s record offsets</li>
+ * <li>records in the {@link DictionarySnapshot snapshot} encoding</li>
+ * </ul>
+ */
+public class MappedRecordStore {
+    static final int MAGIC = 0x5247544D; // RGTM
+    static final short VERSION = 2;
+    private static final int HEADER_SIZE = 4 + 2 + 8 + 4 * 4;
+    private static final int MAX_SEED = 1 << 20;
+
+    private final ByteBuffer data;
+    private final DictionarySnapshot.RecordReader reader;
+    private final String[] endings;
+    private final String[][][] paradigms;
+    private final Paradigm[] interned;
+    private final int size;
+    private final int buckets;
+    private final int salt;
+    private final int seedsOffset;
+    private final int slotsOffset;
+
+    protected MappedRecordStore(ByteBuffer data, DictionarySnapshot.RecordReader reader) throws IOException {
+        this.data = Objects.requireNonNull(data);
+        this.reader = Objects.requireNonNull(reader);
+        if (data.getInt(0) != MAGIC || data.getShort(4) != VERSION) {
+            throw new IOException("Not a mapped dictionary or wrong version");
+        }
+        this.size = data.getInt(14);
+        this.buckets = data.getInt(18);
+        this.salt = data.getInt(22);
+        this.endings = new String[data.getInt(26)];
+        this.seedsOffset = HEADER_SIZE;
+        this.slotsOffset = seedsOffset + 4 * buckets;
+        int pos = slotsOffset + 4 * size;
+        for (int i = 0; i < endings.length; i++) {
+            char[] chars = new char[data.getShort(pos)];
+            pos += 2;
+            for (int j = 0; j < chars.length; j++, pos += 2) {
+                chars[j] = data.getChar(pos);
+            }
+            endings[i] = new String(chars);
+        }
+        BufferInput table = new BufferInput(data, pos, endings, null, null);
+        table.readParadigmTable();
+        this.paradigms = table.paradigms;
+        this.interned = table.interned;
+    }
+
+    /**
+     * Opens (maps) the given file.
+     * If there is no such file, or it is built from another data (the fingerprint does not match),
+     * then the file is (re)created from the {@code source} first;
+     * the file is written under a temporary name and then atomically moved,
+     * so concurrent processes never see a half-written file.
+     *
+     * @param file        {@link Path} to the data file
+     * @param fingerprint {@code long} - a fingerprint of the source data
+     * @param source      {@code Supplier} of the dictionary content, it is called only if the file is to be built
+     * @param reader      {@link DictionarySnapshot.RecordReader} to decode records
+     * @return {@link MappedRecordStore}
+     * @throws IOException if an I/O error occurs
+     */
+    public static MappedRecordStore open(Path file,
+                                         long fingerprint,
+                                         Supplier<Map<String, Dictionary.Record>> source,
+                                         DictionarySnapshot.RecordReader reader) throws IOException {
+        if (!isUpToDate(file, fingerprint)) {
+            Files.createDirectories(file.toAbsolutePath().getParent());
+            Path tmp = Files.createTempFile(file.toAbsolutePath().getParent(), file.getFileName().toString(), ".tmp");
+            try {
+                try (OutputStream out = Files.newOutputStream(tmp)) {
+                    write(source.get(), fingerprint, out);
+                }
+                Files.move(tmp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            } finally {
+                Files.deleteIfExists(tmp);
+            }
+        }
+        return new MappedRecordStore(map(file), reader);
+    }
+
+    private static MappedByteBuffer map(Path file) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            return channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+        }
+    }
+
+    private static boolean isUpToDate(Path file, long fingerprint) throws IOException {
+        if (!Files.exists(file)) {
+            return false;
+        }
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE);
+            while (header.hasRemaining() && channel.read(header) >= 0) {
+                // read the whole header
+            }
+            return !header.hasRemaining() && header.getInt(0) == MAGIC
+                    && header.getShort(4) == VERSION && header.getLong(6) == fingerprint;
+        }
+    }
+
+    /**
+     * Writes the given dictionary content in the format of this store.
+     *
+     * @param data        {@code Map} - the dictionary content
+     * @param fingerprint {@code long} - a fingerprint of the source data
+     * @param out         {@link OutputStream}
+     * @throws IOException if an I/O error occurs
+     */
+    public static void write(Map<String, Dictionary.Record> data, long fingerprint, OutputStream out) throws IOException {
+        String[] keys = data.keySet().toArray(String[]::new);
+        int n = keys.length;
+        Index index = Index.build(keys);
+
+        // records
+        ByteArrayOutputStream recordsBytes = new ByteArrayOutputStream();
+        DictionarySnapshot.Output records = new DictionarySnapshot.Output(new DataOutputStream(recordsBytes));
+        Map<Dictionary.Record, Integer> recordOffsets = new HashMap<>();
+        int[][] entryRecords = new int[n][];
+        for (int i = 0; i < n; i++) {
+            Dictionary.Record record = data.get(keys[i]);
+            Dictionary.Record[] array = record instanceof Dictionary.MultiRecord ?
+                    ((Dictionary.MultiRecord) record).words : new Dictionary.Record[]{record};
+            if (array.length > Byte.MAX_VALUE) {
+                throw new IllegalArgumentException("Too many records for the key " + keys[i]);
+            }
+            entryRecords[i] = new int[array.length];
+            for (int j = 0; j < array.length; j++) {
+                Integer offset = recordOffsets.get(array[j]);
+                if (offset == null) {
+                    recordOffsets.put(array[j], offset = recordsBytes.size());
+                    ((Dictionary.BaseRecordImpl) array[j]).write(records);
+                }
+                entryRecords[i][j] = offset;
+            }
+        }
+        byte[] paradigms = records.paradigmTable();
+        String[] endings = records.endings.keySet().toArray(String[]::new);
+
+        // offsets
+        int endingsOffset = HEADER_SIZE + 4 * index.seeds.length + 4 * n;
+        int entriesOffset = endingsOffset + Arrays.stream(endings).mapToInt(e -> 2 + 2 * e.length()).sum()
+                + paradigms.length;
+        int[] entryOffsets = new int[n];
+        int pos = entriesOffset;
+        for (int i = 0; i < n; i++) {
+            entryOffsets[i] = pos;
+            pos += 2 + 2 * keys[i].length() + 1 + 4 * entryRecords[i].length;
+        }
+        int recordsOffset = pos;
+
+        DataOutputStream res = new DataOutputStream(new BufferedOutputStream(out));
+        res.writeInt(MAGIC);
+        res.writeShort(VERSION);
+        res.writeLong(fingerprint);
+        res.writeInt(n);
+        res.writeInt(index.seeds.length);
+        res.writeInt(index.salt);
+        res.writeInt(endings.length);
+        for (int seed : index.seeds) {
+            res.writeInt(seed);
+        }
+        for (int slot = 0; slot < n; slot++) {
+            res.writeInt(entryOffsets[index.keys[slot]]);
+        }
+        for (String e : endings) {
+            res.writeShort(e.length());
+            res.writeChars(e);
+        }
+        res.write(paradigms);
+        for (int i = 0; i < n; i++) {
+            res.writeShort(keys[i].length());
+            res.writeChars(keys[i]);
+            res.writeByte(entryRecords[i].length);
+            for (int offset : entryRecords[i]) {
+                res.writeInt(recordsOffset + offset);
+            }
+        }
+        recordsBytes.writeTo(res);
+        res.flush();
+    }
+
+    /**
+     * Finds the record for the given key.
+     *
+     * @param key {@code String}, not {@code null}
+     * @return {@link Dictionary.Record} or {@code null}
+     */
+    public Dictionary.Record get(String key) {
+        if (size == 0) {
+            return null;
+        }
+        int seed = data.getInt(seedsOffset + 4 * bucket(key, salt, buckets));
+        int slot = seed < 0 ? -seed - 1 : slot(key, seed, size);
+        int pos = data.getInt(slotsOffset + 4 * slot);
+        int length = data.getShort(pos);
+        if (length != key.length()) {
+            return null;
+        }
+        pos += 2;
+        for (int i = 0; i < length; i++, pos += 2) {
+            if (data.getChar(pos) != key.charAt(i)) {
+                return null;
+            }
+        }
+        int count = data.get(pos++);
+        try {
+            if (count == 1) {
+                return readRecord(data.getInt(pos));
+            }
+            Dictionary.Record[] res = new Dictionary.Record[count];
+            for (int i = 0; i < count; i++, pos += 4) {
+                res[i] = readRecord(data.getInt(pos));
+            }
+            return new Dictionary.MultiRecord(res);
+        } catch (IOException e) {
+            throw new IllegalStateException("Corrupted dictionary data", e);
+        }
+    }
+
+    /**
+     * Answers the number of keys.
+     *
+     * @return {@code int}
+     */
+    public int size() {
+        return size;
+    }
+
+    private Dictionary.Record readRecord(int offset) throws IOException {
+        return reader.read(new BufferInput(data, offset, endings, paradigms, interned));
+    }
+
+    static int hash(String key, int seed) {
+        int h = seed * 0x9E3779B9;
+        for (int i = 0; i < key.length(); i++) {
+            h = (h ^ key.charAt(i)) * 0x01000193;
+        }
+        h ^= h >>> 16;
+        h *= 0x85EBCA6B;
+        h ^= h >>> 13;
+        h *= 0xC2B2AE35;
+        h ^= h >>> 16;
+        return h;
+    }
+
+    private static int bucket(String key, int salt, int buckets) {
+        return Math.floorMod(hash(key, salt), buckets);
+    }
+
+    private static int slot(String key, int seed, int size) {
+        return Math.floorMod(hash(key, seed), size);
+    }
+
+    /**
+     * A record source that reads the mapped buffer using absolute positions (so it is safe to share the buffer).
+     */
+    private static class BufferInput extends DictionarySnapshot.Input {
+        private final ByteBuffer data;
+        private int pos;
+
+        BufferInput(ByteBuffer data, int pos, String[] endings, String[][][] paradigms, Paradigm[] interned) {
+            super(null);
+            this.data = data;
+            this.pos = pos;
+            this.endings = endings;
+            this.paradigms = paradigms;
+            this.interned = interned;
+        }
+
+        @Override
+        protected int readByte() {
+            return data.get(pos++) & 0xFF;
+        }
+    }
+
+    /**
+     * Minimal perfect hash function (hash-and-displace):
+     * keys are distributed into buckets, then, starting with the largest bucket,
+     * a seed is searched for each bucket such that all its keys fall into free slots;
+     * single-key buckets are placed directly into the remaining free slots.
+     */
+    private static class Index {
+        private final int salt;
+        private final int[] seeds;
+        // slot -> key index
+        private final int[] keys;
+
+        private Index(int salt, int[] seeds, int[] keys) {
+            this.salt = salt;
+            this.seeds = seeds;
+            this.keys = keys;
+        }
+
+        static Index build(String[] keys) {
+            for (int salt = 1; ; salt++) {
+                Index res = build(keys, salt);
+                if (res != null) {
+                    return res;
+                }
+            }
+        }
+
+        private static Index build(String[] keys, int salt) {
+            int n = keys.length;
+            int b = Math.max(1, n / 4);
+            List<List<Integer>> buckets = new ArrayList<>(b);
+            for (int i = 0; i < b; i++) {
+                buckets.add(new ArrayList<>(4));
+            }
+            for (int i = 0; i < n; i++) {
+                buckets.get(bucket(keys[i], salt, b)).add(i);
+            }
+            Integer[] order = new Integer[b];
+            Arrays.setAll(order, i -> i);
+            Arrays.sort(order, (x, y) -> Integer.compare(buckets.get(y).size(), buckets.get(x).size()));
+            int[] seeds = new int[b];
+            int[] slots = new int[n];
+            Arrays.fill(slots, -1);
+            int free = 0;
+            for (int i : order) {
+                List<Integer> bucket = buckets.get(i);
+                if (bucket.isEmpty()) {
+                    break;
+                }
+                if (bucket.size() == 1) {
+                    while (slots[free] != -1) {
+                        free++;
+                    }
+                    slots[free] = bucket.get(0);
+                    seeds[i] = -free - 1;
+                    continue;
+                }
+                int seed = findSeed(keys, bucket, slots);
+                if (seed < 0) {
+                    return null;
+                }
+                for (int k : bucket) {
+                    slots[slot(keys[k], seed, n)] = k;
+                }
+                seeds[i] = seed;
+            }
+            return new Index(salt, seeds, slots);
+        }
+
+        private static int findSeed(String[] keys, List<Integer> bucket, int[] slots) {
+            int[] taken = new int[bucket.size()];
+            next:
+            for (int seed = 1; seed < MAX_SEED; seed++) {
+                for (int j = 0; j < taken.length; j++) {
+                    int s = slot(keys[bucket.get(j)], seed, slots.length);
+                    if (slots[s] != -1) {
+                        continue next;
+                    }
+                    for (int k = 0; k < j; k++) {
+                        if (taken[k] == s) {
+                            continue next;
+                        }
+                    }
+                    taken[j] = s;
+                }
+                return seed;
+            }
+            return -1;
+        }
+    }
+}
@@ -4,13 +4,11 @@ import pro.greendata.rugrammartools.Gender;
 import pro.greendata.rugrammartools.impl.PartOfSpeech;
 import pro.greendata.rugrammartools.impl.utils.TextUtils;
 
+import java.io.IOException;
 import java.util.Arrays;
-import java.util.List;
 import java.util.Map;
 import java.util.Objects;
 import java.util.Optional;
-import java.util.stream.Collectors;
-import java.util.stream.Stream;
 
 /**
  * A dictionary, it contains nouns from the resource {@code nouns.csv} file.
@@ -23,7 +21,7 @@ public class NounDictionary extends Dictionary {
     static final NounDictionary DICTIONARY = new NounDictionary("/nouns.csv");
 
     protected NounDictionary(String path) {
-        super(path, Word::parse);
+        super(path, Word::parse, Word::keys, Word::read);
     }
 
     /**
@@ -46,15 +44,35 @@ public class NounDictionary extends Dictionary {
      * @return an {@code Optional} of {@link Record}
      */
     public Optional<Word> wordDetails(String key, Gender gender, Boolean animate, Boolean isPlural) {
-        Record record = contentMap().get(key);
+        return Optional.ofNullable(find(key, gender, animate, isPlural));
+    }
+
+    /**
+     * Tries to find the most suitable word record object.
+     * The same as {@link #wordDetails(String, Gender, Boolean, Boolean)}, but without {@code Optional} wrapping.
+     *
+     * @param key      {@code String}, the key (normalized: lowercase without trailing spaces), not {@code null}
+     * @param gender   {@link Gender} a filter parameter, can be {@code null}
+     * @param animate  {@code Boolean} a filter parameter, can be {@code null}
+     * @param isPlural {@code Boolean} a filter parameter, can be {@code null}
+     * @return {@link Word} or {@code null}
+     */
+    public Word find(String key, Gender gender, Boolean animate, Boolean isPlural) {
+        Record record = record(key);
         if (record == null) {
-            return Optional.empty();
-        }
-        Word word = selectSingleRecord(record, gender, animate, isPlural);
-        if (word == null) {
-            return Optional.empty();
+            return null;
         }
-        return Optional.of(word);
+        return selectSingleRecord(record, gender, animate, isPlural);
+    }
+
+    /**
+     * Answers {@code true} if the dictionary contains the given key.
+     *
+     * @param key {@code String}, the key (normalized: lowercase without trailing spaces), not {@code null}
+     * @return {@code boolean}
+     */
+    public boolean contains(String key) {
+        return record(key) != null;
     }
 
     /**
@@ -78,15 +96,25 @@ public class NounDictionary extends Dictionary {
             return null;
         }
         MultiRecord multi = (MultiRecord) record;
-        List<Word> res = Arrays.stream(multi.words)
-                .map(r -> (Word) r)
-                .sorted(BaseRecordImpl.FULLNESS_COMPARATOR)
-                .filter(w -> (gender == null || w.gender() == gender) && (animated == null || w.animate() == animated) && (isPlural == null || w.isPluralKey() == isPlural))
-                .collect(Collectors.toList());
-        if (res.isEmpty()) { // can't select, choose first
+        int mask = 0;
+        int value = 0;
+        if (gender != null) {
+            mask |= Word.GENDER_MASK;
+            value |= Word.genderCode(gender);
+        }
+        if (animated != null) {
+            mask |= Word.ANIMATE_MASK;
+            value |= animated ? Word.ANIMATE_TRUE : Word.ANIMATE_FALSE;
+        }
+        if (isPlural != null) {
+            mask |= Word.PLURAL_KEY_MASK;
+            value |= isPlural ? Word.PLURAL_KEY_MASK : 0;
+        }
+        Record res = multi.select(mask, value);
+        if (res == null) { // can't select, choose first
             return (Word) multi.words[0];
         }
-        return res.get(0);
+        return (Word) res;
     }
 
     /**
@@ -99,11 +127,28 @@ public class NounDictionary extends Dictionary {
         private static final int IS_INDECLINABLE = 16;
         private static final int GENDER_FLAG_0 = 32;
         private static final int GENDER_FLAG_1 = 64;
+        // is used only in the snapshot
+        private static final int IS_PLURAL_KEY = 128;
+        /**
+         * The paradigm group of singular endings, indexed by {@link pro.greendata.rugrammartools.Case#ordinal()}.
+         */
+        public static final int SINGULAR = 0;
+        /**
+         * The paradigm group of plural endings, indexed by {@link pro.greendata.rugrammartools.Case#ordinal()}.
+         */
+        public static final int PLURAL = 1;
 
-        private String singular;
-        private String plural;
-        private String[] singularCases;
-        private String[] pluralCases;
+        // the selection mask layout: gender (0 - unknown, 1 + ordinal), animate (0 - unknown, 1 - false, 2 - true), plural key
+        private static final int GENDER_MASK = 3;
+        private static final int ANIMATE_MASK = 3 << 2;
+        private static final int ANIMATE_FALSE = 1 << 2;
+        private static final int ANIMATE_TRUE = 2 << 2;
+        private static final int PLURAL_KEY_MASK = 1 << 4;
+
+        static final Paradigm.Table PARADIGMS = new Paradigm.Table();
+        private static final Paradigm NO_PARADIGM = PARADIGMS.intern(null, null);
+
+        private Paradigm paradigm = NO_PARADIGM;
         private boolean isPluralKey;
 
         /**
@@ -143,6 +188,48 @@ public class NounDictionary extends Dictionary {
             return Map.of(key, singularWord);
         }
 
+        /**
+         * Extracts the keys from the csv-line, the result is the same as the key set of {@link #parse(String)}.
+         *
+         * @param sourceLine {@code String}
+         * @return {@code Array} of keys
+         */
+        private static String[] keys(String sourceLine) {
+            String[] array = sourceLine.split("\t");
+            if (array.length < 5) {
+                return new String[0];
+            }
+            String key = TextUtils.normalize(Objects.requireNonNull(array[0]));
+            if (array.length < 22) {
+                return new String[]{key};
+            }
+            String pluralKey = normalizeKey(array[16]);
+            return key.equals(pluralKey) ? new String[]{key} : new String[]{key, pluralKey};
+        }
+
+        /**
+         * Reads the record from the {@link DictionarySnapshot snapshot}.
+         *
+         * @param in {@link DictionarySnapshot.Input}
+         * @return {@link Word}
+         * @throws IOException if an I/O error occurs
+         * @see #write(DictionarySnapshot.Output)
+         */
+        static Word read(DictionarySnapshot.Input in) throws IOException {
+            Word res = new Word();
+            int flags = in.readFlags();
+            res.characteristics = flags & ~IS_PLURAL_KEY;
+            res.isPluralKey = (flags & IS_PLURAL_KEY) == IS_PLURAL_KEY;
+            res.paradigm = in.readParadigm(PARADIGMS);
+            return res;
+        }
+
+        @Override
+        protected void write(DictionarySnapshot.Output out) throws IOException {
+            out.writeFlags(isPluralKey ? characteristics | IS_PLURAL_KEY : characteristics);
+            out.writeParadigm(paradigm());
+        }
+
         private static Word toParse(String key, String[] array) {
             if (array.length < 5) {
                 return null;
@@ -163,20 +250,19 @@ public class NounDictionary extends Dictionary {
             if (array.length < 16) {
                 return res;
             }
-            res.singular = toEnding(key, array[10]);
-            res.singularCases = new String[5];
-            for (int i = 0; i < 5; i++) {
-                res.singularCases[i] = toEnding(key, array[11 + i]);
+            String[] singular = new String[6];
+            for (int i = 0; i < 6; i++) {
+                singular[i] = toEnding(key, array[10 + i]);
             }
             if (array.length < 22) {
+                res.paradigm = PARADIGMS.intern(singular, null);
                 return res;
             }
-            res.plural = toEnding(key, array[16]);
-            res.pluralCases = new String[5];
-            for (int i = 0; i < 5; i++) { // note that the base here is a singular key, not plural its form
-                res.pluralCases[i] = toEnding(key, array[17 + i]);
+            String[] plural = new String[6];
+            for (int i = 0; i < 6; i++) { // note that the base here is a singular key, not plural its form
+                plural[i] = toEnding(key, array[16 + i]);
             }
-
+            res.paradigm = PARADIGMS.intern(singular, plural);
             return res;
         }
 
@@ -248,20 +334,36 @@ public class NounDictionary extends Dictionary {
             setCharacteristics(flag, HAS_INDECLINABLE, IS_INDECLINABLE);
         }
 
+        /**
+         * Returns the shared inflection paradigm with groups {@link #SINGULAR} and {@link #PLURAL}.
+         *
+         * @return {@link Paradigm}
+         */
+        public Paradigm paradigm() {
+            return paradigm;
+        }
+
         public String singular() {
-            return singular;
+            Paradigm p = paradigm();
+            return p.has(SINGULAR) ? p.mod(SINGULAR, 0) : null;
         }
 
         public String[] singularCases() {
-            return singularCases;
+            return cases(SINGULAR);
         }
 
         public String plural() {
-            return plural;
+            Paradigm p = paradigm();
+            return p.has(PLURAL) ? p.mod(PLURAL, 0) : null;
         }
 
         public String[] pluralCases() {
-            return pluralCases;
+            return cases(PLURAL);
+        }
+
+        private String[] cases(int group) {
+            Paradigm p = paradigm();
+            return p.has(group) ? Arrays.copyOfRange(p.group(group), 1, 6) : null;
         }
 
         public boolean isIndeclinable() {
@@ -272,16 +374,38 @@ public class NounDictionary extends Dictionary {
             return isPluralKey;
         }
 
+        private static int genderCode(Gender gender) {
+            return gender == null ? 0 : 1 + gender.ordinal();
+        }
+
+        @Override
+        protected int selectionMask() {
+            Boolean animate = animate();
+            return genderCode(gender())
+                    | (animate == null ? 0 : animate ? ANIMATE_TRUE : ANIMATE_FALSE)
+                    | (isPluralKey ? PLURAL_KEY_MASK : 0);
+        }
+
         @Override
         protected int fullness() {
-            return Stream.of(gender(), animate(), indeclinable(), plural, isPluralKey, singularCases, pluralCases, singular)
-                    .filter(Objects::nonNull).mapToInt(x -> 1).sum();
+            Paradigm p = paradigm();
+            int res = 1; // isPluralKey is always known
+            if (hasCharacteristics(GENDER_FLAG_0) || hasCharacteristics(GENDER_FLAG_1)) {
+                res++;
+            }
+            if (hasCharacteristics(HAS_ANIMATE)) {
+                res++;
+            }
+            if (hasCharacteristics(HAS_INDECLINABLE)) {
+                res++;
+            }
+            return res + (p.has(SINGULAR) ? 2 : 0) + (p.has(PLURAL) ? 2 : 0);
         }
 
         @Override
         public String toString() {
             return String.format("Record{gender=%s, animated=%s, indeclinable=%s, plural='%s', singularCases=%s, pluralCases=%s}",
-                    gender(), animate(), indeclinable(), plural, Arrays.toString(singularCases), Arrays.toString(pluralCases));
+                    gender(), animate(), indeclinable(), plural(), Arrays.toString(singularCases()), Arrays.toString(pluralCases()));
         }
 
         @Override
@@ -289,20 +413,15 @@ public class NounDictionary extends Dictionary {
             if (this == o) return true;
             if (o == null || getClass() != o.getClass()) return false;
             Word record = (Word) o;
+            // paradigms are interned, so they are the same iff they are equal
             return characteristics == record.characteristics &&
-                    Objects.equals(plural, record.plural) &&
-                    Objects.equals(singular, record.singular) &&
-                    Objects.equals(isPluralKey, record.isPluralKey) &&
-                    Arrays.equals(singularCases, record.singularCases) &&
-                    Arrays.equals(pluralCases, record.pluralCases);
+                    paradigm == record.paradigm &&
+                    isPluralKey == record.isPluralKey;
         }
 
         @Override
         public int hashCode() {
-            int result = Objects.hash(characteristics, plural, isPluralKey, singular);
-            result = 31 * result + Arrays.hashCode(singularCases);
-            result = 31 * result + Arrays.hashCode(pluralCases);
-            return result;
+            return Objects.hash(characteristics, paradigm, isPluralKey);
         }
     }
 }
@@ -0,0 +1,252 @@
+package pro.greendata.rugrammartools.impl.dictionaries;
+
+import pro.greendata.rugrammartools.impl.utils.RuleUtils;
+
+import java.lang.ref.WeakReference;
+import java.util.Arrays;
+import java.util.Map;
+import java.util.WeakHashMap;
+
+/**
+ * An inflection paradigm: groups of ending mods (e.g. singular and plural cases),
+ * which are shared by all dictionary records with the same inflection pattern.
+ * Each ending mod (and each of its {@code ","}-separated alternatives) is pre-split
+ * into the number of characters to trim and the suffix to append,
+ * so that inflection does not require any string parsing.
+ *
+ * @see Table
+ */
+public final class Paradigm {
+    private final String[][] groups;
+    private final Ending[][][] endings;
+    private final Ending[][] longest;
+    private final int hash;
+
+    private Paradigm(String[][] groups) {
+        this.groups = groups;
+        this.endings = new Ending[groups.length][][];
+        this.longest = new Ending[groups.length][];
+        for (int i = 0; i < groups.length; i++) {
+            if (groups[i] == null) {
+                continue;
+            }
+            endings[i] = new Ending[groups[i].length][];
+            longest[i] = new Ending[groups[i].length];
+            for (int j = 0; j < groups[i].length; j++) {
+                if (groups[i][j] == null) {
+                    continue;
+                }
+                endings[i][j] = Ending.parse(groups[i][j]);
+                longest[i][j] = Ending.longest(endings[i][j]);
+            }
+        }
+        this.hash = Arrays.deepHashCode(groups);
+    }
+
+    /**
+     * Answers the number of groups (including absent, {@code null} groups).
+     *
+     * @return {@code int}
+     */
+    public int size() {
+        return groups.length;
+    }
+
+    /**
+     * Answers {@code true} if the paradigm contains the specified group of endings.
+     *
+     * @param group {@code int}
+     * @return {@code boolean}
+     */
+    public boolean has(int group) {
+        return group < groups.length && groups[group] != null;
+    }
+
+    /**
+     * Returns the raw ending mods of the specified group.
+     * Note: the returned array is shared and must not be modified.
+     *
+     * @param group {@code int}
+     * @return {@code Array} of {@code String}s or {@code null}
+     */
+    public String[] group(int group) {
+        return groups[group];
+    }
+
+    /**
+     * Returns the raw ending mod.
+     *
+     * @param group {@code int}
+     * @param index {@code int} - index in the group (usually case ordinal)
+     * @return {@code String}, e.g. {@code "-а,-ы"}
+     */
+    public String mod(int group, int index) {
+        return groups[group][index];
+    }
+
+    /**
+     * Returns all alternatives of the ending.
+     * Note: the returned array is shared and must not be modified.
+     *
+     * @param group {@code int}
+     * @param index {@code int} - index in the group (usually case ordinal)
+     * @return {@code Array} of {@link Ending}s
+     */
+    public Ending[] endings(int group, int index) {
+        return endings[group][index];
+    }
+
+    /**
+     * Returns the alternative that produces the longest word.
+     *
+     * @param group {@code int}
+     * @param index {@code int} - index in the group (usually case ordinal)
+     * @return {@link Ending}
+     */
+    public Ending ending(int group, int index) {
+        return longest[group][index];
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (o == null || getClass() != o.getClass()) return false;
+        Paradigm paradigm = (Paradigm) o;
+        return hash == paradigm.hash && Arrays.deepEquals(groups, paradigm.groups);
+    }
+
+    @Override
+    public int hashCode() {
+        return hash;
+    }
+
+    @Override
+    public String toString() {
+        return Arrays.deepToString(groups);
+    }
+
+    /**
+     * A single (pre-split) ending mod.
+     *
+     * @see RuleUtils#changeEnding(String, String)
+     */
+    public static final class Ending {
+        private final String mod;
+        private final int trim;
+        private final String suffix;
+
+        private Ending(String mod, int trim, String suffix) {
+            this.mod = mod;
+            this.trim = trim;
+            this.suffix = suffix;
+        }
+
+        static Ending[] parse(String mods) {
+            if (mods.indexOf(',') < 0) {
+                return new Ending[]{of(mods)};
+            }
+            return Arrays.stream(mods.split(",\\s*")).map(Ending::of).toArray(Ending[]::new);
+        }
+
+        static Ending of(String mod) {
+            if (RuleUtils.KEEP_MOD.equals(mod)) {
+                return new Ending(mod, 0, "");
+            }
+            int trim = 0;
+            while (trim < mod.length() && mod.charAt(trim) == RuleUtils.REMOVE_CHARACTER) {
+                trim++;
+            }
+            return new Ending(mod, trim, mod.substring(trim));
+        }
+
+        static Ending longest(Ending[] alternatives) {
+            Ending res = alternatives[0];
+            for (int i = 1; i < alternatives.length; i++) {
+                if (alternatives[i].delta() > res.delta()) {
+                    res = alternatives[i];
+                }
+            }
+            return res;
+        }
+
+        private int delta() {
+            return suffix.length() - trim;
+        }
+
+        /**
+         * Applies this ending to the given word.
+         *
+         * @param word {@code String}, not {@code null}
+         * @return {@code String}
+         */
+        public String apply(String word) {
+            if (trim == 0) {
+                return suffix.isEmpty() ? word : word.concat(suffix);
+            }
+            return word.substring(0, word.length() - trim).concat(suffix);
+        }
+
+        /**
+         * Answers {@code true} if the word is long enough to apply this ending.
+         *
+         * @param word {@code String}, not {@code null}
+         * @return {@code boolean}
+         */
+        public boolean canApply(String word) {
+            return trim <= word.length();
+        }
+
+        /**
+         * Returns the raw mod.
+         *
+         * @return {@code String}, e.g. {@code "-ы"}
+         */
+        public String mod() {
+            return mod;
+        }
+
+        @Override
+        public String toString() {
+            return mod;
+        }
+    }
+
+    /**
+     * A table of unique paradigms, each paradigm is registered once and then shared by all records.
+     * The table does not keep the paradigms itself: a paradigm is dropped once no record refers to it
+     * (e.g. after the {@link DictionaryOverlay overlay} reload), so the table does not grow with reloads.
+     */
+    public static final class Table {
+        private final Map<Paradigm, WeakReference<Paradigm>> paradigms = new WeakHashMap<>();
+
+        /**
+         * Returns the shared paradigm formed by the given groups of ending mods, registering it if necessary.
+         *
+         * @param groups {@code Array} of groups, a group can be {@code null}
+         * @return {@link Paradigm}
+         */
+        public Paradigm intern(String[]... groups) {
+            Paradigm paradigm = new Paradigm(groups);
+            synchronized (paradigms) {
+                WeakReference<Paradigm> ref = paradigms.get(paradigm);
+                Paradigm res = ref == null ? null : ref.get();
+                if (res != null) {
+                    return res;
+                }
+                paradigms.put(paradigm, new WeakReference<>(paradigm));
+                return paradigm;
+            }
+        }
+
+        /**
+         * Answers the number of registered paradigms, which are still in use.
+         *
+         * @return {@code int}
+         */
+        public int size() {
+            synchronized (paradigms) {
+                return paradigms.size();
+            }
+        }
+    }
+}
@@ -0,0 +1,286 @@
+package pro.greendata.rugrammartools.impl.dictionaries;
+
+import java.lang.ref.SoftReference;
+import java.time.Duration;
+import java.util.Locale;
+import java.util.Objects;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Describes how long the loaded {@link Dictionary} content is kept in memory:
+ * <ul>
+ * <li>{@link #strong()} - forever, the content is never reloaded</li>
+ * <li>{@link #soft()} - until the GC clears it under memory pressure (the default)</li>
+ * <li>{@link #idle(Duration)} - until the content is not accessed for the given time</li>
+ * </ul>
+ * The policy can be specified by the system property {@link #PROPERTY}
+ * with the value {@code strong}, {@code soft} or {@code idle:<ISO-8601 duration>} (e.g. {@code idle:PT10M}),
+ * or set explicitly via {@link Dictionary#setRetentionPolicy(RetentionPolicy)}.
+ */
+public abstract class RetentionPolicy {
+    /**
+     * The system property to choose the default retention policy.
+     */
+    public static final String PROPERTY = "rugrammartools.dictionary.retention";
+    private static final RetentionPolicy STRONG = new RetentionPolicy() {
+        @Override
+        public <X> Holder<X> newHolder(Runnable onEvict) {
+            return new StrongHolder<>();
+        }
+
+        @Override
+        public String toString() {
+            return "strong";
+        }
+    };
+    private static final RetentionPolicy SOFT = new RetentionPolicy() {
+        @Override
+        public <X> Holder<X> newHolder(Runnable onEvict) {
+            return new SoftHolder<>(onEvict);
+        }
+
+        @Override
+        public String toString() {
+            return "soft";
+        }
+    };
+
+    /**
+     * Returns the policy that keeps the content forever.
+     *
+     * @return {@link RetentionPolicy}
+     */
+    public static RetentionPolicy strong() {
+        return STRONG;
+    }
+
+    /**
+     * Returns the policy that keeps the content in a {@link SoftReference}.
+     *
+     * @return {@link RetentionPolicy}
+     */
+    public static RetentionPolicy soft() {
+        return SOFT;
+    }
+
+    /**
+     * Returns the policy that releases the content if it has not been accessed for the given time.
+     * The check is performed by a background daemon thread,
+     * so the content is released after a period between {@code timeout} and {@code 2 * timeout} of inactivity.
+     *
+     * @param timeout {@link Duration}, positive
+     * @return {@link RetentionPolicy}
+     */
+    public static RetentionPolicy idle(Duration timeout) {
+        if (Objects.requireNonNull(timeout).isNegative() || timeout.isZero()) {
+            throw new IllegalArgumentException("Wrong timeout: " + timeout);
+        }
+        return new RetentionPolicy() {
+            @Override
+            public <X> Holder<X> newHolder(Runnable onEvict) {
+                return new IdleHolder<>(timeout.toNanos(), onEvict);
+            }
+
+            @Override
+            public String toString() {
+                return "idle:" + timeout;
+            }
+        };
+    }
+
+    /**
+     * Parses the policy specification.
+     *
+     * @param spec {@code String} - {@code strong}, {@code soft} or {@code idle:<ISO-8601 duration>}
+     * @return {@link RetentionPolicy}
+     * @throws IllegalArgumentException if the specification is wrong
+     */
+    public static RetentionPolicy parse(String spec) {
+        String s = Objects.requireNonNull(spec).trim().toLowerCase(Locale.ROOT);
+        if ("strong".equals(s)) {
+            return strong();
+        }
+        if ("soft".equals(s)) {
+            return soft();
+        }
+        if (s.startsWith("idle:")) {
+            return idle(Duration.parse(s.substring(5).toUpperCase(Locale.ROOT)));
+        }
+        throw new IllegalArgumentException("Unknown retention policy: " + spec);
+    }
+
+    /**
+     * Returns the policy specified by the system property {@link #PROPERTY}, or {@link #soft()} if it is not set.
+     *
+     * @return {@link RetentionPolicy}
+     */
+    public static RetentionPolicy fromSystemProperties() {
+        String spec = System.getProperty(PROPERTY);
+        return spec == null || spec.isBlank() ? soft() : parse(spec);
+    }
+
+    /**
+     * Creates a new holder to keep a value according to this policy.
+     *
+     * @param onEvict {@code Runnable} to call when the value is released by the policy
+     * @param <X>     the type of value
+     * @return {@link Holder}
+     */
+    public abstract <X> Holder<X> newHolder(Runnable onEvict);
+
+    /**
+     * A container for a single value.
+     *
+     * @param <X> the type of value
+     */
+    public abstract static class Holder<X> {
+
+        /**
+         * Returns the value.
+         *
+         * @return {@code X} or {@code null} if there is no value or it has been released
+         */
+        public abstract X get();
+
+        /**
+         * Sets the value.
+         *
+         * @param value {@code X}, not {@code null}
+         */
+        public abstract void set(X value);
+
+        /**
+         * Releases the value (without calling the eviction callback) and all associated resources.
+         */
+        public abstract void clear();
+    }
+
+    private static class StrongHolder<X> extends Holder<X> {
+        private volatile X value;
+
+        @Override
+        public X get() {
+            return value;
+        }
+
+        @Override
+        public void set(X value) {
+            this.value = Objects.requireNonNull(value);
+        }
+
+        @Override
+        public void clear() {
+            value = null;
+        }
+    }
+
+    private static class SoftHolder<X> extends Holder<X> {
+        private final Runnable onEvict;
+        private volatile SoftReference<X> value;
+
+        private SoftHolder(Runnable onEvict) {
+            this.onEvict = Objects.requireNonNull(onEvict);
+        }
+
+        @Override
+        public X get() {
+            SoftReference<X> ref = this.value;
+            if (ref == null) {
+                return null;
+            }
+            X res = ref.get();
+            if (res == null) {
+                synchronized (this) {
+                    if (this.value == ref) { // report once
+                        this.value = null;
+                        onEvict.run();
+                    }
+                }
+            }
+            return res;
+        }
+
+        @Override
+        public void set(X value) {
+            this.value = new SoftReference<>(Objects.requireNonNull(value));
+        }
+
+        @Override
+        public void clear() {
+            value = null;
+        }
+    }
+
+    private static class IdleHolder<X> extends Holder<X> {
+        private final long timeout;
+        private final Runnable onEvict;
+        private volatile X value;
+        private volatile long lastAccess;
+        private ScheduledFuture<?> task;
+
+        private IdleHolder(long timeout, Runnable onEvict) {
+            this.timeout = timeout;
+            this.onEvict = Objects.requireNonNull(onEvict);
+        }
+
+        @Override
+        public X get() {
+            X res = value;
+            if (res != null) {
+                lastAccess = System.nanoTime();
+            }
+            return res;
+        }
+
+        @Override
+        public synchronized void set(X value) {
+            this.value = Objects.requireNonNull(value);
+            this.lastAccess = System.nanoTime();
+            if (task == null) {
+                task = Scheduler.INSTANCE.scheduleWithFixedDelay(this::check, timeout, timeout, TimeUnit.NANOSECONDS);
+            }
+        }
+
+        @Override
+        public synchronized void clear() {
+            value = null;
+            cancel();
+        }
+
+        private synchronized void check() {
+            if (value == null || System.nanoTime() - lastAccess < timeout) {
+                return;
+            }
+            value = null;
+            cancel();
+            onEvict.run();
+        }
+
+        private void cancel() {
+            if (task != null) {
+                task.cancel(false);
+                task = null;
+            }
+        }
+    }
+
+    /**
+     * A lazily created single daemon thread to check idle values.
+     */
+    private static class Scheduler {
+        private static final ScheduledExecutorService INSTANCE = create();
+
+        private static ScheduledExecutorService create() {
+            ScheduledThreadPoolExecutor res = new ScheduledThreadPoolExecutor(1, r -> {
+                Thread t = new Thread(r, "rugrammartools-dictionary-retention");
+                t.setDaemon(true);
+                return t;
+            });
+            res.setRemoveOnCancelPolicy(true);
+            return res;
+        }
+    }
+}
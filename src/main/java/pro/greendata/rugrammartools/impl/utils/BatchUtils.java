@@ -0,0 +1,99 @@
+package pro.greendata.rugrammartools.impl.utils;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ForkJoinPool;
+import java.util.function.Function;
+
+/**
+ * Utilities to process large batches of (highly repetitive) inputs.
+ */
+public class BatchUtils {
+    /**
+     * The minimal number of unique inputs per task.
+     */
+    static final int MIN_CHUNK_SIZE = 256;
+
+    /**
+     * Applies the {@code function} to each element of the {@code inputs}.
+     * Identical inputs are processed only once;
+     * the unique inputs are split into chunks, which are processed in parallel by the {@code executor}.
+     * The function must be thread-safe.
+     *
+     * @param inputs   {@code List} of inputs, not {@code null}
+     * @param function {@link Function} to apply, not {@code null}
+     * @param executor {@link Executor} to run the tasks, not {@code null}
+     * @param <X>      the type of input
+     * @param <R>      the type of result
+     * @return unmodifiable {@code List} of results in the input order
+     * @throws RuntimeException the first exception thrown by the {@code function}
+     */
+    public static <X, R> List<R> map(List<? extends X> inputs, Function<? super X, ? extends R> function, Executor executor) {
+        Objects.requireNonNull(function);
+        Objects.requireNonNull(executor);
+        int size = inputs.size();
+        Map<X, Integer> indexes = new HashMap<>();
+        List<X> unique = new ArrayList<>();
+        int[] positions = new int[size];
+        int i = 0;
+        for (X x : inputs) {
+            Integer index = indexes.putIfAbsent(x, unique.size());
+            if (index == null) {
+                index = unique.size();
+                unique.add(x);
+            }
+            positions[i++] = index;
+        }
+        Object[] results = new Object[unique.size()];
+        int chunks = chunks(unique.size(), executor);
+        if (chunks == 1) {
+            apply(unique, function, results, 0, unique.size());
+        } else {
+            CompletableFuture<?>[] tasks = new CompletableFuture<?>[chunks];
+            int step = unique.size() / chunks;
+            for (int c = 0; c < chunks; c++) {
+                int start = c * step;
+                int end = c == chunks - 1 ? unique.size() : start + step;
+                tasks[c] = CompletableFuture.runAsync(() -> apply(unique, function, results, start, end), executor);
+            }
+            try {
+                CompletableFuture.allOf(tasks).join();
+            } catch (CompletionException e) {
+                if (e.getCause() instanceof RuntimeException) {
+                    throw (RuntimeException) e.getCause();
+                }
+                if (e.getCause() instanceof Error) {
+                    throw (Error) e.getCause();
+                }
+                throw e;
+            }
+        }
+        Object[] res = new Object[size];
+        for (int j = 0; j < size; j++) {
+            res[j] = results[positions[j]];
+        }
+        @SuppressWarnings("unchecked") List<R> list = (List<R>) Arrays.asList(res);
+        return Collections.unmodifiableList(list);
+    }
+
+    private static <X, R> void apply(List<X> inputs, Function<? super X, ? extends R> function, Object[] results, int start, int end) {
+        for (int i = start; i < end; i++) {
+            results[i] = function.apply(inputs.get(i));
+        }
+    }
+
+    private static int chunks(int size, Executor executor) {
+        int parallelism = executor instanceof ForkJoinPool ?
+                ((ForkJoinPool) executor).getParallelism() : Runtime.getRuntime().availableProcessors();
+        // several chunks per thread to balance the load, since the inputs may take different time
+        return Math.max(1, Math.min(size / MIN_CHUNK_SIZE, parallelism * 4));
+    }
+}
@@ -238,7 +238,7 @@ public class GrammarUtils {
         if (canBeFeminineAdjectiveBasedSubstantiveNoun(word)) {
             return true;
         }
-        if (NOUN_DICTIONARY.wordDetails(word, Gender.FEMALE, null, false).isPresent()) {
+        if (NOUN_DICTIONARY.find(word, Gender.FEMALE, null, false) != null) {
             return true;
         }
         // свинья, ладья, свекла, берёза, копейка
@@ -279,7 +279,7 @@ public class GrammarUtils {
         if (canBeMasculineAdjectiveBasedSubstantiveNoun(word)) {
             return true;
         }
-        if (NOUN_DICTIONARY.wordDetails(word, Gender.MALE, null, false).isPresent()) {
+        if (NOUN_DICTIONARY.find(word, Gender.MALE, null, false) != null) {
             return true;
         }
         //TODO: Пока отключил, потому что в эти окончания попадают не только И. п.
@@ -295,7 +295,7 @@ public class GrammarUtils {
      * @return {@code boolean}
      */
     public static boolean canBePluralNoun(String word) {
-        return NOUN_DICTIONARY.wordDetails(word, null, null, true).isPresent();
+        return NOUN_DICTIONARY.find(word, null, null, true) != null;
     }
 
     private static Collection<String> endings(Gender gender) {
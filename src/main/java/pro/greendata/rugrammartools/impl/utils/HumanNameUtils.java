@@ -59,49 +59,49 @@ public class HumanNameUtils {
 
     public static boolean isFirstname(String word) {
         String nw = TextUtils.normalize(word);
-        return DICTIONARY.wordDetails(word).isEmpty() &&
+        return !DICTIONARY.contains(word) &&
                 (PlainDictionary.FEMALE_NAMES.contains(nw) || PlainDictionary.MALE_NAMES.contains(nw));
     }
 
     public static boolean isFemaleFirstname(String word) {
         String nw = TextUtils.normalize(word);
-        return DICTIONARY.wordDetails(word).isEmpty() && PlainDictionary.FEMALE_NAMES.contains(nw);
+        return !DICTIONARY.contains(word) && PlainDictionary.FEMALE_NAMES.contains(nw);
     }
 
     public static boolean isMaleFirstname(String word) {
         String nw = TextUtils.normalize(word);
-        return DICTIONARY.wordDetails(word).isEmpty() && PlainDictionary.MALE_NAMES.contains(nw);
+        return !DICTIONARY.contains(word) && PlainDictionary.MALE_NAMES.contains(nw);
     }
 
     public static boolean canBePatronymic(String word) {
         String nw = TextUtils.normalize(word);
-        return DICTIONARY.wordDetails(word).isEmpty() &&
+        return !DICTIONARY.contains(word) &&
                 (FEMALE_PATRONYMIC_ENDINGS.stream().anyMatch(nw::endsWith) || MALE_PATRONYMIC_ENDINGS.stream().anyMatch(nw::endsWith));
     }
 
     public static boolean canBeFemalePatronymic(String word) {
         String nw = TextUtils.normalize(word);
-        return DICTIONARY.wordDetails(word).isEmpty() && FEMALE_PATRONYMIC_ENDINGS.stream().anyMatch(nw::endsWith);
+        return !DICTIONARY.contains(word) && FEMALE_PATRONYMIC_ENDINGS.stream().anyMatch(nw::endsWith);
     }
 
     public static boolean canBeMalePatronymic(String word) {
         String nw = TextUtils.normalize(word);
-        return DICTIONARY.wordDetails(word).isEmpty() && MALE_PATRONYMIC_ENDINGS.stream().anyMatch(nw::endsWith);
+        return !DICTIONARY.contains(word) && MALE_PATRONYMIC_ENDINGS.stream().anyMatch(nw::endsWith);
     }
 
     public static boolean canBeSurname(String word) {
         String nw = TextUtils.normalize(word);
-        return DICTIONARY.wordDetails(word).isEmpty() && FEMALE_SURNAME_ENDINGS.stream().anyMatch(nw::endsWith) || MALE_SURNAME_ENDINGS.stream().anyMatch(nw::endsWith);
+        return !DICTIONARY.contains(word) && FEMALE_SURNAME_ENDINGS.stream().anyMatch(nw::endsWith) || MALE_SURNAME_ENDINGS.stream().anyMatch(nw::endsWith);
     }
 
     public static boolean canBeFemaleSurname(String word) {
         String nw = TextUtils.normalize(word);
-        return DICTIONARY.wordDetails(word).isEmpty() && FEMALE_SURNAME_ENDINGS.stream().anyMatch(nw::endsWith);
+        return !DICTIONARY.contains(word) && FEMALE_SURNAME_ENDINGS.stream().anyMatch(nw::endsWith);
     }
 
     public static boolean canBeMaleSurname(String word) {
         String nw = TextUtils.normalize(word);
-        return DICTIONARY.wordDetails(word).isEmpty() && MALE_SURNAME_ENDINGS.stream().anyMatch(nw::endsWith);
+        return !DICTIONARY.contains(word) && MALE_SURNAME_ENDINGS.stream().anyMatch(nw::endsWith);
     }
 
     public static boolean canBeInitials(String word) {
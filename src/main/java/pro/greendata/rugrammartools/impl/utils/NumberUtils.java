@@ -12,6 +12,10 @@ import java.util.List;
 public class NumberUtils {
     static final BigDecimal BIG_DECIMAL_THOUSAND = BigDecimal.valueOf(1000);
     static final BigInteger BIG_INTEGER_THOUSAND = BigInteger.valueOf(1000);
+    /**
+     * The max number of triples in a {@code long}: {@code 9 223 372 036 854 775 807}.
+     */
+    public static final int MAX_LONG_TRIPLES = 7;
 
     public static List<Integer> toTriples(BigDecimal n, MathContext context) {
         if (isZero(n)) {
@@ -39,6 +43,54 @@ public class NumberUtils {
         return res;
     }
 
+    /**
+     * Splits a non-negative {@code long} into triples without boxing,
+     * filling the end of the given array in the same (big-endian) order as {@link #toTriples(BigInteger)}.
+     *
+     * @param n   non-negative {@code long}
+     * @param res {@code int[]} of length {@link #MAX_LONG_TRIPLES} or greater
+     * @return {@code int} - the index of the first (most significant) triple, or {@code res.length} for zero
+     */
+    public static int toTriples(long n, int[] res) {
+        int i = res.length;
+        while (n != 0) {
+            res[--i] = (int) (n % 1000);
+            n /= 1000;
+        }
+        return i;
+    }
+
+    /**
+     * Cuts triples directly from the decimal digit characters {@code [start, end)}, skipping the leading zeros.
+     *
+     * @param digits {@link CharSequence} with decimal digits, not {@code null}
+     * @param start  the start index (inclusive)
+     * @param end    the end index (exclusive)
+     * @return {@code int[]} - big-endian triples, empty if all digits are zeros
+     * @throws NumberFormatException if there is a non-digit character
+     */
+    public static int[] toTriples(CharSequence digits, int start, int end) {
+        while (start < end && digits.charAt(start) == '0') {
+            start++;
+        }
+        int length = end - start;
+        int[] res = new int[(length + 2) / 3];
+        int pos = start;
+        int next = start + (length % 3 == 0 ? 3 : length % 3);
+        for (int i = 0; i < res.length; i++, next += 3) {
+            int n = 0;
+            for (; pos < next; pos++) {
+                char c = digits.charAt(pos);
+                if (c < '0' || c > '9') {
+                    throw new NumberFormatException("Not a digit: '" + c + "'");
+                }
+                n = n * 10 + (c - '0');
+            }
+            res[i] = n;
+        }
+        return res;
+    }
+
     public static BigDecimal fraction(BigDecimal n, MathContext context) {
         if (isZero(n)) {
             return BigDecimal.ZERO;
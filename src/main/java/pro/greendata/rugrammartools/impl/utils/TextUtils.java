@@ -1,5 +1,7 @@
 package pro.greendata.rugrammartools.impl.utils;
 
+import java.io.IOException;
+import java.io.UncheckedIOException;
 import java.util.Collection;
 import java.util.Locale;
 
@@ -137,14 +139,32 @@ public class TextUtils {
      * @return {@code String}
      */
     public static String toProperCase(String template, String string) {
-        StringBuilder res = new StringBuilder();
-        char[] origChars = template.toCharArray();
-        char[] resChars = string.toCharArray();
+        return appendProperCase(new StringBuilder(string.length()), template, 0, template.length(), string).toString();
+    }
+
+    /**
+     * Appends the given {@code string} formatted according to the {@code template} case,
+     * the template is the {@code [from, to)} region of the given sequence.
+     *
+     * @param res      {@link StringBuilder} to append
+     * @param template {@link CharSequence}
+     * @param from     the start index of the template (inclusive)
+     * @param to       the end index of the template (exclusive)
+     * @param string   {@link CharSequence}
+     * @return the same {@link StringBuilder}
+     * @see #toProperCase(String, String)
+     */
+    public static StringBuilder appendProperCase(StringBuilder res,
+                                                 CharSequence template,
+                                                 int from,
+                                                 int to,
+                                                 CharSequence string) {
+        int length = string.length();
         int i = 0;
         boolean isUpperCaseEnding = false;
-        for (; i < Math.min(origChars.length, resChars.length); i++) {
-            char origChar = origChars[i];
-            char resChar = resChars[i];
+        for (; i < Math.min(to - from, length); i++) {
+            char origChar = template.charAt(from + i);
+            char resChar = string.charAt(i);
             if (equalsIgnoreCase(origChar, resChar)) {
                 res.append(origChar);
             } else {
@@ -152,8 +172,8 @@ public class TextUtils {
                 break;
             }
         }
-        for (; i < resChars.length; i++) {
-            char resChar = resChars[i];
+        for (; i < length; i++) {
+            char resChar = string.charAt(i);
             if (isUpperCaseEnding) {
                 resChar = Character.toUpperCase(resChar);
             } else {
@@ -161,7 +181,49 @@ public class TextUtils {
             }
             res.append(resChar);
         }
-        return res.toString();
+        return res;
+    }
+
+    /**
+     * Appends the value to the given {@link Appendable}, wrapping an {@link IOException} as unchecked.
+     *
+     * @param out   {@link Appendable}, not {@code null}
+     * @param value {@link CharSequence}
+     * @param <A>   the type of appendable
+     * @return the same {@code out}
+     * @throws UncheckedIOException if an I/O error occurs
+     */
+    public static <A extends Appendable> A append(A out, CharSequence value) {
+        try {
+            out.append(value);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return out;
+    }
+
+    /**
+     * Answers the {@link StringBuilder} to write into: the given {@code out} itself if it is a builder,
+     * otherwise a new buffer, which is to be passed to {@link #flush(Appendable, StringBuilder)}.
+     *
+     * @param out {@link Appendable}, not {@code null}
+     * @return {@link StringBuilder}
+     */
+    public static StringBuilder toStringBuilder(Appendable out) {
+        return out instanceof StringBuilder ? (StringBuilder) out : new StringBuilder();
+    }
+
+    /**
+     * Copies the buffer obtained by {@link #toStringBuilder(Appendable)} into the {@code out}, if they differ.
+     *
+     * @param out {@link Appendable}, not {@code null}
+     * @param res {@link StringBuilder}, not {@code null}
+     * @param <A> the type of appendable
+     * @return the same {@code out}
+     */
+    public static <A extends Appendable> A flush(A out, StringBuilder res) {
+        //noinspection ObjectEquality
+        return out == res ? out : append(out, res);
     }
 
     /**
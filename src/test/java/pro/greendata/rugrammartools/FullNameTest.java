@@ -3,6 +3,7 @@ package pro.greendata.rugrammartools;
 import org.junit.jupiter.api.Assertions;
 import org.junit.jupiter.params.ParameterizedTest;
 import org.junit.jupiter.params.provider.MethodSource;
+import org.junit.jupiter.params.provider.ValueSource;
 
 import java.util.List;
 
@@ -20,6 +21,8 @@ public class FullNameTest {
     void assertName(String expected, String given, Case declension) {
         Assertions.assertEquals(expected, engine.inflectFullname(given, declension),
                 "Wrong result for case: " + declension);
+        Assertions.assertEquals("ФИО: " + expected,
+                engine.inflectFullnameTo(new StringBuilder("ФИО: "), given, declension).toString());
     }
 
     @ParameterizedTest(name = "[{index}] ::: {0}")
@@ -31,4 +34,29 @@ public class FullNameTest {
         assertName(p5, p1, Case.INSTRUMENTAL);
         assertName(p6, p1, Case.PREPOSITIONAL);
     }
+
+    @ParameterizedTest(name = "[{index}] ::: {0}")
+    @MethodSource("data")
+    public void testAllCases(String p1, String p2, String p3, String p4, String p5, String p6) {
+        CaseForms actual = engine.inflectFullnameAllCases(p1);
+        Assertions.assertEquals(new CaseForms(new String[]{p1, p2, p3, p4, p5, p6}, null), actual);
+    }
+
+    @ParameterizedTest
+    @ValueSource(strings = {" ", "   ", "Петров Петр Петрович Младший"})
+    public void testWrongFullname(String sfp) {
+        Assertions.assertThrows(IllegalArgumentException.class, () -> engine.inflectFullname(sfp, Case.GENITIVE));
+        Assertions.assertThrows(IllegalArgumentException.class, () -> engine.inflectFullnameAllCases(sfp));
+    }
+
+    @ParameterizedTest
+    @ValueSource(strings = {"Петров Петр Петрович", "Аброськин Антон Владимирович",
+            "Сюгияйнен Игорь Викторович", "Петрова Жозефина Феликсовна", "Сидорова Анна Ивановна"})
+    public void testToNominative(String name) {
+        Assertions.assertEquals(name, engine.toNominativeFullname(name));
+        for (Case declension : Case.values()) {
+            String given = engine.inflectFullname(name, declension);
+            Assertions.assertEquals(name, engine.toNominativeFullname(given), "Wrong result for: " + given);
+        }
+    }
 }
@@ -0,0 +1,33 @@
+package pro.greendata.rugrammartools;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Assumptions;
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+public class GrammarToolsTest {
+
+    private static boolean hasResource(String csv, String snapshot) {
+        return GrammarTools.class.getResource(csv) != null || GrammarTools.class.getResource(snapshot) != null;
+    }
+
+    @Test
+    public void testPreload() throws Exception {
+        Assumptions.assumeTrue(hasResource("/nouns.csv", "/nouns.bin") && hasResource("/adjectives.csv", "/adjectives.bin"),
+                "No dictionaries");
+        ExecutorService executor = Executors.newFixedThreadPool(4);
+        try {
+            CompletableFuture<Void> res = GrammarTools.preload(executor);
+            res.get(5, TimeUnit.MINUTES);
+            Assertions.assertTrue(GrammarTools.isReady());
+            Assertions.assertEquals("Петрова Петра Петровича",
+                    GrammarTools.getInflectionEngine().inflectFullname("Петров Петр Петрович", Case.GENITIVE));
+        } finally {
+            executor.shutdown();
+        }
+    }
+}
@@ -31,4 +31,14 @@ public class OrganizationTest {
         assertName(p5, p1, Case.INSTRUMENTAL);
         assertName(p6, p1, Case.PREPOSITIONAL);
     }
+
+    @ParameterizedTest(name = "[{index}] ::: {0}")
+    @MethodSource("data")
+    public void testPrepared(String p1) {
+        PreparedPhrase phrase = engine.prepare(p1, PreparedPhrase.Type.ORGANIZATION_NAME);
+        for (Case declension : Case.values()) {
+            Assertions.assertEquals(engine.inflectNameOfOrganization(p1, declension), phrase.inflect(declension),
+                    "Wrong result for case: " + declension);
+        }
+    }
 }
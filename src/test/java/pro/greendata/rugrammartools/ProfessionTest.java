@@ -1,6 +1,7 @@
 package pro.greendata.rugrammartools;
 
 import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
 import org.junit.jupiter.params.ParameterizedTest;
 import org.junit.jupiter.params.provider.MethodSource;
 
@@ -21,6 +22,8 @@ public class ProfessionTest {
         String actual = engine.inflectNameOfProfession(given, declension);
         Assertions.assertTrue(TestUtils.equalsIgnoreSpecial(expected, actual),
                 String.format("Wrong result for case: %s, expected='%s', actual='%s'", declension, expected, actual));
+        Assertions.assertEquals("- " + actual,
+                engine.inflectTo(new StringBuilder("- "), given, PreparedPhrase.Type.PROFESSION_NAME, declension).toString());
     }
 
     @ParameterizedTest(name = "[{index}] ::: {0}")
@@ -33,4 +36,54 @@ public class ProfessionTest {
         assertName(p6, p1, Case.PREPOSITIONAL);
     }
 
+    @ParameterizedTest(name = "[{index}] ::: {0}")
+    @MethodSource("data")
+    public void testPrepared(String p1) {
+        PreparedPhrase phrase = engine.prepare(p1, PreparedPhrase.Type.PROFESSION_NAME);
+        for (Case declension : Case.values()) {
+            Assertions.assertEquals(engine.inflectNameOfProfession(p1, declension), phrase.inflect(declension),
+                    "Wrong result for case: " + declension);
+        }
+    }
+
+    @ParameterizedTest(name = "[{index}] ::: {0}")
+    @MethodSource("data")
+    public void testAllCases(String p1) {
+        CaseForms actual = engine.inflectAllCases(p1, PreparedPhrase.Type.PROFESSION_NAME);
+        Assertions.assertTrue(actual.hasPlural());
+        PreparedPhrase phrase = engine.prepare(p1, PreparedPhrase.Type.PROFESSION_NAME);
+        for (Case declension : Case.values()) {
+            Assertions.assertEquals(engine.inflectNameOfProfession(p1, declension), actual.get(declension),
+                    "Wrong result for case: " + declension);
+            Assertions.assertEquals(phrase.inflect(declension, true), actual.getPlural(declension),
+                    "Wrong plural for case: " + declension);
+        }
+    }
+
+    @Test
+    public void testAllCasesPlural() {
+        CaseForms actual = engine.inflectAllCases("главный бухгалтер", PreparedPhrase.Type.PROFESSION_NAME);
+        Assertions.assertEquals("главный бухгалтер", actual.get(Case.NOMINATIVE));
+        Assertions.assertEquals("главные бухгалтеры", actual.getPlural(Case.NOMINATIVE));
+        Assertions.assertEquals("главных бухгалтеров", actual.getPlural(Case.GENITIVE));
+        Assertions.assertEquals("главными бухгалтерами", actual.getPlural(Case.INSTRUMENTAL));
+        Assertions.assertEquals("главные бухгалтеры",
+                engine.prepare("главный бухгалтер", PreparedPhrase.Type.PROFESSION_NAME).inflect(Case.NOMINATIVE, true));
+        Assertions.assertEquals("главные бухгалтеры",
+                engine.inflectRegularTerm("главный бухгалтер", Case.NOMINATIVE, true, true));
+    }
+
+    @Test
+    public void testAllCasesPluralDictionaryNoun() {
+        CaseForms actual = engine.inflectAllCases("директор общества", PreparedPhrase.Type.PROFESSION_NAME);
+        Assertions.assertEquals("директора общества", actual.getPlural(Case.NOMINATIVE));
+        Assertions.assertEquals("директоров общества", actual.getPlural(Case.GENITIVE));
+        actual = engine.inflectAllCases("рубль", PreparedPhrase.Type.REGULAR_TERM);
+        Assertions.assertEquals("рубли", actual.getPlural(Case.NOMINATIVE));
+        Assertions.assertEquals("рублей", actual.getPlural(Case.GENITIVE));
+        actual = engine.inflectAllCases("сапог", PreparedPhrase.Type.REGULAR_TERM);
+        Assertions.assertEquals("сапоги", actual.getPlural(Case.NOMINATIVE));
+        Assertions.assertEquals("сапог", actual.getPlural(Case.GENITIVE));
+    }
+
 }
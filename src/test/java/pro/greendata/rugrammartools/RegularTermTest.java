@@ -1,6 +1,7 @@
 package pro.greendata.rugrammartools;
 
 import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
 import org.junit.jupiter.params.ParameterizedTest;
 import org.junit.jupiter.params.provider.MethodSource;
 
@@ -45,4 +46,121 @@ public class RegularTermTest {
     private void assertInflect(BiFunction<String, Case, String> inflector, String expected, String given, Case declension) {
         Assertions.assertEquals(expected, inflector.apply(given, declension), "Wrong result for case: " + declension);
     }
+
+    /**
+     * An engine that implements only the abstract methods, so the defaults of the interface are used.
+     */
+    private static class MinimalEngine implements InflectionEngine {
+        private final InflectionEngine engine = GrammarTools.getInflectionEngine();
+
+        @Override
+        public String inflectRegularTerm(String phrase, Case declension, Boolean animate) {
+            return engine.inflectRegularTerm(phrase, declension, animate);
+        }
+
+        @Override
+        public String inflectNumeral(String numeral, String unit, Case declension) {
+            return engine.inflectNumeral(numeral, unit, declension);
+        }
+
+        @Override
+        public String inflectNumeral(String numeral, Case declension) {
+            return engine.inflectNumeral(numeral, declension);
+        }
+
+        @Override
+        public String inflectFirstname(String firstname, Case declension, Gender gender) {
+            return engine.inflectFirstname(firstname, declension, gender);
+        }
+
+        @Override
+        public String inflectPatronymic(String middlename, Case declension, Gender gender) {
+            return engine.inflectPatronymic(middlename, declension, gender);
+        }
+
+        @Override
+        public String inflectSurname(String surname, Case declension, Gender gender) {
+            return engine.inflectSurname(surname, declension, gender);
+        }
+    }
+
+    @Test
+    public void testDefaultPluralRegularTerm() {
+        InflectionEngine minimal = new MinimalEngine();
+        Assertions.assertEquals("главного бухгалтера",
+                minimal.inflectRegularTerm("главный бухгалтер", Case.GENITIVE, true, null));
+        Assertions.assertEquals("главного бухгалтера",
+                minimal.inflectRegularTerm("главный бухгалтер", Case.GENITIVE, true, false));
+        Assertions.assertThrows(UnsupportedOperationException.class,
+                () -> minimal.inflectRegularTerm("главный бухгалтер", Case.GENITIVE, true, true));
+    }
+
+    @Test
+    public void testDefaultPreparedPhrase() {
+        // an engine that does not override prepare, but supports plural
+        InflectionEngine minimal = new MinimalEngine() {
+            @Override
+            public String inflectRegularTerm(String phrase, Case declension, Boolean animate, Boolean plural) {
+                return engine.inflectRegularTerm(phrase, declension, animate, plural);
+            }
+        };
+        PreparedPhrase term = minimal.prepare("главный бухгалтер", PreparedPhrase.Type.REGULAR_TERM);
+        Assertions.assertEquals("главного бухгалтера", term.inflect(Case.GENITIVE));
+        Assertions.assertEquals("главных бухгалтеров", term.inflect(Case.GENITIVE, true));
+        CaseForms forms = minimal.inflectAllCases("главный бухгалтер", PreparedPhrase.Type.PROFESSION_NAME);
+        Assertions.assertEquals("главному бухгалтеру", forms.get(Case.DATIVE));
+        Assertions.assertEquals("главным бухгалтерам", forms.getPlural(Case.DATIVE));
+        Assertions.assertEquals("главными бухгалтерами", forms.getPlural(Case.INSTRUMENTAL));
+    }
+
+    @Test
+    public void testToNominative() {
+        Assertions.assertEquals("сапог", engine.toNominative("сапога"));
+        Assertions.assertEquals("сапоги", engine.toNominative("сапогами"));
+        Assertions.assertEquals("директор общества", engine.toNominative("директору общества"));
+        Assertions.assertEquals("новая птица", engine.toNominative("новой птицы"));
+        Assertions.assertEquals("Главный директор", engine.toNominative("Главному директору"));
+        // no nouns: the last adjective is the subject
+        Assertions.assertEquals("Старший рабочий", engine.toNominative("Старшего рабочего"));
+    }
+
+    @Test
+    public void testToNominativeAmbiguous() {
+        // the nominative reading is preferred: "птицы" is also the singular genitive
+        Assertions.assertEquals("птицы", engine.toNominative("птицы"));
+        Assertions.assertEquals("сапоги", engine.toNominative("сапоги"));
+        // then the singular: "птиц" is the plural genitive or accusative
+        Assertions.assertEquals("птицы", engine.toNominative("птиц"));
+        // several dictionary records with the same forms
+        Assertions.assertEquals("замок", engine.toNominative("замка"));
+        Assertions.assertEquals("мир", engine.toNominative("мира"));
+    }
+
+    @Test
+    public void testToNominativeUnknown() {
+        Assertions.assertEquals("xyzzy", engine.toNominative("xyzzy"));
+        Assertions.assertEquals("Абвгд еёжз", engine.toNominative("Абвгд еёжз"));
+        // only the known words are changed
+        Assertions.assertEquals("сапог xyzzy", engine.toNominative("сапога xyzzy"));
+        Assertions.assertThrows(IllegalArgumentException.class, () -> engine.toNominative(null));
+    }
+
+    @Test
+    public void testDefaultBatch() {
+        InflectionEngine minimal = new MinimalEngine();
+        Assertions.assertEquals(List.of("главному бухгалтеру", "директору", "главному бухгалтеру"),
+                minimal.inflectPhrases(List.of("главный бухгалтер", "директор", "главный бухгалтер"),
+                        PreparedPhrase.Type.PROFESSION_NAME, Case.DATIVE));
+        Assertions.assertEquals(List.of("Петрова Петра Петровича"),
+                minimal.inflectFullnames(List.of("Петров Петр Петрович"), Case.GENITIVE));
+    }
+
+    @Test
+    public void testDefaultUnsupported() {
+        InflectionEngine minimal = new MinimalEngine();
+        Assertions.assertThrows(UnsupportedOperationException.class, () -> minimal.toNominative("сапога"));
+        Assertions.assertThrows(UnsupportedOperationException.class,
+                () -> minimal.toNominativeFullname("Петровой Анне Сергеевне"));
+        Assertions.assertThrows(UnsupportedOperationException.class, () -> minimal.prepareUnit("штука"));
+    }
 }
@@ -1,10 +1,19 @@
 package pro.greendata.rugrammartools;
 
+import org.junit.jupiter.api.AfterEach;
 import org.junit.jupiter.api.Assertions;
 import org.junit.jupiter.api.Test;
 
+import java.io.IOException;
+import java.io.StringWriter;
 import java.math.BigDecimal;
 import java.math.BigInteger;
+import java.util.Map;
+import java.util.Random;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+import java.util.stream.LongStream;
+import java.util.stream.Stream;
 
 /**
  * Created by @ssz on 18.02.2022.
@@ -13,6 +22,12 @@ public class SpellingEngineTest {
 
     private final SpellingEngine spellingEngine = GrammarTools.getSpellingEngine();
 
+    @AfterEach
+    public void tearDown() {
+        Currency.unregister("KZT");
+        Unit.unregister("штука");
+    }
+
     @Test
     public void testSmallIntegers() {
         Assertions.assertEquals("минус сорок два", spellingEngine.spell(-42));
@@ -86,6 +101,334 @@ public class SpellingEngineTest {
                 spellingEngine.spell(new BigDecimal(withLongFractionPart)));
     }
 
+    @Test
+    public void testPlainString() {
+        Assertions.assertEquals("минус сорок две целых сорок две сотых", spellingEngine.spell("-42.42"));
+        Assertions.assertEquals("одна тысяча целых пять десятых", spellingEngine.spell("+001000.500"));
+        Assertions.assertEquals("ноль целых одна тысячная", spellingEngine.spell(".001"));
+        Assertions.assertEquals("ноль", spellingEngine.spell("-0.000"));
+        Assertions.assertEquals("сто двадцать три ундециллиона четыреста пятьдесят шесть дециллионов семьсот восемьдесят девять " +
+                        "нониллионов двенадцать октиллионов триста сорок пять септиллионов шестьсот семьдесят восемь секстиллионов " +
+                        "девятьсот один квинтиллион двести тридцать четыре квадриллиона пятьсот шестьдесят семь триллионов " +
+                        "восемьсот девяносто миллиардов сто двадцать три миллиона четыреста пятьдесят шесть тысяч " +
+                        "семьсот восемьдесят девять",
+                spellingEngine.spell("123456789012345678901234567890123456789"));
+        Assertions.assertThrows(NumberFormatException.class, () -> spellingEngine.spell("1e5"));
+        Assertions.assertThrows(NumberFormatException.class, () -> spellingEngine.spell("-"));
+        Assertions.assertThrows(NumberFormatException.class, () -> spellingEngine.spell("1.2.3"));
+
+        String withLongFractionPart = "42." + "0".repeat(60) + "123456789";
+        Assertions.assertEquals(spellingEngine.spell(new BigDecimal(withLongFractionPart)), spellingEngine.spell(withLongFractionPart));
+        Assertions.assertThrows(IllegalArgumentException.class, () -> spellingEngine.spell("1" + "0".repeat(66)));
+        Assertions.assertThrows(IllegalArgumentException.class, () -> spellingEngine.spell("0." + "0".repeat(65) + "1"));
+
+        Random random = new Random(42);
+        for (int i = 0; i < 10_000; i++) {
+            BigDecimal n = new BigDecimal(new BigInteger(random.nextInt(150), random), random.nextInt(50) - 3);
+            Assertions.assertEquals(spellingEngine.spell(n), spellingEngine.spell(n.toPlainString()), "Wrong result for " + n);
+        }
+    }
+
+    @Test
+    public void testSpellTo() throws IOException {
+        StringBuilder res = new StringBuilder("Итого: ");
+        spellingEngine.spellTo(res, 1_024_111).append("; ");
+        spellingEngine.spellTo(res, new BigDecimal("-42.42")).append("; ");
+        spellingEngine.spellTo(res, "0.001").append("; ");
+        spellingEngine.spellOrdinalTo(res, 42_000, Gender.MALE).append("; ");
+        spellingEngine.spellTo(res, 0);
+        Assertions.assertEquals("Итого: один миллион двадцать четыре тысячи сто одиннадцать; " +
+                "минус сорок две целых сорок две сотых; ноль целых одна тысячная; сорокадвухтысячный; ноль", res.toString());
+
+        StringWriter writer = new StringWriter();
+        spellingEngine.spellTo(writer, 21).append(' ');
+        spellingEngine.spellOrdinalTo(writer, 2_000_001_002, Gender.FEMALE);
+        Assertions.assertEquals("двадцать один два миллиарда одна тысяча вторая", writer.toString());
+    }
+
+    @Test
+    public void testSpellInCase() {
+        Map<String, String[]> expected = TestUtils.load("numerals.txt").stream()
+                .collect(Collectors.toMap(x -> x[0], x -> x, (a, b) -> a));
+        Stream.concat(IntStream.concat(IntStream.rangeClosed(2, 20), IntStream.rangeClosed(3, 9).map(x -> x * 10))
+                                .mapToObj(String::valueOf),
+                        Stream.of("0", "100", "200", "300", "400", "500", "600", "700", "800", "900",
+                                "523914262124", "2000000000000", "-824.0987654321234", "1.848888", "1234567.89", "0.1",
+                                "42.42", "1000000.01", "1.1", "420.042", "420000.0042", "2000000.2", "100056.21"))
+                .map(BigDecimal::new)
+                .forEach(number -> {
+                    String[] forms = expected.get(spellingEngine.spell(number));
+                    Assertions.assertNotNull(forms, "No test data for " + number);
+                    for (Case declension : Case.values()) {
+                        Assertions.assertEquals(forms[declension.ordinal()], spellingEngine.spell(number, declension));
+                    }
+                });
+        Map.of(201_000L, Gender.MALE, 2_000_000L, Gender.FEMALE, 2_000_001_002L, Gender.NEUTER, 1_254L, Gender.MALE)
+                .forEach((number, gender) -> {
+                    BigInteger n = BigInteger.valueOf(number);
+                    String[] forms = expected.get(spellingEngine.spellOrdinal(n, gender));
+                    Assertions.assertNotNull(forms, "No test data for " + number);
+                    for (Case declension : Case.values()) {
+                        Assertions.assertEquals(forms[declension.ordinal()],
+                                spellingEngine.spellOrdinal(n, gender, declension, false));
+                    }
+                });
+        Assertions.assertEquals("сорок второго",
+                spellingEngine.spellOrdinal(BigInteger.valueOf(42), Gender.MALE, Case.ACCUSATIVE, true));
+        Assertions.assertEquals("двадцать третью",
+                spellingEngine.spellOrdinal(BigInteger.valueOf(23), Gender.FEMALE, Case.ACCUSATIVE, true));
+        Assertions.assertEquals("нулевым", spellingEngine.spellOrdinal(BigInteger.ZERO, Gender.NEUTER, Case.INSTRUMENTAL, false));
+        Assertions.assertEquals("двадцатью пятью тысячами", spellingEngine.spell(BigDecimal.valueOf(25_000), Case.INSTRUMENTAL));
+    }
+
+    @Test
+    public void testSpellMoney() {
+        Assertions.assertEquals("сорок один рубль ноль копеек",
+                spellingEngine.spellMoney(new BigDecimal("41"), "RUB", Case.NOMINATIVE));
+        Assertions.assertEquals("сорока двух рублей пятидесяти копеек",
+                spellingEngine.spellMoney(new BigDecimal("42.5"), "rub", Case.GENITIVE));
+        Assertions.assertEquals("двенадцать тысяч двести двадцать один рубль двадцать одна копейка",
+                spellingEngine.spellMoney(new BigDecimal("12221.21"), Currency.RUB, Case.NOMINATIVE));
+        Assertions.assertEquals("двенадцатью тысячами двумястами двадцатью одним рублём двумя копейками",
+                spellingEngine.spellMoney(new BigDecimal("12221.015"), Currency.RUB, Case.INSTRUMENTAL));
+        Assertions.assertEquals("минус одну тысячу двадцать четыре доллара одиннадцать центов",
+                spellingEngine.spellMoney(new BigDecimal("-1024.11"), "USD", Case.ACCUSATIVE));
+        Assertions.assertEquals("нолём евро тремя центами",
+                spellingEngine.spellMoney(new BigDecimal("0.03"), "EUR", Case.INSTRUMENTAL));
+        Assertions.assertEquals("десяти тысячам рублям нолю копеек",
+                spellingEngine.spellMoney(new BigDecimal("10000"), "RUB", Case.DATIVE));
+
+        Currency.register(new Currency("KZT",
+                new CaseForms(new String[]{"тенге", "тенге", "тенге", "тенге", "тенге", "тенге"},
+                        new String[]{"тенге", "тенге", "тенге", "тенге", "тенге", "тенге"}), Gender.MALE,
+                null, null, 0));
+        Assertions.assertEquals("двадцати одного тенге",
+                spellingEngine.spellMoney(new BigDecimal("20.6"), "KZT", Case.GENITIVE));
+        Assertions.assertNotNull(Currency.unregister("kzt"));
+        Assertions.assertThrows(IllegalArgumentException.class,
+                () -> spellingEngine.spellMoney(BigDecimal.ONE, "KZT", Case.NOMINATIVE));
+        Assertions.assertThrows(IllegalArgumentException.class,
+                () -> spellingEngine.spellMoney(BigDecimal.ONE, "XXX", Case.NOMINATIVE));
+    }
+
+    private SpellingEngine minimalEngine() {
+        // implements only the abstract methods, so the defaults of the interface are used
+        return new SpellingEngine() {
+            @Override
+            public String spell(BigDecimal number) {
+                return spellingEngine.spell(number);
+            }
+
+            @Override
+            public String spellOrdinal(BigInteger number, Gender gender) {
+                return spellingEngine.spellOrdinal(number, gender);
+            }
+
+            @Override
+            public InflectionEngine inflectionEngine() {
+                return GrammarTools.getInflectionEngine();
+            }
+        };
+    }
+
+    @Test
+    public void testDefaultSpellOrdinalInCase() {
+        SpellingEngine engine = minimalEngine();
+        Stream.of(1L, 2L, 42L, 100L, 2042L, 40_000L, 1_000_000L, 1_000_002L).map(BigInteger::valueOf)
+                .forEach(n -> {
+                    for (Gender g : Gender.values()) {
+                        for (Case c : Case.values()) {
+                            for (boolean animate : new boolean[]{false, true}) {
+                                Assertions.assertEquals(spellingEngine.spellOrdinal(n, g, c, animate),
+                                        engine.spellOrdinal(n, g, c, animate),
+                                        "Wrong ordinal: " + n + " " + g + " " + c + " " + animate);
+                            }
+                        }
+                    }
+                });
+        Assertions.assertEquals("две тысячи сорок второму",
+                engine.spellOrdinal(BigInteger.valueOf(2042), Gender.MALE, Case.DATIVE, false));
+        Assertions.assertEquals("второго",
+                engine.spellOrdinal(BigInteger.valueOf(2), Gender.MALE, Case.ACCUSATIVE, true));
+        Assertions.assertEquals("второй",
+                engine.spellOrdinal(BigInteger.valueOf(2), Gender.MALE, Case.ACCUSATIVE, false));
+    }
+
+    @Test
+    public void testDefaultWithoutInflectionEngine() {
+        SpellingEngine engine = new SpellingEngine() {
+            @Override
+            public String spell(BigDecimal number) {
+                return spellingEngine.spell(number);
+            }
+
+            @Override
+            public String spellOrdinal(BigInteger number, Gender gender) {
+                return spellingEngine.spellOrdinal(number, gender);
+            }
+        };
+        Assertions.assertEquals("двадцать пять тысяч", engine.spell(BigDecimal.valueOf(25_000), Case.NOMINATIVE));
+        Assertions.assertThrows(UnsupportedOperationException.class,
+                () -> engine.spell(BigDecimal.valueOf(25_000), Case.INSTRUMENTAL));
+        Assertions.assertThrows(UnsupportedOperationException.class,
+                () -> engine.spellMoney(BigDecimal.ONE, Currency.RUB, Case.GENITIVE));
+        Assertions.assertThrows(UnsupportedOperationException.class,
+                () -> engine.spellOrdinal(BigInteger.TWO, Gender.MALE, Case.DATIVE, false));
+    }
+
+    @Test
+    public void testDefaultSpellInCase() {
+        SpellingEngine engine = minimalEngine();
+        Stream.of("0", "1", "2", "5", "11", "21", "24", "100", "1000", "2001", "12345", "25000", "1000000", "0.5", "3.75", "-1")
+                .map(BigDecimal::new)
+                .forEach(n -> {
+                    for (Case c : Case.values()) {
+                        Assertions.assertEquals(spellingEngine.spell(n, c), engine.spell(n, c), "Wrong spell: " + n + " " + c);
+                    }
+                });
+        Assertions.assertEquals("двадцатью пятью тысячами", engine.spell(BigDecimal.valueOf(25_000), Case.INSTRUMENTAL));
+    }
+
+    @Test
+    public void testDefaultSpellMoney() {
+        SpellingEngine engine = minimalEngine();
+        // the currency without minor unit, so only the nouns from the test dictionary are involved
+        Currency rubles = new Currency("RUB", Currency.RUB.major(), Gender.MALE, null, null, 0);
+        Stream.of("0", "1", "2", "5", "11", "21", "42.5", "43.5", "101", "1001", "2000", "5000000", "-7", "-0.4")
+                .map(BigDecimal::new)
+                .forEach(n -> {
+                    for (Case c : Case.values()) {
+                        Assertions.assertEquals(spellingEngine.spellMoney(n, rubles, c), engine.spellMoney(n, rubles, c),
+                                "Wrong money: " + n + " " + c);
+                    }
+                });
+        Assertions.assertEquals("сорока двух рублей", engine.spellMoney(new BigDecimal("42.5"), rubles, Case.GENITIVE));
+    }
+
+    @Test
+    public void testFormat() {
+        Unit cat = new Unit("кот", new CaseForms(new String[]{"кот", "кота", "коту", "кота", "котом", "коте"},
+                new String[]{"коты", "котов", "котам", "котов", "котами", "котах"}), Gender.MALE, true);
+        Unit piece = new Unit("штука", new CaseForms(new String[]{"штука", "штуки", "штуке", "штуку", "штукой", "штуке"},
+                new String[]{"штуки", "штук", "штукам", "штуки", "штуками", "штуках"}), Gender.FEMALE, false);
+        Assertions.assertEquals("двадцать одна штука", spellingEngine.format(new BigDecimal("21"), piece, Case.NOMINATIVE));
+        Assertions.assertEquals("двадцать две штуки", spellingEngine.format(new BigDecimal("22"), piece, Case.ACCUSATIVE));
+        Assertions.assertEquals("двадцати двух штук", spellingEngine.format(new BigDecimal("22"), piece, Case.GENITIVE));
+        Assertions.assertEquals("пятью тысячами штуками", spellingEngine.format(new BigDecimal("5000"), piece, Case.INSTRUMENTAL));
+        Assertions.assertEquals("ноль штук", spellingEngine.format(BigDecimal.ZERO, piece, Case.NOMINATIVE));
+        Assertions.assertEquals("двух котов", spellingEngine.format(new BigDecimal("2"), cat, Case.ACCUSATIVE));
+        Assertions.assertEquals("две тысячи одного кота", spellingEngine.format(new BigDecimal("2001"), cat, Case.ACCUSATIVE));
+        Assertions.assertEquals("пять котов", spellingEngine.format(new BigDecimal("5"), cat, Case.ACCUSATIVE));
+        Assertions.assertEquals("минус двумя целыми пятью десятыми кота",
+                spellingEngine.format(new BigDecimal("-2.5"), cat, Case.INSTRUMENTAL));
+        Assertions.assertEquals("одна целая двадцать пять сотых штуки",
+                spellingEngine.format(new BigDecimal("1.25"), piece, Case.NOMINATIVE));
+
+        Unit.register(piece);
+        Assertions.assertSame(piece, Unit.of("штука"));
+        Assertions.assertEquals("сорока одной штуке", spellingEngine.format(new BigDecimal("41"), "штука", Case.DATIVE));
+        Assertions.assertSame(piece, Unit.unregister("штука"));
+        Assertions.assertNull(Unit.unregister("штука"));
+    }
+
+    @Test
+    public void testInflectNumeralWithRegisteredUnit() {
+        InflectionEngine inflectionEngine = GrammarTools.getInflectionEngine();
+        String[] abbreviations = {"шт.", "шт.", "шт.", "шт.", "шт.", "шт."};
+        Unit.register(new Unit("штука", new CaseForms(abbreviations, abbreviations), Gender.FEMALE, false));
+        // the unit is not analyzed, its forms are taken from the registry
+        Assertions.assertEquals("две шт.", inflectionEngine.inflectNumeral("два", "штука", Case.NOMINATIVE));
+        Assertions.assertEquals("сорока одной шт.", inflectionEngine.inflectNumeral("сорок один", "штука", Case.DATIVE));
+    }
+
+    @Test
+    public void testFormatSameAsInflectNumeral() {
+        InflectionEngine inflectionEngine = GrammarTools.getInflectionEngine();
+        for (String unit : new String[]{"рубль", "календарный день", "рабочий день", "общество"}) {
+            Unit prepared = inflectionEngine.prepareUnit(unit);
+            Assertions.assertEquals(unit, prepared.forms().get(Case.NOMINATIVE));
+            Stream.of("0", "1", "2", "5", "11", "21", "24", "100", "1000", "2001", "12345", "0.5", "3.75", "-1")
+                    .map(BigDecimal::new)
+                    .forEach(n -> {
+                        for (Case c : Case.values()) {
+                            Assertions.assertEquals(inflectionEngine.inflectNumeral(spellingEngine.spell(n), unit, c),
+                                    spellingEngine.format(n, prepared, c), "Wrong format: " + n + " " + unit + " " + c);
+                        }
+                    });
+        }
+        Assertions.assertEquals("рабочие дни",
+                inflectionEngine.prepareUnit("рабочий день").forms().getPlural(Case.NOMINATIVE));
+    }
+
+    @Test
+    public void testFormatAnimateAccusative() {
+        InflectionEngine inflectionEngine = GrammarTools.getInflectionEngine();
+        Unit bird = inflectionEngine.prepareUnit("птица");
+        // only the last triple is animate
+        Assertions.assertEquals("две тысячи птиц", spellingEngine.format(new BigDecimal("2000"), bird, Case.ACCUSATIVE));
+        Assertions.assertEquals("две тысячи двух птиц", spellingEngine.format(new BigDecimal("2002"), bird, Case.ACCUSATIVE));
+        Assertions.assertEquals("двух птиц", spellingEngine.format(new BigDecimal("2"), bird, Case.ACCUSATIVE));
+        // inflectNumeral declines the round numerals too
+        Assertions.assertEquals("двух тысячи птиц", inflectionEngine.inflectNumeral("две тысячи", "птица", Case.ACCUSATIVE));
+        Assertions.assertEquals("двух тысячи птиц", minimalEngine().format(new BigDecimal("2000"), bird, Case.ACCUSATIVE));
+    }
+
+    @Test
+    public void testDefaultFormat() {
+        SpellingEngine engine = minimalEngine();
+        InflectionEngine inflectionEngine = GrammarTools.getInflectionEngine();
+        for (String unit : new String[]{"рубль", "календарный день", "общество"}) {
+            Unit prepared = inflectionEngine.prepareUnit(unit);
+            Stream.of("0", "1", "2", "5", "11", "21", "1000", "2001", "0.5", "-1")
+                    .map(BigDecimal::new)
+                    .forEach(n -> {
+                        for (Case c : Case.values()) {
+                            Assertions.assertEquals(spellingEngine.format(n, prepared, c), engine.format(n, prepared, c),
+                                    "Wrong format: " + n + " " + unit + " " + c);
+                        }
+                    });
+        }
+    }
+
+    @Test
+    public void testSameAsBeforeTables() {
+        for (String[] data : TestUtils.load("spelled_numbers.txt")) {
+            BigDecimal number = new BigDecimal(data[0]);
+            Assertions.assertEquals(data[1], spellingEngine.spell(number), "Wrong cardinal: " + number);
+            Assertions.assertEquals(data[1], spellingEngine.spell(data[0]), "Wrong cardinal: " + number);
+            if (data.length == 2) {
+                continue;
+            }
+            BigInteger n = number.toBigIntegerExact();
+            Assertions.assertEquals(data[2], spellingEngine.spellOrdinal(n, Gender.FEMALE), "Wrong ordinal: " + number);
+            Assertions.assertEquals(data[3], spellingEngine.spellOrdinal(n, Gender.NEUTER), "Wrong ordinal: " + number);
+            Assertions.assertEquals(data[4], spellingEngine.spellOrdinal(n, Gender.MALE), "Wrong ordinal: " + number);
+            if (n.bitLength() < Long.SIZE) {
+                Assertions.assertEquals(data[1], spellingEngine.spell(n.longValue()), "Wrong cardinal: " + number);
+                Assertions.assertEquals(data[4], spellingEngine.spellOrdinal(n.longValue(), Gender.MALE), "Wrong ordinal: " + number);
+            }
+        }
+    }
+
+    @Test
+    public void testLongSameAsBigDecimal() {
+        Random random = new Random(42);
+        LongStream.concat(LongStream.rangeClosed(-1_100, 21_000),
+                        LongStream.concat(LongStream.of(Long.MAX_VALUE, Long.MIN_VALUE, Long.MIN_VALUE + 1, 1_000_000_000_000L),
+                                random.longs(10_000).map(x -> x >> random.nextInt(64))))
+                .forEach(x -> {
+                    Assertions.assertEquals(spellingEngine.spell(BigDecimal.valueOf(x)), spellingEngine.spell(x));
+                    if (x < 0) {
+                        return;
+                    }
+                    for (Gender g : Gender.values()) {
+                        Assertions.assertEquals(spellingEngine.spellOrdinal(BigInteger.valueOf(x), g),
+                                spellingEngine.spellOrdinal(x, g), "Wrong ordinal: " + x);
+                    }
+                });
+        Assertions.assertThrows(IllegalArgumentException.class, () -> spellingEngine.spellOrdinal(-1, Gender.MALE));
+    }
+
     @Test
     public void testOrdinalFemale() {
         Assertions.assertEquals("нулевая", spellingEngine.spellOrdinal(0, Gender.FEMALE));
@@ -0,0 +1,128 @@
+package pro.greendata.rugrammartools.cli;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.io.StringReader;
+import java.io.StringWriter;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+public class BatchToolTest {
+
+    private static String run(String input, ByteArrayOutputStream err, String... args) {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        int code = BatchTool.run(args, new ByteArrayInputStream(input.getBytes(StandardCharsets.UTF_8)), out,
+                new PrintStream(err, true, StandardCharsets.UTF_8));
+        Assertions.assertEquals(0, code, err.toString(StandardCharsets.UTF_8));
+        return out.toString(StandardCharsets.UTF_8);
+    }
+
+    @Test
+    public void testReadWriteCsv() throws IOException {
+        String csv = "a,\"b,c\",\"d\"\"e\"\r\n\"multi\nline\",,x\n";
+        Delimited.RowReader reader = new Delimited.RowReader(new StringReader(csv), ',');
+        List<List<String>> rows = new ArrayList<>();
+        List<String> row;
+        while ((row = reader.read()) != null) {
+            rows.add(row);
+        }
+        Assertions.assertEquals(List.of(List.of("a", "b,c", "d\"e"), List.of("multi\nline", "", "x")), rows);
+
+        StringWriter res = new StringWriter();
+        Delimited.RowWriter writer = new Delimited.RowWriter(res, ',');
+        rows.forEach(writer::write);
+        writer.flush();
+        Assertions.assertEquals("a,\"b,c\",\"d\"\"e\"\n\"multi\nline\",,x\n", res.toString());
+    }
+
+    @Test
+    public void testReadTsv() throws IOException {
+        Delimited.RowReader reader = new Delimited.RowReader(new StringReader("ООО \"Ромашка\"\t\"5\"\n"), '\t');
+        Assertions.assertEquals(List.of("ООО \"Ромашка\"", "\"5\""), reader.read());
+        Assertions.assertNull(reader.read());
+    }
+
+    @Test
+    public void testSpellNumbers() {
+        ByteArrayOutputStream err = new ByteArrayOutputStream();
+        String res = run("id;amount\n1;42\n2;1 000,5\n3;\n4;xxx\n", err,
+                "--header", "-d", ";", "-c", "nominative", "--batch-size", "2", "amount:number");
+        Assertions.assertEquals("id;amount;amount_NOMINATIVE\n" +
+                "1;42;сорок два\n" +
+                "2;1 000,5;одна тысяча целых пять десятых\n" +
+                "3;;\n" +
+                "4;xxx;\n", res);
+        String log = err.toString(StandardCharsets.UTF_8);
+        Assertions.assertTrue(log.contains("rows: 4, cells: 4, errors: 1"), log);
+    }
+
+    @Test
+    public void testLargeInput() {
+        StringBuilder input = new StringBuilder();
+        for (int i = 0; i < 20_000; i++) {
+            input.append(i % 100).append('\t').append("x").append('\n');
+        }
+        ByteArrayOutputStream err = new ByteArrayOutputStream();
+        String res = run(input.toString(), err, "-d", "tab", "-c", "NOMINATIVE", "-t", "2", "1:number");
+        String[] lines = res.split("\n");
+        Assertions.assertEquals(20_000, lines.length);
+        Assertions.assertEquals("0\tx\tноль", lines[0]);
+        Assertions.assertEquals("99\tx\tдевяносто девять", lines[19_999]);
+        Assertions.assertTrue(err.toString(StandardCharsets.UTF_8).contains("errors: 0"));
+    }
+
+    @Test
+    public void testWrongArguments() {
+        ByteArrayOutputStream err = new ByteArrayOutputStream();
+        PrintStream log = new PrintStream(err, true, StandardCharsets.UTF_8);
+        ByteArrayInputStream in = new ByteArrayInputStream(new byte[0]);
+        Assertions.assertEquals(2, BatchTool.run(new String[]{}, in, new ByteArrayOutputStream(), log));
+        Assertions.assertEquals(2, BatchTool.run(new String[]{"1:color"}, in, new ByteArrayOutputStream(), log));
+        Assertions.assertEquals(2, BatchTool.run(new String[]{"-c", "x", "1:number"}, in, new ByteArrayOutputStream(), log));
+        Assertions.assertEquals(2, BatchTool.run(new String[]{"1:unit"},
+                new ByteArrayInputStream("a\n".getBytes()), new ByteArrayOutputStream(), log));
+        Assertions.assertTrue(err.toString(StandardCharsets.UTF_8).contains("Usage: BatchTool"));
+    }
+
+    @Test
+    public void testShortRows() {
+        ByteArrayOutputStream err = new ByteArrayOutputStream();
+        String res = run("id;amount;unit\n1;2; \n\n3\n4;5;\n", err,
+                "--header", "-d", ";", "-c", "nominative", "amount:number", "unit:unit");
+        Assertions.assertEquals("id;amount;unit;amount_NOMINATIVE;unit_NOMINATIVE\n" +
+                "1;2; ;два;\n" +
+                ";;;;\n" +
+                "3;;;;\n" +
+                "4;5;;пять;\n", res);
+        String log = err.toString(StandardCharsets.UTF_8);
+        Assertions.assertTrue(log.contains("rows: 4, cells: 8, errors: 0"), log);
+    }
+
+    @Test
+    public void testOutputError() {
+        StringBuilder input = new StringBuilder();
+        for (int i = 0; i < 20_000; i++) {
+            input.append(i % 100).append('\n');
+        }
+        OutputStream out = new OutputStream() {
+            @Override
+            public void write(int b) throws IOException {
+                throw new IOException("Broken pipe");
+            }
+        };
+        ByteArrayOutputStream err = new ByteArrayOutputStream();
+        int code = BatchTool.run(new String[]{"-c", "NOMINATIVE", "-b", "100", "1:number"},
+                new ByteArrayInputStream(input.toString().getBytes(StandardCharsets.UTF_8)), out,
+                new PrintStream(err, true, StandardCharsets.UTF_8));
+        Assertions.assertEquals(1, code);
+        Assertions.assertTrue(err.toString(StandardCharsets.UTF_8).contains("I/O error: Broken pipe"),
+                err.toString(StandardCharsets.UTF_8));
+    }
+}
@@ -0,0 +1,147 @@
+package pro.greendata.rugrammartools.impl;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import pro.greendata.rugrammartools.Case;
+import pro.greendata.rugrammartools.Gender;
+import pro.greendata.rugrammartools.PreparedPhrase;
+import pro.greendata.rugrammartools.impl.utils.BatchUtils;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+public class BatchUtilsTest {
+
+    @Test
+    public void testOrderAndDeduplication() {
+        List<String> inputs = IntStream.range(0, 100_000).mapToObj(i -> "x" + (i * 7 % 1000))
+                .collect(Collectors.toList());
+        Map<String, AtomicInteger> calls = new ConcurrentHashMap<>();
+        Set<String> threads = ConcurrentHashMap.newKeySet();
+        ExecutorService executor = Executors.newFixedThreadPool(4);
+        List<String> actual;
+        try {
+            actual = BatchUtils.map(inputs, x -> {
+                calls.computeIfAbsent(x, k -> new AtomicInteger()).incrementAndGet();
+                threads.add(Thread.currentThread().getName());
+                return x.toUpperCase();
+            }, executor);
+        } finally {
+            executor.shutdown();
+        }
+        Assertions.assertEquals(inputs.stream().map(String::toUpperCase).collect(Collectors.toList()), actual);
+        Assertions.assertEquals(1000, calls.size());
+        Assertions.assertTrue(calls.values().stream().allMatch(x -> x.get() == 1));
+        Assertions.assertTrue(threads.stream().allMatch(x -> x.startsWith("pool-")), "Wrong threads: " + threads);
+    }
+
+    @Test
+    public void testSmallBatch() {
+        List<String> inputs = List.of("b", "a", "b");
+        String thread = Thread.currentThread().getName();
+        Assertions.assertEquals(List.of("B", "A", "B"), BatchUtils.map(inputs, x -> {
+            Assertions.assertEquals(thread, Thread.currentThread().getName());
+            return x.toUpperCase();
+        }, ForkJoinPool.commonPool()));
+        Assertions.assertEquals(List.of(), BatchUtils.map(List.<String>of(), String::toUpperCase, ForkJoinPool.commonPool()));
+    }
+
+    @Test
+    public void testException() {
+        List<String> inputs = new ArrayList<>();
+        for (int i = 0; i < 10_000; i++) {
+            inputs.add(i == 5000 ? "" : "x" + i);
+        }
+        Assertions.assertThrows(IllegalArgumentException.class, () -> BatchUtils.map(inputs, x -> {
+            if (x.isEmpty()) {
+                throw new IllegalArgumentException();
+            }
+            return x;
+        }, ForkJoinPool.commonPool()));
+    }
+
+    @Test
+    public void testInflectFirstnames() {
+        InflectionEngineImpl engine = new InflectionEngineImpl(null);
+        List<String> names = List.of("Петр", "Иван", "Петр", "Сергей", "Иван");
+        List<String> inputs = IntStream.range(0, 5000).mapToObj(i -> names.get(i % names.size()))
+                .collect(Collectors.toList());
+        List<String> actual = BatchUtils.map(inputs, x -> engine.inflectFirstname(x, Case.DATIVE, Gender.MALE),
+                ForkJoinPool.commonPool());
+        Assertions.assertEquals(inputs.size(), actual.size());
+        for (int i = 0; i < inputs.size(); i++) {
+            Assertions.assertEquals(engine.inflectFirstname(inputs.get(i), Case.DATIVE, Gender.MALE), actual.get(i));
+        }
+    }
+
+    @Test
+    public void testInflectFullnames() {
+        Map<String, AtomicInteger> calls = new ConcurrentHashMap<>();
+        InflectionEngineImpl engine = new InflectionEngineImpl(null) {
+            @Override
+            public String inflectFullname(String sfp, Case declension) {
+                calls.computeIfAbsent(sfp, k -> new AtomicInteger()).incrementAndGet();
+                return super.inflectFullname(sfp, declension);
+            }
+        };
+        List<String> names = List.of("Петров Петр Петрович", "Иванова Мария Ивановна", "Петров Петр Петрович");
+        List<String> inputs = IntStream.range(0, 3000).mapToObj(i -> names.get(i % names.size()))
+                .collect(Collectors.toList());
+        List<String> actual = engine.inflectFullnames(inputs, Case.GENITIVE);
+        Assertions.assertEquals(inputs.size(), actual.size());
+        for (int i = 0; i < inputs.size(); i++) {
+            Assertions.assertEquals(i % names.size() == 1 ? "Ивановой Марии Ивановны" : "Петрова Петра Петровича",
+                    actual.get(i));
+        }
+        Assertions.assertEquals(2, calls.size());
+        Assertions.assertTrue(calls.values().stream().allMatch(x -> x.get() == 1), "Calls: " + calls);
+
+        List<String> wrong = new ArrayList<>(inputs);
+        wrong.set(1500, "Петров Петр Петрович Иванов");
+        Assertions.assertThrows(IllegalArgumentException.class, () -> engine.inflectFullnames(wrong, Case.GENITIVE));
+    }
+
+    @Test
+    public void testInflectPhrases() {
+        InflectionEngineImpl engine = new InflectionEngineImpl(null);
+        List<String> phrases = List.of("главный бухгалтер", "директор", "главный бухгалтер", "сестра");
+        List<String> inputs = IntStream.range(0, 2000).mapToObj(i -> phrases.get(i % phrases.size()))
+                .collect(Collectors.toList());
+        for (PreparedPhrase.Type type : PreparedPhrase.Type.values()) {
+            List<String> actual = engine.inflectPhrases(inputs, type, Case.DATIVE, ForkJoinPool.commonPool());
+            Assertions.assertEquals(inputs.size(), actual.size());
+            for (int i = 0; i < inputs.size(); i++) {
+                Assertions.assertEquals(engine.prepare(inputs.get(i), type).inflect(Case.DATIVE), actual.get(i),
+                        "Wrong result for " + type + " at " + i);
+            }
+        }
+        Assertions.assertEquals(List.of("главному бухгалтеру", "директору"),
+                engine.inflectPhrases(List.of("главный бухгалтер", "директор"), PreparedPhrase.Type.PROFESSION_NAME, Case.DATIVE));
+
+        InflectionEngineImpl failing = new InflectionEngineImpl(null) {
+            @Override
+            public String inflectRegularTerm(String phrase, Case declension, Boolean animate) {
+                if (phrase.isEmpty()) {
+                    throw new IllegalStateException();
+                }
+                return super.inflectRegularTerm(phrase, declension, animate);
+            }
+        };
+        List<String> wrong = new ArrayList<>(inputs);
+        wrong.set(1000, "");
+        Assertions.assertThrows(IllegalStateException.class,
+                () -> failing.inflectPhrases(wrong, PreparedPhrase.Type.REGULAR_TERM, Case.DATIVE));
+        Assertions.assertThrows(NullPointerException.class,
+                () -> engine.inflectPhrases(Arrays.asList("директор", null), null, Case.DATIVE));
+    }
+}
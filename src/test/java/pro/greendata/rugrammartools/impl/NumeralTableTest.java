@@ -0,0 +1,57 @@
+package pro.greendata.rugrammartools.impl;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import pro.greendata.rugrammartools.Case;
+import pro.greendata.rugrammartools.Gender;
+
+public class NumeralTableTest {
+
+    @Test
+    public void testCardinalAtoms() {
+        Assertions.assertEquals("двумястами", NumeralTable.cardinal("двести", Case.INSTRUMENTAL, false));
+        Assertions.assertEquals("восьмьюдесятью", NumeralTable.cardinal("восемьдесят", Case.INSTRUMENTAL, false));
+        Assertions.assertEquals("шестнадцати", NumeralTable.cardinal("шестнадцать", Case.PREPOSITIONAL, false));
+        Assertions.assertEquals("одну", NumeralTable.cardinal("одна", Case.ACCUSATIVE, false));
+        Assertions.assertEquals("один", NumeralTable.cardinal("один", Case.ACCUSATIVE, false));
+        Assertions.assertEquals("одного", NumeralTable.cardinal("один", Case.ACCUSATIVE, true));
+        Assertions.assertEquals("двух", NumeralTable.cardinal("две", Case.ACCUSATIVE, true));
+        Assertions.assertEquals("пять", NumeralTable.cardinal("пять", Case.ACCUSATIVE, true));
+        Assertions.assertEquals("нолём", NumeralTable.cardinal("ноль", Case.INSTRUMENTAL, false));
+        Assertions.assertNull(NumeralTable.cardinal("рубль", Case.GENITIVE, false));
+    }
+
+    @Test
+    public void testCardinalNouns() {
+        Assertions.assertEquals("тысячей", NumeralTable.cardinal("тысяча", Case.INSTRUMENTAL, false));
+        Assertions.assertEquals("тысяч", NumeralTable.cardinal("тысячи", Case.GENITIVE, false));
+        Assertions.assertEquals("тысячи", NumeralTable.cardinal("тысячи", Case.ACCUSATIVE, false));
+        Assertions.assertEquals("тысячам", NumeralTable.cardinal("тысяч", Case.DATIVE, false));
+        Assertions.assertEquals("миллиардов", NumeralTable.cardinal("миллиарда", Case.GENITIVE, false));
+        Assertions.assertEquals("миллионами", NumeralTable.cardinal("миллионов", Case.INSTRUMENTAL, false));
+        Assertions.assertEquals("вигинтиллионе", NumeralTable.cardinal("вигинтиллион", Case.PREPOSITIONAL, false));
+    }
+
+    @Test
+    public void testFractions() {
+        Assertions.assertEquals("целую", NumeralTable.cardinal("целая", Case.ACCUSATIVE, false));
+        Assertions.assertEquals("целыми", NumeralTable.cardinal("целых", Case.INSTRUMENTAL, false));
+        Assertions.assertEquals("десятитысячным", NumeralTable.cardinal("десятитысячных", Case.DATIVE, false));
+        Assertions.assertEquals("стомиллионной", NumeralTable.cardinal("стомиллионная", Case.GENITIVE, false));
+        Assertions.assertEquals("сотая", NumeralTable.fractionPart(2).get(Case.NOMINATIVE));
+        Assertions.assertEquals("тысячных", NumeralTable.fractionPart(3).getPlural(Case.GENITIVE));
+        Assertions.assertEquals("стовигинтиллионная", NumeralTable.fractionPart(65).get(Case.NOMINATIVE));
+    }
+
+    @Test
+    public void testOrdinals() {
+        Assertions.assertEquals("третьему", NumeralTable.ordinal("третий", Case.DATIVE, false));
+        Assertions.assertEquals("третью", NumeralTable.ordinal("третья", Case.ACCUSATIVE, false));
+        Assertions.assertEquals("второй", NumeralTable.ordinal("второй", Case.ACCUSATIVE, false));
+        Assertions.assertEquals("второго", NumeralTable.ordinal("второй", Case.ACCUSATIVE, true));
+        Assertions.assertEquals("двухсотоднотысячным", NumeralTable.ordinal("двухсотоднотысячное", Case.INSTRUMENTAL, true));
+        Assertions.assertEquals("сороковой", NumeralTable.ordinal("сороковая", Case.PREPOSITIONAL, false));
+        Assertions.assertEquals("седьмом", NumeralTable.ordinal("седьмой", Gender.MALE, Case.PREPOSITIONAL, false));
+        Assertions.assertNull(NumeralTable.ordinal("вторые", Case.DATIVE, false));
+    }
+}
@@ -0,0 +1,145 @@
+package pro.greendata.rugrammartools.impl;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import pro.greendata.rugrammartools.Case;
+import pro.greendata.rugrammartools.Gender;
+import pro.greendata.rugrammartools.impl.dictionaries.Dictionary;
+import pro.greendata.rugrammartools.impl.dictionaries.DictionaryOverlay;
+
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+public class PhraseCacheTest {
+    private static final String HEADER = "bare\taccented\ttranslations_en\ttranslations_de\tgender\tpartner\tanimate" +
+            "\tindeclinable\tsg_only\tpl_only\tsg_nom\tsg_gen\tsg_dat\tsg_acc\tsg_inst\tsg_prep" +
+            "\tpl_nom\tpl_gen\tpl_dat\tpl_acc\tpl_inst\tpl_prep";
+    private static final String BLOCKCHAIN = "блокчейн\tблокче'йн\tblockchain\t\tm\t\t0\t%s\t0\t0" +
+            "\tблокче'йн\tблокче'йна\tблокче'йну\tблокче'йн\tблокче'йном\tблокче'йне" +
+            "\tблокче'йны\tблокче'йнов\tблокче'йнам\tблокче'йны\tблокче'йнами\tблокче'йнах";
+
+    private static PhraseCache.Key key(String text) {
+        return PhraseCache.key(text, 0, RuleType.GENERIC, Case.GENITIVE, null, null, null);
+    }
+
+    @Test
+    public void testPreservesCase() {
+        InflectionEngineImpl plain = new InflectionEngineImpl(null);
+        InflectionEngineImpl engine = new InflectionEngineImpl(new PhraseCache(100));
+        Assertions.assertEquals("Петра", engine.inflectFirstname("Петр", Case.GENITIVE, Gender.MALE));
+        Assertions.assertEquals(0, engine.cache().hitCount());
+        Assertions.assertEquals(1, engine.cache().missCount());
+        for (String name : new String[]{"петр", "ПЕТР", " Петр"}) {
+            Assertions.assertEquals(plain.inflectFirstname(name, Case.GENITIVE, Gender.MALE),
+                    engine.inflectFirstname(name, Case.GENITIVE, Gender.MALE));
+        }
+        Assertions.assertEquals(3, engine.cache().hitCount());
+        Assertions.assertEquals(1, engine.cache().size());
+        // other parameters - other key
+        Assertions.assertEquals("Петру", engine.inflectFirstname("Петр", Case.DATIVE, Gender.MALE));
+        Assertions.assertEquals(2, engine.cache().missCount());
+    }
+
+    @Test
+    public void testCaseShape() {
+        Assertions.assertEquals(0, InflectionEngineImpl.caseShape("главный бухгалтер"));
+        Assertions.assertEquals(2 | 2 << 2, InflectionEngineImpl.caseShape(" Главный  Бухгалтер "));
+        Assertions.assertEquals(1 | 2 << 2, InflectionEngineImpl.caseShape("ООО Ромашка"));
+        Assertions.assertEquals(-1, InflectionEngineImpl.caseShape("МосГаз"));
+        Assertions.assertEquals(-1, InflectionEngineImpl.caseShape("а ".repeat(40)));
+    }
+
+    @Test
+    public void testBounded() {
+        PhraseCache cache = new PhraseCache(64);
+        for (int i = 0; i < 1000; i++) {
+            PhraseCache.Key k = key("w" + i);
+            Assertions.assertNull(cache.get(k));
+            cache.put(k, "v" + i);
+        }
+        Assertions.assertEquals(64, cache.size());
+        Assertions.assertEquals(1000, cache.missCount());
+        Assertions.assertEquals(0, cache.hitCount());
+        cache.clear();
+        Assertions.assertEquals(0, cache.size());
+    }
+
+    @Test
+    public void testFrequentEntriesSurviveScan() {
+        PhraseCache cache = new PhraseCache(64);
+        List<PhraseCache.Key> hot = new ArrayList<>();
+        for (int i = 0; i < 48; i++) {
+            hot.add(key("hot" + i));
+        }
+        // a plain LRU would lose the hot keys: there are more than 16 one-off keys between their accesses
+        for (int i = 0; i < 10_000; i++) {
+            for (PhraseCache.Key k : List.of(hot.get(i % hot.size()), key("cold" + i))) {
+                if (cache.get(k) == null) {
+                    cache.put(k, k.toString());
+                }
+            }
+        }
+        long found = hot.stream().filter(k -> cache.get(k) != null).count();
+        Assertions.assertTrue(found >= 40, "Hot entries are lost: " + found + ", " + cache);
+        Assertions.assertTrue(cache.evictionCount() > 0);
+        Assertions.assertTrue(cache.size() <= 64);
+    }
+
+    @Test
+    public void testConcurrent() throws Exception {
+        InflectionEngineImpl plain = new InflectionEngineImpl(null);
+        InflectionEngineImpl cached = new InflectionEngineImpl(new PhraseCache(8));
+        String[] names = {"Петр", "Иван", "Сергей", "Никита", "Илья", "Павел", "Олег", "Игорь", "Лев", "Юрий"};
+        ExecutorService executor = Executors.newFixedThreadPool(4);
+        try {
+            List<Future<?>> res = new ArrayList<>();
+            for (int t = 0; t < 4; t++) {
+                res.add(executor.submit(() -> {
+                    for (int i = 0; i < 2000; i++) {
+                        String name = names[i % names.length];
+                        Case c = Case.values()[i % Case.values().length];
+                        Assertions.assertEquals(plain.inflectFirstname(name, c, Gender.MALE),
+                                cached.inflectFirstname(name, c, Gender.MALE));
+                    }
+                }));
+            }
+            for (Future<?> f : res) {
+                f.get();
+            }
+        } finally {
+            executor.shutdown();
+        }
+        Assertions.assertTrue(cached.cache().size() <= 8);
+        Assertions.assertTrue(cached.cache().hitCount() > 0);
+    }
+
+    @Test
+    public void testClearedOnOverlayReload(@TempDir Path dir) throws Exception {
+        InflectionEngineImpl engine = new InflectionEngineImpl(new PhraseCache(100));
+        DictionaryOverlay overlay = Dictionary.getNounDictionary().overlay();
+        Path file = dir.resolve("nouns.csv");
+        Files.write(file, List.of(HEADER, String.format(BLOCKCHAIN, 0)), StandardCharsets.UTF_8);
+        overlay.add(file);
+        try {
+            Assertions.assertEquals("блокчейна", engine.inflectRegularTerm("блокчейн", Case.GENITIVE, null));
+            Assertions.assertEquals("блокчейна", engine.inflectRegularTerm("блокчейн", Case.GENITIVE, null));
+            Assertions.assertEquals(1, engine.cache().hitCount());
+
+            // now indeclinable
+            Files.write(file, List.of(HEADER, String.format(BLOCKCHAIN, 1)), StandardCharsets.UTF_8);
+            Assertions.assertTrue(overlay.reload());
+            Assertions.assertEquals("блокчейн", engine.inflectRegularTerm("блокчейн", Case.GENITIVE, null));
+            Assertions.assertEquals(1, engine.cache().size());
+        } finally {
+            overlay.remove(file);
+        }
+        Assertions.assertEquals("блокчейна", engine.inflectRegularTerm("блокчейн", Case.GENITIVE, null));
+    }
+}
@@ -2,22 +2,33 @@ package pro.greendata.rugrammartools.impl;
 
 import org.junit.jupiter.api.Assertions;
 import org.junit.jupiter.api.Test;
+import pro.greendata.rugrammartools.Case;
 import pro.greendata.rugrammartools.Gender;
 import pro.greendata.rugrammartools.impl.Phrase.Type;
 
 import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
 
 /**
  * Created by @ssz on 19.03.2022.
  */
 public class PhraseTest {
 
+    private static List<String> words(Phrase p) {
+        return IntStream.range(0, p.length()).mapToObj(p::original).collect(Collectors.toList());
+    }
+
+    private static List<String> separators(Phrase p) {
+        return IntStream.rangeClosed(0, p.length()).mapToObj(p::separator).collect(Collectors.toList());
+    }
+
     @Test
     public void testParsePhrase1() {
         String s = " AA BbB \tGggG ";
         Phrase p = Phrase.parse(s, Type.ANY, null, null);
-        Assertions.assertEquals(List.of(" ", " ", " \t", " "), p.separators);
-        Assertions.assertEquals(List.of("AA", "BbB", "GggG"), p.words);
+        Assertions.assertEquals(List.of(" ", " ", " \t", " "), separators(p));
+        Assertions.assertEquals(List.of("AA", "BbB", "GggG"), words(p));
         Assertions.assertEquals(List.of("aa", "bbb", "gggg"), p.keys);
         Assertions.assertEquals(3, p.details.size());
         Assertions.assertNull(p.gender);
@@ -29,8 +40,8 @@ public class PhraseTest {
     public void testParsePhrase2() {
         String s = "ааА\tБ\tввв ' Ддд ззз жжж'\n";
         Phrase p = Phrase.parse(s, Type.ANY, Gender.NEUTER, false);
-        Assertions.assertEquals(List.of("", "\t", "\t", " ", "\n"), p.separators);
-        Assertions.assertEquals(List.of("ааА", "Б", "ввв", "' Ддд ззз жжж'"), p.words);
+        Assertions.assertEquals(List.of("", "\t", "\t", " ", "\n"), separators(p));
+        Assertions.assertEquals(List.of("ааА", "Б", "ввв", "' Ддд ззз жжж'"), words(p));
         Assertions.assertEquals(List.of("ааа", "б", "ввв", "' ддд ззз жжж'"), p.keys);
         Assertions.assertEquals(4, p.details.size());
         Assertions.assertEquals(Gender.NEUTER, p.gender);
@@ -49,4 +60,19 @@ public class PhraseTest {
         p.set(1, "G");
         Assertions.assertEquals("D g C", p.compose());
     }
+
+    @Test
+    public void testTrailingHyphen() {
+        String s = "тест-";
+        Phrase p = Phrase.parse(s, Type.ANY, null, null);
+        Assertions.assertEquals(List.of("тест"), words(p));
+        Assertions.assertEquals(List.of("", "-"), separators(p));
+        Assertions.assertEquals(s, p.compose());
+
+        Phrase.Mutable m = p.toMutable();
+        m.set(0, "теста");
+        Assertions.assertEquals("теста-", m.compose());
+        // the hyphen is kept in the result
+        Assertions.assertEquals("теста-", new InflectionEngineImpl(null).inflectRegularTerm(s, Case.GENITIVE, false));
+    }
 }
@@ -0,0 +1,148 @@
+package pro.greendata.rugrammartools.impl;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import pro.greendata.rugrammartools.Gender;
+import pro.greendata.rugrammartools.impl.utils.TextUtils;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.net.URISyntaxException;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Objects;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+public class RuleSetTest {
+    private static final Boolean[] FLAGS = {null, true, false};
+
+    @Test
+    public void testFindRuleFirstMatch() {
+        Rule a = new Rule(new String[]{"ов"}, new String[]{"а", "у", "а", "ым", "е"}, Gender.MALE, null, null, null);
+        Rule b = new Rule(new String[]{"в", "ова"}, new String[]{".", ".", ".", ".", "."}, Gender.NEUTER, null, null, null);
+        Rule c = new Rule(new String[]{"ов"}, new String[]{"x", "x", "x", "x", "x"}, Gender.MALE, null, true, null);
+        RuleSet set = new RuleSet(List.of(), List.of(a, b, c));
+        Assertions.assertSame(a, RuleSet.findRule("петров", Gender.MALE, null, null, null, set));
+        Assertions.assertSame(c, RuleSet.findRule("петров", Gender.MALE, null, true, null, set));
+        Assertions.assertSame(b, RuleSet.findRule("петров", Gender.FEMALE, null, null, null, set));
+        Assertions.assertSame(b, RuleSet.findRule("петрова", Gender.FEMALE, null, null, null, set));
+        Assertions.assertNull(RuleSet.findRule("петр", Gender.MALE, null, null, null, set));
+    }
+
+    @Test
+    public void testFindRuleSameAsLinearScan() {
+        Set<String> words = Stream.of("first_names_female.txt", "first_names_male.txt", "last_names_female.txt",
+                        "last_names_male.txt", "patronymic_names_female.txt", "patronymic_names_male.txt",
+                        "professions.txt", "organizations.txt", "misc_terms.txt", "numerals.txt")
+                .flatMap(RuleSetTest::words).collect(Collectors.toCollection(TreeSet::new));
+        Assertions.assertFalse(words.isEmpty());
+        for (RuleSet set : List.of(RuleLibrary.LAST_NAME_RULES, RuleLibrary.FIRST_NAME_RULES,
+                RuleLibrary.PATRONYMIC_NAME_RULES, RuleLibrary.REGULAR_TERM_RULES, RuleLibrary.NUMERALS_RULES)) {
+            for (String w : words) {
+                for (Gender g : Gender.values()) {
+                    for (PartOfSpeech pos : new PartOfSpeech[]{null, PartOfSpeech.NOUN, PartOfSpeech.ADJECTIVE}) {
+                        for (Boolean animate : FLAGS) {
+                            for (Boolean plural : FLAGS) {
+                                assertSameRule(set, w, g, pos, animate, plural);
+                            }
+                        }
+                    }
+                }
+            }
+        }
+    }
+
+    private static void assertSameRule(RuleSet set, String w, Gender g, PartOfSpeech pos, Boolean animate, Boolean plural) {
+        Rule expected;
+        try {
+            expected = LinearScan.findRule(w, g, pos, animate, plural, set);
+        } catch (IllegalStateException ex) {
+            Assertions.assertThrows(IllegalStateException.class, () -> RuleSet.findRule(w, g, pos, animate, plural, set));
+            return;
+        }
+        Assertions.assertSame(expected, RuleSet.findRule(w, g, pos, animate, plural, set),
+                () -> String.format("Wrong rule for '%s' (%s, %s, %s, %s)", w, g, pos, animate, plural));
+    }
+
+    private static Stream<String> words(String file) {
+        try {
+            return Files.readAllLines(Paths.get(Objects.requireNonNull(RuleSetTest.class.getResource("/" + file)).toURI()))
+                    .stream()
+                    .map(s -> s.replaceFirst("#.*", ""))
+                    .flatMap(s -> Arrays.stream(s.split("[,\\s|\\[\\]-]+")))
+                    .map(TextUtils::normalize)
+                    .filter(s -> !s.isEmpty());
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        } catch (URISyntaxException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    /**
+     * The reference (previous) implementation: scans every rule.
+     */
+    private static class LinearScan {
+        private static final Comparator<Rule> BY_ANIMATE_COMPARATOR = Comparator.comparingInt((Rule r) -> toInt(r.animate)).reversed();
+        private static final Comparator<Rule> BY_PLURAL_COMPARATOR = Comparator.comparingInt((Rule r) -> toInt(r.plural)).reversed();
+        private static final Comparator<Rule> BY_PART_OF_SPEECH_COMPARATOR = Comparator.comparingInt((Rule r) -> toInt(r.partOfSpeech)).reversed();
+
+        static Rule findRule(String word, Gender gender, PartOfSpeech partOfSpeech, Boolean animate, Boolean plural, RuleSet rules) {
+            Rule exceptionRule = findRule(rules.exceptions, word, gender, partOfSpeech, animate, plural);
+            if (exceptionRule != null && exceptionRule.matchGenderStrict(gender)) {
+                return exceptionRule;
+            }
+            Rule suffixRule = findRule(rules.suffixes, word, gender, partOfSpeech, animate, plural);
+            if (suffixRule != null && suffixRule.matchGenderStrict(gender)) {
+                return suffixRule;
+            }
+            return exceptionRule != null ? exceptionRule : suffixRule;
+        }
+
+        private static Rule findRule(List<Rule> rules, String word, Gender gender, PartOfSpeech pos, Boolean animate, Boolean plural) {
+            List<Rule> byEnding = rules.stream().filter(r -> r.match(word)).collect(Collectors.toList());
+            if (byEnding.isEmpty()) {
+                return null;
+            }
+            if (byEnding.size() == 1) {
+                return byEnding.get(0);
+            }
+            List<Rule> byGender = byEnding.stream()
+                    .filter(r -> r.matchGenderStrict(gender) || r.matchGenderStrict(Gender.NEUTER))
+                    .collect(Collectors.toList());
+            if (byGender.isEmpty()) {
+                throw new IllegalStateException();
+            }
+            if (byGender.size() == 1) {
+                return byGender.get(0);
+            }
+            if (plural == null && animate == null && pos == null) {
+                return byGender.get(0);
+            }
+            Comparator<Rule> comp = null;
+            if (animate != null) {
+                comp = BY_ANIMATE_COMPARATOR;
+            }
+            if (plural != null) {
+                comp = comp == null ? BY_PLURAL_COMPARATOR : comp.thenComparing(BY_PLURAL_COMPARATOR);
+            }
+            if (pos != null) {
+                comp = comp == null ? BY_PART_OF_SPEECH_COMPARATOR : comp.thenComparing(BY_PART_OF_SPEECH_COMPARATOR);
+            }
+            return byGender.stream()
+                    .sorted(comp)
+                    .filter(r -> r.matchAnimateLenient(animate) && r.matchPluralLenient(plural) && r.matchPartOfSpeechLenient(pos))
+                    .findFirst().orElse(null);
+        }
+
+        private static <X> int toInt(X v) {
+            return v == null ? -1 : 1;
+        }
+    }
+}
@@ -0,0 +1,48 @@
+package pro.greendata.rugrammartools.impl.dictionaries;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.Map;
+import java.util.concurrent.ForkJoinPool;
+
+/**
+ * A simple benchmark, that compares single-threaded and parallel parsing of a dictionary csv-file.
+ * It is not a test and is not run by maven.
+ * <p>
+ * Usage: {@code DictionaryLoadBenchmark [nouns.csv [iterations]]};
+ * if no file is given, a synthetic ~5MB csv-content (5_141_796 bytes) is generated from the test resources.
+ */
+public class DictionaryLoadBenchmark {
+
+    public static void main(String... args) throws IOException {
+        NounDictionary dictionary = new NounDictionary("/dictionaries/nouns.csv");
+        byte[] csv = args.length > 0 ? Files.readAllBytes(Paths.get(args[0])) :
+                DictionaryLoadTest.replicate(DictionaryLoadTest.readResource("/dictionaries/nouns.csv"), 1500);
+        int iterations = args.length > 1 ? Integer.parseInt(args[1]) : 20;
+        int chunks = Math.max(1, 2 * ForkJoinPool.getCommonPoolParallelism());
+        System.out.printf("csv: %d bytes, parallelism: %d, chunks: %d%n",
+                csv.length, ForkJoinPool.getCommonPoolParallelism(), chunks);
+        for (int round = 0; round < 2; round++) { // the first round is a warm-up
+            long single = run(dictionary, csv, 1, iterations);
+            long parallel = run(dictionary, csv, chunks, iterations);
+            System.out.printf("%s: single-threaded %.1f ms, parallel %.1f ms, speedup x%.2f%n",
+                    round == 0 ? "warm-up" : "result ", single / 1e6, parallel / 1e6, (double) single / parallel);
+        }
+    }
+
+    private static long run(Dictionary dictionary, byte[] csv, int chunks, int iterations) {
+        long best = Long.MAX_VALUE;
+        int size = 0;
+        for (int i = 0; i < iterations; i++) {
+            long start = System.nanoTime();
+            Map<String, Dictionary.Record> res = Dictionary.load(csv, 26900, dictionary.parser(), chunks);
+            best = Math.min(best, System.nanoTime() - start);
+            size += res.size();
+        }
+        if (size == 0) {
+            throw new IllegalStateException();
+        }
+        return best;
+    }
+}
@@ -0,0 +1,91 @@
+package pro.greendata.rugrammartools.impl.dictionaries;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.URISyntaxException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.Map;
+import java.util.Objects;
+
+public class DictionaryLoadTest {
+
+    static byte[] readResource(String resource) throws IOException {
+        try (InputStream in = Objects.requireNonNull(DictionaryLoadTest.class.getResourceAsStream(resource))) {
+            return in.readAllBytes();
+        }
+    }
+
+    /**
+     * Makes a big csv-content from the given one by repeating its rows with modified keys;
+     * every {@code 7}th copy keeps the original keys, to produce {@link Dictionary.MultiRecord}s.
+     *
+     * @param csv    {@code byte[]}
+     * @param copies {@code int}
+     * @return {@code byte[]}
+     */
+    static byte[] replicate(byte[] csv, int copies) {
+        String[] lines = new String(csv, StandardCharsets.UTF_8).split("\n");
+        StringBuilder res = new StringBuilder(lines[0]).append('\n');
+        for (int i = 0; i < copies; i++) {
+            String suffix = i % 7 == 0 ? "" : "ик" + i;
+            for (int j = 1; j < lines.length; j++) {
+                int tab = lines[j].indexOf('\t');
+                res.append(lines[j], 0, tab).append(suffix).append(lines[j], tab, lines[j].length()).append('\n');
+            }
+        }
+        return res.toString().getBytes(StandardCharsets.UTF_8);
+    }
+
+    @Test
+    public void testSplitLines() {
+        byte[] content = "a\nbb\nccc\nd".getBytes(StandardCharsets.UTF_8);
+        Assertions.assertArrayEquals(new int[]{0, 10}, Dictionary.splitLines(content, 1));
+        Assertions.assertArrayEquals(new int[]{0, 9, 10}, Dictionary.splitLines(content, 2));
+        Assertions.assertArrayEquals(new int[]{0, 2, 5, 9, 10}, Dictionary.splitLines(content, 10));
+        Assertions.assertArrayEquals(new int[]{0, 3}, Dictionary.splitLines("ab\n".getBytes(StandardCharsets.UTF_8), 3));
+        Assertions.assertArrayEquals(new int[]{0, 0}, Dictionary.splitLines(new byte[0], 4));
+    }
+
+    @Test
+    public void testParallelLoadKeepsOrder() throws IOException {
+        NounDictionary nouns = new NounDictionary("/dictionaries/nouns.csv");
+        AdjectiveDictionary adjectives = new AdjectiveDictionary("/dictionaries/adjectives.csv");
+        assertSameLoad(nouns, replicate(readResource("/dictionaries/nouns.csv"), 300));
+        assertSameLoad(adjectives, replicate(readResource("/dictionaries/adjectives.csv"), 300));
+        assertSameLoad(nouns, readResource("/dictionaries/nouns.csv"));
+    }
+
+    @Test
+    public void testLoadIgnoresOtherSnapshotVersion() throws IOException, URISyntaxException {
+        // the snapshot must be on the class-path next to the csv-file
+        Path dir = Paths.get(Objects.requireNonNull(DictionaryLoadTest.class.getResource("/dictionaries/nouns.csv")).toURI())
+                .getParent();
+        Path csv = dir.resolve("stale-nouns.csv");
+        Path snapshot = dir.resolve("stale-nouns.bin");
+        try {
+            Files.write(csv, readResource("/dictionaries/nouns.csv"));
+            DictionarySnapshotTest.writeHeader(snapshot, (short) (DictionarySnapshot.VERSION - 1));
+            NounDictionary nouns = new NounDictionary("/dictionaries/nouns.csv");
+            Map<String, Dictionary.Record> res = Dictionary.load("/dictionaries/stale-nouns.csv", 100,
+                    nouns.parser(), NounDictionary.Word::read);
+            Assertions.assertEquals(DictionarySnapshotTest.parse(nouns, "/dictionaries/nouns.csv"), res);
+        } finally {
+            Files.deleteIfExists(csv);
+            Files.deleteIfExists(snapshot);
+        }
+    }
+
+    private static void assertSameLoad(Dictionary dictionary, byte[] csv) {
+        Map<String, Dictionary.Record> expected = Dictionary.load(csv, 100, dictionary.parser(), 1);
+        Assertions.assertTrue(expected.values().stream().anyMatch(Dictionary.MultiRecord.class::isInstance));
+        for (int chunks : new int[]{2, 3, 16, 64}) {
+            Assertions.assertEquals(expected, Dictionary.load(csv, 100, dictionary.parser(), chunks));
+        }
+    }
+}
@@ -0,0 +1,115 @@
+package pro.greendata.rugrammartools.impl.dictionaries;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import pro.greendata.rugrammartools.CaseForms;
+import pro.greendata.rugrammartools.Gender;
+import pro.greendata.rugrammartools.Unit;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.List;
+import java.util.function.BooleanSupplier;
+
+public class DictionaryOverlayTest {
+    static final String HEADER = "bare\taccented\ttranslations_en\ttranslations_de\tgender\tpartner\tanimate" +
+            "\tindeclinable\tsg_only\tpl_only\tsg_nom\tsg_gen\tsg_dat\tsg_acc\tsg_inst\tsg_prep" +
+            "\tpl_nom\tpl_gen\tpl_dat\tpl_acc\tpl_inst\tpl_prep";
+    static final String BLOCKCHAIN = "блокчейн\tблокче'йн\tblockchain\t\tm\t\t0\t0\t0\t0" +
+            "\tблокче'йн\tблокче'йна\tблокче'йну\tблокче'йн\tблокче'йном\tблокче'йне" +
+            "\tблокче'йны\tблокче'йнов\tблокче'йнам\tблокче'йны\tблокче'йнами\tблокче'йнах";
+    private static final String STARTUP = "стартап\tстарта'п\tstartup\t\tm\t\t0\t0\t0\t0" +
+            "\tстарта'п\tстарта'па\tстарта'пу\tстарта'п\tстарта'пом\tстарта'пе" +
+            "\tстарта'пы\tстарта'пов\tстарта'пам\tстарта'пы\tстарта'пами\tстарта'пах";
+    private static final String CASTLE = "замок\tза'мок\tlock\t\tf\t\t1\t0\t0\t0" +
+            "\tза'мок\tза'мка\tза'мку\tза'мок\tза'мком\tза'мке" +
+            "\tза'мки\tза'мков\tза'мкам\tза'мки\tза'мками\tза'мках";
+
+    private static void write(Path file, String... lines) throws IOException {
+        Path tmp = file.resolveSibling(file.getFileName() + ".tmp");
+        Files.write(tmp, List.of(lines), StandardCharsets.UTF_8);
+        Files.move(tmp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    private static void await(BooleanSupplier condition) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + 30_000;
+        while (!condition.getAsBoolean()) {
+            Assertions.assertTrue(System.currentTimeMillis() < deadline, "Timeout");
+            Thread.sleep(20);
+        }
+    }
+
+    @Test
+    public void testOverlay(@TempDir Path dir) throws Exception {
+        NounDictionary dictionary = new NounDictionary("/dictionaries/nouns.csv");
+        Path file = dir.resolve("my-nouns.csv");
+        write(file, HEADER, BLOCKCHAIN, CASTLE);
+        try (DictionaryOverlay overlay = dictionary.overlay()) {
+            Assertions.assertFalse(dictionary.contains("блокчейн"));
+            overlay.add(file);
+            Assertions.assertEquals(List.of(file.toAbsolutePath()), overlay.files());
+            Assertions.assertEquals("а", dictionary.find("блокчейн", null, null, null).singularCases()[0]);
+            // overrides the built-in record
+            Assertions.assertEquals(Gender.FEMALE,
+                    dictionary.find("замок", null, null, null).gender());
+            Assertions.assertTrue(dictionary.contains("мир"));
+
+            write(file, HEADER, STARTUP);
+            await(() -> dictionary.contains("стартап"));
+            Assertions.assertFalse(dictionary.contains("блокчейн"));
+            Assertions.assertEquals(Gender.MALE,
+                    dictionary.find("замок", null, null, false).gender());
+
+            overlay.remove(file);
+            Assertions.assertFalse(dictionary.contains("стартап"));
+            Assertions.assertTrue(overlay.files().isEmpty());
+        }
+    }
+
+    @Test
+    public void testSeveralFiles(@TempDir Path dir) throws IOException {
+        DictionaryOverlay overlay = new DictionaryOverlay(new NounDictionary("/dictionaries/nouns.csv").parser());
+        Path a = dir.resolve("a.csv");
+        Path b = dir.resolve("b.csv");
+        write(a, BLOCKCHAIN, CASTLE);
+        write(b, STARTUP, CASTLE.replace("\tf\t", "\tm\t"));
+        try (overlay) {
+            overlay.add(a);
+            overlay.add(b);
+            Assertions.assertNotNull(overlay.get("блокчейн"));
+            Assertions.assertNotNull(overlay.get("стартап"));
+            Assertions.assertTrue(overlay.get("замок") instanceof Dictionary.MultiRecord);
+            Files.delete(b);
+            Assertions.assertTrue(overlay.reload());
+            Assertions.assertNull(overlay.get("стартап"));
+            Assertions.assertTrue(overlay.get("замок") instanceof NounDictionary.Word);
+            Assertions.assertThrows(UncheckedIOException.class, () -> overlay.add(dir.resolve("no-such-file.csv")));
+            Assertions.assertEquals(2, overlay.files().size());
+        }
+    }
+
+    @Test
+    public void testUnitsAreInvalidated(@TempDir Path dir) throws IOException {
+        String[] forms = {"шт.", "шт.", "шт.", "шт.", "шт.", "шт."};
+        Unit registered = new Unit("шт.", new CaseForms(forms, forms), Gender.FEMALE, false);
+        Unit.register(registered);
+        Path file = dir.resolve("units.csv");
+        write(file, HEADER, BLOCKCHAIN);
+        try (DictionaryOverlay overlay = new DictionaryOverlay(new NounDictionary("/dictionaries/nouns.csv").parser())) {
+            Unit prepared = Unit.of("рубль");
+            Assertions.assertSame(prepared, Unit.of("рубль"));
+            overlay.add(file);
+            // the prepared unit is built anew, the registered one is kept
+            Assertions.assertNotSame(prepared, Unit.of("рубль"));
+            Assertions.assertSame(registered, Unit.of("шт."));
+        } finally {
+            Unit.unregister("шт.");
+            Unit.unregister("рубль");
+        }
+    }
+}
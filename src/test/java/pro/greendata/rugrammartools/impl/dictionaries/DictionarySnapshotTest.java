@@ -0,0 +1,104 @@
+package pro.greendata.rugrammartools.impl.dictionaries;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.DataOutputStream;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.util.Map;
+import java.util.Objects;
+
+public class DictionarySnapshotTest {
+
+    static Map<String, Dictionary.Record> parse(Dictionary dictionary, String resource) throws IOException {
+        try (InputStream in = Objects.requireNonNull(DictionarySnapshotTest.class.getResourceAsStream(resource))) {
+            return dictionary.parse(in);
+        }
+    }
+
+    private static Map<String, Dictionary.Record> roundTrip(Map<String, Dictionary.Record> data,
+                                                            DictionarySnapshot.RecordReader reader) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        DictionarySnapshot.write(data, out);
+        return DictionarySnapshot.read(new ByteArrayInputStream(out.toByteArray()), reader);
+    }
+
+    @Test
+    public void testNounsRoundTrip() throws IOException {
+        NounDictionary dictionary = new NounDictionary("/dictionaries/nouns.csv");
+        Map<String, Dictionary.Record> expected = parse(dictionary, "/dictionaries/nouns.csv");
+        Assertions.assertTrue(expected.get("мир") instanceof Dictionary.MultiRecord);
+        Assertions.assertEquals(expected, roundTrip(expected, NounDictionary.Word::read));
+    }
+
+    @Test
+    public void testAdjectivesRoundTrip() throws IOException {
+        AdjectiveDictionary dictionary = new AdjectiveDictionary("/dictionaries/adjectives.csv");
+        Map<String, Dictionary.Record> expected = parse(dictionary, "/dictionaries/adjectives.csv");
+        Assertions.assertEquals(expected, roundTrip(expected, AdjectiveDictionary.Word::read));
+    }
+
+    @Test
+    public void testSnapshotPath() {
+        Assertions.assertEquals("/nouns.bin", DictionarySnapshot.snapshotPath("/nouns.csv"));
+        Assertions.assertEquals("/x.y/nouns.bin", DictionarySnapshot.snapshotPath("/x.y/nouns"));
+    }
+
+    /**
+     * Writes a header of the snapshot with the given version, as it would be left by a previous build.
+     *
+     * @param file    {@link Path}
+     * @param version {@code short}
+     * @throws IOException if an I/O error occurs
+     */
+    static void writeHeader(Path file, short version) throws IOException {
+        try (DataOutputStream out = new DataOutputStream(Files.newOutputStream(file))) {
+            out.writeInt(DictionarySnapshot.MAGIC);
+            out.writeShort(version);
+        }
+    }
+
+    @Test
+    public void testCompatible() throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        DictionarySnapshot.write(Map.of(), out);
+        Assertions.assertTrue(DictionarySnapshot.isCompatible(new ByteArrayInputStream(out.toByteArray())));
+        byte[] old = out.toByteArray();
+        old[5] = (byte) (DictionarySnapshot.VERSION - 1);
+        Assertions.assertFalse(DictionarySnapshot.isCompatible(new ByteArrayInputStream(old)));
+        Assertions.assertFalse(DictionarySnapshot.isCompatible(new ByteArrayInputStream("bare".getBytes())));
+        Assertions.assertFalse(DictionarySnapshot.isCompatible(new ByteArrayInputStream(new byte[0])));
+    }
+
+    @Test
+    public void testCompileRebuildsOtherVersion(@TempDir Path dir) throws IOException {
+        Path csv = dir.resolve("nouns.csv");
+        Path snapshot = dir.resolve("nouns.bin");
+        Files.write(csv, DictionaryLoadTest.readResource("/dictionaries/nouns.csv"));
+        NounDictionary dictionary = new NounDictionary("/dictionaries/nouns.csv");
+
+        writeHeader(snapshot, (short) (DictionarySnapshot.VERSION - 1));
+        // the stale snapshot is newer than the csv-file, but it has another version
+        Files.setLastModifiedTime(snapshot, FileTime.fromMillis(Files.getLastModifiedTime(csv).toMillis() + 60_000));
+        Assertions.assertTrue(DictionaryCompiler.compile(dictionary, csv));
+        try (InputStream in = Files.newInputStream(snapshot)) {
+            Assertions.assertEquals(parse(dictionary, "/dictionaries/nouns.csv"),
+                    DictionarySnapshot.read(in, NounDictionary.Word::read));
+        }
+        Files.setLastModifiedTime(snapshot, FileTime.fromMillis(Files.getLastModifiedTime(csv).toMillis() + 60_000));
+        Assertions.assertFalse(DictionaryCompiler.compile(dictionary, csv));
+    }
+
+    @Test
+    public void testWrongSnapshot() {
+        Assertions.assertThrows(IOException.class, () -> DictionarySnapshot.read(
+                new ByteArrayInputStream("bare\taccented".getBytes()), NounDictionary.Word::read));
+    }
+}
@@ -0,0 +1,78 @@
+package pro.greendata.rugrammartools.impl.dictionaries;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import pro.greendata.rugrammartools.Case;
+import pro.greendata.rugrammartools.Gender;
+import pro.greendata.rugrammartools.impl.PartOfSpeech;
+
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.List;
+
+public class FormIndexTest {
+    private static final FormIndex INDEX = FormIndex.build(new NounDictionary("/dictionaries/nouns.csv"),
+            new AdjectiveDictionary("/dictionaries/adjectives.csv"));
+
+    @Test
+    public void testFindNoun() {
+        Assertions.assertTrue(INDEX.size() > 0);
+        List<FormIndex.Form> res = INDEX.find("сапога");
+        Assertions.assertEquals(1, res.size());
+        FormIndex.Form form = res.get(0);
+        Assertions.assertEquals("сапог", form.lemma());
+        Assertions.assertEquals(PartOfSpeech.NOUN, form.partOfSpeech());
+        Assertions.assertEquals(Case.GENITIVE, form.declension());
+        Assertions.assertEquals(Gender.MALE, form.gender());
+        Assertions.assertFalse(form.isPlural());
+        Assertions.assertEquals("сапог", form.nominative());
+
+        Assertions.assertTrue(INDEX.find("сапогами").stream()
+                .anyMatch(x -> x.declension() == Case.INSTRUMENTAL && x.isPlural() && "сапоги".equals(x.nominative())));
+        Assertions.assertTrue(INDEX.find("xxx").isEmpty());
+    }
+
+    @Test
+    public void testFindAdjective() {
+        List<FormIndex.Form> res = INDEX.find("новой");
+        Assertions.assertFalse(res.isEmpty());
+        Assertions.assertTrue(res.stream().allMatch(x -> x.partOfSpeech() == PartOfSpeech.ADJECTIVE
+                && x.gender() == Gender.FEMALE && "новая".equals(x.nominative()) && "новый".equals(x.lemma())));
+        Assertions.assertTrue(res.stream().anyMatch(x -> x.declension() == Case.GENITIVE));
+        Assertions.assertTrue(res.stream().anyMatch(x -> x.declension() == Case.INSTRUMENTAL));
+    }
+
+    @Test
+    public void testOwnedByDictionary(@TempDir Path dir) throws Exception {
+        NounDictionary dictionary = new NounDictionary("/dictionaries/nouns.csv");
+        dictionary.setRetentionPolicy(RetentionPolicy.strong());
+        FormIndex index = dictionary.formIndex();
+        Assertions.assertSame(index, dictionary.formIndex());
+        Assertions.assertFalse(index.find("сапога").isEmpty());
+        Assertions.assertTrue(index.find("новой").isEmpty());
+        Assertions.assertTrue(index.find("блокчейна").isEmpty());
+
+        Path file = dir.resolve("nouns.csv");
+        Files.write(file, List.of(DictionaryOverlayTest.HEADER, DictionaryOverlayTest.BLOCKCHAIN), StandardCharsets.UTF_8);
+        try (DictionaryOverlay overlay = dictionary.overlay()) {
+            overlay.add(file);
+            FormIndex res = dictionary.formIndex();
+            Assertions.assertNotSame(index, res);
+            Assertions.assertEquals("блокчейн", res.find("блокчейна").get(0).nominative());
+            Assertions.assertSame(res, dictionary.formIndex());
+
+            overlay.remove(file);
+            Assertions.assertTrue(dictionary.formIndex().find("блокчейна").isEmpty());
+        }
+
+        // the index is kept according to the retention policy
+        index = dictionary.formIndex();
+        dictionary.setRetentionPolicy(RetentionPolicy.idle(Duration.ofMillis(50)));
+        Assertions.assertSame(index, dictionary.formIndex());
+        Thread.sleep(500);
+        Assertions.assertNotSame(index, dictionary.formIndex());
+    }
+}
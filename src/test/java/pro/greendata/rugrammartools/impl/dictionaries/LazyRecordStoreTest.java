@@ -0,0 +1,69 @@
+package pro.greendata.rugrammartools.impl.dictionaries;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Map;
+
+public class LazyRecordStoreTest {
+
+    private static void assertSameAsEager(Dictionary dictionary, byte[] csv) {
+        assertSameAsEager(dictionary, csv, new LazyRecordStore(csv, dictionary.keys(), dictionary.parser()));
+    }
+
+    private static void assertSameAsEager(Dictionary dictionary, byte[] csv, LazyRecordStore actual) {
+        Map<String, Dictionary.Record> expected = Dictionary.load(csv, 100, dictionary.parser(), 1);
+        Assertions.assertEquals(expected.size(), actual.size());
+        Assertions.assertEquals(0, actual.decoded());
+        expected.forEach((k, v) -> Assertions.assertEquals(v, actual.get(k), "Wrong record for " + k));
+        Assertions.assertEquals(expected.size(), actual.decoded());
+        Assertions.assertNull(actual.get("несуществующее"));
+        Assertions.assertNull(actual.get(""));
+    }
+
+    @Test
+    public void testNouns() throws IOException {
+        NounDictionary dictionary = new NounDictionary("/dictionaries/nouns.csv");
+        byte[] csv = DictionaryLoadTest.readResource("/dictionaries/nouns.csv");
+        assertSameAsEager(dictionary, csv);
+        assertSameAsEager(dictionary, DictionaryLoadTest.replicate(csv, 30));
+        assertSameAsEager(dictionary, new String(csv, StandardCharsets.UTF_8).replace("\n", "\r\n")
+                .getBytes(StandardCharsets.UTF_8));
+    }
+
+    @Test
+    public void testAdjectives() throws IOException {
+        AdjectiveDictionary dictionary = new AdjectiveDictionary("/dictionaries/adjectives.csv");
+        byte[] csv = DictionaryLoadTest.readResource("/dictionaries/adjectives.csv");
+        assertSameAsEager(dictionary, csv);
+        assertSameAsEager(dictionary, ("\n\n" + new String(csv, StandardCharsets.UTF_8) + "\r\rx\n")
+                .getBytes(StandardCharsets.UTF_8));
+    }
+
+    @Test
+    public void testMappedFile(@TempDir Path dir) throws IOException {
+        NounDictionary dictionary = new NounDictionary("/dictionaries/nouns.csv");
+        byte[] csv = DictionaryLoadTest.replicate(DictionaryLoadTest.readResource("/dictionaries/nouns.csv"), 3);
+        Path file = Files.write(dir.resolve("nouns.csv"), csv);
+        assertSameAsEager(dictionary, csv, LazyRecordStore.open(file, dictionary.keys(), dictionary.parser()));
+        assertSameAsEager(dictionary, csv, LazyRecordStore.open(new ByteArrayInputStream(csv),
+                dictionary.keys(), dictionary.parser()));
+    }
+
+    @Test
+    public void testMemoized() throws IOException {
+        NounDictionary dictionary = new NounDictionary("/dictionaries/nouns.csv");
+        LazyRecordStore store = new LazyRecordStore(DictionaryLoadTest.readResource("/dictionaries/nouns.csv"),
+                dictionary.keys(), dictionary.parser());
+        Dictionary.Record record = store.get("мир");
+        Assertions.assertTrue(record instanceof Dictionary.MultiRecord);
+        Assertions.assertSame(record, store.get("мир"));
+        Assertions.assertEquals(1, store.decoded());
+    }
+}
@@ -0,0 +1,96 @@
+package pro.greendata.rugrammartools.impl.dictionaries;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+
+public class MappedRecordStoreTest {
+
+    private static void assertStore(Map<String, Dictionary.Record> expected, MappedRecordStore actual) {
+        Assertions.assertEquals(expected.size(), actual.size());
+        expected.forEach((k, v) -> Assertions.assertEquals(v, actual.get(k), "Wrong record for " + k));
+        Assertions.assertNull(actual.get("несуществующее"));
+        Assertions.assertNull(actual.get(""));
+    }
+
+    @Test
+    public void testNouns(@TempDir Path dir) throws IOException {
+        Map<String, Dictionary.Record> expected = DictionarySnapshotTest.parse(
+                new NounDictionary("/dictionaries/nouns.csv"), "/dictionaries/nouns.csv");
+        Path file = dir.resolve("nouns.map");
+        assertStore(expected, MappedRecordStore.open(file, 42, () -> expected, NounDictionary.Word::read));
+        Assertions.assertTrue(expected.get("мир") instanceof Dictionary.MultiRecord);
+    }
+
+    @Test
+    public void testAdjectives(@TempDir Path dir) throws IOException {
+        Map<String, Dictionary.Record> expected = DictionarySnapshotTest.parse(
+                new AdjectiveDictionary("/dictionaries/adjectives.csv"), "/dictionaries/adjectives.csv");
+        Path file = dir.resolve("adjectives.map");
+        assertStore(expected, MappedRecordStore.open(file, 42, () -> expected, AdjectiveDictionary.Word::read));
+    }
+
+    @Test
+    public void testParadigmsAreShared(@TempDir Path dir) throws IOException {
+        Map<String, Dictionary.Record> expected = DictionarySnapshotTest.parse(
+                new NounDictionary("/dictionaries/nouns.csv"), "/dictionaries/nouns.csv");
+        MappedRecordStore store = MappedRecordStore.open(dir.resolve("nouns.map"), 42, () -> expected,
+                NounDictionary.Word::read);
+        NounDictionary.Word first = (NounDictionary.Word) store.get("сапог");
+        int paradigms = NounDictionary.Word.PARADIGMS.size();
+        for (int i = 0; i < 10; i++) {
+            NounDictionary.Word next = (NounDictionary.Word) store.get("сапог");
+            Assertions.assertNotSame(first, next);
+            Assertions.assertSame(first.paradigm(), next.paradigm());
+        }
+        Assertions.assertSame(((NounDictionary.Word) expected.get("сапог")).paradigm(), first.paradigm());
+        // nothing is registered by the reads (unused paradigms of other tests can be dropped meanwhile)
+        Assertions.assertTrue(NounDictionary.Word.PARADIGMS.size() <= paradigms);
+    }
+
+    @Test
+    public void testReopenAndRebuild(@TempDir Path dir) throws IOException {
+        Map<String, Dictionary.Record> expected = DictionarySnapshotTest.parse(
+                new NounDictionary("/dictionaries/nouns.csv"), "/dictionaries/nouns.csv");
+        Path file = dir.resolve("nouns.map");
+        AtomicInteger builds = new AtomicInteger();
+        MappedRecordStore.open(file, 1, () -> {
+            builds.incrementAndGet();
+            return expected;
+        }, NounDictionary.Word::read);
+        assertStore(expected, MappedRecordStore.open(file, 1, () -> {
+            builds.incrementAndGet();
+            return expected;
+        }, NounDictionary.Word::read));
+        Assertions.assertEquals(1, builds.get());
+
+        Map<String, Dictionary.Record> changed = new HashMap<>(expected);
+        changed.remove("мир");
+        assertStore(changed, MappedRecordStore.open(file, 2, () -> {
+            builds.incrementAndGet();
+            return changed;
+        }, NounDictionary.Word::read));
+        Assertions.assertEquals(2, builds.get());
+        Assertions.assertEquals(1, Files.list(dir).count());
+    }
+
+    @Test
+    public void testEmpty(@TempDir Path dir) throws IOException {
+        MappedRecordStore store = MappedRecordStore.open(dir.resolve("empty.map"), 0, Map::of, NounDictionary.Word::read);
+        Assertions.assertEquals(0, store.size());
+        Assertions.assertNull(store.get("мир"));
+    }
+
+    @Test
+    public void testMappedFileName() {
+        Assertions.assertEquals("nouns.map", Dictionary.mappedFileName("/nouns.csv"));
+        Assertions.assertEquals("adjectives.map", Dictionary.mappedFileName("/x/adjectives.csv"));
+    }
+}
@@ -0,0 +1,65 @@
+package pro.greendata.rugrammartools.impl.dictionaries;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import pro.greendata.rugrammartools.Gender;
+
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+public class NounDictionaryTest {
+    private static final Boolean[] FLAGS = {null, true, false};
+
+    /**
+     * The former implementation of {@link NounDictionary#selectSingleRecord(Dictionary.Record, Gender, Boolean, Boolean)}.
+     */
+    private static NounDictionary.Word select(Dictionary.MultiRecord multi, Gender gender, Boolean animated, Boolean isPlural) {
+        List<NounDictionary.Word> res = Arrays.stream(multi.words)
+                .map(r -> (NounDictionary.Word) r)
+                .sorted(Dictionary.BaseRecordImpl.FULLNESS_COMPARATOR)
+                .filter(w -> (gender == null || w.gender() == gender) && (animated == null || w.animate() == animated)
+                        && (isPlural == null || w.isPluralKey() == isPlural))
+                .collect(Collectors.toList());
+        if (res.isEmpty()) {
+            return (NounDictionary.Word) multi.words[0];
+        }
+        return res.get(0);
+    }
+
+    @Test
+    public void testSelectSingleRecord() throws IOException {
+        NounDictionary dictionary = new NounDictionary("/dictionaries/nouns.csv");
+        byte[] csv = DictionaryLoadTest.replicate(DictionaryLoadTest.readResource("/dictionaries/nouns.csv"), 8);
+        Map<String, Dictionary.Record> data = Dictionary.load(csv, 100, dictionary.parser(), 1);
+        List<Dictionary.MultiRecord> multi = data.values().stream()
+                .filter(Dictionary.MultiRecord.class::isInstance)
+                .map(Dictionary.MultiRecord.class::cast)
+                .collect(Collectors.toList());
+        Assertions.assertFalse(multi.isEmpty());
+        Gender[] genders = {null, Gender.MALE, Gender.FEMALE, Gender.NEUTER};
+        for (Dictionary.MultiRecord record : multi) {
+            for (Gender gender : genders) {
+                for (Boolean animated : FLAGS) {
+                    for (Boolean plural : FLAGS) {
+                        Assertions.assertSame(select(record, gender, animated, plural),
+                                dictionary.selectSingleRecord(record, gender, animated, plural),
+                                "Wrong selection for " + record + ": " + gender + ", " + animated + ", " + plural);
+                    }
+                }
+            }
+        }
+    }
+
+    @Test
+    public void testFind() {
+        NounDictionary dictionary = new NounDictionary("/dictionaries/nouns.csv");
+        Assertions.assertTrue(dictionary.contains("замок"));
+        Assertions.assertFalse(dictionary.contains("несуществующее"));
+        Assertions.assertNull(dictionary.find("несуществующее", null, null, null));
+        Assertions.assertSame(dictionary.find("мир", Gender.MALE, null, null),
+                dictionary.wordDetails("мир", Gender.MALE, null, null).orElseThrow(AssertionError::new));
+    }
+}
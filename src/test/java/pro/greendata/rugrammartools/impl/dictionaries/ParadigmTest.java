@@ -0,0 +1,86 @@
+package pro.greendata.rugrammartools.impl.dictionaries;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.CsvSource;
+import pro.greendata.rugrammartools.impl.utils.RuleUtils;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+public class ParadigmTest {
+
+    @ParameterizedTest
+    @CsvSource(delimiter = '|', value = {"замок|-ка", "замок|.", "кофе|''", "год|ы", "рубль|-ём", "мир|--а-б", "ab|--"})
+    public void testEndingSameAsChangeEnding(String word, String mod) {
+        Assertions.assertEquals(RuleUtils.changeEnding(word, mod), Paradigm.Ending.of(mod).apply(word));
+    }
+
+    @Test
+    public void testLongestAlternative() {
+        Paradigm.Table table = new Paradigm.Table();
+        Paradigm p = table.intern(new String[]{".", "-а,-ов,ами"}, null);
+        Assertions.assertTrue(p.has(0));
+        Assertions.assertFalse(p.has(1));
+        Assertions.assertFalse(p.has(2));
+        Assertions.assertEquals(3, p.endings(0, 1).length);
+        Assertions.assertEquals("годами", p.ending(0, 1).apply("год"));
+        Assertions.assertEquals("год", p.ending(0, 0).apply("год"));
+
+        p = table.intern(new String[]{"-ей,ов"});
+        Assertions.assertEquals("годов", p.ending(0, 0).apply("год"), "first of the longest must be chosen");
+    }
+
+    @Test
+    public void testIntern() {
+        Paradigm.Table table = new Paradigm.Table();
+        Paradigm a = table.intern(new String[]{"-а", "-у"}, null);
+        Assertions.assertSame(a, table.intern(new String[]{"-а", "-у"}, null));
+        Assertions.assertNotSame(a, table.intern(new String[]{"-а", "-у"}, new String[]{"-а", "-у"}));
+        List<Paradigm> paradigms = new ArrayList<>();
+        for (int i = 0; i < 200; i++) {
+            paradigms.add(table.intern(new String[]{String.valueOf(i)}));
+        }
+        Assertions.assertSame(paradigms.get(42), table.intern(new String[]{"42"}));
+        Assertions.assertEquals("[[-а, -у], null]", a.toString());
+        Assertions.assertTrue(table.size() >= 201);
+    }
+
+    @Test
+    public void testUnusedParadigmsAreDropped() throws InterruptedException {
+        Paradigm.Table table = new Paradigm.Table();
+        Paradigm used = table.intern(new String[]{"-а"});
+        for (int i = 0; i < 1000; i++) {
+            table.intern(new String[]{String.valueOf(i)});
+        }
+        for (int i = 0; i < 50 && table.size() > 1; i++) {
+            System.gc();
+            Thread.sleep(10);
+        }
+        Assertions.assertEquals(1, table.size());
+        Assertions.assertSame(used, table.intern(new String[]{"-а"}));
+    }
+
+    @Test
+    public void testRecordsShareParadigms() throws IOException {
+        Map<String, Dictionary.Record> nouns = DictionarySnapshotTest.parse(
+                new NounDictionary("/dictionaries/nouns.csv"), "/dictionaries/nouns.csv");
+        Set<Paradigm> paradigms = nouns.values().stream()
+                .filter(NounDictionary.Word.class::isInstance)
+                .map(r -> ((NounDictionary.Word) r).paradigm())
+                .collect(Collectors.toSet());
+        for (Paradigm p : paradigms) {
+            Assertions.assertSame(p, NounDictionary.Word.PARADIGMS.intern(
+                    p.group(NounDictionary.Word.SINGULAR), p.group(NounDictionary.Word.PLURAL)));
+        }
+        NounDictionary.Word word = (NounDictionary.Word) nouns.get("рубль");
+        Assertions.assertEquals(word.singular(), word.paradigm().mod(NounDictionary.Word.SINGULAR, 0));
+        Assertions.assertEquals(5, word.singularCases().length);
+        Assertions.assertEquals(word.pluralCases()[3], word.paradigm().mod(NounDictionary.Word.PLURAL, 4));
+    }
+}
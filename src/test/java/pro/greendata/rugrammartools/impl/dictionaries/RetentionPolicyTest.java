@@ -0,0 +1,71 @@
+package pro.greendata.rugrammartools.impl.dictionaries;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicInteger;
+
+public class RetentionPolicyTest {
+
+    @Test
+    public void testParse() {
+        Assertions.assertSame(RetentionPolicy.strong(), RetentionPolicy.parse("strong"));
+        Assertions.assertSame(RetentionPolicy.soft(), RetentionPolicy.parse(" Soft "));
+        Assertions.assertEquals("idle:PT10M", RetentionPolicy.parse("idle:pt10m").toString());
+        Assertions.assertThrows(IllegalArgumentException.class, () -> RetentionPolicy.parse("weak"));
+        Assertions.assertThrows(IllegalArgumentException.class, () -> RetentionPolicy.idle(Duration.ZERO));
+    }
+
+    @Test
+    public void testStrongHolder() {
+        RetentionPolicy.Holder<String> holder = RetentionPolicy.strong().newHolder(Assertions::fail);
+        Assertions.assertNull(holder.get());
+        holder.set("x");
+        Assertions.assertEquals("x", holder.get());
+        holder.clear();
+        Assertions.assertNull(holder.get());
+    }
+
+    @Test
+    public void testIdleHolder() throws InterruptedException {
+        AtomicInteger evictions = new AtomicInteger();
+        RetentionPolicy.Holder<String> holder = RetentionPolicy.idle(Duration.ofMillis(20))
+                .newHolder(evictions::incrementAndGet);
+        holder.set("x");
+        Assertions.assertEquals("x", holder.get());
+        long deadline = System.currentTimeMillis() + 10_000;
+        while (evictions.get() == 0) { // note: get() would prolong the life
+            Assertions.assertTrue(System.currentTimeMillis() < deadline);
+            Thread.sleep(10);
+        }
+        Assertions.assertNull(holder.get());
+        Assertions.assertEquals(1, evictions.get());
+        holder.set("y");
+        holder.clear();
+        Thread.sleep(60);
+        Assertions.assertEquals(1, evictions.get());
+    }
+
+    @Test
+    public void testDictionaryStats() throws InterruptedException {
+        NounDictionary dictionary = new NounDictionary("/dictionaries/nouns.csv");
+        dictionary.setRetentionPolicy(RetentionPolicy.strong());
+        Assertions.assertEquals(0, dictionary.stats().loadCount());
+        Assertions.assertTrue(dictionary.wordDetails("мир").isPresent());
+        Assertions.assertTrue(dictionary.wordDetails("замок").isPresent());
+        Assertions.assertEquals(1, dictionary.stats().loadCount());
+        Assertions.assertFalse(dictionary.stats().loadTime().isZero());
+        Assertions.assertEquals(dictionary.stats().loadTime(), dictionary.stats().lastLoadTime());
+
+        dictionary.setRetentionPolicy(RetentionPolicy.idle(Duration.ofMillis(20)));
+        long deadline = System.currentTimeMillis() + 10_000;
+        while (dictionary.stats().evictionCount() == 0) {
+            Assertions.assertTrue(System.currentTimeMillis() < deadline);
+            Thread.sleep(10);
+        }
+        Assertions.assertTrue(dictionary.wordDetails("мир").isPresent());
+        Assertions.assertEquals(2, dictionary.stats().loadCount());
+        Assertions.assertEquals(1, dictionary.stats().evictionCount());
+    }
+}